@@ -0,0 +1,509 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.algo.accessor;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.openrdf.model.URI;
+
+/**
+ * Compact store of the annotations of instances by classes, i.e. the
+ * statements instance RDF.TYPE class, which can be used instead of loading
+ * the annotations as edges of the graph.
+ *
+ * Instances and classes are associated to dense integer ids. The classes of
+ * the instances and the instances of the classes are stored in two arrays of
+ * sorted ids (CSR format), accessing the annotations of an instance therefore
+ * only requires array reads and the graph only contains the taxonomy.
+ *
+ * Annotations are buffered and indexed in batch when the store is queried.
+ * Adding annotations is thread-safe, annotations are however expected to be
+ * loaded before the store is queried. Each indexation publishes an immutable
+ * snapshot of the ids and of the annotations, queries read this snapshot
+ * without any lock. Only the lookups performed while annotations are being
+ * added and not yet indexed take the lock of the store.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class AnnotationStore implements InstanceAccessor {
+
+    // instances and classes registered since the last indexation
+    private final Map<URI, Integer> newInstanceIds = new HashMap<URI, Integer>();
+    private final List<URI> newInstances = new ArrayList<URI>();
+    private final Map<URI, Integer> newClassIds = new HashMap<URI, Integer>();
+    private final List<URI> newClasses = new ArrayList<URI>();
+    private long[] pending = new long[16];
+    private int nbPending;
+    private volatile Index index = Index.EMPTY;
+    private volatile boolean dirty;
+
+    /**
+     * Register an instance.
+     *
+     * @param instance the instance
+     * @return the id of the instance
+     */
+    public synchronized int addInstance(URI instance) {
+        if (instance == null) {
+            throw new IllegalArgumentException("The URI must not be null");
+        }
+        Index idx = index;
+        Integer id = idx.instanceIds.get(instance);
+        if (id == null) {
+            id = newInstanceIds.get(instance);
+        }
+        if (id == null) {
+            id = idx.instances.length + newInstances.size();
+            newInstanceIds.put(instance, id);
+            newInstances.add(instance);
+            dirty = true;
+        }
+        return id;
+    }
+
+    /**
+     * Register the annotation of an instance by a class, i.e. the statement
+     * instance RDF.TYPE class. The instance and the class are registered if
+     * required.
+     *
+     * @param instance the instance
+     * @param c the class annotating the instance
+     */
+    public synchronized void addAnnotation(URI instance, URI c) {
+
+        if (c == null) {
+            throw new IllegalArgumentException("The URI of the class must not be null");
+        }
+        int i = addInstance(instance);
+        Index idx = index;
+        Integer cid = idx.classIds.get(c);
+        if (cid == null) {
+            cid = newClassIds.get(c);
+        }
+        if (cid == null) {
+            cid = idx.classes.length + newClasses.size();
+            newClassIds.put(c, cid);
+            newClasses.add(c);
+        }
+        if (nbPending == pending.length) {
+            pending = Arrays.copyOf(pending, nbPending * 2);
+        }
+        pending[nbPending++] = key(i, cid);
+        dirty = true;
+    }
+
+    /**
+     * @param instance the instance
+     * @return true if the URI is registered as an instance
+     */
+    public boolean isInstance(URI instance) {
+        return getInstanceId(instance) != -1;
+    }
+
+    /**
+     * @param instance the instance
+     * @return the id of the instance, -1 if the URI is not registered as an
+     * instance.
+     */
+    public int getInstanceId(URI instance) {
+        // dirty is read before the index, see index()
+        boolean d = dirty;
+        Integer id = index.instanceIds.get(instance);
+        if (id == null && d) {
+            synchronized (this) {
+                id = index.instanceIds.get(instance);
+                if (id == null) {
+                    id = newInstanceIds.get(instance);
+                }
+            }
+        }
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param c the class
+     * @return the id of the class, -1 if the class does not annotate any
+     * instance.
+     */
+    public int getClassId(URI c) {
+        boolean d = dirty;
+        Integer id = index.classIds.get(c);
+        if (id == null && d) {
+            synchronized (this) {
+                id = index.classIds.get(c);
+                if (id == null) {
+                    id = newClassIds.get(c);
+                }
+            }
+        }
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id the id of an instance
+     * @return the instance
+     */
+    public URI getInstanceURI(int id) {
+        boolean d = dirty;
+        URI[] uris = index.instances;
+        if (id >= 0 && id < uris.length) {
+            return uris[id];
+        }
+        if (d) {
+            synchronized (this) {
+                uris = index.instances;
+                if (id >= uris.length) {
+                    return newInstances.get(id - uris.length);
+                }
+            }
+        }
+        throw new IndexOutOfBoundsException("No instance is associated to id " + id);
+    }
+
+    /**
+     * @param id the id of a class
+     * @return the class
+     */
+    public URI getClassURI(int id) {
+        boolean d = dirty;
+        URI[] uris = index.classes;
+        if (id >= 0 && id < uris.length) {
+            return uris[id];
+        }
+        if (d) {
+            synchronized (this) {
+                uris = index.classes;
+                if (id >= uris.length) {
+                    return newClasses.get(id - uris.length);
+                }
+            }
+        }
+        throw new IndexOutOfBoundsException("No class is associated to id " + id);
+    }
+
+    /**
+     * @param instanceId the id of an instance
+     * @return the ids of the classes annotating the instance, sorted in
+     * increasing order.
+     */
+    public int[] getClassIds(int instanceId) {
+        Index idx = indexed();
+        return Arrays.copyOfRange(idx.classTargets, idx.classOffsets[instanceId], idx.classOffsets[instanceId + 1]);
+    }
+
+    /**
+     * @param classId the id of a class
+     * @return the ids of the instances annotated by the class, sorted in
+     * increasing order.
+     */
+    public int[] getInstanceIds(int classId) {
+        Index idx = indexed();
+        return Arrays.copyOfRange(idx.instanceTargets, idx.instanceOffsets[classId], idx.instanceOffsets[classId + 1]);
+    }
+
+    /**
+     * Access to the instances directly annotated by a class, no inference is
+     * performed.
+     *
+     * @param c the class
+     * @return the instances annotated by the class
+     */
+    public Set<URI> getDirectInstances(URI c) {
+        Index idx = indexed();
+        Integer id = idx.classIds.get(c);
+        if (id == null) {
+            return Collections.emptySet();
+        }
+        return new IdSet(idx.instanceTargets, idx.instanceOffsets[id], idx.instanceOffsets[id + 1], idx.instances, idx.instanceIds);
+    }
+
+    /**
+     * @return the classes which annotate at least one instance
+     */
+    public Set<URI> getClasses() {
+        return indexed().classSet;
+    }
+
+    /**
+     * @return the number of distinct annotations
+     */
+    public int getNumberAnnotations() {
+        return indexed().classTargets.length;
+    }
+
+    @Override
+    public Iterator<URI> getInstancesIt() {
+        return getInstances().iterator();
+    }
+
+    /**
+     * @return the instances registered when the store was last indexed, the
+     * set is not modified by later additions.
+     */
+    @Override
+    public Set<URI> getInstances() {
+        return indexed().instanceSet;
+    }
+
+    @Override
+    public int getInstanceNb() {
+        boolean d = dirty;
+        int nb = index.instances.length;
+        if (d) {
+            synchronized (this) {
+                nb = index.instances.length + newInstances.size();
+            }
+        }
+        return nb;
+    }
+
+    @Override
+    public Iterator<URI> getClassesOfInstanceIt(URI instance) {
+        return getClassesOfInstance(instance).iterator();
+    }
+
+    @Override
+    public Set<URI> getClassesOfInstance(URI instance) {
+        Index idx = indexed();
+        Integer id = idx.instanceIds.get(instance);
+        if (id == null) {
+            return Collections.emptySet();
+        }
+        return new IdSet(idx.classTargets, idx.classOffsets[id], idx.classOffsets[id + 1], idx.classes, idx.classIds);
+    }
+
+    /**
+     * @return the up to date snapshot of the store
+     */
+    private Index indexed() {
+        return dirty ? index() : index;
+    }
+
+    /**
+     * Merge the pending annotations into a new snapshot and publish it. The
+     * snapshot is published before dirty is reset, a reader observing a clean
+     * store therefore always reads an up to date snapshot.
+     *
+     * @return the published snapshot
+     */
+    private synchronized Index index() {
+
+        Index old = index;
+        if (!dirty) {
+            return old;
+        }
+        Map<URI, Integer> instanceIds = merge(old.instanceIds, newInstanceIds);
+        Map<URI, Integer> classIds = merge(old.classIds, newClassIds);
+        URI[] instances = append(old.instances, newInstances);
+        URI[] classes = append(old.classes, newClasses);
+        int nbInstances = instances.length;
+        int nbClasses = classes.length;
+
+        long[] keys = new long[old.classTargets.length + nbPending];
+        int n = 0;
+        for (int i = 0; i < old.classOffsets.length - 1; i++) {
+            for (int k = old.classOffsets[i]; k < old.classOffsets[i + 1]; k++) {
+                keys[n++] = key(i, old.classTargets[k]);
+            }
+        }
+        System.arraycopy(pending, 0, keys, n, nbPending);
+        n += nbPending;
+
+        Arrays.sort(keys, 0, n);
+        int size = 0;
+        for (int k = 0; k < n; k++) {
+            if (size == 0 || keys[k] != keys[size - 1]) {
+                keys[size++] = keys[k];
+            }
+        }
+
+        int[] cOffsets = new int[nbInstances + 1];
+        int[] cTargets = new int[size];
+        int[] iOffsets = new int[nbClasses + 1];
+        int[] iTargets = new int[size];
+
+        for (int k = 0; k < size; k++) {
+            cOffsets[(int) (keys[k] >>> 32) + 1]++;
+            iOffsets[(int) keys[k] + 1]++;
+            cTargets[k] = (int) keys[k];
+        }
+        for (int i = 0; i < nbInstances; i++) {
+            cOffsets[i + 1] += cOffsets[i];
+        }
+        for (int c = 0; c < nbClasses; c++) {
+            iOffsets[c + 1] += iOffsets[c];
+        }
+        // keys are sorted by instance, the instances of each class are
+        // therefore inserted in increasing order
+        int[] next = Arrays.copyOf(iOffsets, nbClasses);
+        for (int k = 0; k < size; k++) {
+            iTargets[next[(int) keys[k]]++] = (int) (keys[k] >>> 32);
+        }
+
+        Index idx = new Index(instanceIds, instances, classIds, classes, cOffsets, cTargets, iOffsets, iTargets);
+        index = idx;
+        newInstanceIds.clear();
+        newInstances.clear();
+        newClassIds.clear();
+        newClasses.clear();
+        pending = new long[16];
+        nbPending = 0;
+        dirty = false;
+        return idx;
+    }
+
+    private static Map<URI, Integer> merge(Map<URI, Integer> ids, Map<URI, Integer> newIds) {
+        if (newIds.isEmpty()) {
+            return ids;
+        }
+        Map<URI, Integer> merged = new HashMap<URI, Integer>(ids);
+        merged.putAll(newIds);
+        return merged;
+    }
+
+    private static URI[] append(URI[] uris, List<URI> newURIs) {
+        if (newURIs.isEmpty()) {
+            return uris;
+        }
+        URI[] appended = Arrays.copyOf(uris, uris.length + newURIs.size());
+        for (int i = 0; i < newURIs.size(); i++) {
+            appended[uris.length + i] = newURIs.get(i);
+        }
+        return appended;
+    }
+
+    private static long key(int instance, int c) {
+        return ((long) instance << 32) | (c & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Immutable snapshot of the store, the maps and the arrays are never
+     * modified once the snapshot is published.
+     */
+    private static final class Index {
+
+        static final Index EMPTY = new Index(new HashMap<URI, Integer>(), new URI[0], new HashMap<URI, Integer>(), new URI[0],
+                new int[]{0}, new int[0], new int[]{0}, new int[0]);
+        final Map<URI, Integer> instanceIds;
+        final URI[] instances;
+        final Set<URI> instanceSet;
+        final Map<URI, Integer> classIds;
+        final URI[] classes;
+        final Set<URI> classSet;
+        // instance id -> sorted class ids
+        final int[] classOffsets;
+        final int[] classTargets;
+        // class id -> sorted instance ids
+        final int[] instanceOffsets;
+        final int[] instanceTargets;
+
+        Index(Map<URI, Integer> instanceIds, URI[] instances, Map<URI, Integer> classIds, URI[] classes,
+                int[] classOffsets, int[] classTargets, int[] instanceOffsets, int[] instanceTargets) {
+            this.instanceIds = instanceIds;
+            this.instances = instances;
+            this.instanceSet = Collections.unmodifiableSet(instanceIds.keySet());
+            this.classIds = classIds;
+            this.classes = classes;
+            this.classSet = Collections.unmodifiableSet(classIds.keySet());
+            this.classOffsets = classOffsets;
+            this.classTargets = classTargets;
+            this.instanceOffsets = instanceOffsets;
+            this.instanceTargets = instanceTargets;
+        }
+    }
+
+    /**
+     * Unmodifiable set view over a slice of sorted ids of a snapshot.
+     */
+    private static class IdSet extends AbstractSet<URI> {
+
+        private final int[] ids;
+        private final int from;
+        private final int to;
+        private final URI[] uris;
+        private final Map<URI, Integer> index;
+
+        IdSet(int[] ids, int from, int to, URI[] uris, Map<URI, Integer> index) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+            this.uris = uris;
+            this.index = index;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer id = index.get(o);
+            return id != null && Arrays.binarySearch(ids, from, to, id) >= 0;
+        }
+
+        @Override
+        public Iterator<URI> iterator() {
+            return new Iterator<URI>() {
+                int i = from;
+
+                @Override
+                public boolean hasNext() {
+                    return i < to;
+                }
+
+                @Override
+                public URI next() {
+                    if (i >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return uris[ids[i++]];
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("The set cannot be modified");
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
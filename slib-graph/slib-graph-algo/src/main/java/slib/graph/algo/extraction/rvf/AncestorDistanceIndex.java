@@ -0,0 +1,227 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.algo.extraction.rvf;
+
+import java.util.Arrays;
+import org.openrdf.model.URI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import slib.graph.model.graph.G;
+import slib.graph.model.graph.utils.WalkConstraint;
+
+/**
+ * Index of the distances (number of edges) between the vertices of an acyclic
+ * graph and the vertices reachable from them, e.g. between the classes of a
+ * taxonomy and their ancestors. Only walks following the walk constraint are
+ * considered, i.e. walks going up to the ancestors.
+ *
+ * The index relies on the ids and the sets of a {@link ReachabilityIndex}
+ * built for the same walk constraint. For each vertex the ids of the
+ * reachable vertices are stored as a sorted array, the minimal and maximal
+ * distances are stored in two arrays aligned with it. The index is built in a
+ * single pass following the topological order of the ids: the distances of a
+ * vertex are obtained by merging the arrays of its neighbours.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class AncestorDistanceIndex {
+
+    Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final ReachabilityIndex index;
+    // reachable ids of each vertex (exclusive, sorted) and distances (CSR)
+    private final int[] offsets;
+    private final int[] reachable;
+    private final int[] minDistances;
+    private final int[] maxDistances;
+
+    /**
+     * Build the index.
+     *
+     * @param g the graph
+     * @param wc the walk constraint, the one used to build the reachability
+     * index
+     * @param index the reachability index associated to the graph and the walk
+     * constraint
+     */
+    public AncestorDistanceIndex(G g, WalkConstraint wc, ReachabilityIndex index) {
+
+        this.index = index;
+        int n = index.size();
+
+        long total = 0;
+        offsets = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            total += index.getNumberReachable(id);
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("The closure of the graph is too large to be indexed");
+            }
+            offsets[id + 1] = (int) total;
+        }
+        int size = (int) total;
+        reachable = new int[size];
+        minDistances = new int[size];
+        maxDistances = new int[size];
+
+        IntList neighbours = new IntList();
+        NeighbourCollector collector = new NeighbourCollector(index.getIds(), neighbours);
+
+        // the neighbours of a vertex have lower ids, their distances are
+        // therefore computed before the ones of the vertex
+        for (int id = 0; id < n; id++) {
+
+            int from = offsets[id];
+            int to = offsets[id + 1];
+            int[] ids = index.getReachableIds(id);
+            System.arraycopy(ids, 0, reachable, from, ids.length);
+            Arrays.fill(minDistances, from, to, Integer.MAX_VALUE);
+            Arrays.fill(maxDistances, from, to, 0);
+
+            neighbours.size = 0;
+            collector.collect(g, index.getURI(id), id, wc);
+
+            for (int k = 0; k < neighbours.size; k++) {
+                int p = neighbours.values[k];
+                // the neighbour itself, distance 1
+                int pos = Arrays.binarySearch(reachable, from, to, p);
+                minDistances[pos] = 1;
+                maxDistances[pos] = Math.max(maxDistances[pos], 1);
+
+                // the vertices reachable from the neighbour (merge)
+                int pFrom = offsets[p];
+                int pTo = offsets[p + 1];
+                int c = from;
+                for (int j = pFrom; j < pTo; j++) {
+                    int r = reachable[j];
+                    while (reachable[c] < r) {
+                        c++;
+                    }
+                    minDistances[c] = Math.min(minDistances[c], minDistances[j] + 1);
+                    maxDistances[c] = Math.max(maxDistances[c], maxDistances[j] + 1);
+                }
+            }
+        }
+        logger.debug("Ancestor distance index built for " + n + " vertices, " + size + " pairs");
+    }
+
+    /**
+     * @return the reachability index the distance index relies on
+     */
+    public ReachabilityIndex getReachabilityIndex() {
+        return index;
+    }
+
+    private int position(int from, int to) {
+        return Arrays.binarySearch(reachable, offsets[from], offsets[from + 1], to);
+    }
+
+    /**
+     * @param from the id of a vertex
+     * @param to the id of a vertex
+     * @return the minimal number of edges of the walks from the vertex from
+     * to the vertex to, 0 if the vertices are the same and -1 if the vertex
+     * to is not reachable.
+     */
+    public int getMinDistance(int from, int to) {
+        if (from == to) {
+            return 0;
+        }
+        int pos = position(from, to);
+        return pos < 0 ? -1 : minDistances[pos];
+    }
+
+    /**
+     * @param from the id of a vertex
+     * @param to the id of a vertex
+     * @return the maximal number of edges of the walks from the vertex from
+     * to the vertex to, 0 if the vertices are the same and -1 if the vertex
+     * to is not reachable.
+     */
+    public int getMaxDistance(int from, int to) {
+        if (from == to) {
+            return 0;
+        }
+        int pos = position(from, to);
+        return pos < 0 ? -1 : maxDistances[pos];
+    }
+
+    /**
+     * @param from a vertex
+     * @param to a vertex
+     * @return the minimal number of edges of the walks from the vertex from
+     * to the vertex to, -1 if the vertex to is not reachable or if a vertex
+     * is not indexed.
+     */
+    public int getMinDistance(URI from, URI to) {
+        int f = index.getId(from);
+        int t = index.getId(to);
+        return f == -1 || t == -1 ? -1 : getMinDistance(f, t);
+    }
+
+    /**
+     * Compute the minimal length of the walks joining two vertices through a
+     * vertex reachable from both of them (inclusive), e.g. the shortest path
+     * between two classes through one of their common ancestors. The sorted
+     * arrays of the two vertices are merged.
+     *
+     * @param a the id of a vertex
+     * @param b the id of a vertex
+     * @return the minimal value of d(a,c) + d(b,c) considering the vertices c
+     * reachable from a and b, -1 if the vertices do not share any reachable
+     * vertex.
+     */
+    public int getMinCommonDistance(int a, int b) {
+
+        if (a == b) {
+            return 0;
+        }
+        int dab = getMinDistance(a, b);
+        int dba = getMinDistance(b, a);
+        int min = dab != -1 ? dab : (dba != -1 ? dba : Integer.MAX_VALUE);
+
+        int i = offsets[a], iEnd = offsets[a + 1];
+        int j = offsets[b], jEnd = offsets[b + 1];
+        while (i < iEnd && j < jEnd) {
+            if (reachable[i] < reachable[j]) {
+                i++;
+            } else if (reachable[i] > reachable[j]) {
+                j++;
+            } else {
+                min = Math.min(min, minDistances[i] + minDistances[j]);
+                i++;
+                j++;
+            }
+        }
+        return min == Integer.MAX_VALUE ? -1 : min;
+    }
+}
@@ -0,0 +1,384 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.algo.extraction.rvf;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.openrdf.model.URI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import slib.graph.model.graph.G;
+import slib.graph.model.graph.utils.WalkConstraint;
+import slib.utils.ex.SLIB_Ex_Critic;
+
+/**
+ * Reachability index of an acyclic graph considering a walk constraint which
+ * does not store the transitive closure of the graph (GRAIL labelling).
+ *
+ * Several randomized depth-first traversals of the graph are performed, each
+ * one associates an interval [low, rank] to every vertex, rank being the
+ * post-order rank of the vertex and low the minimal rank of the vertices
+ * reachable from it. If a vertex v is reachable from a vertex u, the
+ * intervals of v are contained in the intervals of u. The topological level
+ * of the vertices, i.e. the length of the longest walk starting from them, is
+ * also stored: the level of u is greater than the level of v if v is
+ * reachable from u.
+ *
+ * Most negative queries are therefore answered in constant time by comparing
+ * the labels, other queries are answered by a depth-first search pruned using
+ * the labels. The index requires (2k + 1) integers per vertex, k being the
+ * number of traversals, and the adjacency of the graph.
+ *
+ * Queries are thread-safe.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class IntervalLabelIndex {
+
+    /**
+     * Default number of traversals.
+     */
+    public static final int DEFAULT_NB_TRAVERSALS = 3;
+    Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<URI, Integer> ids;
+    private final URI[] vertices;
+    // neighbours of the vertices (CSR)
+    private final int[] offsets;
+    private final int[] targets;
+    private final int nbTraversals;
+    // labels of traversal t stored in [t * n, (t + 1) * n)
+    private final int[] lows;
+    private final int[] ranks;
+    private final int[] levels;
+    private final ThreadLocal<Search> searches = new ThreadLocal<Search>() {
+        @Override
+        protected Search initialValue() {
+            return new Search(vertices.length);
+        }
+    };
+
+    /**
+     * Build the index using {@link #DEFAULT_NB_TRAVERSALS} traversals.
+     *
+     * @param g the graph, expected to be acyclic considering the walk
+     * constraint
+     * @param wc the walk constraint defining the way to reach the vertices
+     * @throws SLIB_Ex_Critic if the graph is not acyclic considering the walk
+     * constraint
+     */
+    public IntervalLabelIndex(G g, WalkConstraint wc) throws SLIB_Ex_Critic {
+        this(g, wc, DEFAULT_NB_TRAVERSALS, 0);
+    }
+
+    /**
+     * Build the index.
+     *
+     * @param g the graph, expected to be acyclic considering the walk
+     * constraint
+     * @param wc the walk constraint defining the way to reach the vertices
+     * @param nbTraversals the number of traversals, i.e. the number of
+     * intervals associated to each vertex. More traversals increase the
+     * memory footprint and improve the pruning.
+     * @param seed the seed used to randomize the traversals
+     * @throws SLIB_Ex_Critic if the graph is not acyclic considering the walk
+     * constraint
+     */
+    public IntervalLabelIndex(G g, WalkConstraint wc, int nbTraversals, long seed) throws SLIB_Ex_Critic {
+
+        if (nbTraversals < 1) {
+            throw new IllegalArgumentException("At least one traversal is required, given: " + nbTraversals);
+        }
+        logger.debug("Building interval label index (" + nbTraversals + " traversals), walk constraint\n" + wc);
+
+        int n = g.getNumberVertices();
+        this.nbTraversals = nbTraversals;
+        ids = new HashMap<URI, Integer>(n * 2);
+        vertices = new URI[n];
+        for (URI v : g.getV()) {
+            vertices[ids.size()] = v;
+            ids.put(v, ids.size());
+        }
+
+        offsets = new int[n + 1];
+        IntList adjacency = new IntList();
+        NeighbourCollector collector = new NeighbourCollector(ids, adjacency);
+        for (int i = 0; i < n; i++) {
+            collector.collect(g, vertices[i], i, wc);
+            offsets[i + 1] = adjacency.size;
+        }
+        targets = Arrays.copyOf(adjacency.values, adjacency.size);
+
+        // the traversals start from the vertices which are not reachable
+        boolean[] reached = new boolean[n];
+        for (int t : targets) {
+            reached[t] = true;
+        }
+        int nbRoots = 0;
+        int[] roots = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (!reached[i]) {
+                roots[nbRoots++] = i;
+            }
+        }
+
+        lows = new int[nbTraversals * n];
+        ranks = new int[nbTraversals * n];
+        Arrays.fill(ranks, -1);
+        int[] postOrder = new int[n];
+        Random random = new Random(seed);
+
+        for (int t = 0; t < nbTraversals; t++) {
+            shuffle(roots, nbRoots, random);
+            int nbRanked = traverse(t, roots, nbRoots, random, postOrder);
+            if (nbRanked != n) {
+                throw new SLIB_Ex_Critic("ERROR incoherences found computing the interval labels, " + (n - nbRanked) + " vertices cannot be reached from the roots. "
+                        + "Please check the processed graph is acyclic, i.e. is a Directed Acyclic Graph.");
+            }
+        }
+
+        // the post-order of a traversal is a reverse topological order
+        levels = new int[n];
+        for (int v : postOrder) {
+            int level = 0;
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                level = Math.max(level, levels[targets[k]] + 1);
+            }
+            levels[v] = level;
+        }
+        logger.debug("Interval label index built for " + n + " vertices");
+    }
+
+    /**
+     * Randomized depth-first traversal computing the labels of a traversal.
+     *
+     * @return the number of ranked vertices
+     * @throws SLIB_Ex_Critic if a cycle is detected
+     */
+    private int traverse(int t, int[] roots, int nbRoots, Random random, int[] postOrder) throws SLIB_Ex_Critic {
+
+        int n = vertices.length;
+        int base = t * n;
+        boolean[] visited = new boolean[n];
+        int[] stack = new int[n];
+        // number of processed neighbours and rotation of the neighbours
+        int[] done = new int[n];
+        int[] rotations = new int[n];
+        int rank = 0;
+
+        for (int r = 0; r < nbRoots; r++) {
+
+            int root = roots[r];
+            int sp = 0;
+            stack[sp++] = root;
+            visited[root] = true;
+            lows[base + root] = Integer.MAX_VALUE;
+            rotations[root] = rotation(root, random);
+
+            while (sp > 0) {
+                int v = stack[sp - 1];
+                int degree = offsets[v + 1] - offsets[v];
+                if (done[v] < degree) {
+                    int c = targets[offsets[v] + (rotations[v] + done[v]) % degree];
+                    done[v]++;
+                    if (!visited[c]) {
+                        visited[c] = true;
+                        lows[base + c] = Integer.MAX_VALUE;
+                        rotations[c] = rotation(c, random);
+                        stack[sp++] = c;
+                    } else if (ranks[base + c] == -1) {
+                        throw new SLIB_Ex_Critic("ERROR cycle detected computing the interval labels, involving " + vertices[c] + ". "
+                                + "Please check the processed graph is acyclic, i.e. is a Directed Acyclic Graph.");
+                    } else {
+                        lows[base + v] = Math.min(lows[base + v], lows[base + c]);
+                    }
+                } else {
+                    if (t == 0) {
+                        postOrder[rank] = v;
+                    }
+                    ranks[base + v] = rank++;
+                    lows[base + v] = Math.min(lows[base + v], ranks[base + v]);
+                    sp--;
+                    if (sp > 0) {
+                        int parent = stack[sp - 1];
+                        lows[base + parent] = Math.min(lows[base + parent], lows[base + v]);
+                    }
+                }
+            }
+        }
+        return rank;
+    }
+
+    private int rotation(int v, Random random) {
+        int degree = offsets[v + 1] - offsets[v];
+        return degree > 1 ? random.nextInt(degree) : 0;
+    }
+
+    private static void shuffle(int[] values, int size, Random random) {
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    /**
+     * @return the number of indexed vertices
+     */
+    public int size() {
+        return vertices.length;
+    }
+
+    /**
+     * @return the number of traversals, i.e. of intervals per vertex
+     */
+    public int getNumberTraversals() {
+        return nbTraversals;
+    }
+
+    /**
+     * @param v the vertex
+     * @return the id of the vertex, -1 if the vertex is not indexed
+     */
+    public int getId(URI v) {
+        Integer id = ids.get(v);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id the id of a vertex
+     * @return the vertex
+     */
+    public URI getURI(int id) {
+        return vertices[id];
+    }
+
+    /**
+     * @param id the id of a vertex
+     * @return the length of the longest walk starting from the vertex
+     */
+    public int getLevel(int id) {
+        return levels[id];
+    }
+
+    /**
+     * Check if the labels of a vertex contain the labels of another one, which
+     * is required for the second vertex to be reachable from the first one.
+     */
+    private boolean contains(int from, int to) {
+        if (levels[from] <= levels[to]) {
+            return false;
+        }
+        int n = vertices.length;
+        for (int base = 0; base < lows.length; base += n) {
+            if (lows[base + from] > lows[base + to] || ranks[base + to] > ranks[base + from]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param from the id of a vertex
+     * @param to the id of a vertex
+     * @return true if the vertex to is reachable from the vertex from
+     * (exclusive, a vertex is not considered reachable from itself)
+     */
+    public boolean isReachable(int from, int to) {
+
+        if (from == to || !contains(from, to)) {
+            return false;
+        }
+        Search search = searches.get();
+        int epoch = search.next();
+        int[] marks = search.marks;
+        int[] stack = search.stack;
+        int sp = 0;
+        stack[sp++] = from;
+        marks[from] = epoch;
+
+        while (sp > 0) {
+            int v = stack[--sp];
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                int c = targets[k];
+                if (c == to) {
+                    return true;
+                }
+                if (marks[c] != epoch && contains(c, to)) {
+                    marks[c] = epoch;
+                    stack[sp++] = c;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param from a vertex
+     * @param to a vertex
+     * @return true if the vertex to is reachable from the vertex from
+     * (exclusive, a vertex is not considered reachable from itself)
+     */
+    public boolean isReachable(URI from, URI to) {
+        int f = getId(from);
+        int t = getId(to);
+        return f != -1 && t != -1 && isReachable(f, t);
+    }
+
+    /**
+     * Working structures of the searches performed by a thread, the marks of
+     * a search are identified by an epoch to avoid clearing them.
+     */
+    private static class Search {
+
+        final int[] marks;
+        final int[] stack;
+        int epoch;
+
+        Search(int n) {
+            marks = new int[n];
+            stack = new int[n];
+        }
+
+        int next() {
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+            return epoch;
+        }
+    }
+}
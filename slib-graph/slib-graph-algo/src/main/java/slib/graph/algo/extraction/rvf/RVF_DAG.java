@@ -33,20 +33,22 @@
  */
 package slib.graph.algo.extraction.rvf;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import org.openrdf.model.URI;
 import slib.graph.model.graph.G;
 import slib.graph.model.graph.elements.E;
 import slib.graph.model.graph.utils.Direction;
+import slib.graph.model.graph.utils.VertexVisitor;
 import slib.graph.model.graph.utils.WalkConstraint;
+import slib.graph.utils.WalkConstraintGeneric;
 import slib.graph.utils.WalkConstraintUtils;
 import slib.utils.ex.SLIB_Ex_Critic;
-import slib.utils.impl.SetUtils;
 
 /**
  * Object of this class can be used to retrieve the vertices reachable from a
@@ -87,27 +89,24 @@ public class RVF_DAG extends RVF {
         logger.debug("Get all reachable vertices : start");
         logger.debug("Walk constraint\n" + wc);
 
-        Map<URI, Set<URI>> allVertices = new HashMap();
+        final Map<URI, Set<URI>> allVertices = new HashMap();
 
-        Map<URI, Integer> inDegree = new HashMap();
-        Map<URI, Integer> inDegreeDone = new HashMap();
+        final Map<URI, Integer> inDegree = new HashMap();
+        final Map<URI, Integer> inDegreeDone = new HashMap();
 
         // Initialize DataStructure + queue considering walk constraint
-        List<URI> queue = new ArrayList();
+        final Queue<URI> queue = new ArrayDeque<URI>();
 
         WalkConstraint oppositeWC = WalkConstraintUtils.getInverse(wc, false);
         logger.debug("Opposite Walk constraint " + oppositeWC);
 
+        DegreeCounter counter = new DegreeCounter();
+
         for (URI v : g.getV()) {
 
             allVertices.put(v, new HashSet<URI>());
 
-            int sizeOpposite = 0;
-            for (E e : g.getE(v, wc)) {
-                if (!e.getSource().equals(e.getTarget())) { // avoid self-loop
-                    sizeOpposite++;
-                }
-            }
+            int sizeOpposite = counter.degree(g, v, wc); // avoid self-loop
 
             inDegree.put(v, sizeOpposite);
             inDegreeDone.put(v, 0);
@@ -127,39 +126,37 @@ public class RVF_DAG extends RVF {
             logger.debug(queue.toString());
         }
 
-        while (!queue.isEmpty()) {
-
-            URI current = queue.get(0);
-
-//            logger.debug("Processing " + current);
-            queue.remove(0);
+        class Propagation implements VertexVisitor {
 
-            Set<E> edges = g.getE(current, oppositeWC);
+            URI current;
 
-            for (E e : edges) {
+            @Override
+            public boolean visit(URI dest) {
 
-                Direction dir = oppositeWC.getAssociatedDirection(e.getURI());
-
-                URI dest = e.getTarget();
-                if (dir == Direction.IN) {
-                    dest = e.getSource();
-                }
                 if (dest.equals(current)) {
-                    continue;// avoid self-loop
+                    return true;// avoid self-loop
                 }
                 int done = inDegreeDone.get(dest) + 1;
                 inDegreeDone.put(dest, done);
 
                 // union
-                Set<URI> union = SetUtils.union(allVertices.get(current), allVertices.get(dest));
+                Set<URI> union = allVertices.get(dest);
+                union.addAll(allVertices.get(current));
                 union.add(current);
-                allVertices.put(dest, union);
 
                 if (done == inDegree.get(dest)) {
                     queue.add(dest);
                 }
+                return true;
             }
         }
+        Propagation propagation = new Propagation();
+
+        while (!queue.isEmpty()) {
+
+            propagation.current = queue.poll();
+            g.forEachNeighbour(propagation.current, oppositeWC, propagation);
+        }
 
         //TOREMOVE 
         logger.debug("Checking Treatment coherency");
@@ -207,6 +204,60 @@ public class RVF_DAG extends RVF {
         return allRVEx;
     }
 
+    /**
+     * Compute the index of the reachable vertices of each vertex contained in
+     * the graph according to the specified constraint associated to the
+     * instance in use. Contrary to {@link #getAllRV()} the sets of reachable
+     * vertices are stored in compressed form, which is required dealing with
+     * large graphs.
+     *
+     * @return the index of the reachable vertices
+     * @throws SLIB_Ex_Critic
+     */
+    public ReachabilityIndex getReachabilityIndex() throws SLIB_Ex_Critic {
+        return new ReachabilityIndex(g, wc);
+    }
+
+    /**
+     * Compute the index of the reachable vertices of each vertex contained in
+     * the graph, the vertices of a same topological level are processed in
+     * parallel using the given pool.
+     *
+     * @param pool the pool used to compute the index
+     * @return the index of the reachable vertices
+     * @throws SLIB_Ex_Critic
+     * @see #getReachabilityIndex()
+     */
+    public ReachabilityIndex getReachabilityIndex(ForkJoinPool pool) throws SLIB_Ex_Critic {
+        return new ReachabilityIndex(g, wc, pool);
+    }
+
+    /**
+     * Compute the topological order of the vertices according to the
+     * specified constraint associated to the instance in use. The order gives
+     * the ids of the vertices in the index of the reachable vertices, see
+     * {@link ReachabilityIndex#ReachabilityIndex(TopologicalOrder, ForkJoinPool)}.
+     *
+     * @return the topological order of the vertices
+     * @throws SLIB_Ex_Critic
+     */
+    public TopologicalOrder getTopologicalOrder() throws SLIB_Ex_Critic {
+        return new TopologicalOrder(g, wc);
+    }
+
+    /**
+     * Compute an index answering reachability queries according to the
+     * specified constraint associated to the instance in use. Contrary to
+     * {@link #getReachabilityIndex()} the sets of reachable vertices are not
+     * stored, only a few integers are associated to each vertex.
+     *
+     * @return the index
+     * @throws SLIB_Ex_Critic
+     */
+    public IntervalLabelIndex getIntervalLabelIndex() throws SLIB_Ex_Critic {
+        return new IntervalLabelIndex(g, wc);
+    }
+
     /**
      * Return the set of terminal vertices (leaves) reachable. Only the nodes
      * which are involved in a relationships which is accepted in the global
@@ -230,12 +281,17 @@ public class RVF_DAG extends RVF {
 
         logger.info("Retrieving all reachable leaves");
 
-        Map<URI, Set<URI>> allReachableLeaves = new HashMap();
-        Map<URI, Integer> inDegrees = new HashMap();
-        Map<URI, Integer> inDegreesDone = new HashMap();
+        final Map<URI, Set<URI>> allReachableLeaves = new HashMap();
+        final Map<URI, Integer> inDegrees = new HashMap();
+        final Map<URI, Integer> inDegreesDone = new HashMap();
 
         // Retrieve all leaves
-        List<URI> queue = new ArrayList();
+        final Queue<URI> queue = new ArrayDeque<URI>();
+
+        WalkConstraint wcIn = new WalkConstraintGeneric();
+        wcIn.addAcceptedTraversal(wc.getAcceptedPredicates(), Direction.IN);
+        WalkConstraint wcOut = new WalkConstraintGeneric();
+        wcOut.addAcceptedTraversal(wc.getAcceptedPredicates(), Direction.OUT);
 
         Set<URI> studiedURIs = new HashSet();
         for (E e : g.getE(wc.getAcceptedPredicates())) {
@@ -243,17 +299,14 @@ public class RVF_DAG extends RVF {
             studiedURIs.add(e.getTarget());
         }
 
+        DegreeCounter counter = new DegreeCounter();
+
         for (URI v : studiedURIs) {
 
             allReachableLeaves.put(v, new HashSet<URI>());
 
-            int inDegree = 0;
             // we do not count self-loop
-            for (E e : g.getE(wc.getAcceptedPredicates(), v, Direction.IN)) {
-                if (!e.getSource().equals(v)) {
-                    inDegree++;
-                }
-            }
+            int inDegree = counter.degree(g, v, wcIn);
 
 //            logger.debug(v + "\t in " + inDegree + "\t" + g.getE(wc.getAcceptedPredicates(), v, Direction.IN));
             inDegrees.put(v, inDegree);
@@ -268,33 +321,84 @@ public class RVF_DAG extends RVF {
         logger.info("Propagation of leave counts start from " + queue.size() + " leaves on " + g.getV().size() + " concepts");
         logger.debug("Leaves: " + queue);
 
-//        long c = 0;
-        while (!queue.isEmpty()) {
+        class Propagation implements VertexVisitor {
 
-            URI v = queue.get(0);
-            queue.remove(0);
-            Set<E> edges = g.getE(wc.getAcceptedPredicates(), v, Direction.OUT);
+            URI v;
 
-            //logger.info(c+"/"+g.getV().size()+" "+v.getValue().stringValue());
-//            c++;
-            for (E e : edges) {
+            @Override
+            public boolean visit(URI target) {
 
-                URI target = e.getTarget();
                 if (target.equals(v)) {
-                    continue;
+                    return true;
                 }
                 int degreeDone = inDegreesDone.get(target);
 
-                allReachableLeaves.put(target, SetUtils.union(allReachableLeaves.get(target), allReachableLeaves.get(v)));
+                allReachableLeaves.get(target).addAll(allReachableLeaves.get(v));
 
                 inDegreesDone.put(target, degreeDone + 1);
 
                 if (inDegreesDone.get(target).equals(inDegrees.get(target))) {
                     queue.add(target);
                 }
+                return true;
             }
+        }
+        Propagation propagation = new Propagation();
 
-            //logger.debug(v+"\t-- "+allReachableLeaves.get(v));
+        while (!queue.isEmpty()) {
+
+            propagation.v = queue.poll();
+            g.forEachNeighbour(propagation.v, wcOut, propagation);
+        }
+        return allReachableLeaves;
+    }
+
+    /**
+     * Return the set of terminal vertices (leaves) reachable, see
+     * {@link #getTerminalVertices()}. The vertices are processed by
+     * topological level, the vertices of a level, which only depend on the
+     * vertices of the lower levels, are processed in parallel using the given
+     * pool.
+     *
+     * @param pool the pool used to process the vertices, null to perform a
+     * sequential computation
+     * @return the leaves for each vertices
+     * @throws SLIB_Ex_Critic if the graph is not acyclic considering the
+     * accepted predicates
+     */
+    public Map<URI, Set<URI>> getTerminalVertices(ForkJoinPool pool) throws SLIB_Ex_Critic {
+
+        logger.info("Retrieving all reachable leaves");
+
+        WalkConstraint wcIn = new WalkConstraintGeneric();
+        wcIn.addAcceptedTraversal(wc.getAcceptedPredicates(), Direction.IN);
+
+        // the neighbours of a vertex are the vertices from which its leaves
+        // are propagated
+        final TopologicalOrder order = new TopologicalOrder(g, wcIn);
+        final Set<URI>[] leaves = new Set[order.size()];
+
+        order.process(new TopologicalOrder.VertexProcessor() {
+            @Override
+            public void process(int[] ids, int from, int to) {
+                for (int i = from; i < to; i++) {
+                    int id = ids[i];
+                    Set<URI> s = new HashSet<URI>();
+                    if (order.offsets[id] == order.offsets[id + 1]) {
+                        s.add(order.vertices[id]);
+                    }
+                    for (int k = order.offsets[id]; k < order.offsets[id + 1]; k++) {
+                        s.addAll(leaves[order.targets[k]]);
+                    }
+                    leaves[id] = s;
+                }
+            }
+        }, pool);
+
+        Map<URI, Set<URI>> allReachableLeaves = new HashMap<URI, Set<URI>>();
+        for (E e : g.getE(wc.getAcceptedPredicates())) {
+            allReachableLeaves.put(e.getSource(), leaves[order.ids.get(e.getSource())]);
+            allReachableLeaves.put(e.getTarget(), leaves[order.ids.get(e.getTarget())]);
         }
         return allReachableLeaves;
     }
@@ -304,13 +408,26 @@ public class RVF_DAG extends RVF {
      * @return @throws SLIB_Ex_Critic
      */
     public Map<URI, Integer> computeNbPathLeadingToAllVertices() throws SLIB_Ex_Critic {
+        return computeNbPathLeadingToAllVertices(null);
+    }
+
+    /**
+     * Compute the number of paths leading to each vertex, see
+     * {@link #propagateNbOccurences(Map, ForkJoinPool)}.
+     *
+     * @param pool the pool used to process the vertices, null to perform a
+     * sequential computation
+     * @return the number of paths leading to each vertex
+     * @throws SLIB_Ex_Critic
+     */
+    public Map<URI, Integer> computeNbPathLeadingToAllVertices(ForkJoinPool pool) throws SLIB_Ex_Critic {
 
         Map<URI, Integer> allVertices = new HashMap();
 
         for (URI v : g.getV()) {
             allVertices.put(v, 1);
         }
-        return propagateNbOccurences(allVertices);
+        return propagateNbOccurences(allVertices, pool);
     }
 
     /**
@@ -328,55 +445,82 @@ public class RVF_DAG extends RVF {
      * @throws SLIB_Ex_Critic
      */
     public Map<URI, Integer> propagateNbOccurences(Map<URI, Integer> nbOccurrence) throws SLIB_Ex_Critic {
+        return propagateNbOccurences(nbOccurrence, null);
+    }
 
-        Map<URI, Set<URI>> allVertices = new HashMap();
-        Map<URI, Integer> inDegree = new HashMap();
-        Map<URI, Integer> inDegreeDone = new HashMap();
-        Map<URI, Integer> nbOcc_prop = new HashMap();
-
-        for (URI v : nbOccurrence.keySet()) {
-            nbOcc_prop.put(v, nbOccurrence.get(v));
+    /**
+     * Compute the number of occurrences associated to each vertex after the
+     * propagation of the given number of occurrences, see
+     * {@link #propagateNbOccurences(Map)}. The number of occurrences of a
+     * vertex is its own number of occurrences plus the propagated number of
+     * each vertex it is linked to by an outgoing edge (one time per edge). The
+     * vertices are processed by topological level, the vertices of a level
+     * are processed in parallel using the given pool.
+     *
+     * @param nbOccurrence the number of occurrences of the vertices, the
+     * vertices which are not specified are considered to have no occurrence
+     * @param pool the pool used to process the vertices, null to perform a
+     * sequential computation
+     * @return the number of occurrences propagated of each vertex
+     * @throws SLIB_Ex_Critic if the graph is not acyclic considering the
+     * accepted predicates
+     */
+    public Map<URI, Integer> propagateNbOccurences(Map<URI, Integer> nbOccurrence, ForkJoinPool pool) throws SLIB_Ex_Critic {
+
+        WalkConstraint wcOut = new WalkConstraintGeneric();
+        wcOut.addAcceptedTraversal(wc.getAcceptedPredicates(), Direction.OUT);
+
+        // the occurrences are propagated from the vertices without outgoing
+        // edge, i.e. the neighbours of a vertex have been processed before it
+        final TopologicalOrder order = new TopologicalOrder(g, wcOut);
+        final int[] nbOcc_prop = new int[order.size()];
+        for (int id = 0; id < order.size(); id++) {
+            Integer nb = nbOccurrence.get(order.vertices[id]);
+            nbOcc_prop[id] = nb == null ? 0 : nb;
         }
-        // Initialize DataStructure + queue considering setEdgeTypes
-        List<URI> queue = new ArrayList();
-
-        for (URI v : g.getV()) {
 
-            allVertices.put(v, new HashSet<URI>());
-            int sizeOpposite = g.getE(wc.getAcceptedPredicates(), v, Direction.OUT).size();
-            inDegree.put(v, sizeOpposite);
-            inDegreeDone.put(v, 0);
-
-            if (sizeOpposite == 0) {
-                queue.add(v);
+        order.process(new TopologicalOrder.VertexProcessor() {
+            @Override
+            public void process(int[] ids, int from, int to) {
+                for (int i = from; i < to; i++) {
+                    int id = ids[i];
+                    for (int k = order.offsets[id]; k < order.offsets[id + 1]; k++) {
+                        nbOcc_prop[id] += nbOcc_prop[order.targets[k]];
+                    }
+                }
             }
-        }
-
-        while (!queue.isEmpty()) {
-
-            URI current = queue.get(0);
-            queue.remove(0);
-            allVertices.get(current).add(current);
-
-            Set<E> edges = g.getE(wc.getAcceptedPredicates(), current, Direction.IN);
+        }, pool);
 
-            for (E e : edges) {
-                URI dest = e.getTarget();
+        Map<URI, Integer> results = new HashMap<URI, Integer>();
+        for (Map.Entry<URI, Integer> e : nbOccurrence.entrySet()) {
+            Integer id = order.ids.get(e.getKey());
+            results.put(e.getKey(), id == null ? e.getValue() : nbOcc_prop[id]);
+        }
+        return results;
+    }
 
-                nbOcc_prop.put(dest, nbOcc_prop.get(dest) + nbOcc_prop.get(current));
+    /**
+     * Visitor used to count the number of neighbours of a vertex considering
+     * a walk constraint, self-loops are not considered.
+     */
+    static class DegreeCounter implements VertexVisitor {
 
-                int done = inDegreeDone.get(dest) + 1;
-                inDegreeDone.put(dest, done);
+        private URI v;
+        private int degree;
 
-                // union
-                Set<URI> union = SetUtils.union(allVertices.get(current), allVertices.get(dest));
-                allVertices.put(dest, union);
+        int degree(G g, URI v, WalkConstraint wc) {
+            this.v = v;
+            this.degree = 0;
+            g.forEachNeighbour(v, wc, this);
+            return degree;
+        }
 
-                if (done == inDegree.get(dest)) {
-                    queue.add(dest);
-                }
+        @Override
+        public boolean visit(URI n) {
+            if (!n.equals(v)) {
+                degree++;
             }
+            return true;
         }
-        return nbOcc_prop;
     }
 }
@@ -0,0 +1,571 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.algo.extraction.rvf;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import org.openrdf.model.URI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import slib.graph.model.graph.G;
+import slib.graph.model.graph.utils.WalkConstraint;
+import slib.utils.ex.SLIB_Ex_Critic;
+
+/**
+ * Index of the vertices reachable from each vertex of an acyclic graph
+ * considering a walk constraint, i.e. the transitive closure of the graph.
+ *
+ * The vertices are associated to dense integer ids attributed in topological
+ * order: the vertices reachable from a vertex always have a lower id. The
+ * closure is computed following this order, the set of vertices reachable
+ * from a vertex is the union (in-place OR) of the sets associated to its
+ * neighbours.
+ *
+ * Each set is stored in a compressed form, a sorted array of ids or a bitmap
+ * depending on the cardinality of the set, and only costs a few bytes per
+ * element. Sets are accessed through unmodifiable {@link Set} views or through
+ * a primitive API based on the ids.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class ReachabilityIndex {
+
+    Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<URI, Integer> ids;
+    private final URI[] vertices;
+    // for each vertex either a sorted array or a bitmap
+    private final int[][] arrays;
+    private final BitSet[] bitmaps;
+    private final int[] cardinalities;
+
+    /**
+     * Build the index of the vertices reachable from each vertex of the graph.
+     *
+     * @param g the graph, expected to be acyclic considering the walk
+     * constraint
+     * @param wc the walk constraint defining the way to reach the vertices
+     * @throws SLIB_Ex_Critic if the graph is not acyclic considering the walk
+     * constraint
+     */
+    public ReachabilityIndex(G g, WalkConstraint wc) throws SLIB_Ex_Critic {
+        this(g, wc, null);
+    }
+
+    /**
+     * Build the index of the vertices reachable from each vertex of the graph.
+     * If a pool is given the closure is computed level by level: the
+     * vertices are grouped by topological level (the length of the longest
+     * walk starting from them) and the vertices of a level, which only depend
+     * on vertices of lower levels, are processed in parallel.
+     *
+     * @param g the graph, expected to be acyclic considering the walk
+     * constraint
+     * @param wc the walk constraint defining the way to reach the vertices
+     * @param pool the pool used to compute the closure, null to perform a
+     * sequential computation
+     * @throws SLIB_Ex_Critic if the graph is not acyclic considering the walk
+     * constraint
+     */
+    public ReachabilityIndex(G g, WalkConstraint wc, ForkJoinPool pool) throws SLIB_Ex_Critic {
+        this(new TopologicalOrder(g, wc), pool);
+    }
+
+    /**
+     * Build the index of the vertices reachable from each vertex following a
+     * topological order which has already been computed, the vertices keep
+     * the ids of the order.
+     *
+     * @param order the topological order of the vertices
+     * @param pool the pool used to compute the closure, null to perform a
+     * sequential computation
+     * @see #ReachabilityIndex(G, WalkConstraint, ForkJoinPool)
+     */
+    public ReachabilityIndex(TopologicalOrder order, ForkJoinPool pool) {
+
+        logger.debug("Building reachability index");
+
+        int n = order.size();
+        vertices = order.vertices;
+        ids = order.ids;
+
+        arrays = new int[n][];
+        bitmaps = new BitSet[n];
+        cardinalities = new int[n];
+        order.process(new ClosureBuilder(order.offsets, order.targets), pool);
+
+        logger.debug("Reachability index built for " + n + " vertices");
+    }
+
+    /**
+     * Build an index from its content, see {@link #read(ByteBuffer, URI[])}.
+     */
+    private ReachabilityIndex(URI[] vertices, int[][] arrays, BitSet[] bitmaps, int[] cardinalities) {
+        this.vertices = vertices;
+        this.arrays = arrays;
+        this.bitmaps = bitmaps;
+        this.cardinalities = cardinalities;
+        ids = new HashMap<URI, Integer>(vertices.length * 2);
+        for (int id = 0; id < vertices.length; id++) {
+            ids.put(vertices[id], id);
+        }
+    }
+
+    /**
+     * Write the content of the index. The vertices are not written, they are
+     * referred to by their position in a dictionary shared with the reader,
+     * which must contain all the indexed vertices.
+     *
+     * Layout: the number of vertices, the position of each vertex in the
+     * dictionary (in id order), then for each vertex its cardinality, a flag
+     * (0 array, 1 bitmap) and either the sorted ids or the number of words
+     * and the words of the bitmap.
+     *
+     * @param out the output
+     * @param dictionary the position of the vertices in the dictionary
+     * @throws IOException
+     */
+    public void write(DataOutput out, Map<URI, Integer> dictionary) throws IOException {
+
+        out.writeInt(vertices.length);
+        for (URI v : vertices) {
+            out.writeInt(dictionary.get(v));
+        }
+        for (int id = 0; id < vertices.length; id++) {
+            out.writeInt(cardinalities[id]);
+            if (bitmaps[id] != null) {
+                long[] words = bitmaps[id].toLongArray();
+                out.writeByte(1);
+                out.writeInt(words.length);
+                for (long w : words) {
+                    out.writeLong(w);
+                }
+            } else {
+                out.writeByte(0);
+                for (int r : arrays[id]) {
+                    out.writeInt(r);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read an index written by {@link #write(DataOutput, Map)}, the buffer is
+     * positioned after the index.
+     *
+     * @param buffer the buffer (big-endian)
+     * @param dictionary the dictionary used to write the index
+     * @return the index
+     * @throws SLIB_Ex_Critic if the content is not coherent
+     */
+    public static ReachabilityIndex read(ByteBuffer buffer, URI[] dictionary) throws SLIB_Ex_Critic {
+
+        int n = buffer.getInt();
+        URI[] vertices = new URI[n];
+        for (int id = 0; id < n; id++) {
+            int d = buffer.getInt();
+            if (d < 0 || d >= dictionary.length) {
+                throw new SLIB_Ex_Critic("Invalid reachability index, unknown vertex " + d);
+            }
+            vertices[id] = dictionary[d];
+        }
+        int[][] arrays = new int[n][];
+        BitSet[] bitmaps = new BitSet[n];
+        int[] cardinalities = new int[n];
+
+        for (int id = 0; id < n; id++) {
+            int card = buffer.getInt();
+            cardinalities[id] = card;
+            if (buffer.get() == 1) {
+                long[] words = new long[buffer.getInt()];
+                LongBuffer longs = buffer.asLongBuffer();
+                longs.get(words);
+                buffer.position(buffer.position() + 8 * words.length);
+                bitmaps[id] = BitSet.valueOf(words);
+            } else {
+                int[] values = new int[card];
+                IntBuffer ints = buffer.asIntBuffer();
+                ints.get(values);
+                buffer.position(buffer.position() + 4 * card);
+                arrays[id] = values;
+            }
+        }
+        return new ReachabilityIndex(vertices, arrays, bitmaps, cardinalities);
+    }
+
+    /**
+     * Computation of the sets of reachable vertices, the set of a vertex is
+     * computed from the sets of its neighbours which must have been computed.
+     */
+    private class ClosureBuilder implements TopologicalOrder.VertexProcessor {
+
+        private final int[] offsets;
+        private final int[] targets;
+        // one scratch per worker thread, reused by all the tasks it executes
+        private final ThreadLocal<Scratch> scratches = new ThreadLocal<Scratch>() {
+            @Override
+            protected Scratch initialValue() {
+                return new Scratch(vertices.length);
+            }
+        };
+
+        ClosureBuilder(int[] offsets, int[] targets) {
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        void compute(int id, Scratch scratch) {
+
+            BitSet bits = scratch.bits;
+            IntList touched = scratch.touched;
+
+            // the ids set in the scratch bitmap are tracked as long as no
+            // bitmap is merged, in order to avoid scanning the whole bitmap
+            boolean tracked = true;
+            touched.size = 0;
+
+            for (int k = offsets[id]; k < offsets[id + 1]; k++) {
+                int nid = targets[k];
+                if (!bits.get(nid)) {
+                    bits.set(nid);
+                    touched.add(nid);
+                }
+                if (bitmaps[nid] != null) {
+                    bits.or(bitmaps[nid]);
+                    tracked = false;
+                } else {
+                    for (int r : arrays[nid]) {
+                        if (!bits.get(r)) {
+                            bits.set(r);
+                            touched.add(r);
+                        }
+                    }
+                }
+            }
+            int card = tracked ? touched.size : bits.cardinality();
+            cardinalities[id] = card;
+
+            // a bitmap costs (id / 8) bytes, an array 4 bytes per element
+            if ((long) card * 32 > id) {
+                bitmaps[id] = BitSet.valueOf(bits.toLongArray());
+                bits.clear();
+            } else {
+                int[] values;
+                if (tracked) {
+                    values = Arrays.copyOf(touched.values, card);
+                    Arrays.sort(values);
+                } else {
+                    values = new int[card];
+                    int c = 0;
+                    for (int r = bits.nextSetBit(0); r >= 0; r = bits.nextSetBit(r + 1)) {
+                        values[c++] = r;
+                    }
+                }
+                for (int r : values) {
+                    bits.clear(r);
+                }
+                arrays[id] = values;
+            }
+        }
+
+        @Override
+        public void process(int[] order, int from, int to) {
+            Scratch scratch = scratches.get();
+            for (int i = from; i < to; i++) {
+                compute(order[i], scratch);
+            }
+        }
+    }
+
+    /**
+     * Working structures used to compute a set of reachable vertices, they are
+     * cleared once the set of a vertex has been computed.
+     */
+    private static class Scratch {
+
+        final BitSet bits;
+        final IntList touched = new IntList();
+
+        Scratch(int n) {
+            bits = new BitSet(n);
+        }
+    }
+
+    /**
+     * @return the number of indexed vertices
+     */
+    public int size() {
+        return vertices.length;
+    }
+
+    /**
+     * @param v the vertex
+     * @return the id of the vertex, -1 if the vertex is not indexed
+     */
+    public int getId(URI v) {
+        Integer id = ids.get(v);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id the id of a vertex
+     * @return the vertex
+     */
+    public URI getURI(int id) {
+        return vertices[id];
+    }
+
+    /**
+     * @return the ids of the vertices
+     */
+    Map<URI, Integer> getIds() {
+        return ids;
+    }
+
+    /**
+     * @param from the id of a vertex
+     * @param to the id of a vertex
+     * @return true if the vertex to is reachable from the vertex from
+     * (exclusive, a vertex is not considered reachable from itself)
+     */
+    public boolean isReachable(int from, int to) {
+        if (to >= from) {
+            return false;
+        }
+        if (bitmaps[from] != null) {
+            return bitmaps[from].get(to);
+        }
+        return Arrays.binarySearch(arrays[from], to) >= 0;
+    }
+
+    /**
+     * @param from a vertex
+     * @param to a vertex
+     * @return true if the vertex to is reachable from the vertex from
+     * (exclusive, a vertex is not considered reachable from itself)
+     */
+    public boolean isReachable(URI from, URI to) {
+        int f = getId(from);
+        int t = getId(to);
+        return f != -1 && t != -1 && isReachable(f, t);
+    }
+
+    /**
+     * @param id the id of a vertex
+     * @return the number of vertices reachable from the vertex (exclusive)
+     */
+    public int getNumberReachable(int id) {
+        return cardinalities[id];
+    }
+
+    /**
+     * @param id the id of a vertex
+     * @return the ids of the vertices reachable from the vertex (exclusive),
+     * sorted in increasing order
+     */
+    public int[] getReachableIds(int id) {
+        if (arrays[id] != null) {
+            return arrays[id].clone();
+        }
+        int[] values = new int[cardinalities[id]];
+        int c = 0;
+        for (int r = bitmaps[id].nextSetBit(0); r >= 0; r = bitmaps[id].nextSetBit(r + 1)) {
+            values[c++] = r;
+        }
+        return values;
+    }
+
+    /**
+     * Add the ids of the vertices reachable from a vertex (exclusive) to a
+     * bitmap: dest = dest OR reachable(id).
+     *
+     * @param id the id of a vertex
+     * @param dest the bitmap to update
+     */
+    public void or(int id, BitSet dest) {
+        if (bitmaps[id] != null) {
+            dest.or(bitmaps[id]);
+        } else {
+            for (int r : arrays[id]) {
+                dest.set(r);
+            }
+        }
+    }
+
+    /**
+     * Only retain in a bitmap the ids of the vertices reachable from a vertex
+     * (exclusive): dest = dest AND reachable(id).
+     *
+     * @param id the id of a vertex
+     * @param dest the bitmap to update
+     */
+    public void and(int id, BitSet dest) {
+        if (bitmaps[id] != null) {
+            dest.and(bitmaps[id]);
+        } else {
+            int[] values = arrays[id];
+            int k = 0;
+            for (int r = dest.nextSetBit(0); r >= 0; r = dest.nextSetBit(r + 1)) {
+                while (k < values.length && values[k] < r) {
+                    k++;
+                }
+                if (k == values.length) {
+                    dest.clear(r, dest.length());
+                    break;
+                }
+                if (values[k] != r) {
+                    dest.clear(r);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove from a bitmap the ids of the vertices reachable from a vertex
+     * (exclusive): dest = dest AND NOT reachable(id).
+     *
+     * @param id the id of a vertex
+     * @param dest the bitmap to update
+     */
+    public void andNot(int id, BitSet dest) {
+        if (bitmaps[id] != null) {
+            dest.andNot(bitmaps[id]);
+        } else {
+            for (int r : arrays[id]) {
+                dest.clear(r);
+            }
+        }
+    }
+
+    /**
+     * @param v the vertex
+     * @return a view of the vertices reachable from the vertex (exclusive),
+     * null if the vertex is not indexed
+     */
+    public Set<URI> getReachable(URI v) {
+        int id = getId(v);
+        return id == -1 ? null : new ReachableSet(id, false);
+    }
+
+    /**
+     * @param v the vertex
+     * @return a view of the vertices reachable from the vertex, the vertex
+     * included (inclusive), null if the vertex is not indexed
+     */
+    public Set<URI> getReachableInc(URI v) {
+        int id = getId(v);
+        return id == -1 ? null : new ReachableSet(id, true);
+    }
+
+    /**
+     * Unmodifiable view of the vertices reachable from a vertex.
+     */
+    private class ReachableSet extends AbstractSet<URI> {
+
+        private final int id;
+        private final boolean inclusive;
+
+        ReachableSet(int id, boolean inclusive) {
+            this.id = id;
+            this.inclusive = inclusive;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer other = ids.get(o);
+            if (other == null) {
+                return false;
+            }
+            return (inclusive && other == id) || isReachable(id, other);
+        }
+
+        @Override
+        public int size() {
+            return cardinalities[id] + (inclusive ? 1 : 0);
+        }
+
+        @Override
+        public Iterator<URI> iterator() {
+
+            return new Iterator<URI>() {
+                final int[] array = arrays[id];
+                final BitSet bitmap = bitmaps[id];
+                boolean self = inclusive;
+                int index = 0;
+                int next = bitmap != null ? bitmap.nextSetBit(0) : -1;
+
+                @Override
+                public boolean hasNext() {
+                    return self || (array != null ? index < array.length : next >= 0);
+                }
+
+                @Override
+                public URI next() {
+                    if (self) {
+                        self = false;
+                        return vertices[id];
+                    }
+                    if (array != null) {
+                        if (index >= array.length) {
+                            throw new NoSuchElementException();
+                        }
+                        return vertices[array[index++]];
+                    }
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    int current = next;
+                    next = bitmap.nextSetBit(next + 1);
+                    return vertices[current];
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException("The set cannot be modified");
+                }
+            };
+        }
+    }
+}
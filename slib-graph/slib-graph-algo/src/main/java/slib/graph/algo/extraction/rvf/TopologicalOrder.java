@@ -0,0 +1,282 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.algo.extraction.rvf;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.openrdf.model.URI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import slib.graph.model.graph.G;
+import slib.graph.model.graph.utils.WalkConstraint;
+import slib.utils.ex.SLIB_Ex_Critic;
+
+/**
+ * Topological order of the vertices of an acyclic graph considering a walk
+ * constraint. The vertices are associated to dense integer ids attributed in
+ * topological order: the neighbours of a vertex, i.e. the vertices which can
+ * be reached from it in one step, always have a lower id.
+ *
+ * The vertices can also be processed level by level: the level of a vertex is
+ * the length of the longest walk starting from it, the vertices of a level
+ * only depend on vertices of lower levels and can be processed in parallel.
+ *
+ * The ids are the ones of the {@link ReachabilityIndex} built from the order,
+ * see {@link ReachabilityIndex#ReachabilityIndex(TopologicalOrder, ForkJoinPool)},
+ * the order can therefore be used to identify the vertices without computing
+ * the closure.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class TopologicalOrder {
+
+    private static final int TASK_SIZE = 256;
+    Logger logger = LoggerFactory.getLogger(this.getClass());
+    // vertices in topological order
+    final URI[] vertices;
+    final Map<URI, Integer> ids;
+    // neighbours of each vertex expressed using the ids, self-loops excluded,
+    // a neighbour is repeated for each edge leading to it
+    final int[] offsets;
+    final int[] targets;
+
+    /**
+     * Processing of a range of vertices, the vertices of the range are
+     * independent.
+     */
+    interface VertexProcessor {
+
+        /**
+         * @param order ids of the vertices
+         * @param from the first position to process in the array of ids
+         * @param to the position following the last position to process
+         */
+        void process(int[] order, int from, int to);
+    }
+
+    /**
+     * Compute the topological order of the vertices of a graph.
+     *
+     * @param g the graph, expected to be acyclic considering the walk
+     * constraint
+     * @param wc the walk constraint defining the neighbours of the vertices
+     * @throws SLIB_Ex_Critic if the graph is not acyclic considering the walk
+     * constraint
+     */
+    public TopologicalOrder(G g, WalkConstraint wc) throws SLIB_Ex_Critic {
+
+        int n = g.getNumberVertices();
+        Map<URI, Integer> indexes = new HashMap<URI, Integer>(n * 2);
+        URI[] unordered = new URI[n];
+        for (URI v : g.getV()) {
+            unordered[indexes.size()] = v;
+            indexes.put(v, indexes.size());
+        }
+
+        // neighbours of each vertex, self-loops excluded
+        int[] adjOffsets = new int[n + 1];
+        IntList adjTargets = new IntList();
+        NeighbourCollector collector = new NeighbourCollector(indexes, adjTargets);
+        for (int i = 0; i < n; i++) {
+            collector.collect(g, unordered[i], i, wc);
+            adjOffsets[i + 1] = adjTargets.size;
+        }
+
+        // reverse adjacency
+        int[] revOffsets = new int[n + 1];
+        int[] revTargets = new int[adjTargets.size];
+        for (int k = 0; k < adjTargets.size; k++) {
+            revOffsets[adjTargets.values[k] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            revOffsets[i + 1] += revOffsets[i];
+        }
+        int[] next = Arrays.copyOf(revOffsets, n);
+        for (int i = 0; i < n; i++) {
+            for (int k = adjOffsets[i]; k < adjOffsets[i + 1]; k++) {
+                revTargets[next[adjTargets.values[k]]++] = i;
+            }
+        }
+
+        // topological sort (Kahn), starting from the vertices without
+        // neighbours
+        int[] degrees = new int[n];
+        int[] order = new int[n];
+        int head = 0, tail = 0;
+        for (int i = 0; i < n; i++) {
+            degrees[i] = adjOffsets[i + 1] - adjOffsets[i];
+            if (degrees[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int current = order[head++];
+            for (int k = revOffsets[current]; k < revOffsets[current + 1]; k++) {
+                int dest = revTargets[k];
+                if (--degrees[dest] == 0) {
+                    order[tail++] = dest;
+                }
+            }
+        }
+        if (tail != n) {
+            throw new SLIB_Ex_Critic("ERROR incoherences found computing the reachable vertices, " + (n - tail) + " vertices cannot be ordered. "
+                    + "Please check the processed graph is acyclic, i.e. is a Directed Acyclic Graph.");
+        }
+
+        vertices = new URI[n];
+        ids = new HashMap<URI, Integer>(n * 2);
+        int[] rank = new int[n];
+        for (int id = 0; id < n; id++) {
+            vertices[id] = unordered[order[id]];
+            ids.put(vertices[id], id);
+            rank[order[id]] = id;
+        }
+
+        offsets = new int[n + 1];
+        targets = new int[adjTargets.size];
+        for (int id = 0; id < n; id++) {
+            int i = order[id];
+            int c = offsets[id];
+            for (int k = adjOffsets[i]; k < adjOffsets[i + 1]; k++) {
+                targets[c++] = rank[adjTargets.values[k]];
+            }
+            offsets[id + 1] = c;
+        }
+    }
+
+    /**
+     * @return the number of vertices
+     */
+    public int size() {
+        return vertices.length;
+    }
+
+    /**
+     * @param v the vertex
+     * @return the id of the vertex, -1 if the vertex is not ordered
+     */
+    public int getId(URI v) {
+        Integer id = ids.get(v);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id the id of a vertex
+     * @return the vertex
+     */
+    public URI getURI(int id) {
+        return vertices[id];
+    }
+
+    /**
+     * Process all the vertices, a vertex is always processed after its
+     * neighbours. If a pool is given the vertices of a same level are
+     * processed in parallel, the levels being processed one after the other.
+     *
+     * @param processor the processing
+     * @param pool the pool used to process the vertices, null to perform a
+     * sequential processing in id order
+     */
+    void process(VertexProcessor processor, ForkJoinPool pool) {
+
+        int n = vertices.length;
+        if (pool == null) {
+            int[] order = new int[n];
+            for (int id = 0; id < n; id++) {
+                order[id] = id;
+            }
+            processor.process(order, 0, n);
+            return;
+        }
+        // the level of a vertex is greater than the levels of its neighbours
+        int[] levels = new int[n];
+        int nbLevels = 0;
+        for (int id = 0; id < n; id++) {
+            int level = 0;
+            for (int k = offsets[id]; k < offsets[id + 1]; k++) {
+                level = Math.max(level, levels[targets[k]] + 1);
+            }
+            levels[id] = level;
+            nbLevels = Math.max(nbLevels, level + 1);
+        }
+        int[] levelOffsets = new int[nbLevels + 1];
+        for (int l : levels) {
+            levelOffsets[l + 1]++;
+        }
+        for (int l = 0; l < nbLevels; l++) {
+            levelOffsets[l + 1] += levelOffsets[l];
+        }
+        int[] levelIds = new int[n];
+        int[] next = Arrays.copyOf(levelOffsets, nbLevels);
+        for (int id = 0; id < n; id++) {
+            levelIds[next[levels[id]]++] = id;
+        }
+        logger.debug("Parallel processing of " + n + " vertices over " + nbLevels + " levels");
+
+        for (int l = 0; l < nbLevels; l++) {
+            pool.invoke(new LevelTask(processor, levelIds, levelOffsets[l], levelOffsets[l + 1]));
+        }
+    }
+
+    /**
+     * Processing of a range of vertices of the same level.
+     */
+    private static class LevelTask extends RecursiveAction {
+
+        private final VertexProcessor processor;
+        private final int[] levelIds;
+        private final int from;
+        private final int to;
+
+        LevelTask(VertexProcessor processor, int[] levelIds, int from, int to) {
+            this.processor = processor;
+            this.levelIds = levelIds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_SIZE) {
+                processor.process(levelIds, from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new LevelTask(processor, levelIds, from, middle), new LevelTask(processor, levelIds, middle, to));
+            }
+        }
+    }
+}
@@ -38,15 +38,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 import org.openrdf.model.URI;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import slib.graph.model.graph.G;
-import slib.graph.model.graph.elements.E;
-import slib.graph.model.graph.utils.Direction;
+import slib.graph.model.graph.utils.VertexVisitor;
 import slib.graph.model.graph.utils.WalkConstraint;
 import slib.graph.utils.WalkConstraintUtils;
 import slib.utils.ex.SLIB_Ex_Critic;
@@ -86,24 +84,35 @@ public class DepthAnalyserAG {
      * @return a ResultStack containing the depth of each vertex.
      * @throws SGL_Ex_Critic
      */
-    private Map<URI, Integer> getVDepths(boolean max) throws SLIB_Ex_Critic {
+    private Map<URI, Integer> getVDepths(final boolean max) throws SLIB_Ex_Critic {
 
-        Map<URI, Integer> computedDepths = new HashMap<URI, Integer>();
+        final Map<URI, Integer> computedDepths = new HashMap<URI, Integer>();
 
-        Map<URI, Integer> inDegree = new HashMap<URI, Integer>();
-        Map<URI, Integer> inDegreeDone = new HashMap<URI, Integer>();
+        final Map<URI, Integer> inDegree = new HashMap<URI, Integer>();
+        final Map<URI, Integer> inDegreeDone = new HashMap<URI, Integer>();
 
         // Initialize DataStructure + queue considering setEdgeTypes
-        List<URI> queue = new ArrayList<URI>();
+        final List<URI> queue = new ArrayList<URI>();
 
         logger.debug("Walk constraint loaded " + wc);
 
         WalkConstraint wcOpp = WalkConstraintUtils.getInverse(wc, false);
         logger.debug("Building initial queue considering inverse constraint " + wcOpp);
 
+        final int[] counter = new int[1];
+        VertexVisitor degreeCounter = new VertexVisitor() {
+            @Override
+            public boolean visit(URI v) {
+                counter[0]++;
+                return true;
+            }
+        };
+
         for (URI v : g.getV()) {
 
-            int sizeOpposite = g.getE(v, wcOpp).size();
+            counter[0] = 0;
+            g.forEachNeighbour(v, wcOpp, degreeCounter);
+            int sizeOpposite = counter[0];
 
             computedDepths.put(v, 0);
 
@@ -119,24 +128,12 @@ public class DepthAnalyserAG {
         logger.debug("Queue size " + queue.size());
 
 
-        while (!queue.isEmpty()) {
-
-            URI current = queue.get(0);
-            queue.remove(0);
-
-
-            Set<E> edges = g.getE(current, wc);
-
-            int currentDepth = computedDepths.get(current) + 1;
+        class Propagation implements VertexVisitor {
 
-            for (E e : edges) {
-
-                Direction dir = wc.getAssociatedDirection(e.getURI());
-                URI dest = e.getTarget();
-                if (dir == Direction.IN) {
-                    dest = e.getSource();
-                }
+            int currentDepth;
 
+            @Override
+            public boolean visit(URI dest) {
 
                 int done = inDegreeDone.get(dest) + 1;
                 inDegreeDone.put(dest, done);
@@ -159,8 +156,18 @@ public class DepthAnalyserAG {
                 if (done == inDegree.get(dest)) {
                     queue.add(dest);
                 }
+                return true;
             }
         }
+        Propagation propagation = new Propagation();
+
+        while (!queue.isEmpty()) {
+
+            URI current = queue.remove(0);
+
+            propagation.currentDepth = computedDepths.get(current) + 1;
+            g.forEachNeighbour(current, wc, propagation);
+        }
         return computedDepths;
     }
 
@@ -33,24 +33,23 @@
  */
 package slib.graph.algo.shortest_path;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import org.openrdf.model.URI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import slib.graph.model.graph.G;
-import slib.graph.model.graph.elements.E;
 import slib.graph.model.graph.utils.WalkConstraint;
 import slib.graph.model.graph.weight.GWS;
 import slib.utils.ex.SLIB_Ex_Critic;
 
 /**
- * Basic implementation of the shortest path algorithm proposed by Dijkstra Only
+ * Implementation of the shortest path algorithm proposed by Dijkstra Only
  * suited for shortest path exclusively composed of non-negative weight <a
- * href="http://en.wikipedia.org/wiki/Dijkstra's_algorithm">more about</a> TODO
- * optimize i.e Fibonacci heap implementation
+ * href="http://en.wikipedia.org/wiki/Dijkstra's_algorithm">more about</a>.
+ *
+ * The computation is delegated to a {@link ShortestPathEngine} built at
+ * construction (binary heap, breadth-first search if the weights are
+ * uniform). The graph is expected not to be modified after the construction.
  *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
@@ -60,24 +59,9 @@ public class Dijkstra {
     G g;
     WalkConstraint walkConstraints;
     GWS ws = null;
+    final ShortestPathEngine engine;
     public final static Double NOT_COMPUTED = -1.;
 
-    /**
-     * Check the weighting scheme only contains non negative weights
-     *
-     * @throws SGL_Ex_Critic
-     */
-    private void checkGWSisNonNegative() throws SLIB_Ex_Critic {
-
-        if (ws != null) {
-            for (E e : g.getE(walkConstraints.getAcceptedPredicates())) {
-                if (ws.getWeight(e) < 0) {
-                    throw new SLIB_Ex_Critic("Dijkstra algorithm cannot be used for a weighting scheme composed of negative weight");
-                }
-            }
-        }
-    }
-
     /**
      * Edge weights set to 1
      *
@@ -89,6 +73,7 @@ public class Dijkstra {
         this.g = g;
         this.walkConstraints = walconstraints;
         this.ws = null;
+        this.engine = new ShortestPathEngine(g, walconstraints);
     }
 
     /**
@@ -98,77 +83,34 @@ public class Dijkstra {
      * @param g the graph on which the shortest path has to be computed
      * @param walconstraints the constraint associated to the search
      * @param weightingScheme a
-     * @throws SLIB_Ex_Critic
+     * @throws SLIB_Ex_Critic if the weighting scheme contains negative weights
      */
     public Dijkstra(G g, WalkConstraint walconstraints, GWS weightingScheme) throws SLIB_Ex_Critic {
         this.g = g;
         this.walkConstraints = walconstraints;
         this.ws = weightingScheme;
-
-        checkGWSisNonNegative();
+        this.engine = new ShortestPathEngine(g, walconstraints, weightingScheme);
     }
 
     /**
-     * Compute shortest path between two nodes Note also that the resultStack is
-     * populated during computation
+     * Compute shortest path between two nodes
      *
      * @param source
      * @param t
-     * @return the shortest path weight as double
+     * @return the shortest path weight as double, {@link #NOT_COMPUTED} if the
+     * target cannot be reached
      */
     public Double shortestPath(URI source, URI t) {
 
         logger.debug("\tComputing Shortest path... from " + source + " to " + t + " " + ws);
 
-        HashMap<URI, Double> dists = new HashMap();
-        HashMap<URI, Boolean> visited = new HashMap();
-
-        // initialize data structures
-        for (URI v : g.getV()) {
-            dists.put(v, NOT_COMPUTED);
-            visited.put(v, false);
+        int s = engine.getId(source);
+        int target = engine.getId(t);
+        if (s == -1 || target == -1) {
+            return source.equals(t) ? 0. : NOT_COMPUTED;
         }
-
-        dists.put(source, 0.);
-
-        for (int i = 0; i < dists.size(); i++) {
-
-            if (dists.size() >= 1000 && i % 1000 == 0) {
-                logger.info("\tComputing Shortest path... Step " + i + "/" + dists.size());
-            }
-
-            URI next = minVertex(dists, visited);
-
-            if (next == null) {
-                break;
-            } else if (next == t) {
-                return dists.get(t);
-            }
-
-            visited.put(next, true);
-
-            Set<E> edges = g.getE(next, walkConstraints);
-
-            for (E e : edges) {
-
-                Double d = dists.get(next) + (ws == null ? 1 : ws.getWeight(e));
-
-                URI target = e.getTarget();
-
-                if (!target.equals(next)) { // outEdge
-                    if (dists.get(target) == NOT_COMPUTED || dists.get(target) > d) {
-                        dists.put(target, d);
-                    }
-                } else { // in Edges
-                    URI src = e.getSource();
-                    if (dists.get(src) == NOT_COMPUTED || dists.get(src) > d) {
-                        dists.put(src, d);
-                    }
-                }
-            }
-        }
-
-        return dists.get(t);
+        double d = engine.shortestPath(s, target);
+        return d == NOT_COMPUTED ? NOT_COMPUTED : d;
     }
 
     /**
@@ -181,67 +123,14 @@ public class Dijkstra {
 
         logger.debug("\tComputing Shortest path... from " + source + "  " + ws);
 
-        ConcurrentHashMap<URI, Double> dists = new ConcurrentHashMap<URI, Double>();
-        ConcurrentHashMap<URI, Boolean> visited = new ConcurrentHashMap<URI, Boolean>();
-
-        // initialize data structures
-        for (URI v : g.getV()) {
-            dists.put(v, NOT_COMPUTED);
-            visited.put(v, false);
-        }
-
-        dists.put(source, new Double(0));
-
-        for (int i = 0; i < dists.size(); i++) {
-
-            if (dists.size() >= 1000 && i % 1000 == 0) {
-                logger.debug("\tComputing Shortest from " + source + " paths... Step " + i + "/" + dists.size());
-            }
-
-            URI next = minVertex(dists, visited);
-
-            if (next == null) {
-                break;
-            }
-
-            visited.put(next, true);
-
-            Set<E> edges = g.getE(next, walkConstraints);
-
-            for (E e : edges) {
-
-                Double d = dists.get(next) + (ws == null ? 1 : ws.getWeight(e));
-
-                URI target = e.getTarget();
-
-                if (!target.equals(next)) { // outEdge
-                    if (dists.get(target) == NOT_COMPUTED || dists.get(target) > d) {
-                        dists.put(target, d);
-                    }
-                } else { // in Edges
-                    URI src = e.getSource();
-                    if (dists.get(src) == NOT_COMPUTED || dists.get(src) > d) {
-                        dists.put(src, d);
-                    }
-                }
-            }
-        }
-        return dists;
-    }
-
-    private URI minVertex(Map<URI, Double> dist, Map<URI, Boolean> visited) {
-
-        Double x = Double.MAX_VALUE;
-
-        URI next = null;   // graph not connected, or no unvisited vertices
-
-        for (URI v : dist.keySet()) {
-
-            if (!visited.get(v) && dist.get(v) != NOT_COMPUTED && dist.get(v) < x) {
-                next = v;
-                x = dist.get(v);
+        if (engine.getId(source) == -1) {
+            ConcurrentHashMap<URI, Double> dists = new ConcurrentHashMap<URI, Double>();
+            for (URI v : g.getV()) {
+                dists.put(v, NOT_COMPUTED);
             }
+            dists.put(source, 0.);
+            return dists;
         }
-        return next;
+        return engine.shortestPath(source);
     }
 }
@@ -0,0 +1,433 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.algo.shortest_path;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.openrdf.model.URI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import slib.graph.model.graph.G;
+import slib.graph.model.graph.utils.EdgeVisitor;
+import slib.graph.model.graph.utils.WalkConstraint;
+import slib.graph.model.graph.weight.GWS;
+import slib.graph.model.impl.graph.elements.Edge;
+import slib.utils.ex.SLIB_Ex_Critic;
+
+/**
+ * Shortest path computation over an indexed copy of the graph. The vertices
+ * are associated to dense integer ids and the edges accepted by the walk
+ * constraint, with their weights, are stored in arrays (CSR format) when the
+ * engine is built.
+ *
+ * Queries rely on Dijkstra's algorithm using an indexed binary heap and
+ * primitive distance arrays, the search stops as soon as the target is
+ * reached. If all the edges have the same weight (e.g. no weighting scheme is
+ * given) a breadth-first search is performed instead.
+ *
+ * Contrary to {@link Dijkstra} the graph is only processed once, the engine
+ * must therefore be rebuilt if the graph or the weighting scheme is modified.
+ * Queries are thread-safe.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class ShortestPathEngine {
+
+    Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final Map<URI, Integer> ids;
+    private final URI[] vertices;
+    private final int[] offsets;
+    private final int[] targets;
+    // null if the weights are uniform
+    private final double[] weights;
+    private final double uniformWeight;
+    private final ThreadLocal<Workspace> workspaces = new ThreadLocal<Workspace>() {
+        @Override
+        protected Workspace initialValue() {
+            return new Workspace(vertices.length);
+        }
+    };
+
+    /**
+     * Build an engine considering edge weights set to 1.
+     *
+     * @param g the graph
+     * @param wc the constraint defining the edges which can be walked
+     * @throws SLIB_Ex_Critic
+     */
+    public ShortestPathEngine(G g, WalkConstraint wc) throws SLIB_Ex_Critic {
+        this(g, wc, null);
+    }
+
+    /**
+     * Build an engine considering the given weighting scheme.
+     *
+     * @param g the graph
+     * @param wc the constraint defining the edges which can be walked
+     * @param ws the weighting scheme, null to consider edge weights set to 1
+     * @throws SLIB_Ex_Critic if the weighting scheme contains negative weights
+     */
+    public ShortestPathEngine(G g, WalkConstraint wc, GWS ws) throws SLIB_Ex_Critic {
+
+        int n = g.getNumberVertices();
+        ids = new HashMap<URI, Integer>(n * 2);
+        vertices = new URI[n];
+        for (URI v : g.getV()) {
+            vertices[ids.size()] = v;
+            ids.put(v, ids.size());
+        }
+
+        EdgeCollector collector = new EdgeCollector(ws);
+        offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            collector.current = vertices[i];
+            g.forEachEdge(vertices[i], wc, collector);
+            offsets[i + 1] = collector.size;
+        }
+        if (collector.negative) {
+            throw new SLIB_Ex_Critic("Shortest paths cannot be computed for a weighting scheme composed of negative weights");
+        }
+        targets = Arrays.copyOf(collector.targets, collector.size);
+
+        boolean uniform = true;
+        for (int k = 1; k < collector.size && uniform; k++) {
+            uniform = collector.weights[k] == collector.weights[0];
+        }
+        if (uniform) {
+            weights = null;
+            uniformWeight = collector.size == 0 ? 1 : collector.weights[0];
+        } else {
+            weights = Arrays.copyOf(collector.weights, collector.size);
+            uniformWeight = Double.NaN;
+        }
+        logger.debug("Shortest path engine built, " + n + " vertices, " + targets.length + " arcs, uniform weights: " + uniform);
+    }
+
+    /**
+     * @return true if all the edges have the same weight, the shortest paths
+     * are in this case computed through breadth-first searches.
+     */
+    public boolean isUniform() {
+        return weights == null;
+    }
+
+    /**
+     * @return the number of indexed vertices
+     */
+    public int size() {
+        return vertices.length;
+    }
+
+    /**
+     * @param v the vertex
+     * @return the id of the vertex, -1 if the vertex is not indexed
+     */
+    public int getId(URI v) {
+        Integer id = ids.get(v);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @param id the id of a vertex
+     * @return the vertex
+     */
+    public URI getURI(int id) {
+        return vertices[id];
+    }
+
+    /**
+     * Compute the weight of the shortest path between two vertices.
+     *
+     * @param source the id of the source
+     * @param target the id of the target
+     * @return the weight of the shortest path, {@link Dijkstra#NOT_COMPUTED}
+     * if the target cannot be reached
+     */
+    public double shortestPath(int source, int target) {
+        Workspace w = workspaces.get();
+        w.reset();
+        if (weights == null) {
+            bfs(w, source, target);
+        } else {
+            dijkstra(w, source, target);
+        }
+        return w.seen[target] == w.epoch ? w.dists[target] : Dijkstra.NOT_COMPUTED;
+    }
+
+    /**
+     * Compute the weights of the shortest paths from a vertex to all the
+     * vertices.
+     *
+     * @param source the id of the source
+     * @return the weights of the shortest paths indexed by vertex id,
+     * {@link Dijkstra#NOT_COMPUTED} for the vertices which cannot be reached
+     */
+    public double[] shortestPaths(int source) {
+        Workspace w = workspaces.get();
+        w.reset();
+        if (weights == null) {
+            bfs(w, source, -1);
+        } else {
+            dijkstra(w, source, -1);
+        }
+        double[] dists = new double[vertices.length];
+        for (int i = 0; i < dists.length; i++) {
+            dists[i] = w.seen[i] == w.epoch ? w.dists[i] : Dijkstra.NOT_COMPUTED;
+        }
+        return dists;
+    }
+
+    /**
+     * Compute the weight of the shortest path between two vertices.
+     *
+     * @param source the source
+     * @param target the target
+     * @return the weight of the shortest path, {@link Dijkstra#NOT_COMPUTED}
+     * if the target cannot be reached
+     */
+    public double shortestPath(URI source, URI target) {
+        return shortestPath(checkId(source), checkId(target));
+    }
+
+    /**
+     * Compute the weights of the shortest paths from a vertex to all the
+     * vertices.
+     *
+     * @param source the source
+     * @return a map containing the weights of the shortest paths,
+     * {@link Dijkstra#NOT_COMPUTED} for the vertices which cannot be reached
+     */
+    public ConcurrentHashMap<URI, Double> shortestPath(URI source) {
+        double[] dists = shortestPaths(checkId(source));
+        ConcurrentHashMap<URI, Double> results = new ConcurrentHashMap<URI, Double>(dists.length * 2);
+        for (int i = 0; i < dists.length; i++) {
+            results.put(vertices[i], dists[i] == Dijkstra.NOT_COMPUTED ? Dijkstra.NOT_COMPUTED : dists[i]);
+        }
+        return results;
+    }
+
+    private int checkId(URI v) {
+        Integer id = ids.get(v);
+        if (id == null) {
+            throw new IllegalArgumentException("The vertex " + v + " is not indexed by the shortest path engine");
+        }
+        return id;
+    }
+
+    private void bfs(Workspace w, int source, int target) {
+
+        int[] queue = w.heap;
+        int head = 0, tail = 0;
+        queue[tail++] = source;
+        w.seen[source] = w.epoch;
+        w.dists[source] = 0;
+        if (source == target) {
+            return;
+        }
+        while (head < tail) {
+            int v = queue[head++];
+            double d = w.dists[v] + uniformWeight;
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                int c = targets[k];
+                if (w.seen[c] != w.epoch) {
+                    w.seen[c] = w.epoch;
+                    w.dists[c] = d;
+                    if (c == target) {
+                        return;
+                    }
+                    queue[tail++] = c;
+                }
+            }
+        }
+    }
+
+    private void dijkstra(Workspace w, int source, int target) {
+
+        w.seen[source] = w.epoch;
+        w.dists[source] = 0;
+        w.push(source);
+
+        while (w.size > 0) {
+            int v = w.pop();
+            if (v == target) {
+                return;
+            }
+            double dv = w.dists[v];
+            for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                int c = targets[k];
+                double d = dv + weights[k];
+                if (w.seen[c] != w.epoch) {
+                    w.seen[c] = w.epoch;
+                    w.dists[c] = d;
+                    w.push(c);
+                } else if (w.done[c] != w.epoch && d < w.dists[c]) {
+                    w.dists[c] = d;
+                    w.siftUp(w.positions[c]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Visitor used to collect the neighbours of the vertices and the weights
+     * of the corresponding edges, self-loops are not considered.
+     */
+    private class EdgeCollector implements EdgeVisitor {
+
+        private final GWS ws;
+        URI current;
+        int[] targets = new int[16];
+        double[] weights = new double[16];
+        int size;
+        boolean negative;
+
+        EdgeCollector(GWS ws) {
+            this.ws = ws;
+        }
+
+        @Override
+        public boolean visit(URI source, URI predicate, URI target) {
+
+            URI n = target.equals(current) ? source : target;
+            if (n.equals(current)) {
+                return true;
+            }
+            double w = ws == null ? 1 : ws.getWeight(new Edge(source, predicate, target));
+            if (w < 0) {
+                negative = true;
+            }
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            targets[size] = ids.get(n);
+            weights[size] = w;
+            size++;
+            return true;
+        }
+    }
+
+    /**
+     * Working structures of the searches performed by a thread: distances,
+     * marks identified by an epoch to avoid clearing them, and an indexed
+     * binary heap ordered by distance (also used as BFS queue).
+     */
+    private static class Workspace {
+
+        final double[] dists;
+        final int[] seen;
+        final int[] done;
+        final int[] heap;
+        final int[] positions;
+        int size;
+        int epoch;
+
+        Workspace(int n) {
+            dists = new double[n];
+            seen = new int[n];
+            done = new int[n];
+            heap = new int[n];
+            positions = new int[n];
+        }
+
+        void reset() {
+            size = 0;
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(done, 0);
+                epoch = 1;
+            }
+        }
+
+        void push(int v) {
+            heap[size] = v;
+            positions[v] = size;
+            siftUp(size++);
+        }
+
+        int pop() {
+            int v = heap[0];
+            done[v] = epoch;
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                positions[heap[0]] = 0;
+                siftDown(0);
+            }
+            return v;
+        }
+
+        void siftUp(int i) {
+            int v = heap[i];
+            double d = dists[v];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                int p = heap[parent];
+                if (dists[p] <= d) {
+                    break;
+                }
+                heap[i] = p;
+                positions[p] = i;
+                i = parent;
+            }
+            heap[i] = v;
+            positions[v] = i;
+        }
+
+        void siftDown(int i) {
+            int v = heap[i];
+            double d = dists[v];
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && dists[heap[child + 1]] < dists[heap[child]]) {
+                    child++;
+                }
+                int c = heap[child];
+                if (d <= dists[c]) {
+                    break;
+                }
+                heap[i] = c;
+                positions[c] = i;
+                i = child;
+            }
+            heap[i] = v;
+            positions[v] = i;
+        }
+    }
+}
@@ -40,6 +40,7 @@ import java.util.Set;
 import org.openrdf.model.URI;
 import slib.graph.algo.traversal.GraphTraversal;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.utils.VertexVisitor;
 import slib.graph.model.graph.utils.WalkConstraint;
 import slib.utils.impl.SetUtils;
 
@@ -65,6 +66,7 @@ public class BFS implements GraphTraversal {
     URI current;
     List<URI> queue;
     Set<URI> visited;
+    private final VertexVisitor enqueuer;
 
     /**
      * Creates an instance of BFS used to perform a Bread First Search Traversal
@@ -85,6 +87,15 @@ public class BFS implements GraphTraversal {
 
         visited = new HashSet<URI>();
 
+        enqueuer = new VertexVisitor() {
+            @Override
+            public boolean visit(URI v) {
+                if (visited.add(v)) {
+                    queue.add(v);
+                }
+                return true;
+            }
+        };
     }
 
     /**
@@ -122,15 +133,8 @@ public class BFS implements GraphTraversal {
         URI src = queue.get(0);
         queue.remove(0);
 
-        Set<URI> vertices = g.getV(src, wc);
-
-        for (URI v : vertices) {
+        g.forEachNeighbour(src, wc, enqueuer);
 
-            if (!visited.contains(v)) {
-                queue.add(v);
-                visited.add(v);
-            }
-        }
         current = src;
         return src;
     }
@@ -43,7 +43,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import slib.graph.algo.traversal.GraphTraversal;
 import slib.graph.model.graph.G;
-import slib.graph.model.graph.elements.E;
+import slib.graph.model.graph.utils.VertexVisitor;
 import slib.graph.model.graph.utils.WalkConstraint;
 import slib.utils.impl.SetUtils;
 
@@ -69,6 +69,13 @@ public class DFS implements GraphTraversal {
     List<URI> topoSort;
     int current_id = 0;
     boolean removePerformed = false;
+    private final VertexVisitor visitor = new VertexVisitor() {
+        @Override
+        public boolean visit(URI n) {
+            performDFS(n);
+            return true;
+        }
+    };
 
     /**
      * Create a DFS iterator, note that DFS is performed at instance creation.
@@ -108,14 +115,7 @@ public class DFS implements GraphTraversal {
         if (!coloredVertex.containsKey(v)) {
 
             coloredVertex.put(v, true);
-
-            for (E e : g.getE(v, wc)) {
-                if (!e.getTarget().equals(v)) {
-                    performDFS(e.getTarget());
-                } else {
-                    performDFS(e.getSource());
-                }
-            }
+            g.forEachNeighbour(v, wc, visitor);
             topoSort.add(v);
         }
     }
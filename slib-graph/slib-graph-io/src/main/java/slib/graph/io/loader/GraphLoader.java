@@ -51,7 +51,7 @@ public interface GraphLoader {
 	/**
 	 * Populate an existing graph considering the given configuration
          * @param conf a {@link GraphConf} object specifying the configuration the loader must takes into account
-         * @param g
+         * @param g the graph in which the data are added
          * @throws SLIB_Exception  
 	 */
 	public void populate(GDataConf conf, G g) throws SLIB_Exception;
@@ -33,7 +33,13 @@
  */
 package slib.graph.io.loader;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.openrdf.model.URI;
 import org.openrdf.rio.RDFFormat;
@@ -41,6 +47,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import slib.graph.algo.utils.GraphActionExecutor;
+import slib.graph.algo.accessor.AnnotationStore;
 import slib.graph.io.conf.GDataConf;
 import slib.graph.io.conf.GraphConf;
 import slib.graph.io.loader.annot.GraphLoader_TSVannot;
@@ -51,15 +58,21 @@ import slib.graph.io.loader.bio.snomedct.GraphLoaderSnomedCT_RF2;
 import slib.graph.io.loader.csv.GraphLoader_CSV;
 import slib.graph.io.loader.rdf.RDFLoader;
 import slib.graph.io.loader.slibformat.GraphLoader_SLIB;
+import slib.graph.io.loader.slibformat.GraphLoader_SLIB_Binary;
 import slib.graph.io.loader.wordnet.GraphLoader_Wordnet;
 import slib.graph.io.util.GFormat;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.GraphSink;
+import slib.graph.model.impl.graph.memory.GraphCompact;
+import slib.graph.model.impl.graph.memory.GraphCompactBuilder;
 import slib.graph.model.impl.graph.memory.GraphMemory;
 import slib.graph.model.impl.repo.GraphRepositoryMemory;
 import slib.graph.model.repo.URIFactory;
 import slib.graph.model.impl.repo.URIFactoryMemory;
 import slib.utils.ex.SLIB_Ex_Critic;
 import slib.utils.ex.SLIB_Exception;
+import slib.utils.threads.PoolWorker;
+import slib.utils.threads.ThreadManager;
 
 /**
  *
@@ -76,7 +89,7 @@ public class GraphLoaderGeneric {
     public static GFormat[] supportedFormat = {
         GFormat.OBO, GFormat.GAF2, GFormat.NTRIPLES, GFormat.RDF_XML,
         GFormat.RDF_XML, GFormat.SNOMED_CT_RF2, GFormat.MESH_XML, GFormat.CSV, GFormat.TSV_ANNOT,
-        GFormat.WORDNET_DATA
+        GFormat.WORDNET_DATA, GFormat.SLIB_BINARY
     };
 
     /**
@@ -94,13 +107,41 @@ public class GraphLoaderGeneric {
 
         logger.debug("Populate " + g.getURI() + " based on " + dataConf.getLoc());
 
-        GraphLoader gLoader = getLoader(dataConf);
+        GraphSinkLoader gLoader = getLoader(dataConf);
 
         gLoader.populate(dataConf, g);
 
         return g;
     }
 
+    /**
+     * Populate a given graph considering a configuration, annotations (i.e.
+     * {@link GFormat#GAF2} and {@link GFormat#TSV_ANNOT} data) are loaded into
+     * the given store instead of being added to the graph.
+     *
+     * @param dataConf the object defining the configuration of the data to load
+     * @param g the graph to populate with the data
+     * @param annotationStore the store in which the annotations are loaded
+     * @return the graph which have been populated.
+     *
+     * @throws SLIB_Exception if an error is encountered during loading.
+     */
+    public static G populate(GDataConf dataConf, G g, AnnotationStore annotationStore) throws SLIB_Exception {
+
+        logger.debug("Populate " + g.getURI() + " based on " + dataConf.getLoc() + " (annotations loaded into a store)");
+
+        GraphSinkLoader gLoader = getLoader(dataConf);
+
+        if (gLoader instanceof GraphLoader_GAF_2) {
+            ((GraphLoader_GAF_2) gLoader).setAnnotationStore(annotationStore);
+        } else if (gLoader instanceof GraphLoader_TSVannot) {
+            ((GraphLoader_TSVannot) gLoader).setAnnotationStore(annotationStore);
+        }
+        gLoader.populate(dataConf, g);
+
+        return g;
+    }
+
     /**
      * Create a graph and register it.
      *
@@ -160,6 +201,86 @@ public class GraphLoaderGeneric {
         return g;
     }
 
+    /**
+     * Build the graph considering the given configuration, the data are loaded
+     * concurrently using the threads made available by the
+     * {@link ThreadManager}. The data are loaded into a
+     * {@link GraphCompactBuilder} and the resulting graph is a
+     * {@link GraphCompact}.
+     *
+     * Annotations (i.e. {@link GFormat#GAF2} and {@link GFormat#TSV_ANNOT}
+     * data) are loaded once all the other data have been loaded since the
+     * annotated classes are expected to be part of the graph.
+     *
+     * @param graphConf the graph configuration
+     * @return the graph which as been build form the configuration
+     *
+     * @throws SLIB_Exception
+     */
+    public static G loadConcurrently(GraphConf graphConf) throws SLIB_Exception {
+
+        logger.info("Loading Graph " + graphConf.getUri() + " (concurrent loading)");
+
+        GraphCompactBuilder builder = new GraphCompactBuilder(graphConf.getUri());
+
+        List<GDataConf> data = new ArrayList<GDataConf>();
+        List<GDataConf> annotations = new ArrayList<GDataConf>();
+
+        for (GDataConf dataConf : graphConf.getData()) {
+            if (dataConf.getFormat() == GFormat.GAF2 || dataConf.getFormat() == GFormat.TSV_ANNOT) {
+                annotations.add(dataConf);
+            } else {
+                data.add(dataConf);
+            }
+        }
+
+        PoolWorker poolWorker = ThreadManager.getSingleton().getMaxLoadPoolWorker();
+        G g;
+        try {
+            populateConcurrently(data, builder, poolWorker.getPool());
+            populateConcurrently(annotations, builder, poolWorker.getPool());
+            g = builder.build(poolWorker.getPool());
+        } finally {
+            poolWorker.shutdown();
+        }
+
+        GraphRepositoryMemory.getSingleton().registerGraph(g);
+
+        URIFactory factory = URIFactoryMemory.getSingleton();
+
+        GraphActionExecutor.applyActions(factory, graphConf.getActions(), g);
+        return g;
+    }
+
+    private static void populateConcurrently(List<GDataConf> data, final GraphSink sink, ExecutorService pool) throws SLIB_Exception {
+
+        List<Future<Void>> results = new ArrayList<Future<Void>>();
+
+        for (final GDataConf dataConf : data) {
+            results.add(pool.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    logger.debug("Populate " + sink.getURI() + " based on " + dataConf.getLoc());
+                    getLoader(dataConf).populate(dataConf, sink);
+                    sink.flush();
+                    return null;
+                }
+            }));
+        }
+        try {
+            for (Future<Void> r : results) {
+                r.get();
+            }
+        } catch (InterruptedException e) {
+            throw new SLIB_Ex_Critic(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SLIB_Exception) {
+                throw (SLIB_Exception) e.getCause();
+            }
+            throw new SLIB_Ex_Critic(e.getCause());
+        }
+    }
+
     /**
      * Load the collection of configurations.
      *
@@ -182,7 +303,7 @@ public class GraphLoaderGeneric {
      *
      * @throws SLIB_Ex_Critic
      */
-    private static GraphLoader getLoader(GDataConf data) throws SLIB_Ex_Critic {
+    private static GraphSinkLoader getLoader(GDataConf data) throws SLIB_Ex_Critic {
 
         if (data.getFormat() == GFormat.OBO) {
             return new GraphLoader_OBO_1_2();
@@ -200,6 +321,8 @@ public class GraphLoaderGeneric {
             return new GraphLoaderSnomedCT_RF2();
         } else if (data.getFormat() == GFormat.SLIB) {
             return new GraphLoader_SLIB();
+        } else if (data.getFormat() == GFormat.SLIB_BINARY) {
+            return new GraphLoader_SLIB_Binary();
         } else if (data.getFormat() == GFormat.MESH_XML) {
             return new GraphLoader_MESH_XML();
         } else if (data.getFormat() == GFormat.TSV_ANNOT) {
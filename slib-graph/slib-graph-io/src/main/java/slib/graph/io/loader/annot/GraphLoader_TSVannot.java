@@ -40,12 +40,12 @@ import org.openrdf.model.URI;
 import org.openrdf.model.vocabulary.RDF;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import slib.graph.algo.accessor.AnnotationStore;
 import slib.graph.io.conf.GDataConf;
-import slib.graph.io.loader.GraphLoader;
+import slib.graph.io.loader.GraphSinkLoader;
 import slib.graph.model.graph.G;
-import slib.graph.model.graph.elements.E;
+import slib.graph.model.graph.GraphSink;
 import slib.graph.model.impl.repo.URIFactoryMemory;
-import slib.graph.model.impl.graph.elements.Edge;
 import slib.utils.ex.SLIB_Ex_Critic;
 import slib.utils.ex.SLIB_Exception;
 import slib.utils.impl.Util;
@@ -67,7 +67,7 @@ import slib.utils.impl.Util;
  *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
-public class GraphLoader_TSVannot implements GraphLoader {
+public class GraphLoader_TSVannot implements GraphSinkLoader {
 
     public final static String PARAM_HEADER = "header";
     public final static String PARAM_PREFIX_SUBJECT = "prefixSubject";
@@ -76,15 +76,34 @@ public class GraphLoader_TSVannot implements GraphLoader {
     boolean skipHeader = false;
     URIFactoryMemory uriRepo = URIFactoryMemory.getSingleton();
     Character pattern = '\t'; // the one used
-    G g;
+    GraphSink g;
     Logger logger = LoggerFactory.getLogger(this.getClass());
     URI predicate = RDF.TYPE;
     String prefixSubject = null;
     String prefixObject = null;
     Pattern colon = Pattern.compile(":");
+    AnnotationStore annotationStore;
+
+    /**
+     * Define the store in which the annotations will be loaded. If a store is
+     * defined the annotations are not added to the graph. Only the
+     * annotations defined using the RDF.TYPE predicate can be loaded into a
+     * store.
+     *
+     * @param annotationStore the store, null to load the annotations as
+     * edges of the graph
+     */
+    public void setAnnotationStore(AnnotationStore annotationStore) {
+        this.annotationStore = annotationStore;
+    }
 
     @Override
     public void populate(GDataConf conf, G g) throws SLIB_Exception {
+        populate(conf, (GraphSink) g);
+    }
+
+    @Override
+    public void populate(GDataConf conf, GraphSink g) throws SLIB_Exception {
 
         logger.info("-------------------------------------");
         logger.info("Loading Annotations using TSV loader.");
@@ -93,6 +112,9 @@ public class GraphLoader_TSVannot implements GraphLoader {
         this.g = g;
 
         loadConf(conf);
+        if (annotationStore != null && !predicate.equals(RDF.TYPE)) {
+            throw new SLIB_Ex_Critic("Annotations defined using predicate " + predicate + " cannot be loaded into an annotation store, only " + RDF.TYPE + " is supported");
+        }
         loadTSV(conf.getLoc());
         logger.info("TSV specification loaded.");
         logger.info("-------------------------------------");
@@ -172,8 +194,11 @@ public class GraphLoader_TSVannot implements GraphLoader {
                             o = uriRepo.getURI(prefixObject + os);
                         }
 
-                        E edge = new Edge(s, predicate, o);
-                        g.addE(edge);
+                        if (annotationStore != null) {
+                            annotationStore.addAnnotation(s, o);
+                        } else {
+                            g.addE(s, predicate, o);
+                        }
                         statementsLoaded++;
                     }
                     processed++;
@@ -41,13 +41,15 @@ import org.openrdf.model.URI;
 import org.openrdf.model.vocabulary.RDF;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import slib.graph.algo.accessor.AnnotationStore;
 import slib.graph.io.conf.GDataConf;
-import slib.graph.io.loader.GraphLoader;
+import slib.graph.io.loader.GraphSinkLoader;
 import slib.graph.io.loader.utils.filter.graph.Filter;
 import slib.graph.io.loader.utils.filter.graph.gaf2.FilterGraph_GAF2;
 import slib.graph.io.loader.utils.filter.graph.gaf2.FilterGraph_GAF2_cst;
 import slib.graph.io.loader.utils.filter.graph.repo.FilterRepository;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.GraphSink;
 import slib.graph.model.impl.repo.URIFactoryMemory;
 import slib.graph.model.repo.URIFactory;
 import slib.utils.ex.SLIB_Ex_Critic;
@@ -64,7 +66,7 @@ import slib.utils.impl.BigFileReader;
  *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
-public class GraphLoader_GAF_2 implements GraphLoader {
+public class GraphLoader_GAF_2 implements GraphSinkLoader {
 
     public final static int DB = 0;
     public final static int DB_OBJECT_ID = 1;
@@ -83,12 +85,25 @@ public class GraphLoader_GAF_2 implements GraphLoader {
     public final static int ASSIGNED_BY = 14;
     public final static int ANNOTATION_XP = 15;
     public final static int GENE_PRODUCT_ISOFORM = 16;
-    private G graph;
+    private GraphSink graph;
     Logger logger = LoggerFactory.getLogger(this.getClass());
     URIFactoryMemory factory = URIFactoryMemory.getSingleton();
     String prefixUriInstance;
     String defaultURIprefix;
     Pattern colon = Pattern.compile(":");
+    AnnotationStore annotationStore;
+
+    /**
+     * Define the store in which the annotations will be loaded. If a store is
+     * defined the annotations are not added to the graph, which is only used
+     * to check that the annotating classes exist.
+     *
+     * @param annotationStore the store, null to load the annotations as
+     * RDF.TYPE edges of the graph
+     */
+    public void setAnnotationStore(AnnotationStore annotationStore) {
+        this.annotationStore = annotationStore;
+    }
 
     /**
      * Method used to load an annotation repository considering a specific
@@ -108,6 +123,11 @@ public class GraphLoader_GAF_2 implements GraphLoader {
      */
     @Override
     public void populate(GDataConf conf, G graph) throws SLIB_Ex_Critic {
+        populate(conf, (GraphSink) graph);
+    }
+
+    @Override
+    public void populate(GDataConf conf, GraphSink graph) throws SLIB_Ex_Critic {
 
         logger.info("-------------------------------------");
         logger.info("Loading data using GAF2 loader.");
@@ -263,7 +283,14 @@ public class GraphLoader_GAF_2 implements GraphLoader {
                                         }
                                     }
                                 }
-                                if (valid) {
+                                if (valid && annotationStore != null) {
+
+                                    if (!annotationStore.isInstance(entityID)) {
+                                        countEntities++;
+                                    }
+                                    annotationStore.addAnnotation(entityID, uriGOterm);
+                                    countAnnotsLoaded++;
+                                } else if (valid) {
 
                                     if (!graph.containsVertex(entityID)) {
                                         graph.addV(entityID);
@@ -53,11 +53,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 import slib.graph.io.conf.GDataConf;
-import slib.graph.io.loader.GraphLoader;
+import slib.graph.io.loader.GraphSinkLoader;
 import slib.graph.io.util.GFormat;
 import slib.graph.model.graph.G;
-import slib.graph.model.graph.elements.E;
-import slib.graph.model.impl.graph.elements.Edge;
+import slib.graph.model.graph.GraphSink;
 import slib.graph.model.impl.graph.memory.GraphMemory;
 import slib.graph.model.impl.repo.URIFactoryMemory;
 import slib.graph.model.repo.URIFactory;
@@ -74,12 +73,12 @@ import slib.utils.ex.SLIB_Exception;
  *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
-public class GraphLoader_MESH_XML implements GraphLoader {
+public class GraphLoader_MESH_XML implements GraphSinkLoader {
 
     Logger logger = LoggerFactory.getLogger(this.getClass());
     Map<String, MeshConcept> idToConcepts = new HashMap<String, MeshConcept>();
     Set<MeshConcept> concepts = new HashSet<MeshConcept>();
-    G graph;
+    GraphSink graph;
     URIFactory factory = URIFactoryMemory.getSingleton();
     int conceptIgnored = 0;
     /**
@@ -125,6 +124,11 @@ public class GraphLoader_MESH_XML implements GraphLoader {
 
     @Override
     public void populate(GDataConf conf, G g) throws SLIB_Exception {
+        populate(conf, (GraphSink) g);
+    }
+
+    @Override
+    public void populate(GDataConf conf, GraphSink g) throws SLIB_Exception {
 
         this.graph = g;
 
@@ -177,9 +181,8 @@ public class GraphLoader_MESH_XML implements GraphLoader {
 
                             //System.out.println("\t" + parentId + "\t" + parent.descriptorUI);
                             URI vParent = getOrCreateVertex(parent.descriptorUI);
-                            E edge = new Edge(vConcept, RDFS.SUBCLASSOF, vParent);
 
-                            g.addE(edge);
+                            g.addE(vConcept, RDFS.SUBCLASSOF, vParent);
                         }
                     } else {
                         /* Those vertices are the inner roots of each trees, 
@@ -199,14 +202,10 @@ public class GraphLoader_MESH_XML implements GraphLoader {
                         // we link the tree inner root to the root tree
                         char localNameTreeRoot = treeNumber.charAt(0); // id of the tree root
                         URI rootTree = getOrCreateVertex(localNameTreeRoot + ""); // e.g. F
-                        E treeInnerRootToTreeRoot = new Edge(vConcept, RDFS.SUBCLASSOF, rootTree);
-                        g.addE(treeInnerRootToTreeRoot);
-//                        logger.debug("Creating Edge : " + treeInnerRootToTreeRoot);
+                        g.addE(vConcept, RDFS.SUBCLASSOF, rootTree);
 
                         // we link the tree root to the universal root
-                        E treeRootToUniversalRoot = new Edge(rootTree, RDFS.SUBCLASSOF, universalRoot);
-                        g.addE(treeRootToUniversalRoot);
-//                        logger.debug("Creating Edge : " + treeRootToUniversalRoot);
+                        g.addE(rootTree, RDFS.SUBCLASSOF, universalRoot);
                     }
                 }
             }
@@ -51,11 +51,12 @@ import org.slf4j.LoggerFactory;
 
 import slib.graph.io.conf.GDataConf;
 import slib.graph.io.conf.GraphConf;
-import slib.graph.io.loader.GraphLoader;
+import slib.graph.io.loader.GraphSinkLoader;
 import slib.graph.io.loader.bio.obo.utils.OboRelationship;
 import slib.graph.io.loader.bio.obo.utils.OboTerm;
 import slib.graph.io.loader.bio.obo.utils.OboType;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.GraphSink;
 import slib.graph.model.impl.repo.URIFactoryMemory;
 import slib.utils.ex.SLIB_Ex_Critic;
 import slib.utils.ex.SLIB_Exception;
@@ -126,14 +127,14 @@ import slib.utils.impl.OBOconstants;
  *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
-public class GraphLoader_OBO_1_2 implements GraphLoader {
+public class GraphLoader_OBO_1_2 implements GraphSinkLoader {
 
     URIFactoryMemory data = URIFactoryMemory.getSingleton();
     GraphConf conf;
     Logger logger = LoggerFactory.getLogger(this.getClass());
     boolean onTermSpec = false;
     boolean onTypeDef = false;
-    G g;
+    GraphSink g;
     URI graphURI;
     String filepath;
     String defaultNamespace;
@@ -149,7 +150,7 @@ public class GraphLoader_OBO_1_2 implements GraphLoader {
     Pattern exclamation = Pattern.compile("!");
     Pattern spaces = Pattern.compile("\\s+");
 
-    private void init(G g, String file, String defaultNamespace) {
+    private void init(GraphSink g, String file, String defaultNamespace) {
 
         this.g = g;
         this.graphURI = g.getURI();
@@ -171,6 +172,11 @@ public class GraphLoader_OBO_1_2 implements GraphLoader {
 
     @Override
     public void populate(GDataConf conf, G g) throws SLIB_Exception {
+        populate(conf, (GraphSink) g);
+    }
+
+    @Override
+    public void populate(GDataConf conf, GraphSink g) throws SLIB_Exception {
 
         String defaultNamespaceVal = (String) conf.getParameter("default-namespace");
 
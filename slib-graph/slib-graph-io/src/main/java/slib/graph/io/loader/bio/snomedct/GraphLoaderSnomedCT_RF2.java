@@ -48,10 +48,9 @@ import org.openrdf.model.vocabulary.RDFS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import slib.graph.io.conf.GDataConf;
-import slib.graph.io.loader.GraphLoader;
+import slib.graph.io.loader.GraphSinkLoader;
 import slib.graph.model.graph.G;
-import slib.graph.model.graph.elements.E;
-import slib.graph.model.impl.graph.elements.Edge;
+import slib.graph.model.graph.GraphSink;
 import slib.graph.model.impl.repo.URIFactoryMemory;
 import slib.graph.model.repo.URIFactory;
 import slib.utils.ex.SLIB_Ex_Critic;
@@ -60,7 +59,7 @@ import slib.utils.ex.SLIB_Exception;
 /**
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
-public class GraphLoaderSnomedCT_RF2 implements GraphLoader {
+public class GraphLoaderSnomedCT_RF2 implements GraphSinkLoader {
 
     public final static String ARG_CONCEPT_FILE = "concept_file";
     public final static String ARG_RELATIONSHIP_FILE = "relationship_file";
@@ -101,6 +100,11 @@ public class GraphLoaderSnomedCT_RF2 implements GraphLoader {
 
     @Override
     public void populate(GDataConf conf, G g) throws SLIB_Exception {
+        populate(conf, (GraphSink) g);
+    }
+
+    @Override
+    public void populate(GDataConf conf, GraphSink g) throws SLIB_Exception {
 
         /*
          * Loading concepts:
@@ -261,9 +265,7 @@ public class GraphLoaderSnomedCT_RF2 implements GraphLoader {
                         } else {
                             pred = repo.getURI(prefix,r.relationshipID);
                         }
-                        E e = new Edge(src, pred, tar);
-
-                        g.addE(e);
+                        g.addE(src, pred, tar);
                         relationship_count++;
                     }
                 }
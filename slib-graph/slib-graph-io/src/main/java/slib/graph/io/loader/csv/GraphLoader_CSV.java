@@ -48,8 +48,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import slib.graph.io.conf.GDataConf;
-import slib.graph.io.loader.GraphLoader;
+import slib.graph.io.loader.GraphSinkLoader;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.GraphSink;
 import slib.graph.model.impl.repo.URIFactoryMemory;
 import slib.utils.ex.SLIB_Ex_Critic;
 import slib.utils.ex.SLIB_Exception;
@@ -59,14 +60,14 @@ import slib.utils.impl.Util;
  *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
-public class GraphLoader_CSV implements GraphLoader {
+public class GraphLoader_CSV implements GraphSinkLoader {
 
     boolean skipHeader = false;
     URIFactoryMemory dataRepo = URIFactoryMemory.getSingleton();
     Map<Integer, CSV_Mapping> mappings = new HashMap<Integer, CSV_Mapping>();
     Map<Integer, CSV_StatementTemplate> statementTemplates = new HashMap<Integer, CSV_StatementTemplate>();
     Pattern pattern = null; // the one used
-    G g;
+    GraphSink g;
     Logger logger = LoggerFactory.getLogger(this.getClass());
 
     /**
@@ -98,6 +99,11 @@ public class GraphLoader_CSV implements GraphLoader {
 
     @Override
     public void populate(GDataConf conf, G g) throws SLIB_Exception {
+        populate(conf, (GraphSink) g);
+    }
+
+    @Override
+    public void populate(GDataConf conf, GraphSink g) throws SLIB_Exception {
 
         logger.info("-------------------------------------");
         logger.info("Loading CSV.");
@@ -54,9 +54,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import slib.graph.io.conf.GDataConf;
-import slib.graph.io.loader.GraphLoader;
+import slib.graph.io.loader.GraphSinkLoader;
 import slib.graph.io.util.GFormat;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.GraphSink;
 import slib.utils.ex.SLIB_Ex_Critic;
 import slib.utils.ex.SLIB_Exception;
 
@@ -64,7 +65,7 @@ import slib.utils.ex.SLIB_Exception;
  *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
-public class RDFLoader implements GraphLoader {
+public class RDFLoader implements GraphSinkLoader {
 
     RDFParser parser = null;
     Logger logger = LoggerFactory.getLogger(this.getClass());
@@ -88,6 +89,11 @@ public class RDFLoader implements GraphLoader {
 
     @Override
     public void populate(GDataConf conf, G g) throws SLIB_Exception {
+        populate(conf, (GraphSink) g);
+    }
+
+    @Override
+    public void populate(GDataConf conf, GraphSink g) throws SLIB_Exception {
 
         loadConf(conf);
 
@@ -141,7 +147,7 @@ public class RDFLoader implements GraphLoader {
      * @param file
      * @throws SLIB_Ex_Critic
      */
-    public void load(G g, String file) throws SLIB_Ex_Critic {
+    public void load(GraphSink g, String file) throws SLIB_Ex_Critic {
 
         try {
             load(g, new FileInputStream(file));
@@ -153,7 +159,7 @@ public class RDFLoader implements GraphLoader {
     }
 
     
-    public void load(G g, InputStream inputStream) throws SLIB_Ex_Critic {
+    public void load(GraphSink g, InputStream inputStream) throws SLIB_Ex_Critic {
 
         RDFHandler rdfHandler = new SlibRdfHandler(g);
         
@@ -178,7 +184,7 @@ public class RDFLoader implements GraphLoader {
      * @param format
      * @throws SLIB_Ex_Critic
      */
-    public void load(G g, String file, RDFFormat format) throws SLIB_Ex_Critic {
+    public void load(GraphSink g, String file, RDFFormat format) throws SLIB_Ex_Critic {
         buildRDFparser(format);
         load(g, file);
     }
@@ -189,7 +195,7 @@ public class RDFLoader implements GraphLoader {
      * @param rdfFileConf
      * @throws SLIB_Ex_Critic
      */
-    public void load(G g, Map<String, RDFFormat> rdfFileConf) throws SLIB_Ex_Critic {
+    public void load(GraphSink g, Map<String, RDFFormat> rdfFileConf) throws SLIB_Ex_Critic {
 
         for (Entry<String, RDFFormat> e : rdfFileConf.entrySet()) {
             load(g, e.getKey(), e.getValue());
@@ -40,7 +40,8 @@ import org.openrdf.rio.RDFHandler;
 import org.openrdf.rio.RDFHandlerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import slib.graph.model.graph.G;
+import slib.graph.model.graph.GraphSink;
+import slib.graph.model.impl.repo.URIDictionary;
 import slib.graph.model.impl.repo.URIFactoryMemory;
 import slib.graph.model.repo.URIFactory;
 
@@ -50,19 +51,21 @@ import slib.graph.model.repo.URIFactory;
  */
 public class SlibRdfHandler implements RDFHandler {
 
-    G g;
+    GraphSink g;
     Logger logger = LoggerFactory.getLogger(this.getClass());
     int count = 0;
     int countSkipped = 0;
     URIFactory factory;
+    URIDictionary dictionary;
 
     /**
      *
      * @param g
      */
-    public SlibRdfHandler(G g) {
+    public SlibRdfHandler(GraphSink g) {
         this.g = g;
         factory = URIFactoryMemory.getSingleton();
+        dictionary = URIFactoryMemory.getSingleton().getDictionary();
     }
 
     @Override
@@ -76,8 +79,6 @@ public class SlibRdfHandler implements RDFHandler {
     public void endRDF() throws RDFHandlerException {
 
         logger.info("Ending Process " + count + " statements loaded ");
-        logger.info("vertices: " + g.getV().size());
-        logger.info("edges   : " + g.getE().size());
         logger.info("Skipped (statement involving non URI ressources) : " + countSkipped);
     }
 
@@ -96,7 +97,12 @@ public class SlibRdfHandler implements RDFHandler {
         
 
         if (s instanceof URI && o instanceof URI) {
-            g.addE((URI) s,st.getPredicate(),(URI) o);
+            if (dictionary != null) {
+                // the URIs created by the parser are replaced by dictionary views
+                g.addE(dictionary.getURI((URI) s), dictionary.getURI(st.getPredicate()), dictionary.getURI((URI) o));
+            } else {
+                g.addE((URI) s, st.getPredicate(), (URI) o);
+            }
             count++;
         }
         else{
@@ -104,8 +110,6 @@ public class SlibRdfHandler implements RDFHandler {
         }
         if(count % 100000 == 0){
             logger.info(count+" statements already loaded");
-            logger.info("Number of vertices: "+g.getV().size());
-            logger.info("Number of edges   : "+g.getE().size());
         }
     }
 
@@ -44,8 +44,9 @@ import org.openrdf.model.URI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import slib.graph.io.conf.GDataConf;
-import slib.graph.io.loader.GraphLoader;
+import slib.graph.io.loader.GraphSinkLoader;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.GraphSink;
 import slib.graph.model.graph.elements.E;
 import slib.graph.model.impl.repo.URIFactoryMemory;
 import slib.graph.model.repo.URIFactory;
@@ -58,17 +59,22 @@ import slib.utils.ex.SLIB_Exception;
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  *
  */
-public class GraphLoader_SLIB implements GraphLoader {
+public class GraphLoader_SLIB implements GraphSinkLoader {
 
     Logger logger = LoggerFactory.getLogger(this.getClass());
     URIFactory factory;
     String filepath;
-    G g;
+    GraphSink g;
 
 
 
     @Override
     public void populate(GDataConf conf, G g) throws SLIB_Exception {
+        populate(conf, (GraphSink) g);
+    }
+
+    @Override
+    public void populate(GDataConf conf, GraphSink g) throws SLIB_Exception {
         process(conf, g);
     }
 
@@ -78,7 +84,7 @@ public class GraphLoader_SLIB implements GraphLoader {
      * @param graph
      * @throws SLIB_Exception
      */
-    public void process(GDataConf conf, G graph) throws SLIB_Exception {
+    public void process(GDataConf conf, GraphSink graph) throws SLIB_Exception {
 
         this.g = graph;
         factory = URIFactoryMemory.getSingleton();
@@ -0,0 +1,456 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.io.loader.slibformat;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import org.openrdf.model.URI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import slib.graph.io.conf.GDataConf;
+import slib.graph.io.loader.GraphSinkLoader;
+import slib.graph.model.graph.G;
+import slib.graph.model.graph.GraphSink;
+import slib.graph.model.graph.elements.E;
+import slib.graph.model.impl.graph.memory.GraphCompact;
+import slib.graph.model.impl.repo.URIFactoryMemory;
+import slib.graph.model.repo.URIFactory;
+import slib.utils.ex.SLIB_Ex_Critic;
+import slib.utils.ex.SLIB_Exception;
+
+/**
+ * Loader and writer of the SLIB binary graph format. The format is a snapshot
+ * of a graph which can be loaded without parsing, the file is memory-mapped
+ * and the adjacency of the graph is directly stored in CSR format.
+ *
+ * Layout of a file (big-endian):
+ * <ul>
+ * <li>header: magic number, version, number of vertices, of predicates and of
+ * edges</li>
+ * <li>dictionary section: the namespaces, then for each vertex the id of its
+ * namespace and the length of its local name, then the UTF-8 encoded local
+ * names</li>
+ * <li>predicate section: the URIs of the predicates</li>
+ * <li>one edge section per predicate: the id of the predicate, the CSR
+ * offsets and the CSR targets (vertex ids, sorted for each source) of the
+ * outgoing edges, then the CSR offsets and sources of the incoming
+ * edges</li>
+ * </ul>
+ * Each section starts with its length in bytes and the CRC32 checksum of its
+ * content, a section cannot exceed 2GB. Sections start on 8 bytes boundaries.
+ *
+ * Loading into an empty {@link GraphCompact} only requires the URIs to be
+ * created: the adjacency of the graph is read through views of the mapped
+ * sections and is never copied to the heap. Other implementations of
+ * {@link G} are populated edge by edge.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class GraphLoader_SLIB_Binary implements GraphSinkLoader {
+
+    /**
+     * Magic number identifying the format.
+     */
+    public static final long MAGIC = 0x534C49422D42494EL; // SLIB-BIN
+    /**
+     * Version of the format.
+     */
+    public static final int VERSION = 2;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int CHUNK_SIZE = 1 << 16;
+    Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    @Override
+    public void populate(GDataConf conf, G g) throws SLIB_Exception {
+        populate(conf, (GraphSink) g);
+    }
+
+    @Override
+    public void populate(GDataConf conf, GraphSink g) throws SLIB_Exception {
+
+        String filepath = conf.getLoc();
+        logger.info("-------------------------------------");
+        logger.info(" SLIB binary loader");
+        logger.info("-------------------------------------");
+        logger.info("Loading graph from SLIB binary file " + filepath);
+
+        URIFactory factory = URIFactoryMemory.getSingleton();
+
+        try (RandomAccessFile file = new RandomAccessFile(filepath, "r")) {
+
+            FileChannel channel = file.getChannel();
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 24);
+            if (header.getLong() != MAGIC) {
+                throw new SLIB_Ex_Critic(filepath + " is not a SLIB binary graph file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new SLIB_Ex_Critic("Unsupported version " + version + " of the SLIB binary format, expected " + VERSION);
+            }
+            int nbVertices = header.getInt();
+            int nbPredicates = header.getInt();
+            int nbEdges = header.getInt();
+            logger.info("vertices: " + nbVertices + ", predicates: " + nbPredicates + ", edges: " + nbEdges);
+
+            long position = 24;
+
+            // dictionary
+            ByteBuffer section = section(channel, position);
+            position = align(position + 16 + section.capacity());
+
+            String[] namespaces = new String[section.getInt()];
+            for (int i = 0; i < namespaces.length; i++) {
+                namespaces[i] = readString(section);
+            }
+            if (section.getInt() != nbVertices) {
+                throw new SLIB_Ex_Critic("Corrupted file " + filepath + ", inconsistent number of vertices");
+            }
+            IntBuffer namespaceIds = readInts(section, nbVertices);
+            IntBuffer lengths = readInts(section, nbVertices);
+            byte[] localName = new byte[64];
+
+            URI[] vertices = new URI[nbVertices];
+            for (int v = 0; v < nbVertices; v++) {
+                int length = lengths.get(v);
+                if (length > localName.length) {
+                    localName = new byte[Math.max(length, localName.length * 2)];
+                }
+                section.get(localName, 0, length);
+                vertices[v] = factory.getURI(namespaces[namespaceIds.get(v)], new String(localName, 0, length, UTF8));
+            }
+            for (URI v : vertices) {
+                g.addV(v);
+            }
+
+            // predicates
+            section = section(channel, position);
+            position = align(position + 16 + section.capacity());
+
+            URI[] predicates = new URI[nbPredicates];
+            for (int p = 0; p < nbPredicates; p++) {
+                predicates[p] = factory.getURI(readString(section));
+            }
+
+            // edges
+            for (int n = 0; n < nbPredicates; n++) {
+
+                section = section(channel, position);
+                position = align(position + 16 + section.capacity());
+
+                URI predicate = predicates[section.getInt()];
+                IntBuffer offsets = readInts(section, section.getInt() + 1);
+                IntBuffer targets = readInts(section, section.getInt());
+                IntBuffer inOffsets = readInts(section, section.getInt() + 1);
+                IntBuffer inSources = readInts(section, targets.limit());
+
+                if (g instanceof GraphCompact) {
+                    ((GraphCompact) g).addE(predicate, vertices, offsets, targets, inOffsets, inSources);
+                } else {
+                    for (int s = 0; s < offsets.limit() - 1; s++) {
+                        for (int i = offsets.get(s); i < offsets.get(s + 1); i++) {
+                            g.addE(vertices[s], predicate, vertices[targets.get(i)]);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new SLIB_Ex_Critic("Error loading " + filepath + ": " + e.getMessage(), e);
+        }
+        logger.info("-------------------------------------");
+    }
+
+    /**
+     * Write the given graph in SLIB binary format.
+     *
+     * @param g the graph
+     * @param outfile the path of the file to create
+     * @throws SLIB_Ex_Critic
+     */
+    public void flush(G g, String outfile) throws SLIB_Ex_Critic {
+
+        logger.info("Flushing " + g.getURI() + " to SLIB binary file " + outfile);
+
+        Map<URI, Integer> vertexIds = new HashMap<URI, Integer>();
+        URI[] vertices = new URI[g.getNumberVertices()];
+        for (URI v : g.getV()) {
+            vertices[vertexIds.size()] = v;
+            vertexIds.put(v, vertexIds.size());
+        }
+
+        // edges of each predicate, encoded as long keys source << 32 | target
+        Map<URI, long[]> edges = new LinkedHashMap<URI, long[]>();
+        Map<URI, Integer> sizes = new HashMap<URI, Integer>();
+        for (E e : g.getE()) {
+            long[] keys = edges.get(e.getURI());
+            int size = keys == null ? 0 : sizes.get(e.getURI());
+            if (keys == null || size == keys.length) {
+                keys = keys == null ? new long[16] : Arrays.copyOf(keys, size * 2);
+                edges.put(e.getURI(), keys);
+            }
+            keys[size] = ((long) vertexIds.get(e.getSource()) << 32) | vertexIds.get(e.getTarget());
+            sizes.put(e.getURI(), size + 1);
+        }
+
+        File file = new File(outfile);
+        if (file.exists() && !file.delete()) {
+            throw new SLIB_Ex_Critic("Cannot overwrite " + outfile);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+
+            FileChannel channel = raf.getChannel();
+            int nbEdges = 0;
+            for (int size : sizes.values()) {
+                nbEdges += size;
+            }
+
+            // dictionary
+            Map<String, Integer> namespaceIds = new LinkedHashMap<String, Integer>();
+            int[] vNamespaces = new int[vertices.length];
+            byte[][] vLocalNames = new byte[vertices.length][];
+            for (int v = 0; v < vertices.length; v++) {
+                Integer ns = namespaceIds.get(vertices[v].getNamespace());
+                if (ns == null) {
+                    ns = namespaceIds.size();
+                    namespaceIds.put(vertices[v].getNamespace(), ns);
+                }
+                vNamespaces[v] = ns;
+                vLocalNames[v] = vertices[v].getLocalName().getBytes(UTF8);
+            }
+
+            long position = 24;
+            SectionWriter section = new SectionWriter(channel, position);
+            DataOutputStream out = section.out;
+            out.writeInt(namespaceIds.size());
+            for (String ns : namespaceIds.keySet()) {
+                writeString(out, ns);
+            }
+            out.writeInt(vertices.length);
+            for (int v = 0; v < vertices.length; v++) {
+                out.writeInt(vNamespaces[v]);
+            }
+            for (int v = 0; v < vertices.length; v++) {
+                out.writeInt(vLocalNames[v].length);
+            }
+            for (int v = 0; v < vertices.length; v++) {
+                out.write(vLocalNames[v]);
+            }
+            position = section.close();
+
+            // predicates
+            URI[] predicates = edges.keySet().toArray(new URI[edges.size()]);
+            section = new SectionWriter(channel, position);
+            out = section.out;
+            for (URI p : predicates) {
+                writeString(out, p.stringValue());
+            }
+            position = section.close();
+
+            // edges
+            for (int p = 0; p < predicates.length; p++) {
+
+                long[] keys = edges.get(predicates[p]);
+                int size = sizes.get(predicates[p]);
+
+                section = new SectionWriter(channel, position);
+                out = section.out;
+                out.writeInt(p);
+                writeAdjacency(out, keys, size);
+                out.writeInt(size);
+                for (int i = 0; i < size; i++) {
+                    out.writeInt((int) keys[i]);
+                }
+                // incoming edges
+                for (int i = 0; i < size; i++) {
+                    keys[i] = (keys[i] << 32) | (keys[i] >>> 32);
+                }
+                writeAdjacency(out, keys, size);
+                for (int i = 0; i < size; i++) {
+                    out.writeInt((int) keys[i]);
+                }
+                position = section.close();
+                edges.put(predicates[p], null);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(24);
+            header.putLong(MAGIC).putInt(VERSION).putInt(vertices.length).putInt(predicates.length).putInt(nbEdges);
+            header.flip();
+            channel.write(header, 0);
+
+        } catch (IOException e) {
+            throw new SLIB_Ex_Critic("Error flushing graph to " + outfile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sort the given edges and write the CSR offsets of their sources.
+     *
+     * @param keys the edges encoded as long keys source &lt;&lt; 32 | target,
+     * sorted in place
+     * @param size the number of edges
+     */
+    private static void writeAdjacency(DataOutputStream out, long[] keys, int size) throws IOException {
+
+        Arrays.sort(keys, 0, size);
+        int nbSources = size == 0 ? 0 : (int) (keys[size - 1] >>> 32) + 1;
+
+        int[] offsets = new int[nbSources + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[(int) (keys[i] >>> 32) + 1]++;
+        }
+        for (int s = 0; s < nbSources; s++) {
+            offsets[s + 1] += offsets[s];
+        }
+        out.writeInt(nbSources);
+        for (int o : offsets) {
+            out.writeInt(o);
+        }
+    }
+
+    /**
+     * @return the first position on a 8 bytes boundary following the given
+     * position
+     */
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Section of a file being written, the data written to the stream are
+     * used to compute the checksum of the section. The first 16 bytes of the
+     * section are reserved for its length and its checksum, which are written
+     * when the section is closed.
+     */
+    private static class SectionWriter {
+
+        final FileChannel channel;
+        final long position;
+        final CRC32 crc = new CRC32();
+        final DataOutputStream out;
+
+        SectionWriter(FileChannel channel, long position) throws IOException {
+            this.channel = channel;
+            this.position = position;
+            channel.position(position + 16);
+            OutputStream os = new CheckedOutputStream(Channels.newOutputStream(channel), crc);
+            out = new DataOutputStream(new BufferedOutputStream(os, CHUNK_SIZE));
+        }
+
+        /**
+         * @return the position following the section
+         */
+        long close() throws IOException {
+
+            out.flush();
+            long length = channel.position() - position - 16;
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Section too large (" + length + " bytes)");
+            }
+            ByteBuffer b = ByteBuffer.allocate(16);
+            b.putLong(length).putLong(crc.getValue());
+            b.flip();
+            channel.write(b, position);
+            return align(position + 16 + length);
+        }
+    }
+
+    /**
+     * Map the section starting at the given position and check its checksum.
+     *
+     * @return the content of the section
+     */
+    private static ByteBuffer section(FileChannel channel, long position) throws IOException, SLIB_Ex_Critic {
+
+        ByteBuffer h = channel.map(FileChannel.MapMode.READ_ONLY, position, 16);
+        long length = h.getLong();
+        long checksum = h.getLong();
+        if (length < 0 || length > Integer.MAX_VALUE || position + 16 + length > channel.size()) {
+            throw new SLIB_Ex_Critic("Corrupted file, invalid section length " + length + " at position " + position);
+        }
+        MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, position + 16, length);
+
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[CHUNK_SIZE];
+        while (content.hasRemaining()) {
+            int n = Math.min(chunk.length, content.remaining());
+            content.get(chunk, 0, n);
+            crc.update(chunk, 0, n);
+        }
+        if (crc.getValue() != checksum) {
+            throw new SLIB_Ex_Critic("Corrupted file, invalid checksum for the section at position " + position);
+        }
+        content.rewind();
+        return content;
+    }
+
+    /**
+     * @return a view of the next n ints of the buffer, the values are not
+     * copied.
+     */
+    private static IntBuffer readInts(ByteBuffer buffer, int n) {
+        ByteBuffer view = buffer.slice();
+        view.limit(4 * n);
+        buffer.position(buffer.position() + 4 * n);
+        return view.asIntBuffer();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] b = new byte[buffer.getInt()];
+        buffer.get(b);
+        return new String(b, UTF8);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(UTF8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+}
@@ -45,9 +45,10 @@ import org.openrdf.model.vocabulary.RDFS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import slib.graph.io.conf.GDataConf;
-import slib.graph.io.loader.GraphLoader;
+import slib.graph.io.loader.GraphSinkLoader;
 import slib.graph.io.util.GFormat;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.GraphSink;
 import slib.graph.model.graph.elements.E;
 import slib.graph.model.impl.graph.elements.Edge;
 import slib.graph.model.impl.graph.memory.GraphMemory;
@@ -61,15 +62,20 @@ import slib.utils.ex.SLIB_Exception;
  * https://wordnet.princeton.edu/man/wndb.5WN.html
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
-public class GraphLoader_Wordnet implements GraphLoader {
+public class GraphLoader_Wordnet implements GraphSinkLoader {
 
-    private G graph;
+    private GraphSink graph;
     Logger logger = LoggerFactory.getLogger(this.getClass());
     Map<String, PointerToEdge> pointerSymbolToURIsMap;
     URIFactoryMemory dataRepo = URIFactoryMemory.getSingleton();
 
     @Override
     public void populate(GDataConf conf, G g) throws SLIB_Exception {
+        populate(conf, (GraphSink) g);
+    }
+
+    @Override
+    public void populate(GDataConf conf, GraphSink g) throws SLIB_Exception {
 
         logger.info("-------------------------------------");
         logger.info(" WordNet Loader");
@@ -157,7 +163,7 @@ public class GraphLoader_Wordnet implements GraphLoader {
                         
 //                        logger.info("\t"+e.toString());
 
-                        g.addE(e);
+                        g.addE(e.getSource(), e.getURI(), e.getTarget());
 
 
                     } else {
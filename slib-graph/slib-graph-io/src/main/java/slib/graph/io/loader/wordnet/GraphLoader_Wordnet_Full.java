@@ -44,9 +44,10 @@ import org.openrdf.model.URI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import slib.graph.io.conf.GDataConf;
-import slib.graph.io.loader.GraphLoader;
+import slib.graph.io.loader.GraphSinkLoader;
 import slib.graph.io.util.GFormat;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.GraphSink;
 import slib.graph.model.graph.elements.E;
 import slib.graph.model.impl.graph.elements.Edge;
 import slib.graph.model.impl.graph.memory.GraphMemory;
@@ -64,9 +65,9 @@ import slib.utils.ex.SLIB_Exception;
  *
  *
  */
-public class GraphLoader_Wordnet_Full implements GraphLoader {
+public class GraphLoader_Wordnet_Full implements GraphSinkLoader {
 
-    private G graph;
+    private GraphSink graph;
     Logger logger = LoggerFactory.getLogger(this.getClass());
     URIFactoryMemory dataRepo = URIFactoryMemory.getSingleton();
 
@@ -132,6 +133,11 @@ public class GraphLoader_Wordnet_Full implements GraphLoader {
 
     @Override
     public void populate(GDataConf conf, G g) throws SLIB_Exception {
+        populate(conf, (GraphSink) g);
+    }
+
+    @Override
+    public void populate(GDataConf conf, GraphSink g) throws SLIB_Exception {
 
         logger.info("-------------------------------------");
         logger.info(" WordNet Loader");
@@ -210,8 +216,7 @@ public class GraphLoader_Wordnet_Full implements GraphLoader {
                         graph.addV(s);
                         graph.addV(o);
 
-                        E e = new Edge(s, pr, o);
-                        g.addE(e);
+                        g.addE(s, pr, o);
 
                     } else {
                         throw new SLIB_Ex_Critic("No URI associated to pointer " + p.pointerSymbol);
@@ -75,6 +75,10 @@ public enum GFormat {
      *
      */
     SLIB,
+    /**
+     * Binary graph snapshot, see GraphLoader_SLIB_Binary
+     */
+    SLIB_BINARY,
     /**
      *
      */
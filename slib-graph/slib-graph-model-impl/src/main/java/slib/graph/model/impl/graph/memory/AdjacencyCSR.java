@@ -0,0 +1,335 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.model.impl.graph.memory;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable adjacency structure stored in Compressed Sparse Row (CSR) format.
+ * The neighbours of the vertex of id v are stored in
+ * targets[offsets[v] .. offsets[v+1][, sorted in increasing order and
+ * without duplicates. Vertices with an id greater than the last indexed
+ * vertex have no neighbour.
+ *
+ * Edges are exchanged with the other components as long keys
+ * (source &lt;&lt; 32 | target), see {@link #key(int, int)}.
+ *
+ * The offsets and the targets of the structures built in memory are stored in
+ * int arrays. Structures loaded from a snapshot read them from views of the
+ * memory-mapped file instead, see {@link #of(IntBuffer, IntBuffer)}.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+final class AdjacencyCSR {
+
+    static final AdjacencyCSR EMPTY = new AdjacencyCSR(new int[]{0}, new int[0]);
+    // heap storage, null if the structure is backed by buffers
+    private final int[] offsets;
+    private final int[] targets;
+    // mapped storage, null if the structure is backed by arrays
+    private final IntBuffer mappedOffsets;
+    private final IntBuffer mappedTargets;
+    private final int nbSources;
+    private final int size;
+
+    private AdjacencyCSR(int[] offsets, int[] targets) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.mappedOffsets = null;
+        this.mappedTargets = null;
+        this.nbSources = offsets.length - 1;
+        this.size = targets.length;
+    }
+
+    private AdjacencyCSR(IntBuffer offsets, IntBuffer targets) {
+        this.offsets = null;
+        this.targets = null;
+        this.mappedOffsets = offsets;
+        this.mappedTargets = targets;
+        this.nbSources = offsets.limit() - 1;
+        this.size = targets.limit();
+    }
+
+    /**
+     * Build the CSR representation of the given edges.
+     *
+     * @param keys the edges encoded as long keys, sorted in increasing order
+     * and without duplicates
+     * @param length the number of keys to consider
+     * @return the adjacency structure
+     */
+    static AdjacencyCSR build(long[] keys, int length) {
+
+        if (length == 0) {
+            return EMPTY;
+        }
+        int nbSources = source(keys[length - 1]) + 1;
+        int[] offsets = new int[nbSources + 1];
+        int[] targets = new int[length];
+
+        for (int i = 0; i < length; i++) {
+            offsets[source(keys[i]) + 1]++;
+            targets[i] = target(keys[i]);
+        }
+        for (int i = 0; i < nbSources; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        return new AdjacencyCSR(offsets, targets);
+    }
+
+    /**
+     * Wrap already built CSR arrays, no copy is performed.
+     *
+     * @param offsets the offsets, the first value must be 0 and the last one
+     * the number of targets
+     * @param targets the targets, sorted in increasing order and without
+     * duplicates for each source
+     * @return the adjacency structure
+     */
+    static AdjacencyCSR of(int[] offsets, int[] targets) {
+        if (targets.length == 0) {
+            return EMPTY;
+        }
+        return new AdjacencyCSR(offsets, targets);
+    }
+
+    /**
+     * Wrap already built CSR buffers, e.g. views of a memory-mapped file. No
+     * copy is performed, the values are read from the buffers on access.
+     * Buffers wrapping whole heap arrays are unwrapped and the structure is
+     * backed by the arrays.
+     *
+     * @param offsets the offsets, the first value must be 0 and the last one
+     * the number of targets
+     * @param targets the targets, sorted in increasing order and without
+     * duplicates for each source
+     * @return the adjacency structure
+     */
+    static AdjacencyCSR of(IntBuffer offsets, IntBuffer targets) {
+        if (targets.limit() == 0) {
+            return EMPTY;
+        }
+        if (wrapsArray(offsets) && wrapsArray(targets)) {
+            return new AdjacencyCSR(offsets.array(), targets.array());
+        }
+        return new AdjacencyCSR(offsets, targets);
+    }
+
+    /**
+     * Sort the given keys and remove the duplicates.
+     *
+     * @param keys the keys to process, modified in place
+     * @param length the number of keys to consider
+     * @return the number of distinct keys, stored at the beginning of the
+     * array
+     */
+    static int sortUnique(long[] keys, int length) {
+
+        Arrays.sort(keys, 0, length);
+        int k = 0;
+        for (int i = 0; i < length; i++) {
+            if (k == 0 || keys[i] != keys[k - 1]) {
+                keys[k++] = keys[i];
+            }
+        }
+        return k;
+    }
+
+    /**
+     * Build the CSR representation of the reverse of the given edges, i.e.
+     * the incoming edges.
+     *
+     * @param keys the edges encoded as long keys, sorted in increasing order
+     * and without duplicates. The array is modified in place.
+     * @param length the number of keys to consider
+     * @return the adjacency structure of the reversed edges
+     */
+    static AdjacencyCSR buildReverse(long[] keys, int length) {
+
+        for (int n = 0; n < length; n++) {
+            keys[n] = key(target(keys[n]), source(keys[n]));
+        }
+        Arrays.sort(keys, 0, length);
+        return build(keys, length);
+    }
+
+    /**
+     * Build the adjacency structure of the reversed edges. Sources are
+     * distributed using a counting sort, the computation is therefore
+     * performed in linear time.
+     *
+     * @return the adjacency structure of the reversed edges
+     */
+    AdjacencyCSR transpose() {
+
+        if (size == 0) {
+            return EMPTY;
+        }
+        int nbTargets = 0;
+        for (int i = 0; i < size; i++) {
+            nbTargets = Math.max(nbTargets, targetAt(i) + 1);
+        }
+        int[] rOffsets = new int[nbTargets + 1];
+        int[] rTargets = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            rOffsets[targetAt(i) + 1]++;
+        }
+        for (int i = 0; i < nbTargets; i++) {
+            rOffsets[i + 1] += rOffsets[i];
+        }
+        int[] next = Arrays.copyOf(rOffsets, nbTargets);
+        for (int s = 0; s < nbSources; s++) {
+            for (int i = offsetAt(s); i < offsetAt(s + 1); i++) {
+                rTargets[next[targetAt(i)]++] = s;
+            }
+        }
+        return new AdjacencyCSR(rOffsets, rTargets);
+    }
+
+    /**
+     * @return the number of edges
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of vertices indexed in the offsets, i.e. the greatest
+     * id of a vertex with at least one neighbour plus one.
+     */
+    int nbSources() {
+        return nbSources;
+    }
+
+    /**
+     * @param v the id of the vertex
+     * @return the index of the first neighbour of the vertex
+     */
+    int start(int v) {
+        return v < nbSources ? offsetAt(v) : size;
+    }
+
+    /**
+     * @param v the id of the vertex
+     * @return the index following the last neighbour of the vertex
+     */
+    int end(int v) {
+        return v < nbSources ? offsetAt(v + 1) : size;
+    }
+
+    /**
+     * @param v the id of the vertex
+     * @return the number of neighbours of the vertex
+     */
+    int degree(int v) {
+        return end(v) - start(v);
+    }
+
+    /**
+     * @param i an index in [0, size()[
+     * @return the neighbour stored at the given index
+     */
+    int target(int i) {
+        return targetAt(i);
+    }
+
+    /**
+     * @param s the id of the source
+     * @param t the id of the target
+     * @return true if the edge s-&gt;t is stored
+     */
+    boolean contains(int s, int t) {
+        if (s < 0 || s >= nbSources) {
+            return false;
+        }
+        int low = offsetAt(s);
+        int high = offsetAt(s + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int value = targetAt(mid);
+            if (value < t) {
+                low = mid + 1;
+            } else if (value > t) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the edges encoded as long keys, sorted in increasing order.
+     */
+    long[] keys() {
+
+        long[] keys = new long[size];
+        for (int s = 0; s < nbSources; s++) {
+            for (int i = offsetAt(s); i < offsetAt(s + 1); i++) {
+                keys[i] = key(s, targetAt(i));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return true if the buffer is a plain view of a whole heap array
+     */
+    private static boolean wrapsArray(IntBuffer buffer) {
+        return buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.array().length == buffer.limit();
+    }
+
+    private int offsetAt(int i) {
+        return offsets != null ? offsets[i] : mappedOffsets.get(i);
+    }
+
+    private int targetAt(int i) {
+        return targets != null ? targets[i] : mappedTargets.get(i);
+    }
+
+    static long key(int source, int target) {
+        return ((long) source << 32) | (target & 0xFFFFFFFFL);
+    }
+
+    static int source(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int target(long key) {
+        return (int) key;
+    }
+}
@@ -0,0 +1,710 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.model.impl.graph.memory;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.openrdf.model.URI;
+import slib.graph.model.graph.G;
+import slib.graph.model.graph.elements.E;
+import slib.graph.model.graph.utils.Direction;
+import slib.graph.model.graph.utils.EdgeVisitor;
+import slib.graph.model.graph.utils.VertexVisitor;
+import slib.graph.model.graph.utils.WalkConstraint;
+import slib.graph.model.impl.graph.elements.Edge;
+
+/**
+ * Read operations of the implementations of {@link G} which store the edges
+ * in {@link AdjacencyCSR} structures, i.e. each vertex and each predicate is
+ * associated to a dense integer id and, for each predicate, the outgoing and
+ * the incoming edges are stored as arrays of offsets and target ids. No
+ * {@link E} object is kept in memory, the edges returned by the various getE
+ * methods are built on the fly.
+ *
+ * The sets returned by the methods of this class are immutable snapshots of
+ * the graph: they are not affected by subsequent modifications of the graph.
+ *
+ * @see GraphCompact
+ * @see GraphFrozen
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public abstract class GraphCSR implements G {
+
+    /**
+     * @return the index of the vertices, the ids of the removed vertices are
+     * still indexed.
+     */
+    abstract URIIndex vertexIndex();
+
+    /**
+     * @return the index of the predicates.
+     */
+    abstract URIIndex predicateIndex();
+
+    /**
+     * @return the outgoing edges, indexed by predicate id.
+     */
+    abstract AdjacencyCSR[] outAdjacency();
+
+    /**
+     * @return the incoming edges, indexed by predicate id.
+     */
+    abstract AdjacencyCSR[] inAdjacency();
+
+    /**
+     * @param id an id of the vertex index
+     * @return true if the vertex associated to the id is part of the graph
+     */
+    abstract boolean isVertex(int id);
+
+    /**
+     * @return the ids of the vertices of the graph, the returned BitSet must
+     * not be modified afterwards.
+     */
+    abstract BitSet vertexIds();
+
+    /**
+     * Ensure the adjacency structures reflect all the modifications performed
+     * on the graph. Called before any query.
+     */
+    void ensureCompacted() {
+    }
+
+    /**
+     * @param v the URI of a vertex
+     * @return the id associated to the vertex, -1 if the vertex is not part of
+     * the graph.
+     */
+    public int getVertexId(URI v) {
+        int id = vertexIndex().getId(v);
+        return id != -1 && isVertex(id) ? id : -1;
+    }
+
+    /**
+     * @param id the id of a vertex
+     * @return the URI of the vertex associated to the given id
+     */
+    public URI getVertex(int id) {
+        if (id < 0 || id >= vertexIndex().size()) {
+            throw new IllegalArgumentException("No vertex associated to id " + id);
+        }
+        return vertexIndex().get(id);
+    }
+
+    /**
+     * @return the number of ids which have been associated to vertices, ids are
+     * in [0, getVertexIdBound()[. Some ids can be associated to removed
+     * vertices.
+     */
+    public int getVertexIdBound() {
+        return vertexIndex().size();
+    }
+
+    /**
+     * @param predicate the URI of a predicate
+     * @return the id associated to the predicate, -1 if the predicate has never
+     * been used in the graph.
+     */
+    public int getPredicateId(URI predicate) {
+        return predicateIndex().getId(predicate);
+    }
+
+    @Override
+    public Set<E> getE() {
+        ensureCompacted();
+        int[] preds = new int[outAdjacency().length];
+        for (int p = 0; p < preds.length; p++) {
+            preds[p] = p;
+        }
+        return new EdgeSet(preds);
+    }
+
+    @Override
+    public Set<E> getE(URI t) {
+
+        if (t == null) {
+            return getE();
+        }
+        ensureCompacted();
+        int p = predicateIndex().getId(t);
+        if (p == -1) {
+            return Collections.emptySet();
+        }
+        return new EdgeSet(new int[]{p});
+    }
+
+    @Override
+    public Set<E> getE(Set<URI> c) {
+
+        if (c == null || c.isEmpty()) {
+            return getE();
+        }
+        ensureCompacted();
+        return new EdgeSet(predicateIds(c));
+    }
+
+    @Override
+    public Set<E> getE(Set<URI> types, URI v, Direction dir) {
+
+        ensureCompacted();
+        Set<E> edgesCol = new HashSet<E>();
+        int vId = getVertexId(v);
+
+        if (vId == -1) {
+            return edgesCol;
+        }
+        int[] preds = types == null ? null : predicateIds(types);
+
+        if (dir == Direction.IN || dir == Direction.BOTH) {
+            collectEdges(vId, preds, inAdjacency(), false, edgesCol);
+        }
+        if (dir == Direction.OUT || dir == Direction.BOTH) {
+            collectEdges(vId, preds, outAdjacency(), true, edgesCol);
+        }
+        return edgesCol;
+    }
+
+    @Override
+    public Set<E> getE(URI t, URI v, Direction dir) {
+
+        if (v == null) {
+            return getE(t);
+        }
+
+        ensureCompacted();
+        Set<E> edgesCol = new HashSet<E>();
+        int vId = getVertexId(v);
+
+        if (vId == -1) {
+            return Collections.unmodifiableSet(edgesCol);
+        }
+        int[] preds = null;
+        if (t != null) {
+            int p = predicateIndex().getId(t);
+            preds = p == -1 ? new int[0] : new int[]{p};
+        }
+
+        if (dir == Direction.IN || dir == Direction.BOTH || dir == null) {
+            collectEdges(vId, preds, inAdjacency(), false, edgesCol);
+        }
+        if (dir == Direction.OUT || dir == Direction.BOTH || dir == null) {
+            collectEdges(vId, preds, outAdjacency(), true, edgesCol);
+        }
+        return Collections.unmodifiableSet(edgesCol);
+    }
+
+    @Override
+    public Set<E> getE(URI v, Direction dir) {
+
+        if (v == null) {
+            return getE();
+        }
+        return getE((URI) null, v, dir);
+    }
+
+    @Override
+    public Set<E> getE(URI v, WalkConstraint wc) {
+
+        ensureCompacted();
+        Set<E> valid = new HashSet<E>();
+        int vId = getVertexId(v);
+
+        if (vId == -1) {
+            return valid;
+        }
+        if (wc.acceptOutWalks()) {
+            collectEdges(vId, predicateIds(wc.getAcceptedWalks_DIR_OUT()), outAdjacency(), true, valid);
+        }
+        if (wc.acceptInWalks()) {
+            collectEdges(vId, predicateIds(wc.getAcceptedWalks_DIR_IN()), inAdjacency(), false, valid);
+        }
+        return valid;
+    }
+
+    @Override
+    public Set<URI> getV(URI v, WalkConstraint wc) {
+
+        ensureCompacted();
+        Set<URI> valid = new HashSet<URI>();
+        int vId = getVertexId(v);
+
+        if (vId == -1) {
+            return valid;
+        }
+        if (wc.acceptOutWalks()) {
+            collectVertices(vId, predicateIds(wc.getAcceptedWalks_DIR_OUT()), outAdjacency(), valid);
+        }
+        if (wc.acceptInWalks()) {
+            collectVertices(vId, predicateIds(wc.getAcceptedWalks_DIR_IN()), inAdjacency(), valid);
+        }
+        return valid;
+    }
+
+    @Override
+    public Set<URI> getV(URI v, URI buildUri, Direction dir) {
+
+        ensureCompacted();
+        Set<URI> vert = new HashSet<URI>();
+        int vId = getVertexId(v);
+
+        if (vId == -1) {
+            return vert;
+        }
+        int[] preds = null;
+        if (buildUri != null) {
+            int p = predicateIndex().getId(buildUri);
+            preds = p == -1 ? new int[0] : new int[]{p};
+        }
+
+        if (dir == Direction.OUT || dir == Direction.BOTH) {
+            collectVertices(vId, preds, outAdjacency(), vert);
+        }
+        if (dir == Direction.IN || dir == Direction.BOTH) {
+            collectVertices(vId, preds, inAdjacency(), vert);
+        }
+        return vert;
+    }
+
+    @Override
+    public Set<URI> getV() {
+        return new VertexSet(vertexIds(), getNumberVertices());
+    }
+
+    @Override
+    public boolean forEachEdge(URI v, WalkConstraint wc, EdgeVisitor visitor) {
+
+        ensureCompacted();
+        int vId = getVertexId(v);
+
+        if (vId == -1) {
+            return true;
+        }
+        if (wc.acceptOutWalks() && !visitEdges(vId, predicateIds(wc.getAcceptedWalks_DIR_OUT()), outAdjacency(), true, visitor)) {
+            return false;
+        }
+        return !wc.acceptInWalks() || visitEdges(vId, predicateIds(wc.getAcceptedWalks_DIR_IN()), inAdjacency(), false, visitor);
+    }
+
+    @Override
+    public boolean forEachNeighbour(URI v, WalkConstraint wc, VertexVisitor visitor) {
+
+        ensureCompacted();
+        int vId = getVertexId(v);
+
+        if (vId == -1) {
+            return true;
+        }
+        if (wc.acceptOutWalks() && !visitVertices(vId, predicateIds(wc.getAcceptedWalks_DIR_OUT()), outAdjacency(), visitor)) {
+            return false;
+        }
+        return !wc.acceptInWalks() || visitVertices(vId, predicateIds(wc.getAcceptedWalks_DIR_IN()), inAdjacency(), visitor);
+    }
+
+    /**
+     * Create a cursor which can be used to iterate over the ids of the
+     * neighbours of the vertices considering the given constraint. The
+     * predicates accepted by the constraint are resolved at cursor creation.
+     *
+     * @param wc the constraint to consider
+     * @return a cursor, see {@link NeighbourCursor#reset(int)}
+     */
+    public NeighbourCursor getNeighbourCursor(WalkConstraint wc) {
+
+        int[] outPreds = wc.acceptOutWalks() ? predicateIds(wc.getAcceptedWalks_DIR_OUT()) : new int[0];
+        int[] inPreds = wc.acceptInWalks() ? predicateIds(wc.getAcceptedWalks_DIR_IN()) : new int[0];
+        return new NeighbourCursor(outPreds, inPreds);
+    }
+
+    @Override
+    public boolean containsVertex(URI v) {
+        return getVertexId(v) != -1;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public boolean containsEdge(URI s, URI p, URI o) {
+
+        ensureCompacted();
+        int pId = predicateIndex().getId(p);
+        return pId != -1 && outAdjacency()[pId].contains(getVertexId(s), getVertexId(o));
+    }
+
+    private boolean visitEdges(int v, int[] preds, AdjacencyCSR[] adj, boolean outgoing, EdgeVisitor visitor) {
+
+        URIIndex vertexIndex = vertexIndex();
+        URI vURI = vertexIndex.get(v);
+
+        for (int p : preds) {
+            AdjacencyCSR a = adj[p];
+            URI pURI = predicateIndex().get(p);
+            int end = a.end(v);
+            for (int i = a.start(v); i < end; i++) {
+                URI o = vertexIndex.get(a.target(i));
+                boolean resume = outgoing ? visitor.visit(vURI, pURI, o) : visitor.visit(o, pURI, vURI);
+                if (!resume) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean visitVertices(int v, int[] preds, AdjacencyCSR[] adj, VertexVisitor visitor) {
+
+        URIIndex vertexIndex = vertexIndex();
+
+        for (int p : preds) {
+            AdjacencyCSR a = adj[p];
+            int end = a.end(v);
+            for (int i = a.start(v); i < end; i++) {
+                if (!visitor.visit(vertexIndex.get(a.target(i)))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param preds the ids of the predicates to consider, null for all
+     * predicates
+     */
+    private void collectEdges(int v, int[] preds, AdjacencyCSR[] adj, boolean outgoing, Set<E> edgesCol) {
+
+        URIIndex vertexIndex = vertexIndex();
+        URI vURI = vertexIndex.get(v);
+        int nb = preds == null ? adj.length : preds.length;
+
+        for (int n = 0; n < nb; n++) {
+            int p = preds == null ? n : preds[n];
+            AdjacencyCSR a = adj[p];
+            int end = a.end(v);
+            if (a.start(v) == end) {
+                continue;
+            }
+            URI pURI = predicateIndex().get(p);
+            for (int i = a.start(v); i < end; i++) {
+                URI o = vertexIndex.get(a.target(i));
+                edgesCol.add(outgoing ? new Edge(vURI, pURI, o) : new Edge(o, pURI, vURI));
+            }
+        }
+    }
+
+    private void collectVertices(int v, int[] preds, AdjacencyCSR[] adj, Set<URI> vert) {
+
+        URIIndex vertexIndex = vertexIndex();
+        int nb = preds == null ? adj.length : preds.length;
+
+        for (int n = 0; n < nb; n++) {
+            AdjacencyCSR a = adj[preds == null ? n : preds[n]];
+            int end = a.end(v);
+            for (int i = a.start(v); i < end; i++) {
+                vert.add(vertexIndex.get(a.target(i)));
+            }
+        }
+    }
+
+    private int[] predicateIds(Set<URI> predicates) {
+
+        int[] ids = new int[predicates.size()];
+        int n = 0;
+        for (URI p : predicates) {
+            int id = predicateIndex().getId(p);
+            if (id != -1) {
+                ids[n++] = id;
+            }
+        }
+        return n == ids.length ? ids : Arrays.copyOf(ids, n);
+    }
+
+    @Override
+    public String toString() {
+
+        String out = "";
+
+        URI uri = getURI();
+        if (uri == null) {
+            out += "Uri undefined\n";
+        } else {
+            out += uri.toString() + "\n";
+        }
+        String exURiVertex = "";
+
+        int first = vertexIds().nextSetBit(0);
+        if (first != -1) {
+            exURiVertex = "{e.g. " + vertexIndex().get(first).toString() + "}";
+        }
+
+        out += "Vertices\n";
+        out += "\tTotal   : " + getNumberVertices() + "  " + exURiVertex + "\n";
+        out += "Edges 	  : " + getNumberEdges() + "\n\n";
+
+        return out;
+    }
+
+    /**
+     * Cursor over the ids of the neighbours of a vertex. A cursor can be reused
+     * for several vertices but must not be shared between threads. A
+     * neighbour is returned once per edge leading to it.
+     *
+     * <pre>
+     * NeighbourCursor cursor = g.getNeighbourCursor(wc);
+     * cursor.reset(g.getVertexId(v));
+     * while (cursor.next()) {
+     *     int n = cursor.vertex();
+     * }
+     * </pre>
+     */
+    public final class NeighbourCursor {
+
+        private final int[] outPreds;
+        private final int[] inPreds;
+        private AdjacencyCSR current = AdjacencyCSR.EMPTY;
+        private int v;
+        private int n;
+        private int i;
+        private int end;
+        private int vertex = -1;
+        private int predicate = -1;
+
+        private NeighbourCursor(int[] outPreds, int[] inPreds) {
+            this.outPreds = outPreds;
+            this.inPreds = inPreds;
+            this.n = outPreds.length + inPreds.length;
+        }
+
+        /**
+         * Position the cursor before the first neighbour of the given vertex.
+         *
+         * @param v the id of the vertex
+         */
+        public void reset(int v) {
+            ensureCompacted();
+            this.v = v;
+            this.n = -1;
+            this.i = 0;
+            this.end = 0;
+            this.vertex = -1;
+            this.predicate = -1;
+        }
+
+        /**
+         * Move the cursor to the next neighbour.
+         *
+         * @return false if all the neighbours have been visited
+         */
+        public boolean next() {
+
+            int total = outPreds.length + inPreds.length;
+            while (i == end) {
+                n++;
+                if (n >= total) {
+                    return false;
+                }
+                predicate = n < outPreds.length ? outPreds[n] : inPreds[n - outPreds.length];
+                current = n < outPreds.length ? outAdjacency()[predicate] : inAdjacency()[predicate];
+                i = v < 0 ? 0 : current.start(v);
+                end = v < 0 ? 0 : current.end(v);
+            }
+            vertex = current.target(i++);
+            return true;
+        }
+
+        /**
+         * @return the id of the current neighbour
+         */
+        public int vertex() {
+            return vertex;
+        }
+
+        /**
+         * @return the id of the predicate of the edge leading to the current
+         * neighbour
+         */
+        public int predicate() {
+            return predicate;
+        }
+    }
+
+    /**
+     * Immutable view of the edges associated to a set of predicates, the view
+     * relies on the adjacency structures available at construction time.
+     */
+    private class EdgeSet extends AbstractSet<E> {
+
+        private final int[] preds;
+        private final AdjacencyCSR[] adj;
+        private final int size;
+
+        EdgeSet(int[] preds) {
+            this.preds = preds;
+            this.adj = new AdjacencyCSR[preds.length];
+            AdjacencyCSR[] out = outAdjacency();
+            int nb = 0;
+            for (int n = 0; n < preds.length; n++) {
+                adj[n] = out[preds[n]];
+                nb += adj[n].size();
+            }
+            this.size = nb;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+
+            if (!(o instanceof E)) {
+                return false;
+            }
+            E e = (E) o;
+            int p = predicateIndex().getId(e.getURI());
+            for (int n = 0; n < preds.length; n++) {
+                if (preds[n] == p) {
+                    return adj[n].contains(vertexIndex().getId(e.getSource()), vertexIndex().getId(e.getTarget()));
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+
+            return new Iterator<E>() {
+                int n = 0;
+                int source = 0;
+                int i = 0;
+
+                @Override
+                public boolean hasNext() {
+                    while (n < adj.length) {
+                        AdjacencyCSR a = adj[n];
+                        if (i < a.size()) {
+                            while (a.end(source) <= i) {
+                                source++;
+                            }
+                            return true;
+                        }
+                        n++;
+                        source = 0;
+                        i = 0;
+                    }
+                    return false;
+                }
+
+                @Override
+                public E next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    AdjacencyCSR a = adj[n];
+                    return new Edge(vertexIndex().get(source), predicateIndex().get(preds[n]), vertexIndex().get(a.target(i++)));
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+
+    /**
+     * Immutable view of a set of vertices.
+     */
+    private class VertexSet extends AbstractSet<URI> {
+
+        private final BitSet ids;
+        private final int size;
+
+        VertexSet(BitSet ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof URI)) {
+                return false;
+            }
+            int id = vertexIndex().getId((URI) o);
+            return id != -1 && ids.get(id);
+        }
+
+        @Override
+        public Iterator<URI> iterator() {
+
+            return new Iterator<URI>() {
+                int next = ids.nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next != -1;
+                }
+
+                @Override
+                public URI next() {
+                    if (next == -1) {
+                        throw new NoSuchElementException();
+                    }
+                    URI v = vertexIndex().get(next);
+                    next = ids.nextSetBit(next + 1);
+                    return v;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+}
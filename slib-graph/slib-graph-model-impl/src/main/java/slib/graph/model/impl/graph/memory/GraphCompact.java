@@ -0,0 +1,562 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.model.impl.graph.memory;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Set;
+import org.openrdf.model.URI;
+import slib.graph.model.graph.G;
+import slib.graph.model.graph.elements.E;
+
+/**
+ * Compact in memory implementation of {@link G}.
+ *
+ * Each vertex and each predicate is associated to a dense integer id. For each
+ * predicate, the outgoing and the incoming edges are stored in two immutable
+ * {@link AdjacencyCSR} structures (arrays of offsets and target ids), no
+ * {@link E} object is therefore kept in memory, see {@link GraphCSR}.
+ *
+ * Modifications are buffered per predicate and applied in batch when the
+ * graph is queried or when {@link #compact()} is explicitly called, loading
+ * a large number of edges is therefore performed in O(n log n). Interleaving
+ * additions and queries is supported but each query following a modification
+ * requires the affected predicates to be rebuilt.
+ *
+ * Concurrent queries are supported, modifications must not be performed
+ * concurrently. Use {@link #freeze()} to obtain an immutable graph which can
+ * safely be shared between threads.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class GraphCompact extends GraphCSR {
+
+    private final URI uri;
+    private final URIIndex vertexIndex;
+    private final URIIndex predicateIndex;
+    private final BitSet vertices;
+    private int nbVertices;
+    private int nbEdges;
+    private AdjacencyCSR[] out;
+    private AdjacencyCSR[] in;
+    private LongList[] pendingAdd;
+    private LongList[] pendingRemove;
+    private volatile boolean dirty;
+
+    /**
+     * Create a compact graph loaded in memory.
+     *
+     * @param uri the URI of the graph
+     */
+    public GraphCompact(URI uri) {
+        this(uri, 16);
+    }
+
+    /**
+     * Create a compact graph loaded in memory.
+     *
+     * @param uri the URI of the graph
+     * @param expectedNbVertices the expected number of vertices, used to
+     * presize the internal structures.
+     */
+    public GraphCompact(URI uri, int expectedNbVertices) {
+
+        this.uri = uri;
+        vertexIndex = new URIIndex(expectedNbVertices);
+        predicateIndex = new URIIndex();
+        vertices = new BitSet(expectedNbVertices);
+        out = new AdjacencyCSR[0];
+        in = new AdjacencyCSR[0];
+        pendingAdd = new LongList[0];
+        pendingRemove = new LongList[0];
+    }
+
+    /**
+     * Create a compact graph from already built adjacency structures, all the
+     * indexed vertices are considered to be part of the graph.
+     */
+    GraphCompact(URI uri, URIIndex vertexIndex, URIIndex predicateIndex, AdjacencyCSR[] out, AdjacencyCSR[] in) {
+
+        this.uri = uri;
+        this.vertexIndex = vertexIndex;
+        this.predicateIndex = predicateIndex;
+        this.nbVertices = vertexIndex.size();
+        this.vertices = new BitSet(nbVertices);
+        this.vertices.set(0, nbVertices);
+        this.out = out;
+        this.in = in;
+        this.pendingAdd = new LongList[out.length];
+        this.pendingRemove = new LongList[out.length];
+        for (int p = 0; p < out.length; p++) {
+            pendingAdd[p] = new LongList();
+            pendingRemove[p] = new LongList();
+            nbEdges += out[p].size();
+        }
+    }
+
+    /**
+     * Apply all the pending modifications to the adjacency structures. This
+     * method is automatically called when the graph is queried, it can be
+     * called once a graph has been loaded in order to release the buffers used
+     * to store the modifications.
+     */
+    public synchronized void compact() {
+
+        if (!dirty) {
+            return;
+        }
+        int nb = 0;
+        for (int p = 0; p < out.length; p++) {
+            compactPredicate(p);
+            nb += out[p].size();
+        }
+        nbEdges = nb;
+        dirty = false;
+    }
+
+    /**
+     * Build an immutable snapshot of the current state of the graph. The
+     * snapshot shares the adjacency structures of this graph and is not
+     * affected by its subsequent modifications.
+     *
+     * @return the immutable graph
+     */
+    public synchronized GraphFrozen freeze() {
+
+        compact();
+        return new GraphFrozen(uri, vertexIndex.copy(), predicateIndex.copy(), (BitSet) vertices.clone(), nbVertices, out.clone(), in.clone(), nbEdges);
+    }
+
+    @Override
+    URIIndex vertexIndex() {
+        return vertexIndex;
+    }
+
+    @Override
+    URIIndex predicateIndex() {
+        return predicateIndex;
+    }
+
+    @Override
+    AdjacencyCSR[] outAdjacency() {
+        return out;
+    }
+
+    @Override
+    AdjacencyCSR[] inAdjacency() {
+        return in;
+    }
+
+    @Override
+    boolean isVertex(int id) {
+        return vertices.get(id);
+    }
+
+    @Override
+    BitSet vertexIds() {
+        return (BitSet) vertices.clone();
+    }
+
+    @Override
+    void ensureCompacted() {
+        if (dirty) {
+            compact();
+        }
+    }
+
+    private void compactPredicate(int p) {
+
+        if (pendingAdd[p].isEmpty() && pendingRemove[p].isEmpty()) {
+            return;
+        }
+
+        long[] current = out[p].keys();
+        long[] added = pendingAdd[p].sortedUnique();
+        long[] removed = pendingRemove[p].sortedUnique();
+
+        long[] merged = new long[current.length + added.length];
+        int i = 0, j = 0, k = 0, r = 0;
+
+        while (i < current.length || j < added.length) {
+            long key;
+            if (j == added.length || (i < current.length && current[i] < added[j])) {
+                key = current[i++];
+            } else if (i == current.length || added[j] < current[i]) {
+                key = added[j++];
+            } else {
+                key = current[i++];
+                j++;
+            }
+            while (r < removed.length && removed[r] < key) {
+                r++;
+            }
+            if (r == removed.length || removed[r] != key) {
+                merged[k++] = key;
+            }
+        }
+
+        out[p] = AdjacencyCSR.build(merged, k);
+        in[p] = AdjacencyCSR.buildReverse(merged, k);
+
+        pendingAdd[p] = new LongList();
+        pendingRemove[p] = new LongList();
+    }
+
+    private int addVertex(URI v) {
+        int id = vertexIndex.add(v);
+        if (!vertices.get(id)) {
+            vertices.set(id);
+            nbVertices++;
+        }
+        return id;
+    }
+
+    private int addPredicate(URI p) {
+
+        int id = predicateIndex.add(p);
+        if (id == out.length) {
+            int length = out.length + 1;
+            out = Arrays.copyOf(out, length);
+            in = Arrays.copyOf(in, length);
+            pendingAdd = Arrays.copyOf(pendingAdd, length);
+            pendingRemove = Arrays.copyOf(pendingRemove, length);
+            out[id] = AdjacencyCSR.EMPTY;
+            in[id] = AdjacencyCSR.EMPTY;
+            pendingAdd[id] = new LongList();
+            pendingRemove[id] = new LongList();
+        }
+        return id;
+    }
+
+    @Override
+    public void addE(URI src, URI predicate, URI target) {
+
+        if (src == null || predicate == null || target == null) {
+            throw new IllegalArgumentException("Error creating edge, subject predicate and object must not be null, specified values " + src + " -- " + predicate + " -- " + target);
+        }
+        int s = addVertex(src);
+        int o = addVertex(target);
+        int p = addPredicate(predicate);
+
+        if (!pendingRemove[p].isEmpty()) {
+            synchronized (this) {
+                compactPredicate(p);
+            }
+        }
+        pendingAdd[p].add(AdjacencyCSR.key(s, o));
+        dirty = true;
+    }
+
+    /**
+     * Bulk loading of the edges of a predicate expressed in CSR format: the
+     * targets of vertices[v] are the vertices vertices[targets[i]] with i in
+     * [offsets[v], offsets[v+1][. The vertices are added to the graph.
+     *
+     * If the graph does not contain edges of the given predicate, the vertices
+     * have been added to the graph in the order of the given array and the
+     * targets of each vertex are sorted in increasing order without
+     * duplicates, the arrays are used as is: no edge is sorted and the arrays
+     * must not be modified afterwards. The edges are otherwise added as any
+     * other edge.
+     *
+     * @param predicate the predicate of the edges
+     * @param vertices the vertices referred by the adjacency arrays
+     * @param offsets the offsets of the targets of each vertex
+     * @param targets the targets, i.e. indexes in the array of vertices
+     * @throws IllegalArgumentException if the adjacency arrays are not
+     * consistent
+     */
+    public void addE(URI predicate, URI[] vertices, int[] offsets, int[] targets) {
+
+        if (offsets == null || targets == null) {
+            throw new IllegalArgumentException("Error loading edges, predicate, vertices and adjacency arrays must not be null");
+        }
+        addE(predicate, vertices, IntBuffer.wrap(offsets), IntBuffer.wrap(targets), null, null);
+    }
+
+    /**
+     * Bulk loading of the edges of a predicate expressed in CSR format, see
+     * {@link #addE(URI, URI[], int[], int[])}. The adjacency is given as
+     * buffers, e.g. views of a memory-mapped file, which are used as is under
+     * the same conditions: the values are then read from the buffers on
+     * access and never copied.
+     *
+     * The adjacency of the incoming edges can also be given, in which case it
+     * is not computed; the sources of each target must be sorted in
+     * increasing order without duplicates.
+     *
+     * @param predicate the predicate of the edges
+     * @param vertices the vertices referred by the adjacency buffers
+     * @param offsets the offsets of the targets of each vertex
+     * @param targets the targets, i.e. indexes in the array of vertices
+     * @param inOffsets the offsets of the sources of each vertex, null to
+     * compute the incoming edges
+     * @param inSources the sources, i.e. indexes in the array of vertices,
+     * null to compute the incoming edges
+     * @throws IllegalArgumentException if the adjacency buffers are not
+     * consistent
+     */
+    public void addE(URI predicate, URI[] vertices, IntBuffer offsets, IntBuffer targets, IntBuffer inOffsets, IntBuffer inSources) {
+
+        if (predicate == null || vertices == null || offsets == null || targets == null) {
+            throw new IllegalArgumentException("Error loading edges, predicate, vertices and adjacency arrays must not be null");
+        }
+        boolean sorted = checkAdjacency(predicate, vertices.length, offsets, targets);
+        boolean reverse = inOffsets != null && inSources != null;
+        if (reverse) {
+            if (inSources.limit() != targets.limit()) {
+                throw new IllegalArgumentException("Error loading edges of " + predicate + ", inconsistent incoming edges");
+            }
+            sorted &= checkAdjacency(predicate, vertices.length, inOffsets, inSources);
+        }
+
+        int[] ids = new int[vertices.length];
+        boolean identity = true;
+        for (int v = 0; v < vertices.length; v++) {
+            ids[v] = addVertex(vertices[v]);
+            identity &= ids[v] == v;
+        }
+        int p = addPredicate(predicate);
+
+        synchronized (this) {
+            if (identity && sorted && out[p].size() == 0 && pendingAdd[p].isEmpty() && pendingRemove[p].isEmpty()) {
+                out[p] = AdjacencyCSR.of(offsets, targets);
+                in[p] = reverse ? AdjacencyCSR.of(inOffsets, inSources) : out[p].transpose();
+                nbEdges += targets.limit();
+            } else {
+                if (!pendingRemove[p].isEmpty()) {
+                    compactPredicate(p);
+                }
+                int nbSources = offsets.limit() - 1;
+                for (int v = 0; v < nbSources; v++) {
+                    for (int i = offsets.get(v); i < offsets.get(v + 1); i++) {
+                        pendingAdd[p].add(AdjacencyCSR.key(ids[v], ids[targets.get(i)]));
+                    }
+                }
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Check the consistency of adjacency buffers expressed in CSR format.
+     *
+     * @return true if the targets of each vertex are sorted in increasing
+     * order without duplicates
+     * @throws IllegalArgumentException if the buffers are not consistent
+     */
+    private static boolean checkAdjacency(URI predicate, int nbVertices, IntBuffer offsets, IntBuffer targets) {
+
+        int nbSources = offsets.limit() - 1;
+        if (nbSources < 0 || nbSources > nbVertices || offsets.get(0) != 0 || offsets.get(nbSources) != targets.limit()) {
+            throw new IllegalArgumentException("Error loading edges of " + predicate + ", inconsistent offsets");
+        }
+
+        boolean sorted = true;
+        for (int v = 0; v < nbSources; v++) {
+            int start = offsets.get(v);
+            int end = offsets.get(v + 1);
+            if (start > end) {
+                throw new IllegalArgumentException("Error loading edges of " + predicate + ", inconsistent offsets");
+            }
+            for (int i = start; i < end; i++) {
+                int t = targets.get(i);
+                if (t < 0 || t >= nbVertices) {
+                    throw new IllegalArgumentException("Error loading edges of " + predicate + ", invalid target " + t);
+                }
+                if (i > start && targets.get(i - 1) >= t) {
+                    sorted = false;
+                }
+            }
+        }
+        return sorted;
+    }
+
+    @Override
+    public void addE(E e) {
+        addE(e.getSource(), e.getURI(), e.getTarget());
+    }
+
+    @Override
+    public void addE(Set<E> edges) {
+        if (edges == null) {
+            return;
+        }
+        for (E e : edges) {
+            addE(e);
+        }
+    }
+
+    @Override
+    public void removeE(E e) {
+
+        if (e == null) {
+            return;
+        }
+        int s = getVertexId(e.getSource());
+        int o = getVertexId(e.getTarget());
+        int p = predicateIndex.getId(e.getURI());
+
+        if (s == -1 || o == -1 || p == -1) {
+            return;
+        }
+        if (!pendingAdd[p].isEmpty()) {
+            synchronized (this) {
+                compactPredicate(p);
+            }
+        }
+        pendingRemove[p].add(AdjacencyCSR.key(s, o));
+        dirty = true;
+    }
+
+    @Override
+    public void removeE(URI t) {
+
+        int p = predicateIndex.getId(t);
+        if (p == -1) {
+            return;
+        }
+        synchronized (this) {
+            pendingAdd[p] = new LongList();
+            pendingRemove[p] = new LongList();
+            out[p] = AdjacencyCSR.EMPTY;
+            in[p] = AdjacencyCSR.EMPTY;
+            dirty = true;
+        }
+    }
+
+    @Override
+    public void removeE(Set<E> e) {
+
+        for (E edge : e) {
+            removeE(edge);
+        }
+    }
+
+    @Override
+    public void addV(URI v) {
+        if (v == null) {
+            throw new IllegalArgumentException("The URI must not be null");
+        }
+        addVertex(v);
+    }
+
+    @Override
+    public void addV(Set<URI> vertices) {
+        if (vertices == null) {
+            return;
+        }
+        for (URI v : vertices) {
+            addV(v);
+        }
+    }
+
+    @Override
+    public void removeV(URI v) {
+
+        int id = getVertexId(v);
+        if (id == -1) {
+            return;
+        }
+        compact();
+
+        for (int p = 0; p < out.length; p++) {
+
+            AdjacencyCSR a = out[p];
+            for (int i = a.start(id); i < a.end(id); i++) {
+                pendingRemove[p].add(AdjacencyCSR.key(id, a.target(i)));
+            }
+            a = in[p];
+            for (int i = a.start(id); i < a.end(id); i++) {
+                pendingRemove[p].add(AdjacencyCSR.key(a.target(i), id));
+            }
+            if (!pendingRemove[p].isEmpty()) {
+                dirty = true;
+            }
+        }
+        vertices.clear(id);
+        nbVertices--;
+    }
+
+    @Override
+    public void removeV(Set<URI> setV) {
+        if (setV == null) {
+            return;
+        }
+        for (URI v : setV) {
+            removeV(v);
+        }
+    }
+
+    @Override
+    public int getNumberVertices() {
+        return nbVertices;
+    }
+
+    @Override
+    public int getNumberEdges() {
+        ensureCompacted();
+        return nbEdges;
+    }
+
+    @Override
+    public URI getURI() {
+        return uri;
+    }
+
+    /**
+     * Growable array of primitive longs.
+     */
+    private static class LongList {
+
+        private long[] values = new long[0];
+        private int size;
+
+        void add(long v) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(16, size * 2));
+            }
+            values[size++] = v;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long[] sortedUnique() {
+            return Arrays.copyOf(values, AdjacencyCSR.sortUnique(values, size));
+        }
+    }
+}
@@ -0,0 +1,331 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.model.impl.graph.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openrdf.model.URI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import slib.graph.model.graph.GraphSink;
+import slib.utils.ex.SLIB_Ex_Critic;
+
+/**
+ * Builder used to load a {@link GraphCompact} from several producer threads.
+ *
+ * The builder is a {@link GraphSink}, the loaders can therefore populate it:
+ * the vertices and the edges can be added concurrently by any number of
+ * threads. Each thread stores the edges it adds in its own buffer of
+ * primitive ints, the ids of the vertices and predicates being attributed
+ * through concurrent maps. The graph is then built by {@link #build()}, which
+ * sorts and deduplicates the edges of each predicate (possibly in parallel)
+ * and builds the adjacency structures in one pass.
+ *
+ * All the producers must have completed before {@link #build()} is called.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class GraphCompactBuilder implements GraphSink {
+
+    Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final URI uri;
+    private final ConcurrentHashMap<URI, Integer> vertexIds;
+    private final ConcurrentHashMap<URI, Integer> predicateIds;
+    private final AtomicInteger vertexCounter = new AtomicInteger();
+    private final AtomicInteger predicateCounter = new AtomicInteger();
+    private final AtomicLong nbEdges = new AtomicLong();
+    private final ConcurrentLinkedQueue<EdgeBuffer> buffers = new ConcurrentLinkedQueue<EdgeBuffer>();
+    private final ThreadLocal<EdgeBuffer> localBuffer = new ThreadLocal<EdgeBuffer>();
+    private volatile boolean built = false;
+
+    /**
+     * Create a builder.
+     *
+     * @param uri the URI of the graph to build
+     */
+    public GraphCompactBuilder(URI uri) {
+        this(uri, 16);
+    }
+
+    /**
+     * Create a builder.
+     *
+     * @param uri the URI of the graph to build
+     * @param expectedNbVertices the expected number of vertices, used to
+     * presize the internal structures.
+     */
+    public GraphCompactBuilder(URI uri, int expectedNbVertices) {
+        this.uri = uri;
+        this.vertexIds = new ConcurrentHashMap<URI, Integer>(expectedNbVertices);
+        this.predicateIds = new ConcurrentHashMap<URI, Integer>();
+    }
+
+    private static int id(ConcurrentHashMap<URI, Integer> ids, AtomicInteger counter, URI uri) {
+
+        Integer id = ids.get(uri);
+        if (id == null) {
+            Integer candidate = counter.getAndIncrement();
+            id = ids.putIfAbsent(uri, candidate);
+            if (id == null) {
+                id = candidate;
+            }
+        }
+        return id;
+    }
+
+    private void checkNotBuilt() {
+        if (built) {
+            throw new IllegalStateException("The graph has already been built");
+        }
+    }
+
+    @Override
+    public void addV(URI v) {
+        if (v == null) {
+            throw new IllegalArgumentException("The URI must not be null");
+        }
+        checkNotBuilt();
+        id(vertexIds, vertexCounter, v);
+    }
+
+    @Override
+    public void addE(URI src, URI predicate, URI target) {
+
+        if (src == null || predicate == null || target == null) {
+            throw new IllegalArgumentException("Error creating edge, subject predicate and object must not be null, specified values " + src + " -- " + predicate + " -- " + target);
+        }
+        checkNotBuilt();
+        EdgeBuffer buffer = localBuffer.get();
+        if (buffer == null) {
+            buffer = new EdgeBuffer();
+            buffers.add(buffer);
+            localBuffer.set(buffer);
+        }
+        buffer.add(
+                id(vertexIds, vertexCounter, src),
+                id(predicateIds, predicateCounter, predicate),
+                id(vertexIds, vertexCounter, target));
+    }
+
+    /**
+     * Detach the buffer of the calling thread and account its edges in
+     * {@link #getNumberEdges()}. The edges already added are kept, the next
+     * edges added by the thread are stored in a new buffer.
+     */
+    @Override
+    public void flush() {
+        EdgeBuffer buffer = localBuffer.get();
+        if (buffer != null) {
+            localBuffer.remove();
+            nbEdges.addAndGet(buffer.size / 3);
+        }
+    }
+
+    @Override
+    public boolean containsVertex(URI v) {
+        return v != null && vertexIds.containsKey(v);
+    }
+
+    /**
+     * @return the number of vertices added so far.
+     */
+    public int getNumberVertices() {
+        return vertexIds.size();
+    }
+
+    /**
+     * @return the number of edges added by the producers which have been
+     * flushed, duplicates included.
+     */
+    public long getNumberEdges() {
+        return nbEdges.get();
+    }
+
+    @Override
+    public URI getURI() {
+        return uri;
+    }
+
+    /**
+     * Build the graph, the edges of the predicates are processed sequentially.
+     *
+     * @return the graph
+     * @throws SLIB_Ex_Critic if an error occurs during the construction
+     */
+    public GraphCompact build() throws SLIB_Ex_Critic {
+        return build(null);
+    }
+
+    /**
+     * Build the graph. The builder cannot be used afterwards.
+     *
+     * @param pool the executor used to process the predicates in parallel,
+     * null to process them sequentially.
+     * @return the graph
+     * @throws SLIB_Ex_Critic if an error occurs during the construction
+     */
+    public synchronized GraphCompact build(ExecutorService pool) throws SLIB_Ex_Critic {
+
+        checkNotBuilt();
+        built = true;
+
+        long nbAdded = 0;
+        for (EdgeBuffer b : buffers) {
+            nbAdded += b.size / 3;
+        }
+        logger.info("Building compact graph " + uri + ": " + vertexIds.size() + " vertices, " + nbAdded + " edges (duplicates included)");
+
+        // ids attributed concurrently are not necessarily dense
+        int[] vertexRemap = new int[vertexCounter.get()];
+        URIIndex vertexIndex = dense(vertexIds, vertexRemap);
+        int[] predicateRemap = new int[predicateCounter.get()];
+        URIIndex predicateIndex = dense(predicateIds, predicateRemap);
+
+        int nbPredicates = predicateIndex.size();
+        int[] counts = new int[nbPredicates];
+        for (EdgeBuffer b : buffers) {
+            for (int i = 1; i < b.size; i += 3) {
+                counts[predicateRemap[b.values[i]]]++;
+            }
+        }
+        final long[][] keys = new long[nbPredicates][];
+        for (int p = 0; p < nbPredicates; p++) {
+            keys[p] = new long[counts[p]];
+            counts[p] = 0;
+        }
+        for (EdgeBuffer b : buffers) {
+            for (int i = 0; i < b.size; i += 3) {
+                int p = predicateRemap[b.values[i + 1]];
+                keys[p][counts[p]++] = AdjacencyCSR.key(vertexRemap[b.values[i]], vertexRemap[b.values[i + 2]]);
+            }
+            b.release();
+        }
+        buffers.clear();
+        vertexIds.clear();
+        predicateIds.clear();
+
+        final AdjacencyCSR[] out = new AdjacencyCSR[nbPredicates];
+        final AdjacencyCSR[] in = new AdjacencyCSR[nbPredicates];
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(nbPredicates);
+        for (int p = 0; p < nbPredicates; p++) {
+            final int pId = p;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    long[] k = keys[pId];
+                    int length = AdjacencyCSR.sortUnique(k, k.length);
+                    out[pId] = AdjacencyCSR.build(k, length);
+                    in[pId] = AdjacencyCSR.buildReverse(k, length);
+                    keys[pId] = null;
+                    return null;
+                }
+            });
+        }
+
+        try {
+            if (pool == null) {
+                for (Callable<Void> t : tasks) {
+                    t.call();
+                }
+            } else {
+                for (Future<Void> f : pool.invokeAll(tasks)) {
+                    f.get();
+                }
+            }
+        } catch (Exception e) {
+            throw new SLIB_Ex_Critic(e);
+        }
+
+        GraphCompact g = new GraphCompact(uri, vertexIndex, predicateIndex, out, in);
+        logger.info("Graph built " + g.getNumberVertices() + " vertices, " + g.getNumberEdges() + " edges");
+        return g;
+    }
+
+    /**
+     * Build a dense index from the ids attributed concurrently.
+     *
+     * @param ids the ids attributed concurrently
+     * @param remap filled with the dense id associated to each attributed id
+     * @return the dense index
+     */
+    private static URIIndex dense(Map<URI, Integer> ids, int[] remap) {
+
+        URI[] byId = new URI[remap.length];
+        for (Map.Entry<URI, Integer> e : ids.entrySet()) {
+            byId[e.getValue()] = e.getKey();
+        }
+        URIIndex index = new URIIndex(ids.size());
+        Arrays.fill(remap, -1);
+        for (int i = 0; i < byId.length; i++) {
+            if (byId[i] != null) {
+                remap[i] = index.add(byId[i]);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Buffer of the edges added by a thread, stored as (source, predicate,
+     * target) triplets of ids.
+     */
+    private static class EdgeBuffer {
+
+        private int[] values = new int[48];
+        private int size;
+
+        void add(int s, int p, int o) {
+            if (size + 3 > values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = s;
+            values[size++] = p;
+            values[size++] = o;
+        }
+
+        void release() {
+            values = new int[0];
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.model.impl.graph.memory;
+
+import java.util.BitSet;
+import java.util.Set;
+import org.openrdf.model.URI;
+import slib.graph.model.graph.G;
+import slib.graph.model.graph.elements.E;
+
+/**
+ * Immutable implementation of {@link G} obtained by freezing a graph, see
+ * {@link GraphCompact#freeze()} and {@link GraphMemory#freeze()}.
+ *
+ * All the state of the graph is stored in final fields and is never modified
+ * after construction: the graph is therefore safely published and can be
+ * queried concurrently by any number of threads without synchronization. Any
+ * attempt to modify the graph will throw an
+ * {@link UnsupportedOperationException}.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public final class GraphFrozen extends GraphCSR {
+
+    private final URI uri;
+    private final URIIndex vertexIndex;
+    private final URIIndex predicateIndex;
+    private final BitSet vertices;
+    private final int nbVertices;
+    private final AdjacencyCSR[] out;
+    private final AdjacencyCSR[] in;
+    private final int nbEdges;
+
+    GraphFrozen(URI uri, URIIndex vertexIndex, URIIndex predicateIndex, BitSet vertices, int nbVertices, AdjacencyCSR[] out, AdjacencyCSR[] in, int nbEdges) {
+        this.uri = uri;
+        this.vertexIndex = vertexIndex;
+        this.predicateIndex = predicateIndex;
+        this.vertices = vertices;
+        this.nbVertices = nbVertices;
+        this.out = out;
+        this.in = in;
+        this.nbEdges = nbEdges;
+    }
+
+    @Override
+    URIIndex vertexIndex() {
+        return vertexIndex;
+    }
+
+    @Override
+    URIIndex predicateIndex() {
+        return predicateIndex;
+    }
+
+    @Override
+    AdjacencyCSR[] outAdjacency() {
+        return out;
+    }
+
+    @Override
+    AdjacencyCSR[] inAdjacency() {
+        return in;
+    }
+
+    @Override
+    boolean isVertex(int id) {
+        return vertices.get(id);
+    }
+
+    @Override
+    BitSet vertexIds() {
+        return vertices;
+    }
+
+    @Override
+    public int getNumberVertices() {
+        return nbVertices;
+    }
+
+    @Override
+    public int getNumberEdges() {
+        return nbEdges;
+    }
+
+    @Override
+    public URI getURI() {
+        return uri;
+    }
+
+    private static UnsupportedOperationException immutable() {
+        return new UnsupportedOperationException("The graph is frozen and cannot be modified");
+    }
+
+    @Override
+    public void addE(URI src, URI type, URI target) {
+        throw immutable();
+    }
+
+    @Override
+    public void addE(E e) {
+        throw immutable();
+    }
+
+    @Override
+    public void addE(Set<E> e) {
+        throw immutable();
+    }
+
+    @Override
+    public void removeE(E e) {
+        throw immutable();
+    }
+
+    @Override
+    public void removeE(URI t) {
+        throw immutable();
+    }
+
+    @Override
+    public void removeE(Set<E> e) {
+        throw immutable();
+    }
+
+    @Override
+    public void addV(URI v) {
+        throw immutable();
+    }
+
+    @Override
+    public void addV(Set<URI> v) {
+        throw immutable();
+    }
+
+    @Override
+    public void removeV(URI v) {
+        throw immutable();
+    }
+
+    @Override
+    public void removeV(Set<URI> setV) {
+        throw immutable();
+    }
+}
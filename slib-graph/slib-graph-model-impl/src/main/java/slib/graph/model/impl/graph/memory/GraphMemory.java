@@ -36,27 +36,33 @@ package slib.graph.model.impl.graph.memory;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import org.openrdf.model.URI;
 import slib.graph.model.graph.G;
 import slib.graph.model.graph.elements.E;
 import slib.graph.model.graph.utils.Direction;
+import slib.graph.model.graph.utils.EdgeVisitor;
+import slib.graph.model.graph.utils.VertexVisitor;
 import slib.graph.model.graph.utils.WalkConstraint;
 import slib.graph.model.impl.graph.elements.Edge;
 
 /**
  * In memory implementation of {@link G}
  *
+ * Edges are indexed by predicate and the adjacency of each vertex is
+ * partitioned by predicate, predicate-filtered queries therefore only
+ * consider the edges associated to the requested predicates.
+ *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
 public class GraphMemory implements G {
 
     private Set<URI> uris;
     private Set<E> edges;
-    private Map<URI, Set<E>> vertexOutEdges;
-    private Map<URI, Set<E>> vertexInEdges;
+    private Map<URI, Set<E>> predicateEdges;
+    private Map<URI, Map<URI, Set<E>>> vertexOutEdges;
+    private Map<URI, Map<URI, Set<E>>> vertexInEdges;
     private URI uri;
 
     /**
@@ -69,8 +75,156 @@ public class GraphMemory implements G {
         this.uri = uri;
         uris = new HashSet<URI>();
         edges = new HashSet<E>();
-        vertexOutEdges = new HashMap<URI, Set<E>>();
-        vertexInEdges = new HashMap<URI, Set<E>>();
+        predicateEdges = new HashMap<URI, Set<E>>();
+        vertexOutEdges = new HashMap<URI, Map<URI, Set<E>>>();
+        vertexInEdges = new HashMap<URI, Map<URI, Set<E>>>();
+    }
+
+    /**
+     * Add the given edge to the adjacency of the given vertex.
+     */
+    private static void index(Map<URI, Map<URI, Set<E>>> adjacency, URI v, E e) {
+
+        Map<URI, Set<E>> byPredicate = adjacency.get(v);
+        if (byPredicate == null) {
+            byPredicate = new HashMap<URI, Set<E>>();
+            adjacency.put(v, byPredicate);
+        }
+        Set<E> edgesCol = byPredicate.get(e.getURI());
+        if (edgesCol == null) {
+            edgesCol = new HashSet<E>();
+            byPredicate.put(e.getURI(), edgesCol);
+        }
+        edgesCol.add(e);
+    }
+
+    /**
+     * Remove the given edge from the adjacency of the given vertex.
+     */
+    private static void unindex(Map<URI, Map<URI, Set<E>>> adjacency, URI v, E e) {
+
+        Map<URI, Set<E>> byPredicate = adjacency.get(v);
+        if (byPredicate == null) {
+            return;
+        }
+        Set<E> edgesCol = byPredicate.get(e.getURI());
+        if (edgesCol != null && edgesCol.remove(e) && edgesCol.isEmpty()) {
+            byPredicate.remove(e.getURI());
+            if (byPredicate.isEmpty()) {
+                adjacency.remove(v);
+            }
+        }
+    }
+
+    /**
+     * Add to the given collection the edges of the adjacency which are
+     * associated to one of the given predicates.
+     *
+     * @param byPredicate the adjacency of a vertex, can be null
+     * @param predicates the accepted predicates, null if all the predicates
+     * are accepted
+     * @param edgesCol the collection to fill
+     */
+    private static void collect(Map<URI, Set<E>> byPredicate, Set<URI> predicates, Set<E> edgesCol) {
+
+        if (byPredicate == null) {
+            return;
+        }
+        if (predicates == null) {
+            for (Set<E> s : byPredicate.values()) {
+                edgesCol.addAll(s);
+            }
+        } else if (predicates.size() < byPredicate.size()) {
+            for (URI p : predicates) {
+                Set<E> s = byPredicate.get(p);
+                if (s != null) {
+                    edgesCol.addAll(s);
+                }
+            }
+        } else {
+            for (Map.Entry<URI, Set<E>> entry : byPredicate.entrySet()) {
+                if (predicates.contains(entry.getKey())) {
+                    edgesCol.addAll(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Add to the given collection the edges of the adjacency which are
+     * associated to the given predicate.
+     *
+     * @param predicate the accepted predicate, null if all the predicates are
+     * accepted
+     */
+    private static void collect(Map<URI, Set<E>> byPredicate, URI predicate, Set<E> edgesCol) {
+
+        if (predicate == null) {
+            collect(byPredicate, (Set<URI>) null, edgesCol);
+        } else if (byPredicate != null && byPredicate.containsKey(predicate)) {
+            edgesCol.addAll(byPredicate.get(predicate));
+        }
+    }
+
+    /**
+     * Add to the given collection the vertices reached by the edges of the
+     * adjacency which are associated to one of the given predicates, no
+     * intermediate collection of edges is built.
+     *
+     * @param byPredicate the adjacency of a vertex, can be null
+     * @param predicates the accepted predicates, null if all the predicates
+     * are accepted
+     * @param targets true to collect the targets of the edges, false to
+     * collect their sources
+     * @param vertices the collection to fill
+     */
+    private static void collectVertices(Map<URI, Set<E>> byPredicate, Set<URI> predicates, boolean targets, Set<URI> vertices) {
+
+        if (byPredicate == null) {
+            return;
+        }
+        if (predicates == null) {
+            for (Set<E> s : byPredicate.values()) {
+                addVertices(s, targets, vertices);
+            }
+        } else if (predicates.size() < byPredicate.size()) {
+            for (URI p : predicates) {
+                addVertices(byPredicate.get(p), targets, vertices);
+            }
+        } else {
+            for (Map.Entry<URI, Set<E>> entry : byPredicate.entrySet()) {
+                if (predicates.contains(entry.getKey())) {
+                    addVertices(entry.getValue(), targets, vertices);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add to the given collection the vertices reached by the edges of the
+     * adjacency which are associated to the given predicate, see
+     * {@link #collectVertices(Map, Set, boolean, Set)}.
+     *
+     * @param predicate the accepted predicate, null if all the predicates are
+     * accepted
+     */
+    private static void collectVertices(Map<URI, Set<E>> byPredicate, URI predicate, boolean targets, Set<URI> vertices) {
+
+        if (predicate == null) {
+            collectVertices(byPredicate, (Set<URI>) null, targets, vertices);
+        } else if (byPredicate != null) {
+            addVertices(byPredicate.get(predicate), targets, vertices);
+        }
+    }
+
+    private static void addVertices(Set<E> edgesCol, boolean targets, Set<URI> vertices) {
+
+        if (edgesCol == null) {
+            return;
+        }
+        for (E e : edgesCol) {
+            vertices.add(targets ? e.getTarget() : e.getSource());
+        }
     }
 
     @Override
@@ -85,14 +239,11 @@ public class GraphMemory implements G {
             return getE();
         }
 
-        Set<E> edgesCol = new HashSet<E>();
-
-        for (E e : edges) {
-            if (e.getURI().equals(t)) {
-                edgesCol.add(e);
-            }
+        Set<E> edgesCol = predicateEdges.get(t);
+        if (edgesCol == null) {
+            return Collections.emptySet();
         }
-        return Collections.unmodifiableSet(edgesCol);
+        return Collections.unmodifiableSet(new HashSet<E>(edgesCol));
     }
 
     @Override
@@ -100,29 +251,11 @@ public class GraphMemory implements G {
 
         Set<E> edgesCol = new HashSet<E>();
 
-        if ((dir == Direction.IN || dir == Direction.BOTH) && vertexInEdges.containsKey(v)) {
-
-            if (types == null) {
-                edgesCol.addAll(vertexInEdges.get(v));
-            } else {
-                for (E e : vertexInEdges.get(v)) {
-                    if (types.contains(e.getURI())) {
-                        edgesCol.add(e);
-                    }
-                }
-            }
+        if (dir == Direction.IN || dir == Direction.BOTH) {
+            collect(vertexInEdges.get(v), types, edgesCol);
         }
-        if ((dir == Direction.OUT || dir == Direction.BOTH) && vertexOutEdges.containsKey(v)) {
-
-            if (types == null) {
-                edgesCol.addAll(vertexOutEdges.get(v));
-            } else {
-                for (E e : vertexOutEdges.get(v)) {
-                    if (types.contains(e.getURI())) {
-                        edgesCol.add(e);
-                    }
-                }
-            }
+        if (dir == Direction.OUT || dir == Direction.BOTH) {
+            collect(vertexOutEdges.get(v), types, edgesCol);
         }
         return edgesCol;
     }
@@ -136,29 +269,11 @@ public class GraphMemory implements G {
 
         Set<E> edgesCol = new HashSet<E>();
 
-        if ((dir == Direction.IN || dir == Direction.BOTH || dir == null) && vertexInEdges.containsKey(v)) {
-
-            if (t == null) {
-                edgesCol.addAll(vertexInEdges.get(v));
-            } else {
-                for (E e : vertexInEdges.get(v)) {
-                    if (e.getURI().equals(t)) {
-                        edgesCol.add(e);
-                    }
-                }
-            }
+        if (dir == Direction.IN || dir == Direction.BOTH || dir == null) {
+            collect(vertexInEdges.get(v), t, edgesCol);
         }
-        if ((dir == Direction.OUT || dir == Direction.BOTH || dir == null) && vertexOutEdges.containsKey(v)) {
-
-            if (t == null) {
-                edgesCol.addAll(vertexOutEdges.get(v));
-            } else {
-                for (E e : vertexOutEdges.get(v)) {
-                    if (e.getURI().equals(t)) {
-                        edgesCol.add(e);
-                    }
-                }
-            }
+        if (dir == Direction.OUT || dir == Direction.BOTH || dir == null) {
+            collect(vertexOutEdges.get(v), t, edgesCol);
         }
         return Collections.unmodifiableSet(edgesCol);
     }
@@ -172,12 +287,12 @@ public class GraphMemory implements G {
 
         Set<E> edgesCol = new HashSet<E>();
 
-        if ((dir == Direction.IN || dir == Direction.BOTH || dir == null) && vertexInEdges.containsKey(v)) {
-            edgesCol.addAll(vertexInEdges.get(v));
+        if (dir == Direction.IN || dir == Direction.BOTH || dir == null) {
+            collect(vertexInEdges.get(v), (Set<URI>) null, edgesCol);
         }
 
-        if ((dir == Direction.OUT || dir == Direction.BOTH || dir == null) && vertexOutEdges.containsKey(v)) {
-            edgesCol.addAll(vertexOutEdges.get(v));
+        if (dir == Direction.OUT || dir == Direction.BOTH || dir == null) {
+            collect(vertexOutEdges.get(v), (Set<URI>) null, edgesCol);
         }
 
         return Collections.unmodifiableSet(edgesCol);
@@ -194,15 +309,15 @@ public class GraphMemory implements G {
             addV(o);
             edges.add(e);
 
-            if (!vertexOutEdges.containsKey(s)) {
-                vertexOutEdges.put(s, new HashSet<E>());
-            }
-            if (!vertexInEdges.containsKey(o)) {
-                vertexInEdges.put(o, new HashSet<E>());
+            Set<E> edgesCol = predicateEdges.get(e.getURI());
+            if (edgesCol == null) {
+                edgesCol = new HashSet<E>();
+                predicateEdges.put(e.getURI(), edgesCol);
             }
+            edgesCol.add(e);
 
-            vertexOutEdges.get(s).add(e);
-            vertexInEdges.get(o).add(e);
+            index(vertexOutEdges, s, e);
+            index(vertexInEdges, o, e);
         }
     }
 
@@ -230,31 +345,28 @@ public class GraphMemory implements G {
     @Override
     public void removeE(E e) {
 
-        if (e == null) {
+        if (e == null || !edges.remove(e)) {
             return;
         }
-        edges.remove(e);
-        if (vertexOutEdges.containsKey(e.getSource())) {
-            vertexOutEdges.get(e.getSource()).remove(e);
-        }
-
-        if (vertexInEdges.containsKey(e.getTarget())) {
-            vertexInEdges.get(e.getTarget()).remove(e);
+        Set<E> edgesCol = predicateEdges.get(e.getURI());
+        if (edgesCol != null && edgesCol.remove(e) && edgesCol.isEmpty()) {
+            predicateEdges.remove(e.getURI());
         }
+        unindex(vertexOutEdges, e.getSource(), e);
+        unindex(vertexInEdges, e.getTarget(), e);
     }
 
     @Override
     public void removeE(URI t) {
 
-        Iterator<E> iter = edges.iterator();
-        while (iter.hasNext()) {
-            E c = iter.next();
-
-            if (c.getURI().equals(t)) {
-                vertexOutEdges.get(c.getSource()).remove(c);
-                vertexInEdges.get(c.getTarget()).remove(c);
-                iter.remove();
-            }
+        Set<E> edgesCol = predicateEdges.remove(t);
+        if (edgesCol == null) {
+            return;
+        }
+        for (E c : edgesCol) {
+            edges.remove(c);
+            unindex(vertexOutEdges, c.getSource(), c);
+            unindex(vertexInEdges, c.getTarget(), c);
         }
     }
 
@@ -289,18 +401,14 @@ public class GraphMemory implements G {
             return;
         }
 
-        Set<E> toRemove = new HashSet();
+        Set<E> toRemove = new HashSet<E>();
 
-        if (vertexOutEdges.containsKey(v)) {
-            toRemove.addAll(vertexOutEdges.get(v));
-            vertexOutEdges.remove(v);
-        }
-        if (vertexInEdges.containsKey(v)) {
-            toRemove.addAll(vertexInEdges.get(v));
-            vertexInEdges.remove(v);
-        }
+        collect(vertexOutEdges.get(v), (Set<URI>) null, toRemove);
+        collect(vertexInEdges.get(v), (Set<URI>) null, toRemove);
         removeE(toRemove);
 
+        vertexOutEdges.remove(v);
+        vertexInEdges.remove(v);
         uris.remove(v);
     }
 
@@ -322,9 +430,20 @@ public class GraphMemory implements G {
     @Override
     public boolean containsEdge(URI s, URI p, URI o){
         
-        for(E e : getE(p, s, Direction.OUT)){
-            if(e.getTarget().equals(o))
-                return true;
+        Map<URI, Set<E>> byPredicate = vertexOutEdges.get(s);
+        if (byPredicate == null) {
+            return false;
+        }
+        if (p != null) {
+            Set<E> edgesCol = byPredicate.get(p);
+            return edgesCol != null && o != null && edgesCol.contains(new Edge(s, p, o));
+        }
+        for (Set<E> edgesCol : byPredicate.values()) {
+            for (E e : edgesCol) {
+                if (e.getTarget().equals(o)) {
+                    return true;
+                }
+            }
         }
         return false;
     }
@@ -348,21 +467,44 @@ public class GraphMemory implements G {
 
         HashSet<E> edgesCol = new HashSet<E>();
 
-        for (E e : edges) {
-            if (c.contains(e.getURI())) {
-                edgesCol.add(e);
+        for (URI t : c) {
+            Set<E> s = predicateEdges.get(t);
+            if (s != null) {
+                edgesCol.addAll(s);
             }
         }
         return edgesCol;
     }
 
+    /**
+     * Build an immutable and compact snapshot of the graph. The snapshot can
+     * safely be shared between threads, it is not affected by subsequent
+     * modifications of this graph.
+     *
+     * @return the immutable graph
+     */
+    public GraphFrozen freeze() {
+
+        GraphCompact g = new GraphCompact(uri, uris.size());
+        g.addV(uris);
+        for (E e : edges) {
+            g.addE(e);
+        }
+        return g.freeze();
+    }
+
     public void clear() {
         edges.clear();
         uris.clear();
+        predicateEdges.clear();
         vertexInEdges.clear();
         vertexOutEdges.clear();
     }
 
+    @Override
+    public void flush() {
+    }
+
     @Override
     public URI getURI() {
         return uri;
@@ -373,22 +515,11 @@ public class GraphMemory implements G {
 
         Set<URI> vert = new HashSet<URI>();
 
-        if ((dir == Direction.OUT || dir == Direction.BOTH) && vertexOutEdges.containsKey(v)) {
-
-            for (E e : vertexOutEdges.get(v)) {
-
-                if (buildUri == null || buildUri.equals(e.getURI())) {
-                    vert.add(e.getTarget());
-                }
-            }
+        if (dir == Direction.OUT || dir == Direction.BOTH) {
+            collectVertices(vertexOutEdges.get(v), buildUri, true, vert);
         }
-        if ((dir == Direction.IN || dir == Direction.BOTH) && vertexInEdges.containsKey(v)) {
-
-            for (E e : vertexInEdges.get(v)) {
-                if (buildUri == null || buildUri.equals(e.getURI())) {
-                    vert.add(e.getSource());
-                }
-            }
+        if (dir == Direction.IN || dir == Direction.BOTH) {
+            collectVertices(vertexInEdges.get(v), buildUri, false, vert);
         }
         return vert;
     }
@@ -420,21 +551,11 @@ public class GraphMemory implements G {
     @Override
     public Set<E> getE(URI v, WalkConstraint wc) {
         Set<E> valid = new HashSet<E>();
-        if (wc.acceptOutWalks() && vertexOutEdges.containsKey(v)) {
-            Set<URI> ok = wc.getAcceptedWalks_DIR_OUT();
-            for (E e : vertexOutEdges.get(v)) {
-                if (ok.contains(e.getURI())) {
-                    valid.add(e);
-                }
-            }
+        if (wc.acceptOutWalks()) {
+            collect(vertexOutEdges.get(v), wc.getAcceptedWalks_DIR_OUT(), valid);
         }
-        if (wc.acceptInWalks() && vertexInEdges.containsKey(v)) {
-            Set<URI> ok = wc.getAcceptedWalks_DIR_IN();
-            for (E e : getE(v, Direction.IN)) {
-                if (ok.contains(e.getURI())) {
-                    valid.add(e);
-                }
-            }
+        if (wc.acceptInWalks()) {
+            collect(vertexInEdges.get(v), wc.getAcceptedWalks_DIR_IN(), valid);
         }
         return valid;
     }
@@ -443,23 +564,67 @@ public class GraphMemory implements G {
     public Set<URI> getV(URI v, WalkConstraint wc) {
 
         Set<URI> valid = new HashSet<URI>();
-        if (wc.acceptOutWalks() && vertexOutEdges.containsKey(v)) {
 
-            Set<URI> ok = wc.getAcceptedWalks_DIR_OUT();
-            for (E e : getE(v, Direction.OUT)) {
-                if (ok.contains(e.getURI())) {
-                    valid.add(e.getTarget());
+        if (wc.acceptOutWalks()) {
+            collectVertices(vertexOutEdges.get(v), wc.getAcceptedWalks_DIR_OUT(), true, valid);
+        }
+        if (wc.acceptInWalks()) {
+            collectVertices(vertexInEdges.get(v), wc.getAcceptedWalks_DIR_IN(), false, valid);
+        }
+        return valid;
+    }
+
+    @Override
+    public boolean forEachEdge(URI v, WalkConstraint wc, EdgeVisitor visitor) {
+
+        if (wc.acceptOutWalks() && !visit(vertexOutEdges.get(v), wc.getAcceptedWalks_DIR_OUT(), visitor)) {
+            return false;
+        }
+        return !wc.acceptInWalks() || visit(vertexInEdges.get(v), wc.getAcceptedWalks_DIR_IN(), visitor);
+    }
+
+    @Override
+    public boolean forEachNeighbour(URI v, WalkConstraint wc, VertexVisitor visitor) {
+
+        if (wc.acceptOutWalks() && !visit(vertexOutEdges.get(v), wc.getAcceptedWalks_DIR_OUT(), true, visitor)) {
+            return false;
+        }
+        return !wc.acceptInWalks() || visit(vertexInEdges.get(v), wc.getAcceptedWalks_DIR_IN(), false, visitor);
+    }
+
+    private static boolean visit(Map<URI, Set<E>> byPredicate, Set<URI> predicates, EdgeVisitor visitor) {
+
+        if (byPredicate == null) {
+            return true;
+        }
+        for (URI p : predicates) {
+            Set<E> edgesCol = byPredicate.get(p);
+            if (edgesCol != null) {
+                for (E e : edgesCol) {
+                    if (!visitor.visit(e.getSource(), e.getURI(), e.getTarget())) {
+                        return false;
+                    }
                 }
             }
         }
-        if (wc.acceptInWalks() && vertexInEdges.containsKey(v)) {
-            for (E e : getE(v, Direction.IN)) {
-                Set<URI> ok = wc.getAcceptedWalks_DIR_IN();
-                if (ok.contains(e.getURI())) {
-                    valid.add(e.getSource());
+        return true;
+    }
+
+    private static boolean visit(Map<URI, Set<E>> byPredicate, Set<URI> predicates, boolean outgoing, VertexVisitor visitor) {
+
+        if (byPredicate == null) {
+            return true;
+        }
+        for (URI p : predicates) {
+            Set<E> edgesCol = byPredicate.get(p);
+            if (edgesCol != null) {
+                for (E e : edgesCol) {
+                    if (!visitor.visit(outgoing ? e.getTarget() : e.getSource())) {
+                        return false;
+                    }
                 }
             }
         }
-        return valid;
+        return true;
     }
 }
@@ -0,0 +1,177 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.model.impl.graph.memory;
+
+import java.util.Arrays;
+import org.openrdf.model.URI;
+
+/**
+ * Dense integer index of URIs. Each URI registered in the index is associated
+ * to an id in [0, size[, ids are attributed in insertion order and are never
+ * reused. The mapping URI to id relies on an open addressing hash table of
+ * primitive ints in order to avoid the overhead of boxed map entries.
+ *
+ * The index is not thread-safe for writes.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+final class URIIndex {
+
+    private static final int EMPTY = -1;
+    private static final int DEFAULT_CAPACITY = 16;
+    private URI[] values;
+    private int[] table;
+    private int size;
+
+    /**
+     * Create an empty index.
+     */
+    URIIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty index presized to store the given number of URIs.
+     *
+     * @param expectedSize the expected number of URIs
+     */
+    URIIndex(int expectedSize) {
+        int capacity = Math.max(DEFAULT_CAPACITY, expectedSize);
+        values = new URI[capacity];
+        table = new int[tableSizeFor(capacity)];
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * @param uri the URI
+     * @return the id associated to the URI, -1 if the URI is not indexed.
+     */
+    int getId(URI uri) {
+        if (uri == null) {
+            return EMPTY;
+        }
+        int mask = table.length - 1;
+        int slot = mix(uri.hashCode()) & mask;
+        int id;
+        while ((id = table[slot]) != EMPTY) {
+            if (values[id].equals(uri)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Index the given URI if required.
+     *
+     * @param uri the URI (not null)
+     * @return the id associated to the URI
+     */
+    int add(URI uri) {
+
+        int mask = table.length - 1;
+        int slot = mix(uri.hashCode()) & mask;
+        int id;
+        while ((id = table[slot]) != EMPTY) {
+            if (values[id].equals(uri)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        id = size++;
+        if (id == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[id] = uri;
+        table[slot] = id;
+
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * @param id the id
+     * @return the URI associated to the given id
+     */
+    URI get(int id) {
+        return values[id];
+    }
+
+    /**
+     * @return the number of indexed URIs
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return an independent copy of the index
+     */
+    URIIndex copy() {
+        URIIndex c = new URIIndex(0);
+        c.values = Arrays.copyOf(values, Math.max(size, 1));
+        c.table = table.clone();
+        c.size = size;
+        return c;
+    }
+
+    private void rehash(int newLength) {
+        int[] newTable = new int[newLength];
+        Arrays.fill(newTable, EMPTY);
+        int mask = newLength - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(values[id].hashCode()) & mask;
+            while (newTable[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = id;
+        }
+        table = newTable;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(capacity * 2 - 1);
+        return Math.max(n, DEFAULT_CAPACITY) * 2;
+    }
+
+    private static int mix(int h) {
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h;
+    }
+}
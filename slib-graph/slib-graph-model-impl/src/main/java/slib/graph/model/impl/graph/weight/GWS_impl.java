@@ -150,6 +150,37 @@ public class GWS_impl implements GWS {
         eTypeWeights.put(e, w);
     }
 
+    @Override
+    public boolean isUniform() {
+
+        if (eTypeWeights != null) {
+            for (double w : eTypeWeights.values()) {
+                if (w != defaultWeight) {
+                    return false;
+                }
+            }
+        }
+        if (eWeights != null) {
+            for (double w : eWeights.values()) {
+                if (w != defaultWeight) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create an unmodifiable view of a weighting scheme, the methods setting
+     * weights throw an {@link UnsupportedOperationException}.
+     *
+     * @param ws the weighting scheme
+     * @return the view
+     */
+    public static GWS unmodifiable(GWS ws) {
+        return new UnmodifiableGWS(ws);
+    }
+
     @Override
     public String toString() {
 
@@ -168,4 +199,66 @@ public class GWS_impl implements GWS {
 
         return out;
     }
+
+    /**
+     * Unmodifiable view of a weighting scheme.
+     */
+    private static class UnmodifiableGWS implements GWS {
+
+        private final GWS ws;
+
+        UnmodifiableGWS(GWS ws) {
+            this.ws = ws;
+        }
+
+        @Override
+        public double getDefaultWeight() {
+            return ws.getDefaultWeight();
+        }
+
+        @Override
+        public void setDefaultWeight(double w) {
+            throw new UnsupportedOperationException("The weighting scheme cannot be modified");
+        }
+
+        @Override
+        public boolean existsWeight(E e) {
+            return ws.existsWeight(e);
+        }
+
+        @Override
+        public double getWeight(E e) {
+            return ws.getWeight(e);
+        }
+
+        @Override
+        public void setWeight(E e, double w) {
+            throw new UnsupportedOperationException("The weighting scheme cannot be modified");
+        }
+
+        @Override
+        public boolean existsWeight(URI predicate) {
+            return ws.existsWeight(predicate);
+        }
+
+        @Override
+        public Double getWeight(URI predicate) {
+            return ws.getWeight(predicate);
+        }
+
+        @Override
+        public void setWeight(URI e, double w) {
+            throw new UnsupportedOperationException("The weighting scheme cannot be modified");
+        }
+
+        @Override
+        public boolean isUniform() {
+            return ws.isUniform();
+        }
+
+        @Override
+        public String toString() {
+            return ws.toString();
+        }
+    }
 }
@@ -0,0 +1,464 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.model.impl.repo;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.openrdf.model.URI;
+import org.openrdf.model.util.URIUtil;
+
+/**
+ * Dictionary encoding of URIs. Each URI registered in the dictionary is
+ * associated to a stable id in [0, size[, ids are attributed in insertion order
+ * and are never reused.
+ *
+ * URIs are not stored as objects. Namespaces are stored once in a table and
+ * the local names are stored UTF-8 encoded in large shared byte pages, a URI
+ * therefore only costs a few ints. The URIs returned by the dictionary are
+ * lightweight views (an id and a reference to the dictionary) which can be
+ * mixed with any other implementation of {@link URI}: as specified by Sesame,
+ * two URIs are equal if their string representations are equal.
+ *
+ * Algorithms can work on the ids, see {@link #getId(URI)} and
+ * {@link #getURI(int)}, and only convert them to URIs to print the results.
+ *
+ * Registration of URIs is synchronized, looking up the id of a URI and
+ * accessing the URI associated to an id do not require any lock: an entry is
+ * published by the volatile write of the size, lookups ignore the entries
+ * which are not yet published.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public final class URIDictionary {
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int EMPTY = -1;
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int MAX_PAGES = 1 << (31 - PAGE_BITS);
+    // namespaces
+    private final Map<String, Integer> namespaceIds;
+    private volatile String[] namespaces;
+    private int nbNamespaces;
+    // local names
+    private volatile byte[][] pages;
+    private int nbPages;
+    private int pageOffset;
+    // URIs
+    private volatile int[] namespaceOf;
+    private volatile int[] addresses;
+    private volatile int[] lengths;
+    private volatile int[] hashes;
+    private volatile int[] table;
+    private volatile int size;
+
+    /**
+     * Create an empty dictionary.
+     */
+    public URIDictionary() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty dictionary presized to store the given number of URIs.
+     *
+     * @param expectedSize the expected number of URIs
+     */
+    public URIDictionary(int expectedSize) {
+
+        int capacity = Math.max(16, expectedSize);
+        namespaceIds = new ConcurrentHashMap<String, Integer>();
+        namespaces = new String[16];
+        pages = new byte[16][];
+        namespaceOf = new int[capacity];
+        addresses = new int[capacity];
+        lengths = new int[capacity];
+        hashes = new int[capacity];
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+        Arrays.fill(table, EMPTY);
+    }
+
+    /**
+     * Access to the URI associated to the given string, the URI is registered
+     * if required. The string is split into a namespace and a local name
+     * following the rules defined by Sesame, see
+     * {@link URIUtil#getLocalNameIndex(String)}.
+     *
+     * @param sURI the string representation of the URI
+     * @return the URI
+     * @throws IllegalArgumentException if the string is not a valid URI
+     */
+    public URI getURI(String sURI) {
+        return new DictionaryURI(this, add(sURI));
+    }
+
+    /**
+     * Access to the URI built from the given namespace and local name, the URI
+     * is registered if required.
+     *
+     * @param namespace the namespace
+     * @param localName the local name
+     * @return the URI
+     */
+    public URI getURI(String namespace, String localName) {
+        return new DictionaryURI(this, add(namespace, localName));
+    }
+
+    /**
+     * Access to the view of the given URI, the URI is registered if required.
+     *
+     * @param uri the URI
+     * @return the URI provided by the dictionary which is equal to the given
+     * URI
+     */
+    public URI getURI(URI uri) {
+        if (uri instanceof DictionaryURI && ((DictionaryURI) uri).dictionary == this) {
+            return uri;
+        }
+        return new DictionaryURI(this, add(uri));
+    }
+
+    /**
+     * Access to the URI associated to an id.
+     *
+     * @param id the id of the URI
+     * @return the URI
+     * @throws IllegalArgumentException if the id is not associated to a URI
+     */
+    public URI getURI(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("No URI is associated to id " + id);
+        }
+        return new DictionaryURI(this, id);
+    }
+
+    /**
+     * Register the URI associated to the given string if required.
+     *
+     * @param sURI the string representation of the URI
+     * @return the id of the URI
+     * @throws IllegalArgumentException if the string is not a valid URI
+     */
+    public int add(String sURI) {
+        int idx = URIUtil.getLocalNameIndex(sURI);
+        return add(sURI.substring(0, idx), sURI.substring(idx));
+    }
+
+    /**
+     * Register the given URI if required.
+     *
+     * @param uri the URI
+     * @return the id of the URI
+     */
+    public int add(URI uri) {
+        if (uri instanceof DictionaryURI && ((DictionaryURI) uri).dictionary == this) {
+            return ((DictionaryURI) uri).id;
+        }
+        return add(uri.getNamespace(), uri.getLocalName());
+    }
+
+    /**
+     * Register the URI built from the given namespace and local name if
+     * required.
+     *
+     * @param namespace the namespace
+     * @param localName the local name
+     * @return the id of the URI
+     */
+    public synchronized int add(String namespace, String localName) {
+
+        if (!isCanonicalSplit(namespace, localName)) {
+            return add(namespace + localName);
+        }
+
+        byte[] encoded = localName.getBytes(UTF8);
+        int hash = hash(namespace, localName);
+        int ns = namespaceId(namespace);
+
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        int id;
+        while ((id = table[slot]) != EMPTY) {
+            if (matches(id, hash, ns, encoded)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (ns == EMPTY) {
+            ns = addNamespace(namespace);
+        }
+        id = size;
+        if (id == namespaceOf.length) {
+            int capacity = namespaceOf.length * 2;
+            namespaceOf = Arrays.copyOf(namespaceOf, capacity);
+            addresses = Arrays.copyOf(addresses, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        namespaceOf[id] = ns;
+        addresses[id] = store(encoded);
+        lengths[id] = encoded.length;
+        hashes[id] = hash;
+        table[slot] = id;
+        size = id + 1;
+
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * @param sURI the string representation of a URI
+     * @return the id of the URI, -1 if the URI is not registered in the
+     * dictionary or if the string is not a valid URI.
+     */
+    public int getId(String sURI) {
+        int idx;
+        try {
+            idx = URIUtil.getLocalNameIndex(sURI);
+        } catch (IllegalArgumentException e) {
+            return EMPTY;
+        }
+        return getId(sURI.substring(0, idx), sURI.substring(idx));
+    }
+
+    /**
+     * @param uri the URI
+     * @return the id of the URI, -1 if the URI is not registered in the
+     * dictionary.
+     */
+    public int getId(URI uri) {
+        if (uri == null) {
+            return EMPTY;
+        }
+        if (uri instanceof DictionaryURI && ((DictionaryURI) uri).dictionary == this) {
+            return ((DictionaryURI) uri).id;
+        }
+        return getId(uri.getNamespace(), uri.getLocalName());
+    }
+
+    /**
+     * @param namespace the namespace
+     * @param localName the local name
+     * @return the id of the URI built from the given namespace and local name,
+     * -1 if the URI is not registered in the dictionary.
+     */
+    public int getId(String namespace, String localName) {
+
+        if (!isCanonicalSplit(namespace, localName)) {
+            return getId(namespace + localName);
+        }
+        int ns = namespaceId(namespace);
+        if (ns == EMPTY) {
+            return EMPTY;
+        }
+        byte[] encoded = localName.getBytes(UTF8);
+        int hash = hash(namespace, localName);
+        // read the size first, the entries it covers are then fully visible
+        int published = size;
+        int[] t = table;
+        int mask = t.length - 1;
+        int slot = mix(hash) & mask;
+        int id;
+        while ((id = t[slot]) != EMPTY) {
+            if (id < published && matches(id, hash, ns, encoded)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * @return the number of URIs registered in the dictionary
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of distinct namespaces registered in the dictionary
+     */
+    public synchronized int getNumberNamespaces() {
+        return nbNamespaces;
+    }
+
+    /**
+     * @param id the id of a URI
+     * @return the namespace of the URI
+     */
+    public String getNamespace(int id) {
+        return namespaces[namespaceOf[id]];
+    }
+
+    /**
+     * @param id the id of a URI
+     * @return the local name of the URI
+     */
+    public String getLocalName(int id) {
+        int address = addresses[id];
+        return new String(pages[address >>> PAGE_BITS], address & (PAGE_SIZE - 1), lengths[id], UTF8);
+    }
+
+    /**
+     * @param id the id of a URI
+     * @return the string representation of the URI
+     */
+    public String stringValue(int id) {
+        return getNamespace(id).concat(getLocalName(id));
+    }
+
+    /**
+     * @param id the id of a URI
+     * @return the hash code of the URI, i.e. the hash code of its string
+     * representation
+     */
+    int hashCode(int id) {
+        return hashes[id];
+    }
+
+    private int namespaceId(String namespace) {
+        Integer ns = namespaceIds.get(namespace);
+        return ns == null ? EMPTY : ns;
+    }
+
+    private int addNamespace(String namespace) {
+        if (nbNamespaces == namespaces.length) {
+            namespaces = Arrays.copyOf(namespaces, nbNamespaces * 2);
+        }
+        namespaces[nbNamespaces] = namespace;
+        namespaceIds.put(namespace, nbNamespaces);
+        return nbNamespaces++;
+    }
+
+    /**
+     * Copy the given bytes into the pages.
+     *
+     * @return the address of the bytes, i.e. page &lt;&lt; PAGE_BITS | offset
+     */
+    private int store(byte[] encoded) {
+
+        if (nbPages == 0 || pageOffset + encoded.length > pages[nbPages - 1].length) {
+            if (nbPages == MAX_PAGES) {
+                throw new IllegalStateException("The capacity of the URI dictionary has been exceeded");
+            }
+            byte[][] p = nbPages == pages.length ? Arrays.copyOf(pages, nbPages * 2) : pages;
+            // local names larger than a page are stored in a dedicated page
+            p[nbPages++] = new byte[Math.max(PAGE_SIZE, encoded.length)];
+            pages = p;
+            pageOffset = 0;
+        }
+        int address = ((nbPages - 1) << PAGE_BITS) | pageOffset;
+        System.arraycopy(encoded, 0, pages[nbPages - 1], pageOffset, encoded.length);
+        pageOffset += encoded.length;
+        return address;
+    }
+
+    private boolean matches(int id, int hash, int ns, byte[] encoded) {
+
+        if (hashes[id] != hash || namespaceOf[id] != ns || lengths[id] != encoded.length) {
+            return false;
+        }
+        int address = addresses[id];
+        byte[] page = pages[address >>> PAGE_BITS];
+        int offset = address & (PAGE_SIZE - 1);
+        for (int i = 0; i < encoded.length; i++) {
+            if (page[offset + i] != encoded[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int newLength) {
+        int[] newTable = new int[newLength];
+        Arrays.fill(newTable, EMPTY);
+        int mask = newLength - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (newTable[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = id;
+        }
+        table = newTable;
+    }
+
+    /**
+     * Check that the given namespace and local name correspond to the split
+     * performed by {@link URIUtil#getLocalNameIndex(String)}, two URIs with
+     * the same string representation must share the same entry.
+     */
+    private static boolean isCanonicalSplit(String namespace, String localName) {
+
+        if (namespace.isEmpty() || localName.indexOf('#') != -1) {
+            return false;
+        }
+        switch (namespace.charAt(namespace.length() - 1)) {
+            case '#':
+                return true;
+            case '/':
+                return localName.indexOf('/') == -1 && namespace.indexOf('#') == -1;
+            case ':':
+                return localName.indexOf('/') == -1 && localName.indexOf(':') == -1
+                        && namespace.indexOf('#') == -1 && namespace.indexOf('/') == -1;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return the hash code of namespace + localName, computed without
+     * building the string
+     */
+    private static int hash(String namespace, String localName) {
+        int h = namespace.hashCode();
+        for (int i = 0; i < localName.length(); i++) {
+            h = 31 * h + localName.charAt(i);
+        }
+        return h;
+    }
+
+    private static int mix(int h) {
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h;
+    }
+}
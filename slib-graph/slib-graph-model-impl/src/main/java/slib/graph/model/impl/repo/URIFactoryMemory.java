@@ -33,8 +33,8 @@
  */
 package slib.graph.model.impl.repo;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import org.openrdf.model.URI;
 import org.openrdf.model.vocabulary.DC;
@@ -68,6 +68,7 @@ public final class URIFactoryMemory implements URIFactory {
     private Map<String, String> namespacePrefixes2namespaces;
     private Map<String, String> namespaces2namespacePrefixes;
     Pattern colon = Pattern.compile(":");
+    private volatile URIDictionary dictionary;
 
     /**
      * Access to the in-memory URI Factory.
@@ -88,8 +89,8 @@ public final class URIFactoryMemory implements URIFactory {
     private URIFactoryMemory() {
 
         internalUriFactory = new MemValueFactory();
-        namespacePrefixes2namespaces = new HashMap<String, String>();
-        namespaces2namespacePrefixes = new HashMap<String, String>();
+        namespacePrefixes2namespaces = new ConcurrentHashMap<String, String>();
+        namespaces2namespacePrefixes = new ConcurrentHashMap<String, String>();
 
         try {
             loadDefaultNamespaces();
@@ -98,7 +99,7 @@ public final class URIFactoryMemory implements URIFactory {
     }
 
     @Override
-    public boolean loadNamespacePrefix(String prefix, String reference) throws SLIB_Ex_Critic {
+    public synchronized boolean loadNamespacePrefix(String prefix, String reference) throws SLIB_Ex_Critic {
 
         if (!namespacePrefixes2namespaces.containsKey(prefix.toLowerCase())) {
 
@@ -133,9 +134,35 @@ public final class URIFactoryMemory implements URIFactory {
         }
     }
 
+    /**
+     * Define the dictionary used to encode the URIs created by the factory.
+     * Once a dictionary is defined, the URIs are lightweight views over the
+     * strings stored in the dictionary, which considerably reduces the memory
+     * required to load large datasets. URIs created before and after the
+     * dictionary has been defined can be mixed since equality of URIs relies
+     * on their string representations.
+     *
+     * @param dictionary the dictionary, null to create standard Sesame URIs
+     */
+    public void setDictionary(URIDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * @return the dictionary used to encode the URIs, null if none has been
+     * defined.
+     */
+    public URIDictionary getDictionary() {
+        return dictionary;
+    }
+
     @Override
     public URI getURI(String sURI
     ) {
+        URIDictionary d = dictionary;
+        if (d != null) {
+            return d.getURI(sURI);
+        }
         return internalUriFactory.createURI(sURI);
 
     }
@@ -143,6 +170,10 @@ public final class URIFactoryMemory implements URIFactory {
     @Override
     public URI getURI(String snamespace, String sURI
     ) {
+        URIDictionary d = dictionary;
+        if (d != null) {
+            return d.getURI(snamespace, sURI);
+        }
         return internalUriFactory.createURI(snamespace, sURI);
     }
 
@@ -37,6 +37,8 @@ import java.util.Set;
 import org.openrdf.model.URI;
 import slib.graph.model.graph.elements.E;
 import slib.graph.model.graph.utils.Direction;
+import slib.graph.model.graph.utils.EdgeVisitor;
+import slib.graph.model.graph.utils.VertexVisitor;
 import slib.graph.model.graph.utils.WalkConstraint;
 
 /**
@@ -68,7 +70,7 @@ import slib.graph.model.graph.utils.WalkConstraint;
  *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
-public interface G {
+public interface G extends GraphSink {
 
 
     /**
@@ -185,6 +187,36 @@ public interface G {
      */
     public Set<URI> getV(URI v, WalkConstraint wc);
 
+    /**
+     * Visit the edges of a given vertex respecting the given constraint. The
+     * edges are given to the visitor without any intermediate collection being
+     * built. An edge accepted in both directions (e.g. self-loop) can be
+     * visited twice. The graph must not be modified during the visit.
+     *
+     * @param v the vertex of interest
+     * @param wc the object defining the constraint
+     * @param visitor the visitor, the visit is stopped as soon as the visitor
+     * returns false
+     * @return false if the visit has been stopped by the visitor, true
+     * otherwise
+     */
+    public boolean forEachEdge(URI v, WalkConstraint wc, EdgeVisitor visitor);
+
+    /**
+     * Visit the vertices which can be reached from a given vertex respecting
+     * the given constraint, i.e. the targets of the accepted outgoing edges and
+     * the sources of the accepted incoming edges. A vertex is visited once per
+     * edge leading to it. The graph must not be modified during the visit.
+     *
+     * @param v the vertex of interest
+     * @param wc the object defining the constraint
+     * @param visitor the visitor, the visit is stopped as soon as the visitor
+     * returns false
+     * @return false if the visit has been stopped by the visitor, true
+     * otherwise
+     */
+    public boolean forEachNeighbour(URI v, WalkConstraint wc, VertexVisitor visitor);
+
     /**
      * Add an edge of the given type (URI) between the specified source and
      * target. If the given edge already exits nothing is done. If the
@@ -310,8 +342,15 @@ public interface G {
      */
     public Set<URI> getV(URI v, URI predicate, Direction dir);
 
+    /**
+     * A graph is populated in place, flushing it has no effect.
+     */
+    @Override
+    public void flush();
+
     /**
      * @return the URI associated to the graph
      */
+    @Override
     public URI getURI();
 }
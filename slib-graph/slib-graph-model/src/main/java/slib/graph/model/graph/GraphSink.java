@@ -0,0 +1,86 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.model.graph;
+
+import org.openrdf.model.URI;
+
+/**
+ * Interface of the structures the graph loaders write into. A sink only
+ * accepts vertices and edges; it is implemented by any {@link G} and by
+ * write-only structures used to build graphs, e.g. builders populated by
+ * several loaders in parallel.
+ *
+ * A producer must call {@link #flush()} once it has finished adding its
+ * data.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public interface GraphSink {
+
+    /**
+     * Add the given vertex. Nothing is done if the vertex already exists.
+     *
+     * @param v the vertex to add
+     */
+    public void addV(URI v);
+
+    /**
+     * Add an edge of the given type (URI) between the specified source and
+     * target. If the source/target of the edge is not part of the sink it will
+     * be added.
+     *
+     * @param src the source of the edge (not null)
+     * @param type the predicate URI of the edge to create (not null)
+     * @param target the target of the edge (not null)
+     */
+    public void addE(URI src, URI type, URI target);
+
+    /**
+     * Check if a vertex has already been added.
+     *
+     * @param v the value to test
+     * @return true if the vertex exists else return false
+     */
+    public boolean containsVertex(URI v);
+
+    /**
+     * Notify the sink that the calling producer has finished adding data.
+     */
+    public void flush();
+
+    /**
+     * @return the URI associated to the graph being populated
+     */
+    public URI getURI();
+}
@@ -126,4 +126,13 @@ public interface GWS {
      * @param w the weight
      */
     void setWeight(URI e, double w);
+
+    /**
+     * Check if all the edges are associated to the same weight, i.e. if no
+     * weight differing from the default weight is specified for a predicate
+     * or an edge.
+     *
+     * @return true if the weight of any edge is the default weight
+     */
+    boolean isUniform();
 }
@@ -0,0 +1,114 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.test.algo.graph;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.openrdf.model.URI;
+import org.openrdf.model.vocabulary.RDF;
+import slib.graph.algo.accessor.AnnotationStore;
+import slib.graph.io.conf.GDataConf;
+import slib.graph.io.loader.GraphLoaderGeneric;
+import slib.graph.io.loader.annot.GraphLoader_TSVannot;
+import slib.graph.io.util.GFormat;
+import slib.graph.model.graph.G;
+import slib.graph.model.impl.repo.URIFactoryMemory;
+
+/**
+ * Check the loading of annotations into an {@link AnnotationStore}.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class TestAnnotationStore {
+
+    /**
+     * Load annotations from a TSV file and check the content of the store.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_tsv_annotations() throws Exception {
+
+        G g = TestUtils.loadTestGraph(GFormat.NTRIPLES, SLIB_UnitTestValues.G_DAG_BASIC);
+        int nbEdges = g.getNumberEdges();
+
+        File file = File.createTempFile("slib_annot", ".tsv");
+        file.deleteOnExit();
+        FileWriter w = new FileWriter(file);
+        w.write("id\tclasses\n");
+        w.write("p1\tmen;spider\n");
+        w.write("p2\tmen\n");
+        w.write("p3\ttomato;men;men\n");
+        w.close();
+
+        GDataConf conf = new GDataConf(GFormat.TSV_ANNOT, file.getAbsolutePath());
+        conf.addParameter(GraphLoader_TSVannot.PARAM_PREFIX_SUBJECT, "http://i/");
+        conf.addParameter(GraphLoader_TSVannot.PARAM_PREFIX_OBJECT, SLIB_UnitTestValues.uriGraph.stringValue());
+
+        AnnotationStore store = new AnnotationStore();
+        GraphLoaderGeneric.populate(conf, g, store);
+
+        // the graph is not modified
+        assertEquals(nbEdges, g.getNumberEdges());
+
+        URIFactoryMemory f = URIFactoryMemory.getSingleton();
+        URI p1 = f.getURI("http://i/p1");
+        URI p3 = f.getURI("http://i/p3");
+        URI men = f.getURI("http://g/men");
+        URI spider = f.getURI("http://g/spider");
+        URI tomato = f.getURI("http://g/tomato");
+
+        assertEquals(3, store.getInstanceNb());
+        assertEquals(5, store.getNumberAnnotations());
+        assertTrue(g.getE(RDF.TYPE).isEmpty());
+
+        Set<URI> expected = new HashSet<URI>();
+        expected.add(men);
+        expected.add(spider);
+        assertEquals(expected, store.getClassesOfInstance(p1));
+        assertTrue(store.getClassesOfInstance(p3).contains(tomato));
+        assertEquals(3, store.getDirectInstances(men).size());
+
+        int[] ids = store.getClassIds(store.getInstanceId(p3));
+        int[] sorted = new int[]{store.getClassId(men), store.getClassId(tomato)};
+        Arrays.sort(sorted);
+        assertTrue(Arrays.equals(sorted, ids));
+    }
+}
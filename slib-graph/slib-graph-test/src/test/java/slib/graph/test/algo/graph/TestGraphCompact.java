@@ -0,0 +1,273 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.test.algo.graph;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.openrdf.model.URI;
+import org.openrdf.model.vocabulary.RDFS;
+import slib.graph.io.conf.GDataConf;
+import slib.graph.io.loader.GraphLoaderGeneric;
+import slib.graph.io.loader.slibformat.GraphLoader_SLIB_Binary;
+import slib.graph.io.util.GFormat;
+import slib.graph.model.graph.G;
+import slib.graph.model.graph.elements.E;
+import slib.graph.model.graph.utils.Direction;
+import slib.graph.model.graph.utils.VertexVisitor;
+import slib.graph.model.graph.utils.WalkConstraint;
+import slib.graph.model.impl.graph.memory.GraphCompact;
+import slib.graph.model.impl.graph.memory.GraphCompactBuilder;
+import slib.graph.model.impl.graph.memory.GraphMemory;
+import slib.graph.utils.WalkConstraintGeneric;
+import slib.utils.ex.SLIB_Exception;
+
+/**
+ * Check that {@link GraphCompact} behaves as the reference in memory
+ * implementation.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class TestGraphCompact {
+
+    G g;
+    GraphCompact gc;
+
+    /**
+     *
+     * @throws SLIB_Exception
+     */
+    public TestGraphCompact() throws SLIB_Exception {
+
+        g = TestUtils.loadTestGraph(GFormat.NTRIPLES, SLIB_UnitTestValues.G_DAG_BASIC);
+        gc = new GraphCompact(g.getURI());
+        gc.addV(g.getV());
+        gc.addE(new HashSet<E>(g.getE()));
+    }
+
+    /**
+     * Check the vertices and edges of both graphs.
+     */
+    @Test
+    public void test_content() {
+
+        assertEquals(g.getNumberVertices(), gc.getNumberVertices());
+        assertEquals(g.getNumberEdges(), gc.getNumberEdges());
+        assertEquals(g.getV(), gc.getV());
+        assertEquals(g.getE(), gc.getE());
+        assertEquals(g.getE(RDFS.SUBCLASSOF), gc.getE(RDFS.SUBCLASSOF));
+    }
+
+    /**
+     * Check the neighbourhood of each vertex.
+     */
+    @Test
+    public void test_neighbourhood() {
+
+        WalkConstraint wc = new WalkConstraintGeneric(RDFS.SUBCLASSOF, Direction.OUT);
+
+        for (URI v : g.getV()) {
+            assertEquals(g.getE(v, Direction.BOTH), gc.getE(v, Direction.BOTH));
+            assertEquals(g.getE(RDFS.SUBCLASSOF, v, Direction.IN), gc.getE(RDFS.SUBCLASSOF, v, Direction.IN));
+            assertEquals(g.getE(v, wc), gc.getE(v, wc));
+            assertEquals(g.getV(v, wc), gc.getV(v, wc));
+            assertEquals(g.getV(v, RDFS.SUBCLASSOF, Direction.BOTH), gc.getV(v, RDFS.SUBCLASSOF, Direction.BOTH));
+        }
+    }
+
+    /**
+     * Check the visitors and the neighbour cursor.
+     */
+    @Test
+    public void test_visitors() {
+
+        WalkConstraint wc = new WalkConstraintGeneric(RDFS.SUBCLASSOF, Direction.BOTH);
+        GraphCompact.NeighbourCursor cursor = gc.getNeighbourCursor(wc);
+        final Set<URI> visited = new HashSet<URI>();
+
+        VertexVisitor visitor = new VertexVisitor() {
+            @Override
+            public boolean visit(URI v) {
+                visited.add(v);
+                return true;
+            }
+        };
+
+        for (URI v : g.getV()) {
+
+            visited.clear();
+            g.forEachNeighbour(v, wc, visitor);
+            assertEquals(g.getV(v, wc), visited);
+
+            visited.clear();
+            gc.forEachNeighbour(v, wc, visitor);
+            assertEquals(g.getV(v, wc), visited);
+
+            visited.clear();
+            cursor.reset(gc.getVertexId(v));
+            while (cursor.next()) {
+                visited.add(gc.getVertex(cursor.vertex()));
+            }
+            assertEquals(g.getV(v, wc), visited);
+        }
+    }
+
+    /**
+     * Check edge and vertex removal.
+     */
+    @Test
+    public void test_removal() {
+
+        E e = g.getE(RDFS.SUBCLASSOF).iterator().next();
+        assertTrue(gc.containsEdge(e.getSource(), e.getURI(), e.getTarget()));
+
+        gc.removeE(e);
+        assertFalse(gc.containsEdge(e.getSource(), e.getURI(), e.getTarget()));
+        assertEquals(g.getNumberEdges() - 1, gc.getNumberEdges());
+
+        gc.addE(e);
+        assertTrue(gc.getE().contains(e));
+
+        Set<E> adjacent = g.getE(e.getSource(), Direction.BOTH);
+        gc.removeV(e.getSource());
+        assertFalse(gc.containsVertex(e.getSource()));
+        assertEquals(g.getNumberEdges() - adjacent.size(), gc.getNumberEdges());
+        assertTrue(gc.getE(e.getSource(), Direction.BOTH).isEmpty());
+    }
+
+    /**
+     * Check frozen graphs are equivalent to the original graph and cannot be
+     * modified.
+     */
+    @Test
+    public void test_freeze() {
+
+        G frozen = ((GraphMemory) g).freeze();
+
+        assertEquals(g.getV(), frozen.getV());
+        assertEquals(g.getE(), frozen.getE());
+
+        for (URI v : g.getV()) {
+            assertEquals(g.getE(v, Direction.BOTH), frozen.getE(v, Direction.BOTH));
+        }
+
+        try {
+            frozen.addV(g.getURI());
+            fail("A frozen graph must not be modified");
+        } catch (UnsupportedOperationException e) {
+        }
+    }
+
+    /**
+     * Check the graph built by several producer threads.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_builder() throws Exception {
+
+        final GraphCompactBuilder builder = new GraphCompactBuilder(g.getURI());
+        final List<E> edges = new ArrayList<E>(g.getE());
+        for (URI v : g.getV()) {
+            builder.addV(v);
+        }
+
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            final int offset = t;
+            producers[t] = new Thread() {
+                @Override
+                public void run() {
+                    // each edge is added twice in order to test deduplication
+                    for (int i = offset; i < edges.size() * 2; i += 4) {
+                        E e = edges.get(i % edges.size());
+                        builder.addE(e.getSource(), e.getURI(), e.getTarget());
+                    }
+                    builder.flush();
+                }
+            };
+            producers[t].start();
+        }
+        for (Thread t : producers) {
+            t.join();
+        }
+        assertEquals(edges.size() * 2, builder.getNumberEdges());
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        G built;
+        try {
+            built = builder.build(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(g.getV(), built.getV());
+        assertEquals(g.getE(), built.getE());
+    }
+
+    /**
+     * Flush the graph in SLIB binary format and load it back.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void test_binary_format() throws Exception {
+
+        File file = File.createTempFile("slib_graph", ".bin");
+        file.deleteOnExit();
+        new GraphLoader_SLIB_Binary().flush(g, file.getAbsolutePath());
+
+        GraphCompact loaded = new GraphCompact(g.getURI());
+        GraphLoaderGeneric.populate(new GDataConf(GFormat.SLIB_BINARY, file.getAbsolutePath()), loaded);
+
+        assertEquals(g.getV(), loaded.getV());
+        assertEquals(g.getE(), loaded.getE());
+        for (URI v : g.getV()) {
+            assertEquals(g.getE(v, Direction.IN), loaded.getE(v, Direction.IN));
+        }
+
+        G loadedMemory = new GraphMemory(g.getURI());
+        GraphLoaderGeneric.populate(new GDataConf(GFormat.SLIB_BINARY, file.getAbsolutePath()), loadedMemory);
+        assertEquals(g.getE(), loadedMemory.getE());
+    }
+}
@@ -0,0 +1,168 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.graph.test.algo.graph;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.model.vocabulary.RDFS;
+import slib.graph.io.util.GFormat;
+import slib.graph.model.graph.G;
+import slib.graph.model.impl.repo.URIDictionary;
+import slib.graph.model.impl.repo.URIFactoryMemory;
+import slib.utils.ex.SLIB_Exception;
+
+/**
+ * Check that the URIs provided by a {@link URIDictionary} are interchangeable
+ * with Sesame URIs.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class TestURIDictionary {
+
+    /**
+     * Check the ids and the string representations of the URIs.
+     */
+    @Test
+    public void test_encoding() {
+
+        URIDictionary dict = new URIDictionary(4);
+
+        URI a = dict.getURI("http://go/GO_0000001");
+        URI b = dict.getURI("http://go/", "GO_0000002");
+        URI c = dict.getURI("http://x.org/onto#", "é/ü:1");
+
+        assertEquals(0, dict.getId(a));
+        assertEquals(1, dict.getId(b));
+        assertEquals(2, dict.getNumberNamespaces());
+        assertEquals("http://go/GO_0000001", a.stringValue());
+        assertEquals("http://go/", b.getNamespace());
+        assertEquals("GO_0000002", b.getLocalName());
+        assertEquals("é/ü:1", c.getLocalName());
+
+        // same string, different split
+        assertEquals(dict.getId(c), dict.add("http://x.org/", "onto#é/ü:1"));
+        assertEquals(-1, dict.getId("http://go/GO_0000003"));
+
+        for (int i = 0; i < 100000; i++) {
+            dict.add("http://uniprot/P" + i);
+        }
+        assertEquals(100003, dict.size());
+        assertEquals(dict.getURI(50002), new URIImpl("http://uniprot/P49999"));
+        assertEquals(a, dict.getURI(0));
+    }
+
+    /**
+     * Lookups performed while another thread registers URIs must find every
+     * URI whose registration has completed.
+     *
+     * @throws InterruptedException
+     */
+    @Test
+    public void test_concurrent_lookups() throws InterruptedException {
+
+        final URIDictionary dict = new URIDictionary(4);
+        final int nbURIs = 200000;
+        final AtomicInteger registered = new AtomicInteger();
+
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                for (int i = 0; i < nbURIs; i++) {
+                    dict.add("http://uniprot/P" + i);
+                    registered.set(i + 1);
+                }
+            }
+        };
+        writer.start();
+
+        int errors = 0;
+        while (registered.get() < nbURIs) {
+            int i = registered.get() - 1;
+            if (i >= 0 && dict.getId("http://uniprot/", "P" + i) != i) {
+                errors++;
+            }
+        }
+        writer.join();
+        assertEquals(0, errors);
+        assertEquals(nbURIs - 1, dict.getId("http://uniprot/P" + (nbURIs - 1)));
+    }
+
+    /**
+     * Check equality with Sesame URIs.
+     */
+    @Test
+    public void test_equality() {
+
+        URIDictionary dict = new URIDictionary();
+        URI label = dict.getURI(RDFS.LABEL.stringValue());
+
+        assertEquals(RDFS.LABEL, label);
+        assertEquals(label, RDFS.LABEL);
+        assertEquals(RDFS.LABEL.hashCode(), label.hashCode());
+        assertFalse(label.equals(RDFS.COMMENT));
+
+        Set<URI> uris = new HashSet<URI>();
+        uris.add(RDFS.LABEL);
+        assertTrue(uris.contains(label));
+    }
+
+    /**
+     * Load a graph using the dictionary.
+     *
+     * @throws SLIB_Exception
+     */
+    @Test
+    public void test_loading() throws SLIB_Exception {
+
+        G ref = TestUtils.loadTestGraph(GFormat.NTRIPLES, SLIB_UnitTestValues.G_DAG_BASIC);
+
+        URIDictionary dict = new URIDictionary();
+        URIFactoryMemory.getSingleton().setDictionary(dict);
+        try {
+            G g = TestUtils.loadTestGraph(GFormat.NTRIPLES, SLIB_UnitTestValues.G_DAG_BASIC);
+            assertEquals(ref.getV(), g.getV());
+            assertEquals(ref.getE(), g.getE());
+            assertTrue(dict.size() >= g.getNumberVertices());
+        } finally {
+            URIFactoryMemory.getSingleton().setDictionary(null);
+        }
+    }
+}
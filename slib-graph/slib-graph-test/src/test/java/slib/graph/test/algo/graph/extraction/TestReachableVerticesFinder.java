@@ -35,16 +35,24 @@ package slib.graph.test.algo.graph.extraction;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.openrdf.model.URI;
 import org.openrdf.model.vocabulary.RDFS;
 import slib.graph.test.algo.graph.SLIB_UnitTestValues;
 import slib.graph.test.algo.graph.TestUtils;
+import slib.graph.algo.extraction.rvf.AncestorDistanceIndex;
+import slib.graph.algo.extraction.rvf.IntervalLabelIndex;
 import slib.graph.algo.extraction.rvf.RVF_DAG;
 import slib.graph.algo.extraction.rvf.RVF_TAX;
+import slib.graph.algo.extraction.rvf.ReachabilityIndex;
+import slib.graph.algo.shortest_path.ShortestPathEngine;
 import slib.graph.io.util.GFormat;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.elements.E;
 import slib.graph.model.graph.utils.Direction;
 import slib.graph.model.graph.utils.WalkConstraint;
 import slib.graph.utils.WalkConstraintGeneric;
@@ -61,6 +69,7 @@ public class TestReachableVerticesFinder {
     public G g;
     public RVF_DAG rvf;
     SLIB_UnitTestValues testValues;
+    ForkJoinPool pool;
 
     /**
      *
@@ -72,6 +81,22 @@ public class TestReachableVerticesFinder {
         g = TestUtils.loadTestGraph(GFormat.NTRIPLES, SLIB_UnitTestValues.G_DAG_BASIC);
     }
 
+    /**
+     * Create the pool used by the parallel computations.
+     */
+    @Before
+    public void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    /**
+     * Release the threads of the pool.
+     */
+    @After
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
     /**
      *
      * @throws SLIB_Ex_Critic
@@ -223,4 +248,114 @@ public class TestReachableVerticesFinder {
 
         assertTrue(all.size() == g.getV().size());
     }
+
+    /**
+     * Check the reachability index against the sets computed by
+     * {@link RVF_DAG#getAllRV()}.
+     *
+     * @throws SLIB_Ex_Critic
+     */
+    @Test
+    public void test_dag_reachability_index() throws SLIB_Ex_Critic {
+
+        for (Direction dir : new Direction[]{Direction.IN, Direction.OUT}) {
+
+            rvf = new RVF_DAG(g, new WalkConstraintGeneric(RDFS.SUBCLASSOF, dir));
+            Map<URI, Set<URI>> all = rvf.getAllRV();
+            ReachabilityIndex index = rvf.getReachabilityIndex();
+
+            assertTrue(index.size() == g.getV().size());
+            for (URI v : g.getV()) {
+                assertTrue(all.get(v).equals(index.getReachable(v)));
+                assertTrue(index.getReachableInc(v).contains(v));
+                assertTrue(index.getReachableInc(v).size() == all.get(v).size() + 1);
+                int id = index.getId(v);
+                for (int r : index.getReachableIds(id)) {
+                    assertTrue(r < id && index.isReachable(id, r));
+                    assertTrue(all.get(v).contains(index.getURI(r)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_dag_reachability_index_parallel() throws SLIB_Ex_Critic {
+
+        for (Direction dir : new Direction[]{Direction.IN, Direction.OUT}) {
+
+            rvf = new RVF_DAG(g, new WalkConstraintGeneric(RDFS.SUBCLASSOF, dir));
+            ReachabilityIndex index = rvf.getReachabilityIndex();
+            ReachabilityIndex parallel = rvf.getReachabilityIndex(pool);
+
+            assertTrue(parallel.size() == index.size());
+            for (URI v : g.getV()) {
+                assertTrue(index.getReachable(v).equals(parallel.getReachable(v)));
+            }
+        }
+    }
+
+    @Test
+    public void test_dag_terminal_vertices_parallel() throws SLIB_Ex_Critic {
+
+        rvf = new RVF_DAG(g, new WalkConstraintGeneric(RDFS.SUBCLASSOF, Direction.IN));
+        Map<URI, Set<URI>> leaves = rvf.getTerminalVertices();
+
+        assertTrue(leaves.equals(rvf.getTerminalVertices(pool)));
+        assertTrue(leaves.equals(rvf.getTerminalVertices(null)));
+    }
+
+    @Test
+    public void test_dag_propagate_occurrences() throws SLIB_Ex_Critic {
+
+        rvf = new RVF_DAG(g, new WalkConstraintGeneric(RDFS.SUBCLASSOF, Direction.IN));
+        Map<URI, Integer> nbPaths = rvf.computeNbPathLeadingToAllVertices();
+
+        assertTrue(nbPaths.equals(rvf.computeNbPathLeadingToAllVertices(pool)));
+        assertTrue(nbPaths.size() == g.getV().size());
+        for (URI v : g.getV()) {
+            int expected = 1;
+            for (E e : g.getE(RDFS.SUBCLASSOF, v, Direction.OUT)) {
+                expected += nbPaths.get(e.getTarget());
+            }
+            assertTrue(nbPaths.get(v) == expected);
+        }
+        assertTrue(nbPaths.get(testValues.G_BASIC_THING) == 1);
+    }
+
+    @Test
+    public void test_dag_interval_label_index() throws SLIB_Ex_Critic {
+
+        for (Direction dir : new Direction[]{Direction.IN, Direction.OUT}) {
+
+            rvf = new RVF_DAG(g, new WalkConstraintGeneric(RDFS.SUBCLASSOF, dir));
+            Map<URI, Set<URI>> all = rvf.getAllRV();
+            IntervalLabelIndex index = rvf.getIntervalLabelIndex();
+
+            assertTrue(index.size() == g.getV().size());
+            for (URI u : g.getV()) {
+                for (URI v : g.getV()) {
+                    assertTrue(all.get(u).contains(v) == index.isReachable(u, v));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_dag_ancestor_distance_index() throws SLIB_Ex_Critic {
+
+        WalkConstraint wc = new WalkConstraintGeneric(RDFS.SUBCLASSOF, Direction.OUT);
+        rvf = new RVF_DAG(g, wc);
+        ReachabilityIndex index = rvf.getReachabilityIndex();
+        AncestorDistanceIndex distances = new AncestorDistanceIndex(g, wc, index);
+        ShortestPathEngine sp = new ShortestPathEngine(g, wc);
+
+        for (int a = 0; a < index.size(); a++) {
+            for (int b = 0; b < index.size(); b++) {
+                double expected = sp.shortestPath(sp.getId(index.getURI(a)), sp.getId(index.getURI(b)));
+                int min = distances.getMinDistance(a, b);
+                assertTrue(min == (int) expected);
+                assertTrue(distances.getMaxDistance(a, b) >= min);
+            }
+        }
+    }
 }
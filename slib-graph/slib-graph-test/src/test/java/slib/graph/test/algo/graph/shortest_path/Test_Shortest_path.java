@@ -33,14 +33,19 @@
  */
 package slib.graph.test.algo.graph.shortest_path;
 
+import java.util.Map;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import org.openrdf.model.URI;
 import org.openrdf.model.vocabulary.RDFS;
 import slib.graph.algo.shortest_path.Dijkstra;
+import slib.graph.algo.shortest_path.ShortestPathEngine;
 import slib.graph.io.util.GFormat;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.elements.E;
 import slib.graph.model.graph.utils.Direction;
+import slib.graph.model.graph.weight.GWS;
+import slib.graph.model.impl.graph.weight.GWS_impl;
 import slib.graph.test.algo.graph.SLIB_UnitTestValues;
 import slib.graph.test.algo.graph.TestUtils;
 import slib.graph.utils.WalkConstraintGeneric;
@@ -172,4 +177,27 @@ public class Test_Shortest_path {
         System.out.println("Shortest Path Animal/Spiderman = 2, found " + sp);
         assertTrue(sp == 2);
     }
+
+    @Test
+    public void testSP_weighted() throws SLIB_Exception {
+
+        URI thing = test.G_BASIC_THING;
+        URI spiderman = test.G_BASIC_SPIDERMAN;
+
+        GWS ws = new GWS_impl(1);
+        for (E e : g.getE(RDFS.SUBCLASSOF, spiderman, Direction.OUT)) {
+            ws.setWeight(e, 0.5);
+        }
+        ShortestPathEngine engine = new ShortestPathEngine(g, new WalkConstraintGeneric(RDFS.SUBCLASSOF, Direction.BOTH), ws);
+        assertTrue(!engine.isUniform());
+
+        double sp = engine.shortestPath(spiderman, thing);
+        System.out.println("Shortest Path Spiderman/Thing = 2.5, found " + sp);
+        assertTrue(sp == 2.5);
+
+        Map<URI, Double> all = engine.shortestPath(spiderman);
+        for (URI v : g.getV()) {
+            assertTrue(all.get(v) == engine.shortestPath(spiderman, v));
+        }
+    }
 }
@@ -0,0 +1,238 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.engine;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import slib.sml.sm.core.metrics.ic.utils.ICconf;
+import slib.sml.sm.core.metrics.ic.utils.MICAIndex;
+import slib.utils.ex.SLIB_Ex_Critic;
+
+/**
+ * Inclusive ancestors of a set of classes, e.g. the classes annotating an
+ * entity, see {@link SM_Engine#getAnnotationProfile(java.util.Set)}. The
+ * ancestors are identified by their class ids (see
+ * {@link SM_Engine#getClassId(org.openrdf.model.URI)}) and are stored in a
+ * compressed form, a sorted array of ids or a bitmap, whichever is the
+ * smallest. Profiles are compared without building any set: the sizes of
+ * their intersection and union and the sums of the IC of the classes they
+ * contain are computed on the arrays or bitmaps.
+ *
+ * The sum of the IC of the classes of a profile is computed once for each IC
+ * configuration. Profiles are thread-safe.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public final class AnnotationProfile {
+
+    private final SM_Engine engine;
+    // either a sorted array of ids or the words of a bitmap
+    private final int[] ids;
+    private final long[] words;
+    private final int cardinality;
+    private final Map<ICconf, Double> icSums = new ConcurrentHashMap<ICconf, Double>(2);
+
+    AnnotationProfile(SM_Engine engine, int[] ids, long[] words, int cardinality) {
+        this.engine = engine;
+        this.ids = ids;
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    /**
+     * @return the number of classes of the profile, i.e. the number of
+     * inclusive ancestors of the annotations
+     */
+    public int getCardinality() {
+        return cardinality;
+    }
+
+    /**
+     * @param id the id of a class
+     * @return true if the class belongs to the profile
+     */
+    public boolean contains(int id) {
+        if (words != null) {
+            int w = id >>> 6;
+            return id >= 0 && w < words.length && (words[w] & (1L << id)) != 0;
+        }
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    /**
+     * @param other a profile built by the same engine
+     * @return the number of classes shared by the two profiles
+     */
+    public int getIntersectionCardinality(AnnotationProfile other) {
+
+        if (words != null && other.words != null) {
+            int n = Math.min(words.length, other.words.length);
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                count += Long.bitCount(words[i] & other.words[i]);
+            }
+            return count;
+        }
+        if (ids != null && other.ids != null) {
+            int count = 0;
+            int i = 0, j = 0;
+            while (i < ids.length && j < other.ids.length) {
+                if (ids[i] < other.ids[j]) {
+                    i++;
+                } else if (ids[i] > other.ids[j]) {
+                    j++;
+                } else {
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+            return count;
+        }
+        // the array is checked against the bitmap
+        AnnotationProfile array = ids != null ? this : other;
+        AnnotationProfile bitmap = ids != null ? other : this;
+        int count = 0;
+        for (int id : array.ids) {
+            if (bitmap.contains(id)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param other a profile built by the same engine
+     * @return the number of classes contained in at least one of the two
+     * profiles
+     */
+    public int getUnionCardinality(AnnotationProfile other) {
+        return cardinality + other.cardinality - getIntersectionCardinality(other);
+    }
+
+    /**
+     * @param icConf the configuration of the information content
+     * @return the sum of the IC of the classes of the profile
+     * @throws SLIB_Ex_Critic if a class has no IC
+     */
+    public double getICSum(ICconf icConf) throws SLIB_Ex_Critic {
+
+        Double sum = icSums.get(icConf);
+        if (sum == null) {
+            MICAIndex ics = engine.getMICAIndex(icConf);
+            double s = 0;
+            if (ids != null) {
+                for (int id : ids) {
+                    s += getIC(ics, id, icConf);
+                }
+            } else {
+                for (int w = 0; w < words.length; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        s += getIC(ics, (w << 6) + Long.numberOfTrailingZeros(word), icConf);
+                        word &= word - 1;
+                    }
+                }
+            }
+            sum = s;
+            icSums.put(icConf, sum);
+        }
+        return sum;
+    }
+
+    /**
+     * @param other a profile built by the same engine
+     * @param icConf the configuration of the information content
+     * @return the sum of the IC of the classes shared by the two profiles
+     * @throws SLIB_Ex_Critic if a class has no IC
+     */
+    public double getICSumIntersection(AnnotationProfile other, ICconf icConf) throws SLIB_Ex_Critic {
+
+        MICAIndex ics = engine.getMICAIndex(icConf);
+        double s = 0;
+
+        if (words != null && other.words != null) {
+            int n = Math.min(words.length, other.words.length);
+            for (int w = 0; w < n; w++) {
+                long word = words[w] & other.words[w];
+                while (word != 0) {
+                    s += getIC(ics, (w << 6) + Long.numberOfTrailingZeros(word), icConf);
+                    word &= word - 1;
+                }
+            }
+        } else if (ids != null && other.ids != null) {
+            int i = 0, j = 0;
+            while (i < ids.length && j < other.ids.length) {
+                if (ids[i] < other.ids[j]) {
+                    i++;
+                } else if (ids[i] > other.ids[j]) {
+                    j++;
+                } else {
+                    s += getIC(ics, ids[i], icConf);
+                    i++;
+                    j++;
+                }
+            }
+        } else {
+            AnnotationProfile array = ids != null ? this : other;
+            AnnotationProfile bitmap = ids != null ? other : this;
+            for (int id : array.ids) {
+                if (bitmap.contains(id)) {
+                    s += getIC(ics, id, icConf);
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * @param other a profile built by the same engine
+     * @param icConf the configuration of the information content
+     * @return the sum of the IC of the classes contained in at least one of
+     * the two profiles
+     * @throws SLIB_Ex_Critic if a class has no IC
+     */
+    public double getICSumUnion(AnnotationProfile other, ICconf icConf) throws SLIB_Ex_Critic {
+        return getICSum(icConf) + other.getICSum(icConf) - getICSumIntersection(other, icConf);
+    }
+
+    private double getIC(MICAIndex ics, int id, ICconf icConf) throws SLIB_Ex_Critic {
+        double ic = ics.getIC(id);
+        if (Double.isNaN(ic)) {
+            throw new SLIB_Ex_Critic("No IC " + icConf.getId() + " associated to " + engine.getClassURI(id));
+        }
+        return ic;
+    }
+}
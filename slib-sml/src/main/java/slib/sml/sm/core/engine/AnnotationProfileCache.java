@@ -0,0 +1,146 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.openrdf.model.URI;
+
+/**
+ * Concurrent and size-bounded cache of the annotation profiles computed by an
+ * engine, see {@link SM_Engine#getAnnotationProfile(Set)}. The profiles are
+ * identified by the set of classes they have been computed from.
+ *
+ * The cache is divided into stripes, each one locked independently, the
+ * stripe of a profile being defined by the hash code of its set of classes.
+ * The least recently used profile of a stripe is evicted when the stripe is
+ * full. Stripes hold at least {@link #MIN_STRIPE_CAPACITY} profiles, a small
+ * cache is therefore a single LRU.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+final class AnnotationProfileCache {
+
+    /**
+     * Default maximal number of profiles.
+     */
+    static final int DEFAULT_CAPACITY = 10000;
+    /**
+     * Minimal number of profiles of a stripe.
+     */
+    static final int MIN_STRIPE_CAPACITY = 64;
+    private static final int NB_STRIPES = 16;
+    private final Map<Set<URI>, AnnotationProfile>[] stripes;
+
+    /**
+     * Create a cache.
+     *
+     * @param capacity the maximal number of profiles
+     */
+    @SuppressWarnings("unchecked")
+    AnnotationProfileCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the cache must be positive, given " + capacity);
+        }
+        int nbStripes = Math.max(1, Math.min(NB_STRIPES, capacity / MIN_STRIPE_CAPACITY));
+        stripes = new Map[nbStripes];
+        for (int i = 0; i < nbStripes; i++) {
+            stripes[i] = createStripe(capacity / nbStripes + (i < capacity % nbStripes ? 1 : 0));
+        }
+    }
+
+    private static Map<Set<URI>, AnnotationProfile> createStripe(final int capacity) {
+        return new LinkedHashMap<Set<URI>, AnnotationProfile>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Set<URI>, AnnotationProfile> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    private Map<Set<URI>, AnnotationProfile> stripe(Set<URI> classes) {
+        int h = classes.hashCode() * 0x9E3779B9;
+        return stripes[(h >>> 16) % stripes.length];
+    }
+
+    /**
+     * @param classes the set of classes
+     * @return the profile of the classes, null if it is not stored
+     */
+    AnnotationProfile get(Set<URI> classes) {
+        Map<Set<URI>, AnnotationProfile> stripe = stripe(classes);
+        synchronized (stripe) {
+            return stripe.get(classes);
+        }
+    }
+
+    /**
+     * @param classes the set of classes, it must not be modified afterwards
+     * @param profile the profile of the classes
+     */
+    void put(Set<URI> classes, AnnotationProfile profile) {
+        Map<Set<URI>, AnnotationProfile> stripe = stripe(classes);
+        synchronized (stripe) {
+            stripe.put(classes, profile);
+        }
+    }
+
+    /**
+     * @return the number of profiles stored
+     */
+    int size() {
+        int size = 0;
+        for (Map<Set<URI>, AnnotationProfile> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Remove all the profiles.
+     */
+    void clear() {
+        for (Map<Set<URI>, AnnotationProfile> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+}
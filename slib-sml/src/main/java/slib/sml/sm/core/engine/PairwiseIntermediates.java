@@ -0,0 +1,216 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.openrdf.model.URI;
+import slib.sml.sm.core.metrics.ic.utils.ICconf;
+import slib.utils.ex.SLIB_Ex_Critic;
+import slib.utils.ex.SLIB_Exception;
+import slib.utils.impl.SetUtils;
+
+/**
+ * Intermediate results shared by the pairwise measures evaluated on the same
+ * pair of classes, see {@link SM_Engine#compare(java.util.List, URI, URI)}.
+ * Each intermediate result (common ancestors, LCAs, depths, IC of the MICA
+ * for a given IC configuration...) is computed at first access and reused by
+ * the following measures. An instance is only valid for a single pair of
+ * classes and is not thread safe.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public final class PairwiseIntermediates {
+
+    private final SM_Engine engine;
+    private final URI a;
+    private final URI b;
+
+    private Set<URI> commonAncestors;
+    private Set<URI> lcas;
+    private int depthA = -1;
+    private int depthB = -1;
+    // IC of A, IC of B, IC of the MICA and probability of the MICA, NaN if not computed
+    private final Map<ICconf, double[]> icValues = new HashMap<ICconf, double[]>(4);
+    private final Map<ICconf, URI> micas = new HashMap<ICconf, URI>(4);
+
+    PairwiseIntermediates(SM_Engine engine, URI a, URI b) {
+        this.engine = engine;
+        this.a = a;
+        this.b = b;
+    }
+
+    /**
+     * @return the engine the intermediate results are computed from
+     */
+    public SM_Engine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return the first class of the pair
+     */
+    public URI getA() {
+        return a;
+    }
+
+    /**
+     * @return the second class of the pair
+     */
+    public URI getB() {
+        return b;
+    }
+
+    /**
+     * @return the ancestors shared by the two classes (inclusive)
+     */
+    public Set<URI> getCommonAncestors() {
+        if (commonAncestors == null) {
+            commonAncestors = SetUtils.intersection(engine.getAncestorsInc(a), engine.getAncestorsInc(b));
+        }
+        return commonAncestors;
+    }
+
+    /**
+     * @return the lowest common ancestors of the two classes
+     * @throws SLIB_Exception
+     */
+    public Set<URI> getLCAs() throws SLIB_Exception {
+        if (lcas == null) {
+            lcas = engine.getLCAs(a, b);
+        }
+        return lcas;
+    }
+
+    /**
+     * @return the maximal depth of the first class
+     * @throws SLIB_Ex_Critic
+     */
+    public int getMaxDepthA() throws SLIB_Ex_Critic {
+        if (depthA == -1) {
+            depthA = engine.getMaxDepths().get(a);
+        }
+        return depthA;
+    }
+
+    /**
+     * @return the maximal depth of the second class
+     * @throws SLIB_Ex_Critic
+     */
+    public int getMaxDepthB() throws SLIB_Ex_Critic {
+        if (depthB == -1) {
+            depthB = engine.getMaxDepths().get(b);
+        }
+        return depthB;
+    }
+
+    /**
+     * @param icConf the configuration of the information content
+     * @return the IC of the first class
+     * @throws SLIB_Exception
+     */
+    public double getIC_A(ICconf icConf) throws SLIB_Exception {
+        double[] values = getICValues(icConf);
+        if (Double.isNaN(values[0])) {
+            values[0] = engine.getIC(icConf, a);
+        }
+        return values[0];
+    }
+
+    /**
+     * @param icConf the configuration of the information content
+     * @return the IC of the second class
+     * @throws SLIB_Exception
+     */
+    public double getIC_B(ICconf icConf) throws SLIB_Exception {
+        double[] values = getICValues(icConf);
+        if (Double.isNaN(values[1])) {
+            values[1] = engine.getIC(icConf, b);
+        }
+        return values[1];
+    }
+
+    /**
+     * @param icConf the configuration of the information content
+     * @return the IC of the most informative common ancestor of the classes
+     * @throws SLIB_Exception if no common ancestor is found between the two
+     * classes
+     */
+    public double getIC_MICA(ICconf icConf) throws SLIB_Exception {
+        double[] values = getICValues(icConf);
+        if (Double.isNaN(values[2])) {
+            values[2] = engine.getIC_MICA(icConf, a, b);
+        }
+        return values[2];
+    }
+
+    /**
+     * @param icConf the configuration of the information content
+     * @return the most informative common ancestor of the classes
+     * @throws SLIB_Exception if no common ancestor is found between the two
+     * classes
+     */
+    public URI getMICA(ICconf icConf) throws SLIB_Exception {
+        URI mica = micas.get(icConf);
+        if (mica == null) {
+            mica = engine.getMICA(icConf, a, b);
+            micas.put(icConf, mica);
+        }
+        return mica;
+    }
+
+    /**
+     * @param icConf the configuration of the probability of occurrence
+     * @return the minimal probability of occurrence among the common ancestors
+     * of the classes
+     * @throws SLIB_Exception
+     */
+    public double getP_MICA(ICconf icConf) throws SLIB_Exception {
+        double[] values = getICValues(icConf);
+        if (Double.isNaN(values[3])) {
+            values[3] = engine.getP_MICA(icConf, a, b);
+        }
+        return values[3];
+    }
+
+    private double[] getICValues(ICconf icConf) {
+        double[] values = icValues.get(icConf);
+        if (values == null) {
+            values = new double[]{Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+            icValues.put(icConf, values);
+        }
+        return values;
+    }
+}
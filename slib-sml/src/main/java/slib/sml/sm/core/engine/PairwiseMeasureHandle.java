@@ -0,0 +1,88 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.engine;
+
+import slib.sml.sm.core.measures.Measure_Pairwise_Primitive;
+import slib.sml.sm.core.measures.Sim_Pairwise;
+import slib.sml.sm.core.utils.SMconf;
+import slib.utils.ex.SLIB_Ex_Critic;
+
+/**
+ * Pairwise measure configuration resolved by an engine, see
+ * {@link SM_Engine#getPairwiseHandle(SMconf)}. A handle gives access to the
+ * measure instance without any lookup and is used to compare classes
+ * identified by their ids. A handle is only valid for the engine which
+ * created it.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public final class PairwiseMeasureHandle {
+
+    final SM_Engine engine;
+    final SMconf conf;
+    final Sim_Pairwise measure;
+    final Measure_Pairwise_Primitive primitive;
+    final boolean symmetric;
+
+    PairwiseMeasureHandle(SM_Engine engine, SMconf conf, Sim_Pairwise measure) throws SLIB_Ex_Critic {
+        this.engine = engine;
+        this.conf = conf;
+        this.measure = measure;
+        this.primitive = measure instanceof Measure_Pairwise_Primitive ? (Measure_Pairwise_Primitive) measure : null;
+        // the symmetry may depend on the parameters of the configuration
+        this.symmetric = Boolean.TRUE.equals(measure.isSymmetric(conf));
+    }
+
+    /**
+     * @return the configuration of the measure
+     */
+    public SMconf getConf() {
+        return conf;
+    }
+
+    /**
+     * @return the measure
+     */
+    public Sim_Pairwise getMeasure() {
+        return measure;
+    }
+
+    /**
+     * @return true if the measure compares the classes from their ids, the
+     * other measures are evaluated from the URIs of the classes.
+     */
+    public boolean isPrimitive() {
+        return primitive != null;
+    }
+}
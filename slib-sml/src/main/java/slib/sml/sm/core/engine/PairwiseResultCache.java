@@ -0,0 +1,516 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.engine;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent and size-bounded cache of pairwise scores relying on a segmented
+ * LRU eviction policy. The scores are identified by a measure configuration
+ * and the ids of the compared classes, packed in a long key.
+ *
+ * The cache is divided into stripes, each one locked independently. A stripe
+ * contains a probationary segment, in which the new entries are inserted, and
+ * a protected segment in which the entries accessed at least twice are moved.
+ * Entries of the protected segment are demoted to the probationary segment
+ * when it is full, and entries are evicted from the probationary segment.
+ * Entries accessed once, e.g. during a scan, can therefore not evict the
+ * frequently accessed ones. The entries of a stripe are stored in primitive
+ * arrays indexed by an open-addressing hash table, the segments being linked
+ * lists threaded through these arrays; no object is allocated per entry.
+ *
+ * A configuration is associated to an id at first use. At most
+ * {@link #MAX_CONFS} configurations are registered at the same time: when a
+ * new configuration is used, the id of a configuration which has not been
+ * used recently is released and the scores of this configuration are
+ * removed.
+ *
+ * The hits, misses and evictions are counted to help sizing the cache.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class PairwiseResultCache {
+
+    /**
+     * Default maximal number of entries.
+     */
+    public static final int DEFAULT_CAPACITY = 100000;
+    /**
+     * Maximal number of configurations registered at the same time.
+     */
+    public static final int MAX_CONFS = 1 << 7;
+    /**
+     * The scores of the classes with an id greater or equal are not cached.
+     */
+    public static final int MAX_CLASS_ID = 1 << 28;
+    private static final int NB_STRIPES = 16;
+    private static final double PROTECTED_RATIO = 0.8;
+    private final int capacity;
+    private final Stripe[] stripes;
+    // configurations associated to the ids, null for a free id
+    private final Map<Object, Integer> confIds = new ConcurrentHashMap<Object, Integer>();
+    private final AtomicReferenceArray<Object> confs = new AtomicReferenceArray<Object>(MAX_CONFS);
+    private final boolean[] confUsed = new boolean[MAX_CONFS];
+    private int clockHand;
+
+    /**
+     * Create a cache of {@link #DEFAULT_CAPACITY} entries.
+     */
+    public PairwiseResultCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param capacity the maximal number of entries
+     */
+    public PairwiseResultCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the cache must be positive, given: " + capacity);
+        }
+        this.capacity = capacity;
+        int nbStripes = Math.min(NB_STRIPES, capacity);
+        stripes = new Stripe[nbStripes];
+        for (int i = 0; i < nbStripes; i++) {
+            stripes[i] = new Stripe(capacity / nbStripes + (i < capacity % nbStripes ? 1 : 0));
+        }
+    }
+
+    private static long key(int conf, int a, int b) {
+        return ((long) conf << 56) | ((long) a << 28) | b;
+    }
+
+    private Stripe stripe(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return stripes[(int) ((h >>> 40) % stripes.length)];
+    }
+
+    private static boolean isCacheable(int a, int b) {
+        return a >= 0 && b >= 0 && a < MAX_CLASS_ID && b < MAX_CLASS_ID;
+    }
+
+    /**
+     * Get the id associated to a configuration, the configuration is
+     * registered if required. The registration of a configuration may release
+     * the id of a configuration which has not been used recently (clock
+     * policy), the scores of the released configuration are then removed.
+     *
+     * @param conf the configuration
+     * @return the id of the configuration
+     */
+    private int getConfId(Object conf) {
+
+        Integer id = confIds.get(conf);
+        if (id != null) {
+            confUsed[id] = true;
+            return id;
+        }
+        synchronized (confIds) {
+            id = confIds.get(conf);
+            if (id != null) {
+                return id;
+            }
+            while (confs.get(clockHand) != null && confUsed[clockHand]) {
+                confUsed[clockHand] = false;
+                clockHand = (clockHand + 1) % MAX_CONFS;
+            }
+            int released = clockHand;
+            clockHand = (clockHand + 1) % MAX_CONFS;
+
+            Object previous = confs.get(released);
+            if (previous != null) {
+                // the id is invalidated before the scores are removed, the
+                // scores of the previous configuration can then no longer be
+                // added or retrieved
+                confIds.remove(previous);
+                confs.set(released, null);
+                for (Stripe s : stripes) {
+                    s.removeConf(released);
+                }
+            }
+            confs.set(released, conf);
+            confUsed[released] = true;
+            confIds.put(conf, released);
+            return released;
+        }
+    }
+
+    /**
+     * Access to a score. A cache miss is recorded if the score is not found.
+     *
+     * @param conf the configuration of the measure
+     * @param a the id of the first class
+     * @param b the id of the second class
+     * @return the score, null if the score is not cached
+     */
+    public Double get(Object conf, int a, int b) {
+        if (!isCacheable(a, b)) {
+            return null;
+        }
+        int id = getConfId(conf);
+        long key = key(id, a, b);
+        return stripe(key).get(key, conf, confs);
+    }
+
+    /**
+     * Store a score, an entry may be evicted.
+     *
+     * @param conf the configuration of the measure
+     * @param a the id of the first class
+     * @param b the id of the second class
+     * @param value the score
+     */
+    public void put(Object conf, int a, int b, double value) {
+        if (!isCacheable(a, b)) {
+            return;
+        }
+        int id = getConfId(conf);
+        long key = key(id, a, b);
+        stripe(key).put(key, value, conf, confs);
+    }
+
+    /**
+     * Remove all the entries and release all the configurations, the
+     * statistics are kept.
+     */
+    public void clear() {
+        synchronized (confIds) {
+            for (int i = 0; i < MAX_CONFS; i++) {
+                confs.set(i, null);
+            }
+            confIds.clear();
+            for (Stripe s : stripes) {
+                s.clear();
+            }
+        }
+    }
+
+    /**
+     * @return the maximal number of entries
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe s : stripes) {
+            size += s.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of lookups which found a score
+     */
+    public long getHitCount() {
+        long count = 0;
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                count += s.hits;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of lookups which did not find a score
+     */
+    public long getMissCount() {
+        long count = 0;
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                count += s.misses;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of entries evicted to respect the capacity
+     */
+    public long getEvictionCount() {
+        long count = 0;
+        for (Stripe s : stripes) {
+            synchronized (s) {
+                count += s.evictions;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "Pairwise cache: " + size() + "/" + capacity + " entries, hits " + getHitCount()
+                + ", misses " + getMissCount() + ", evictions " + getEvictionCount();
+    }
+
+    /**
+     * Segmented LRU of a stripe. The entries are stored in parallel arrays,
+     * the lists of the segments go from the least recently used entry (head)
+     * to the most recently used one (tail). The hash table stores the index
+     * of the entries plus one, 0 denoting an empty slot, and is probed
+     * linearly.
+     */
+    private static class Stripe {
+
+        private static final int NONE = -1;
+        private static final byte PROBATION = 0;
+        private static final byte PROTECTED = 1;
+        private final int capacity;
+        private final int protectedCapacity;
+        private long[] keys;
+        private double[] values;
+        private int[] prev;
+        private int[] next;
+        private byte[] segments;
+        private int[] table;
+        // number of allocated entries, first free entry (linked by next)
+        private int nbAllocated;
+        private int free = NONE;
+        private final int[] heads = {NONE, NONE};
+        private final int[] tails = {NONE, NONE};
+        private final int[] sizes = new int[2];
+        long hits;
+        long misses;
+        long evictions;
+
+        Stripe(int capacity) {
+            this.capacity = capacity;
+            this.protectedCapacity = (int) (capacity * PROTECTED_RATIO);
+            int length = Math.min(capacity, 16);
+            keys = new long[length];
+            values = new double[length];
+            prev = new int[length];
+            next = new int[length];
+            segments = new byte[length];
+            table = new int[tableLength(length)];
+        }
+
+        private static int tableLength(int nbEntries) {
+            return Integer.highestOneBit(Math.max(1, nbEntries) * 2 - 1) * 2;
+        }
+
+        private int home(long key) {
+            long h = (key ^ (key >>> 31)) * 0xBF58476D1CE4E5B9L;
+            return (int) (h >>> 32) & (table.length - 1);
+        }
+
+        /**
+         * @return the slot of the key in the table, NONE if not found
+         */
+        private int find(long key) {
+            int mask = table.length - 1;
+            for (int slot = home(key);; slot = (slot + 1) & mask) {
+                int e = table[slot];
+                if (e == 0) {
+                    return NONE;
+                }
+                if (keys[e - 1] == key) {
+                    return slot;
+                }
+            }
+        }
+
+        private void insert(int e) {
+            int mask = table.length - 1;
+            int slot = home(keys[e]);
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = e + 1;
+        }
+
+        /**
+         * Empty a slot of the table, the following entries of the cluster are
+         * shifted back in order to keep them reachable.
+         */
+        private void removeSlot(int slot) {
+            int mask = table.length - 1;
+            int hole = slot;
+            table[hole] = 0;
+            for (int i = (hole + 1) & mask; table[i] != 0; i = (i + 1) & mask) {
+                int home = home(keys[table[i] - 1]);
+                // the entry can fill the hole if its home is not located
+                // (cyclically) between the hole and its slot
+                boolean between = hole <= i ? (hole < home && home <= i) : (hole < home || home <= i);
+                if (!between) {
+                    table[hole] = table[i];
+                    table[i] = 0;
+                    hole = i;
+                }
+            }
+        }
+
+        private void link(int e, byte segment) {
+            segments[e] = segment;
+            prev[e] = tails[segment];
+            next[e] = NONE;
+            if (tails[segment] == NONE) {
+                heads[segment] = e;
+            } else {
+                next[tails[segment]] = e;
+            }
+            tails[segment] = e;
+            sizes[segment]++;
+        }
+
+        private void unlink(int e) {
+            byte segment = segments[e];
+            if (prev[e] == NONE) {
+                heads[segment] = next[e];
+            } else {
+                next[prev[e]] = next[e];
+            }
+            if (next[e] == NONE) {
+                tails[segment] = prev[e];
+            } else {
+                prev[next[e]] = prev[e];
+            }
+            sizes[segment]--;
+        }
+
+        /**
+         * Enlarge the arrays of the entries, the table is rebuilt.
+         */
+        private void grow() {
+            int length = (int) Math.min(capacity, 2L * keys.length);
+            keys = Arrays.copyOf(keys, length);
+            values = Arrays.copyOf(values, length);
+            prev = Arrays.copyOf(prev, length);
+            next = Arrays.copyOf(next, length);
+            segments = Arrays.copyOf(segments, length);
+            table = new int[tableLength(length)];
+            for (byte segment = PROBATION; segment <= PROTECTED; segment++) {
+                for (int e = heads[segment]; e != NONE; e = next[e]) {
+                    insert(e);
+                }
+            }
+        }
+
+        synchronized Double get(long key, Object conf, AtomicReferenceArray<Object> confs) {
+
+            int slot = confs.get((int) (key >>> 56)) == conf ? find(key) : NONE;
+            if (slot == NONE) {
+                misses++;
+                return null;
+            }
+            int e = table[slot] - 1;
+            boolean promoted = segments[e] == PROBATION;
+            unlink(e);
+            link(e, PROTECTED);
+            if (promoted && sizes[PROTECTED] > protectedCapacity) {
+                int demoted = heads[PROTECTED];
+                unlink(demoted);
+                link(demoted, PROBATION);
+            }
+            hits++;
+            return values[e];
+        }
+
+        synchronized void put(long key, double value, Object conf, AtomicReferenceArray<Object> confs) {
+
+            if (confs.get((int) (key >>> 56)) != conf) {
+                return;
+            }
+            int slot = find(key);
+            if (slot != NONE) {
+                int e = table[slot] - 1;
+                byte segment = segments[e];
+                values[e] = value;
+                unlink(e);
+                link(e, segment);
+                return;
+            }
+            int e;
+            if (free != NONE) {
+                e = free;
+                free = next[e];
+            } else if (nbAllocated < capacity) {
+                if (nbAllocated == keys.length) {
+                    grow();
+                }
+                e = nbAllocated++;
+            } else {
+                e = heads[sizes[PROBATION] > 0 ? PROBATION : PROTECTED];
+                unlink(e);
+                removeSlot(find(keys[e]));
+                evictions++;
+            }
+            keys[e] = key;
+            values[e] = value;
+            link(e, PROBATION);
+            insert(e);
+        }
+
+        /**
+         * Remove the entries of a configuration.
+         */
+        synchronized void removeConf(int conf) {
+            for (byte segment = PROBATION; segment <= PROTECTED; segment++) {
+                int e = heads[segment];
+                while (e != NONE) {
+                    int following = next[e];
+                    if ((int) (keys[e] >>> 56) == conf) {
+                        unlink(e);
+                        removeSlot(find(keys[e]));
+                        next[e] = free;
+                        free = e;
+                    }
+                    e = following;
+                }
+            }
+        }
+
+        synchronized void clear() {
+            Arrays.fill(table, 0);
+            nbAllocated = 0;
+            free = NONE;
+            Arrays.fill(heads, NONE);
+            Arrays.fill(tails, NONE);
+            Arrays.fill(sizes, 0);
+        }
+
+        synchronized int size() {
+            return sizes[PROBATION] + sizes[PROTECTED];
+        }
+    }
+}
@@ -38,8 +38,14 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import org.openrdf.model.URI;
+import slib.graph.algo.extraction.rvf.AncestorDistanceIndex;
+import slib.graph.algo.extraction.rvf.IntervalLabelIndex;
+import slib.graph.algo.extraction.rvf.ReachabilityIndex;
+import slib.graph.algo.extraction.rvf.TopologicalOrder;
+import slib.graph.algo.shortest_path.ShortestPathEngine;
+import slib.graph.model.graph.weight.GWS;
 import slib.sml.sm.core.metrics.ic.utils.ICconf;
-import slib.sml.sm.core.utils.SMconf;
+import slib.sml.sm.core.metrics.ic.utils.MICAIndex;
 
 /**
  *
@@ -48,10 +54,24 @@ import slib.sml.sm.core.utils.SMconf;
 public class SMProxResultStorage {
 
     Map<ICconf, Map<URI, Double>> metrics_results;
-    Map<SMconf, ConcurrentHashMap<URI, Map<URI, Double>>> pairwise_results;
-    Map<URI, ConcurrentHashMap<URI, Double>> shortestPath;
-    Map<URI, Set<URI>> ancestorsInc;
-    Map<URI, Set<URI>> descendantsInc;
+    Map<ICconf, MICAIndex> micaIndexes;
+    volatile AnnotationProfileCache annotationProfiles;
+    // ICs loaded from a snapshot, see SM_EngineSnapshot
+    Map<String, Map<URI, Double>> snapshotICs;
+    volatile PairwiseResultCache pairwiseResults;
+    ConcurrentHashMap<URI, ConcurrentHashMap<URI, Double>> shortestPath;
+    Map<GWS, ShortestPathEngine> shortestPathEngines;
+    // distances between the classes and the root, see SM_Engine#getDistancesToRoot
+    Map<GWS, Map<URI, Double>> distancesToRoot;
+    volatile ReachabilityIndex ancestorsInc;
+    // order defining the ids of the classes until ancestorsInc is computed
+    volatile TopologicalOrder classOrder;
+    volatile ReachabilityIndex descendantsInc;
+    // closures of single classes computed in lazy mode
+    Map<URI, Set<URI>> lazyAncestorsInc;
+    Map<URI, Set<URI>> lazyDescendantsInc;
+    volatile IntervalLabelIndex ancestorLabels;
+    volatile AncestorDistanceIndex ancestorDistances;
     Map<URI, Set<URI>> reachableLeaves;
     Map<URI, Integer> nbPathLeadingToAllVertices;
     Map<URI, Integer> allNbReachableLeaves;
@@ -77,14 +97,32 @@ public class SMProxResultStorage {
     public void clearCache() {
 
         metrics_results = new ConcurrentHashMap();
-        ancestorsInc = new ConcurrentHashMap();
-        descendantsInc = new ConcurrentHashMap();
+        micaIndexes = new ConcurrentHashMap();
+        if (annotationProfiles == null) {
+            annotationProfiles = new AnnotationProfileCache(AnnotationProfileCache.DEFAULT_CAPACITY);
+        } else {
+            annotationProfiles.clear();
+        }
+        snapshotICs = new ConcurrentHashMap();
+        lazyAncestorsInc = new ConcurrentHashMap();
+        lazyDescendantsInc = new ConcurrentHashMap();
         reachableLeaves = new ConcurrentHashMap();
         shortestPath = new ConcurrentHashMap();
-        pairwise_results = new ConcurrentHashMap();
+        shortestPathEngines = new ConcurrentHashMap();
+        distancesToRoot = new ConcurrentHashMap();
+        if (pairwiseResults == null) {
+            pairwiseResults = new PairwiseResultCache();
+        } else {
+            pairwiseResults.clear();
+        }
         nbOccurrencePropagatted = new HashMap();
 
         // do not inialize
+        ancestorsInc = null;
+        classOrder = null;
+        descendantsInc = null;
+        ancestorLabels = null;
+        ancestorDistances = null;
         nbPathLeadingToAllVertices = null;
         maxDepths = null;
         minDepths = null;
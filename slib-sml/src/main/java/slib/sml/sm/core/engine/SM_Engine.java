@@ -35,38 +35,60 @@ package slib.sml.sm.core.engine;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import org.openrdf.model.URI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import slib.graph.algo.accessor.AnnotationStore;
 import slib.graph.algo.accessor.GraphAccessor;
 import slib.graph.algo.accessor.InstanceAccessor;
 import slib.graph.algo.accessor.InstanceAccessorTax;
+import slib.graph.algo.extraction.rvf.AncestorDistanceIndex;
 import slib.graph.algo.extraction.rvf.AncestorEngine;
 import slib.graph.algo.extraction.rvf.DescendantEngine;
+import slib.graph.algo.extraction.rvf.IntervalLabelIndex;
 import slib.graph.algo.extraction.rvf.RVF_DAG;
+import slib.graph.algo.extraction.rvf.ReachabilityIndex;
+import slib.graph.algo.extraction.rvf.TopologicalOrder;
 import slib.graph.algo.metric.DepthAnalyserAG;
 import slib.graph.algo.reduction.dag.GraphReduction_Transitive;
-import slib.graph.algo.shortest_path.Dijkstra;
+import slib.graph.algo.shortest_path.ShortestPathEngine;
 import slib.graph.algo.traversal.classical.DFS;
 import slib.graph.algo.utils.GraphActionExecutor;
 import slib.graph.algo.validator.dag.ValidatorDAG;
 import slib.graph.model.graph.G;
 import slib.graph.model.graph.elements.E;
 import slib.graph.model.graph.utils.Direction;
+import slib.graph.model.graph.utils.VertexVisitor;
 import slib.graph.model.graph.utils.WalkConstraint;
 import slib.graph.model.graph.weight.GWS;
 import slib.graph.model.impl.graph.weight.GWS_impl;
 import slib.graph.utils.WalkConstraintGeneric;
 import slib.graph.utils.WalkConstraintUtils;
+import slib.sml.sm.core.measures.Measure_Groupwise_Bounded;
+import slib.sml.sm.core.measures.Measure_Pairwise_Bounded;
+import slib.sml.sm.core.measures.Measure_Pairwise_Fused;
+import slib.sml.sm.core.measures.Measure_Pairwise_MICA_Bounded;
+import slib.sml.sm.core.measures.Measure_Pairwise_Primitive;
 import slib.sml.sm.core.measures.Sim_Groupwise_Direct;
 import slib.sml.sm.core.measures.Sim_Groupwise_Indirect;
 import slib.sml.sm.core.measures.Sim_Pairwise;
@@ -77,15 +99,18 @@ import slib.sml.sm.core.metrics.ic.utils.IC_Conf_Corpus;
 import slib.sml.sm.core.metrics.ic.utils.IC_Conf_Topo;
 import slib.sml.sm.core.metrics.ic.utils.ICconf;
 import slib.sml.sm.core.metrics.ic.utils.IcUtils;
+import slib.sml.sm.core.metrics.ic.utils.MICAIndex;
 import slib.sml.sm.core.metrics.vector.VectorWeight_Chabalier_2007;
 import slib.sml.sm.core.utils.LCAFinder;
-import slib.sml.sm.core.utils.LCAFinderImpl;
+import slib.sml.sm.core.utils.LCAFinderIndexed;
 import slib.sml.sm.core.utils.SMconf;
 import slib.sml.sm.core.utils.SMutils;
 import slib.utils.ex.SLIB_Ex_Critic;
 import slib.utils.ex.SLIB_Exception;
 import slib.utils.impl.MatrixDouble;
+import slib.utils.impl.MatrixFloat;
 import slib.utils.impl.SetUtils;
+import slib.utils.threads.ThreadManager;
 
 /**
  * This class defines a Semantic Measures Engine which gives access to several
@@ -134,6 +159,9 @@ import slib.utils.impl.SetUtils;
  *
  * The engine stores commonly accessed results (e.g. ancestors of a class) which
  * can lead to high memory consumption dealing with large graphs.
+ * The ancestors and descendants of all classes are computed at engine
+ * creation unless the engine is created in lazy mode, see
+ * {@link SM_EngineConf#setLazy(boolean)}.
  *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
@@ -145,9 +173,9 @@ public class SM_Engine {
     RVF_DAG bottomNodeAccessor;
     LCAFinder lcaFinder;
     Set<URI> classes;
-    Set<URI> classesLeaves;
+    volatile Set<URI> classesLeaves;
     InstanceAccessor instanceAccessor;
-    URI root = null;
+    volatile URI root = null;
     SMProxResultStorage cache;
     boolean cachePairwiseResults = false;
     /**
@@ -157,6 +185,40 @@ public class SM_Engine {
     final Map<SMconf, Sim_Pairwise> pairwiseMeasures = new ConcurrentHashMap();
     final Map<SMconf, Sim_Groupwise_Indirect> groupwiseAddOnMeasures = new ConcurrentHashMap();
     final Map<SMconf, Sim_Groupwise_Direct> groupwiseStandaloneMeasures = new ConcurrentHashMap();
+    /**
+     * Weighting scheme associating a weight of 1 to all edges, shared by the
+     * measures which rely on it (unmodifiable).
+     */
+    final GWS defaultWeightingScheme = GWS_impl.unmodifiable(new GWS_impl(1));
+    boolean lazy = false;
+    // ids of the classes and mapping of the ids of the descendants index
+    volatile BitSet classIds;
+    volatile int[] descendantIdsToClassIds;
+    final Set<Precomputation> precomputations = Collections.synchronizedSet(EnumSet.noneOf(Precomputation.class));
+    // fingerprint of the graph and of the configuration, see SM_EngineSnapshot
+    volatile long snapshotFingerprint;
+    // pool shared by the parallel computations, see getForkJoinPool()
+    private static ForkJoinPool forkJoinPool;
+
+    /**
+     * The results computed for all classes which can be computed at engine
+     * creation or on demand, see {@link SM_EngineConf#setLazy(boolean)}.
+     */
+    public enum Precomputation {
+
+        /**
+         * Inclusive ancestors of all classes.
+         */
+        ANCESTORS,
+        /**
+         * Inclusive descendants of all classes.
+         */
+        DESCENDANTS,
+        /**
+         * Leaves of the taxonomic graph.
+         */
+        LEAVES
+    }
 
     /**
      * Constructor of an engine associated to the given graph. The taxonomic
@@ -176,13 +238,25 @@ public class SM_Engine {
      * @throws SLIB_Ex_Critic
      */
     public SM_Engine(final G g) throws SLIB_Ex_Critic {
+        this(g, new SM_EngineConf());
+    }
+
+    /**
+     * Constructor of an engine associated to the given graph, see
+     * {@link #SM_Engine(G)}, initialized considering the given options.
+     *
+     * @param g the graph associated to the engine.
+     * @param conf the options defining the way the engine is initialized
+     * @throws SLIB_Ex_Critic
+     */
+    public SM_Engine(final G g, SM_EngineConf conf) throws SLIB_Ex_Critic {
         this.graph = g;
         topNodeAccessor = new AncestorEngine(graph);
         bottomNodeAccessor = new DescendantEngine(graph);
         logger.info("Computing classes...");
         classes = GraphAccessor.getClasses(graph);
         instanceAccessor = new InstanceAccessorTax(graph);
-        initEngine();
+        initEngine(conf);
     }
 
     /**
@@ -207,9 +281,25 @@ public class SM_Engine {
      * @throws SLIB_Ex_Critic
      */
     public SM_Engine(final G g, Set<URI> toTop, Set<URI> toBottom, Set<URI> classes, InstanceAccessor iAccessor) throws SLIB_Ex_Critic {
+        this(g, toTop, toBottom, classes, iAccessor, new SM_EngineConf());
+    }
+
+    /**
+     * Constructor of an engine associated to the given graph, see
+     * {@link #SM_Engine(G, Set, Set, Set, InstanceAccessor)}, initialized
+     * considering the given options.
+     *
+     * @param g the graph associated to the engine.
+     * @param toTop
+     * @param toBottom
+     * @param classes
+     * @param iAccessor
+     * @param conf the options defining the way the engine is initialized
+     * @throws SLIB_Ex_Critic
+     */
+    public SM_Engine(final G g, Set<URI> toTop, Set<URI> toBottom, Set<URI> classes, InstanceAccessor iAccessor, SM_EngineConf conf) throws SLIB_Ex_Critic {
 
         this.graph = g;
-        
 
         WalkConstraint toTopWC = new WalkConstraintGeneric();
         WalkConstraint toBottomWC = new WalkConstraintGeneric();
@@ -227,10 +317,26 @@ public class SM_Engine {
         this.classes = classes;
 
         this.instanceAccessor = iAccessor;
-        initEngine();
+        initEngine(conf);
     }
 
     public SM_Engine(final G g, Set<URI> toTop, Set<URI> toBottom, InstanceAccessor iAccessor) throws SLIB_Ex_Critic {
+        this(g, toTop, toBottom, iAccessor, new SM_EngineConf());
+    }
+
+    /**
+     * Constructor of an engine associated to the given graph, see
+     * {@link #SM_Engine(G, Set, Set, InstanceAccessor)}, initialized
+     * considering the given options.
+     *
+     * @param g the graph associated to the engine.
+     * @param toTop
+     * @param toBottom
+     * @param iAccessor
+     * @param conf the options defining the way the engine is initialized
+     * @throws SLIB_Ex_Critic
+     */
+    public SM_Engine(final G g, Set<URI> toTop, Set<URI> toBottom, InstanceAccessor iAccessor, SM_EngineConf conf) throws SLIB_Ex_Critic {
         this.graph = g;
 
         WalkConstraint toTopWC = new WalkConstraintGeneric();
@@ -260,13 +366,14 @@ public class SM_Engine {
         classes = c;
 
         this.instanceAccessor = iAccessor;
-        initEngine();
+        initEngine(conf);
     }
 
     /**
+     * @param conf the options defining the way the engine is initialized
      * @throws SLIB_Ex_Critic
      */
-    private void initEngine() throws SLIB_Ex_Critic {
+    private void initEngine(SM_EngineConf conf) throws SLIB_Ex_Critic {
         logger.info("================================================================");
         logger.info("Loading Semantic Measures Engine for graph " + graph.getURI());
         logger.info("================================================================");
@@ -281,19 +388,31 @@ public class SM_Engine {
         logger.info("Instances Accessor loaded: " + (instanceAccessor == null));
 
         cache = new SMProxResultStorage();
+        if (conf.getAnnotationProfileCacheCapacity() != AnnotationProfileCache.DEFAULT_CAPACITY) {
+            cache.annotationProfiles = new AnnotationProfileCache(conf.getAnnotationProfileCacheCapacity());
+        }
 
-        lcaFinder = new LCAFinderImpl(this);
+        lcaFinder = new LCAFinderIndexed(this);
 
         logger.info("---------------------------------------------------------------");
         logger.info("Inferences ");
         logger.info("---------------------------------------------------------------");
 
-        logger.info("Inferring ancestors...");
-        computeAllclassesAncestors();
-        logger.info("Inferring descendants...");
-        computeAllclassesDescendants();
-        logger.info("Inferring Conceptual Leaves...");
-        computeLeaves();
+        lazy = conf.isLazy();
+
+        if (conf.getSnapshot() != null && SM_EngineSnapshot.load(this, conf.getSnapshot())) {
+            logger.info("Inferences loaded from snapshot " + conf.getSnapshot());
+            precomputations.addAll(EnumSet.allOf(Precomputation.class));
+        } else if (lazy) {
+            logger.info("Lazy mode, inferences will be computed on demand");
+        } else {
+            logger.info("Inferring ancestors...");
+            computeAllclassesAncestors();
+            logger.info("Inferring descendants...");
+            computeAllclassesDescendants();
+            logger.info("Inferring Conceptual Leaves...");
+            computeLeaves();
+        }
         logger.info("---------------------------------------------------------------");
 
         logger.info("Engine initialized");
@@ -306,7 +425,28 @@ public class SM_Engine {
      * @throws SLIB_Ex_Critic
      */
     private synchronized void computeAllclassesAncestors() throws SLIB_Ex_Critic {
-        cache.ancestorsInc = topNodeAccessor.getAllRVInc();
+        cache.ancestorsInc = computeReachabilityIndex(getClassOrder());
+        // the ids are now provided by the index
+        cache.classOrder = null;
+        precomputations.add(Precomputation.ANCESTORS);
+    }
+
+    /**
+     * Access to the topological order of the classes defining their ids, the
+     * order is computed once and shared with the index of the ancestors, see
+     * {@link #getClassId(URI)}.
+     *
+     * @return the topological order of the classes
+     */
+    private synchronized TopologicalOrder getClassOrder() {
+        if (cache.classOrder == null) {
+            try {
+                cache.classOrder = topNodeAccessor.getTopologicalOrder();
+            } catch (SLIB_Ex_Critic e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+        return cache.classOrder;
     }
 
     /**
@@ -315,7 +455,127 @@ public class SM_Engine {
      * @throws SLIB_Ex_Critic
      */
     private synchronized void computeAllclassesDescendants() throws SLIB_Ex_Critic {
-        cache.descendantsInc = bottomNodeAccessor.getAllRVInc();
+        cache.descendantsInc = computeReachabilityIndex(bottomNodeAccessor);
+        precomputations.add(Precomputation.DESCENDANTS);
+    }
+
+    /**
+     * Perform a computation over all classes if it has not been performed,
+     * used in lazy mode.
+     *
+     * @param p the computation
+     */
+    private synchronized void triggerPrecomputation(Precomputation p) {
+
+        if (precomputations.contains(p)) {
+            return;
+        }
+        logger.info("Computing " + p.name().toLowerCase() + " of all classes on demand");
+        try {
+            switch (p) {
+                case ANCESTORS:
+                    computeAllclassesAncestors();
+                    break;
+                case DESCENDANTS:
+                    computeAllclassesDescendants();
+                    break;
+                case LEAVES:
+                    computeLeaves();
+                    break;
+            }
+        } catch (SLIB_Ex_Critic e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Access to the computations over all classes which have been performed,
+     * at engine creation or on demand in lazy mode.
+     *
+     * @return the computations performed
+     */
+    public Set<Precomputation> getPrecomputations() {
+        Set<Precomputation> performed = EnumSet.noneOf(Precomputation.class);
+        synchronized (precomputations) {
+            performed.addAll(precomputations);
+        }
+        return Collections.unmodifiableSet(performed);
+    }
+
+    /**
+     * @return true if the engine computes its results on demand, see
+     * {@link SM_EngineConf#setLazy(boolean)}.
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Compute a reachability index, the computation is performed in parallel
+     * if several threads are allowed by the {@link ThreadManager}.
+     *
+     * @param rvf the accessor defining the reachable vertices
+     * @return the index
+     * @throws SLIB_Ex_Critic
+     */
+    private static ReachabilityIndex computeReachabilityIndex(RVF_DAG rvf) throws SLIB_Ex_Critic {
+        return computeReachabilityIndex(rvf.getTopologicalOrder());
+    }
+
+    /**
+     * Compute a reachability index following a topological order, see
+     * {@link #computeReachabilityIndex(RVF_DAG)}.
+     *
+     * @param order the topological order of the vertices
+     * @return the index
+     */
+    private static ReachabilityIndex computeReachabilityIndex(TopologicalOrder order) {
+        return new ReachabilityIndex(order, getForkJoinPool());
+    }
+
+    /**
+     * Compute the leaves reachable from each vertex, the computation is
+     * performed in parallel if several threads are allowed by the
+     * {@link ThreadManager}.
+     *
+     * @param rvf the accessor defining the reachable vertices
+     * @return the leaves of each vertex
+     */
+    private static Map<URI, Set<URI>> computeTerminalVertices(RVF_DAG rvf) {
+
+        ForkJoinPool pool = getForkJoinPool();
+        if (pool == null) {
+            return rvf.getTerminalVertices();
+        }
+        try {
+            return rvf.getTerminalVertices(pool);
+        } catch (SLIB_Ex_Critic e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Access to the pool shared by the parallel computations of the engines.
+     * The pool is sized after the number of threads allowed by the
+     * {@link ThreadManager} and is replaced if this number changes. Its
+     * threads are daemon threads, the pool is never shut down.
+     *
+     * @return the pool, null if a single thread is allowed
+     */
+    private static synchronized ForkJoinPool getForkJoinPool() {
+
+        int nbThreads = ThreadManager.getSingleton().getMaxThread();
+        if (nbThreads <= 1) {
+            return null;
+        }
+        if (forkJoinPool == null || forkJoinPool.getParallelism() != nbThreads) {
+            if (forkJoinPool != null) {
+                // the submitted tasks are still executed
+                forkJoinPool.shutdown();
+            }
+            forkJoinPool = new ForkJoinPool(nbThreads);
+        }
+        return forkJoinPool;
     }
 
     /**
@@ -340,6 +600,65 @@ public class SM_Engine {
         return unionAnc;
     }
 
+    /**
+     * Access to the profile of a set of classes, i.e. the union of their
+     * inclusive ancestors stored in a compressed form which can be compared
+     * to other profiles without building any set. The profile is cached by
+     * the engine, the set of classes being the key of the cache, the least
+     * recently used profiles being evicted (see
+     * {@link #setAnnotationProfileCacheCapacity(int)}). This is
+     * used by the groupwise measures in order to avoid computing the
+     * ancestors of a set of classes each time it is compared, e.g. the
+     * annotations of an entity.
+     *
+     * @param setClasses the set of classes considered
+     * @return the profile of the classes
+     */
+    public AnnotationProfile getAnnotationProfile(Set<URI> setClasses) {
+
+        AnnotationProfile profile = cache.annotationProfiles.get(setClasses);
+        if (profile != null) {
+            return profile;
+        }
+        throwErrorIfNotClass(setClasses);
+
+        ReachabilityIndex index = getAncestorsIndex();
+        BitSet bits = new BitSet(index.size());
+        for (URI c : setClasses) {
+            int id = index.getId(c);
+            bits.set(id);
+            for (int anc : index.getReachableIds(id)) {
+                bits.set(anc);
+            }
+        }
+        int cardinality = bits.cardinality();
+        // a bitmap costs (id / 8) bytes, an array 4 bytes per element
+        if ((long) cardinality * 32 < bits.length()) {
+            int[] ids = new int[cardinality];
+            for (int i = 0, id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+                ids[i++] = id;
+            }
+            profile = new AnnotationProfile(this, ids, null, cardinality);
+        } else {
+            profile = new AnnotationProfile(this, null, bits.toLongArray(), cardinality);
+        }
+        cache.annotationProfiles.put(Collections.unmodifiableSet(new HashSet<URI>(setClasses)), profile);
+        return profile;
+    }
+
+    /**
+     * Access to the profile of the classes annotating an instance, see
+     * {@link #getAnnotationProfile(Set)}.
+     *
+     * @param instance the instance
+     * @return the profile of the classes of the instance
+     * @throws SLIB_Ex_Critic if no instance accessor is defined
+     */
+    public AnnotationProfile getEntityProfile(URI instance) throws SLIB_Ex_Critic {
+        checkInstanceAccessorIsDefined();
+        return getAnnotationProfile(instanceAccessor.getClassesOfInstance(instance));
+    }
+
     /**
      * Give access to a view of the inclusive ancestors of a class.
      *
@@ -351,7 +670,10 @@ public class SM_Engine {
      */
     public Set<URI> getAncestorsInc(URI v) {
         throwErrorIfNotClass(v);
-        return Collections.unmodifiableSet(cache.ancestorsInc.get(v));
+        if (lazy && cache.ancestorsInc == null) {
+            return getReachableIncLazy(v, topNodeAccessor, cache.lazyAncestorsInc);
+        }
+        return getAncestorsIndex().getReachableInc(v);
     }
 
     /**
@@ -365,7 +687,207 @@ public class SM_Engine {
      */
     public Set<URI> getDescendantsInc(URI v) {
         throwErrorIfNotClass(v);
-        return Collections.unmodifiableSet(cache.descendantsInc.get(v));
+        if (lazy && cache.descendantsInc == null) {
+            return getReachableIncLazy(v, bottomNodeAccessor, cache.lazyDescendantsInc);
+        }
+        return getDescendantsIndex().getReachableInc(v);
+    }
+
+    /**
+     * Compute the inclusive set of the vertices reachable from a vertex, the
+     * sets computed for the vertex and the vertices reachable from it are
+     * stored. The vertices are processed in post order, the set of a vertex
+     * is the union of the sets of its neighbours.
+     *
+     * @param v the vertex
+     * @param rvf the accessor defining the reachable vertices
+     * @param computed the sets already computed
+     * @return a view of the inclusive set of the vertices reachable from v
+     */
+    private static Set<URI> getReachableIncLazy(URI v, RVF_DAG rvf, Map<URI, Set<URI>> computed) {
+
+        Set<URI> reachable = computed.get(v);
+        if (reachable != null) {
+            return reachable;
+        }
+
+        Deque<URI> stack = new ArrayDeque<URI>();
+        Set<URI> expanded = new HashSet<URI>();
+        stack.push(v);
+
+        while (!stack.isEmpty()) {
+
+            URI current = stack.peek();
+            if (computed.containsKey(current)) {
+                stack.pop();
+                continue;
+            }
+            Set<URI> neighbors = rvf.getNeighbors(current);
+            boolean ready = true;
+            if (expanded.add(current)) {
+                for (URI n : neighbors) {
+                    if (!n.equals(current) && !computed.containsKey(n)) {
+                        if (expanded.contains(n)) {
+                            throw new IllegalStateException("Cycle detected computing the reachable vertices of " + current
+                                    + ", please check the processed graph is acyclic, i.e. is a Directed Acyclic Graph.");
+                        }
+                        stack.push(n);
+                        ready = false;
+                    }
+                }
+            }
+            if (ready) {
+                Set<URI> set = new HashSet<URI>();
+                set.add(current);
+                for (URI n : neighbors) {
+                    if (!n.equals(current)) {
+                        set.addAll(computed.get(n));
+                    }
+                }
+                computed.put(current, Collections.unmodifiableSet(set));
+                stack.pop();
+            }
+        }
+        return computed.get(v);
+    }
+
+    /**
+     * Access to the index of the ancestors of the classes. The index provides
+     * a primitive API based on integer ids which can be used to avoid the
+     * overhead of set views.
+     *
+     * @return the index of the ancestors
+     */
+    public ReachabilityIndex getAncestorsIndex() {
+        if (cache.ancestorsInc == null) {
+            triggerPrecomputation(Precomputation.ANCESTORS);
+        }
+        return cache.ancestorsInc;
+    }
+
+    /**
+     * Access to the index of the descendants of the classes, see
+     * {@link #getAncestorsIndex()}.
+     *
+     * @return the index of the descendants
+     */
+    public ReachabilityIndex getDescendantsIndex() {
+        if (cache.descendantsInc == null) {
+            triggerPrecomputation(Precomputation.DESCENDANTS);
+        }
+        return cache.descendantsInc;
+    }
+
+    /**
+     * Get the id of a class. The ids are the ones of the index of the
+     * ancestors (see {@link #getAncestorsIndex()}), they are used by the
+     * methods which identify the classes by integers, e.g.
+     * {@link #compare(PairwiseMeasureHandle, int, int)}. Resolving the id of a
+     * class once avoids the lookups performed by the methods based on URIs.
+     * In lazy mode the ids are given by the topological order of the classes
+     * and do not require the ancestors of all classes to be computed.
+     *
+     * @param c the class
+     * @return the id of the class
+     */
+    public int getClassId(URI c) {
+        throwErrorIfNotClass(c);
+        return classId(c);
+    }
+
+    /**
+     * @param c a vertex
+     * @return the id of the vertex, -1 if the vertex is not ordered
+     */
+    private int classId(URI c) {
+        ReachabilityIndex index = cache.ancestorsInc;
+        return index != null ? index.getId(c) : getClassOrder().getId(c);
+    }
+
+    /**
+     * @param id the id of a class
+     * @return the class
+     */
+    public URI getClassURI(int id) {
+        throwErrorIfNotClass(id);
+        ReachabilityIndex index = cache.ancestorsInc;
+        return index != null ? index.getURI(id) : getClassOrder().getURI(id);
+    }
+
+    /**
+     * Give access to the ids of the ancestors of a class (exclusive).
+     *
+     * @param id the id of the class
+     * @return the ids of the ancestors of the class sorted in increasing
+     * order
+     */
+    public int[] getAncestorIds(int id) {
+        throwErrorIfNotClass(id);
+        return getAncestorsIndex().getReachableIds(id);
+    }
+
+    /**
+     * Give access to the ids of the descendants of a class (exclusive). The
+     * ids of the index of the descendants are converted to class ids.
+     *
+     * @param id the id of the class
+     * @return the ids of the descendants of the class sorted in increasing
+     * order
+     */
+    public int[] getDescendantIds(int id) {
+        throwErrorIfNotClass(id);
+        ReachabilityIndex descendants = getDescendantsIndex();
+        int[] toClassIds = descendantIdsToClassIds;
+        if (toClassIds == null) {
+            ReachabilityIndex ancestors = getAncestorsIndex();
+            toClassIds = new int[descendants.size()];
+            for (int d = 0; d < toClassIds.length; d++) {
+                toClassIds[d] = ancestors.getId(descendants.getURI(d));
+            }
+            descendantIdsToClassIds = toClassIds;
+        }
+        int[] ids = descendants.getReachableIds(descendants.getId(getAncestorsIndex().getURI(id)));
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = toClassIds[ids[i]];
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Check if a class is an ancestor of another class without accessing the
+     * sets of ancestors. The check relies on an index of interval labels
+     * which is computed at first call and only stores a few integers per
+     * class, see {@link IntervalLabelIndex}.
+     *
+     * @param a the potential ancestor
+     * @param b the class
+     * @return true if a is b or an ancestor of b
+     * @throws SLIB_Ex_Critic
+     */
+    public boolean isAncestor(URI a, URI b) throws SLIB_Ex_Critic {
+        throwErrorIfNotClass(a);
+        throwErrorIfNotClass(b);
+        return a.equals(b) || getAncestorLabels().isReachable(b, a);
+    }
+
+    /**
+     * @return the index of interval labels used to check the ancestors of
+     * the classes, computed if required.
+     * @throws SLIB_Ex_Critic
+     */
+    public IntervalLabelIndex getAncestorLabels() throws SLIB_Ex_Critic {
+        IntervalLabelIndex labels = cache.ancestorLabels;
+        if (labels == null) {
+            synchronized (this) {
+                labels = cache.ancestorLabels;
+                if (labels == null) {
+                    labels = topNodeAccessor.getIntervalLabelIndex();
+                    cache.ancestorLabels = labels;
+                }
+            }
+        }
+        return labels;
     }
 
     /**
@@ -445,7 +967,62 @@ public class SM_Engine {
             computeIC(icConf);
         }
 
-        return cache.metrics_results.get(icConf).get(v);
+        Double ic = cache.metrics_results.get(icConf).get(v);
+        if (ic == null) {
+            throw new SLIB_Ex_Critic("No IC " + icConf.getId() + " associated to " + v);
+        }
+        return ic;
+    }
+
+    /**
+     * Get the Information Content of a class identified by its id, see
+     * {@link #getClassId(URI)}.
+     *
+     * @param icConf The configuration of the information content
+     * @param id the id of the class
+     * @return the information content of the class
+     * @throws SLIB_Exception if no IC is associated to the class
+     */
+    public double getIC(ICconf icConf, int id) throws SLIB_Exception {
+
+        throwErrorIfNotClass(id);
+        double ic = getMICAIndex(icConf).getIC(id);
+        if (Double.isNaN(ic)) {
+            throw new SLIB_Ex_Critic("No IC " + icConf.getId() + " associated to " + getClassURI(id));
+        }
+        return ic;
+    }
+
+    /**
+     * Access to the information content of all classes as an array indexed
+     * by the ids of the classes, see {@link #getClassId(URI)}.
+     *
+     * @param icConf the configuration of the information content
+     * @return a copy of the IC values, NaN for the ids without IC
+     * @throws SLIB_Ex_Critic
+     */
+    public double[] getIC_array(ICconf icConf) throws SLIB_Ex_Critic {
+        return getMICAIndex(icConf).getICs();
+    }
+
+    /**
+     * Get the information content of the most informative common ancestor of
+     * two classes identified by their ids, see
+     * {@link #getIC_MICA(ICconf, URI, URI)}.
+     *
+     * @param icConf the configuration of the information content
+     * @param a the id of the first class
+     * @param b the id of the second class
+     * @return the IC of the most informative common ancestor of the two
+     * classes.
+     * @throws SLIB_Exception if no common ancestor is found between the two
+     * classes
+     */
+    public double getIC_MICA(ICconf icConf, int a, int b) throws SLIB_Exception {
+
+        throwErrorIfNotClass(a);
+        throwErrorIfNotClass(b);
+        return getMICAIndex(icConf).getIC_MICA(a, b);
     }
 
     /**
@@ -470,16 +1047,23 @@ public class SM_Engine {
      * @return the class corresponding to the root.
      * @throws SLIB_Ex_Critic
      */
-    public synchronized URI getRoot() throws SLIB_Ex_Critic {
-
-        if (root == null) {
-            Set<URI> roots = new ValidatorDAG().getDAGRoots(graph, topNodeAccessor.getWalkConstraint());
-            if (roots.size() != 1) {
-                throw new SLIB_Ex_Critic("Multiple roots detected in the underlying taxonomic graph of graph " + graph.getURI());
+    public URI getRoot() throws SLIB_Ex_Critic {
+
+        URI r = root;
+        if (r == null) {
+            synchronized (this) {
+                r = root;
+                if (r == null) {
+                    Set<URI> roots = new ValidatorDAG().getDAGRoots(graph, topNodeAccessor.getWalkConstraint());
+                    if (roots.size() != 1) {
+                        throw new SLIB_Ex_Critic("Multiple roots detected in the underlying taxonomic graph of graph " + graph.getURI());
+                    }
+                    r = roots.iterator().next();
+                    root = r;
+                }
             }
-            root = roots.iterator().next();
         }
-        return root;
+        return r;
     }
 
     /**
@@ -487,6 +1071,10 @@ public class SM_Engine {
      * (MICA) of two classes. The MICA is the class with the maximal IC found
      * among the sets of ancestors of the two given classes.
      *
+     * In lazy mode, as long as the ancestors of all classes have not been
+     * computed, the MICA is searched among the ancestors of the two classes
+     * instead of relying on the index of the MICAs.
+     *
      * @param icConf the configuration of the information content
      * @param a the first class
      * @param b the second class
@@ -500,10 +1088,10 @@ public class SM_Engine {
         throwErrorIfNotClass(a);
         throwErrorIfNotClass(b);
 
-        if (cache.metrics_results.get(icConf) == null) {
-            computeIC(icConf);
+        if (lazy && cache.ancestorsInc == null) {
+            return IcUtils.searchMax_IC_MICA(a, b, getAncestorsInc(a), getAncestorsInc(b), getIC_results(icConf));
         }
-        return IcUtils.searchMax_IC_MICA(a, b, getAncestorsInc(a), getAncestorsInc(b), getIC_results(icConf));
+        return getMICAIndex(icConf).getIC_MICA(a, b);
     }
 
     /**
@@ -523,10 +1111,35 @@ public class SM_Engine {
         throwErrorIfNotClass(a);
         throwErrorIfNotClass(b);
 
-        if (cache.metrics_results.get(icConf) == null) {
-            computeIC(icConf);
+        if (lazy && cache.ancestorsInc == null) {
+            return IcUtils.searchMICA(a, b, getAncestorsInc(a), getAncestorsInc(b), getIC_results(icConf));
+        }
+        return getMICAIndex(icConf).getMICA(a, b);
+    }
+
+    /**
+     * Access to the index used to search the most informative common
+     * ancestors regarding an information content, the ancestors of each class
+     * are sorted by decreasing IC. The index is computed at first call and
+     * stored by the engine.
+     *
+     * @param icConf the configuration of the information content
+     * @return the index
+     * @throws SLIB_Ex_Critic
+     */
+    public MICAIndex getMICAIndex(ICconf icConf) throws SLIB_Ex_Critic {
+
+        MICAIndex index = cache.micaIndexes.get(icConf);
+        if (index == null) {
+            synchronized (this) {
+                index = cache.micaIndexes.get(icConf);
+                if (index == null) {
+                    index = new MICAIndex(getAncestorsIndex(), classes, getIC_results(icConf));
+                    cache.micaIndexes.put(icConf, index);
+                }
+            }
         }
-        return IcUtils.searchMICA(a, b, getAncestorsInc(a), getAncestorsInc(b), getIC_results(icConf));
+        return index;
     }
 
     /**
@@ -537,9 +1150,10 @@ public class SM_Engine {
      */
     public Map<URI, Integer> getAllNbDescendantsInc() throws SLIB_Ex_Critic {
 
+        ReachabilityIndex allDescendants = getDescendantsIndex();
         Map<URI, Integer> allNbDescendants = new HashMap();
         for (URI c : classes) {
-            allNbDescendants.put(c, getAllDescendantsInc().get(c).size());
+            allNbDescendants.put(c, allDescendants.getNumberReachable(allDescendants.getId(c)) + 1);
         }
         return allNbDescendants;
     }
@@ -552,7 +1166,7 @@ public class SM_Engine {
      * @throws SLIB_Ex_Critic
      */
     public Map<URI, Set<URI>> getAllDescendantsInc() throws SLIB_Ex_Critic {
-        return Collections.unmodifiableMap(cache.descendantsInc);
+        return getAllReachableInc(getDescendantsIndex());
     }
 
     /**
@@ -562,7 +1176,17 @@ public class SM_Engine {
      * @throws SLIB_Ex_Critic
      */
     public Map<URI, Set<URI>> getAllAncestorsInc() throws SLIB_Ex_Critic {
-        return Collections.unmodifiableMap(cache.ancestorsInc);
+        return getAllReachableInc(getAncestorsIndex());
+    }
+
+    private static Map<URI, Set<URI>> getAllReachableInc(ReachabilityIndex index) {
+
+        Map<URI, Set<URI>> all = new HashMap<URI, Set<URI>>();
+        for (int id = 0; id < index.size(); id++) {
+            URI v = index.getURI(id);
+            all.put(v, index.getReachableInc(v));
+        }
+        return Collections.unmodifiableMap(all);
     }
 
     /**
@@ -600,6 +1224,13 @@ public class SM_Engine {
         logger.info("computing IC " + icConf.getId());
         logger.info("---------------------------------------------------------------");
 
+        Map<URI, Double> stored = cache.snapshotICs.remove(SM_EngineSnapshot.icKey(icConf));
+        if (stored != null) {
+            logger.info("IC " + icConf.getId() + " loaded from snapshot");
+            cache.metrics_results.put(icConf, stored);
+            return Collections.unmodifiableMap(stored);
+        }
+
         Class<?> cl;
         Map<URI, Double> results;
 
@@ -658,7 +1289,7 @@ public class SM_Engine {
 
         if (cache.reachableLeaves.isEmpty()) {
 
-            Map<URI, Set<URI>> leaves = bottomNodeAccessor.getTerminalVertices();
+            Map<URI, Set<URI>> leaves = computeTerminalVertices(bottomNodeAccessor);
             /* according to the documentation of the method used above, 
              if there are classes which are isolated (which do not establish rdfs:subClassOf in this case),
              the algorithm will not process them and them will not be associated to an entry in the returned map.
@@ -696,6 +1327,9 @@ public class SM_Engine {
      * @return the set of classes which are leaves
      */
     public Set<URI> getLeaves() {
+        if (classesLeaves == null) {
+            triggerPrecomputation(Precomputation.LEAVES);
+        }
         return Collections.unmodifiableSet(classesLeaves);
     }
 
@@ -739,11 +1373,11 @@ public class SM_Engine {
      */
     public Map<URI, Integer> getAllNbAncestorsInc() throws SLIB_Ex_Critic {
 
-        Map<URI, Set<URI>> allAncestors = cache.ancestorsInc;
+        ReachabilityIndex allAncestors = getAncestorsIndex();
         Map<URI, Integer> allNbancestors = new HashMap();
 
         for (URI c : classes) {
-            allNbancestors.put(c, allAncestors.get(c).size());
+            allNbancestors.put(c, allAncestors.getNumberReachable(allAncestors.getId(c)) + 1);
         }
         return allNbancestors;
     }
@@ -768,30 +1402,16 @@ public class SM_Engine {
 
         try {
 
-            if (cachePairwiseResults
-                    && cache.pairwise_results.containsKey(pairwiseConf)
-                    && cache.pairwise_results.get(pairwiseConf).containsKey(a)
-                    && cache.pairwise_results.get(pairwiseConf).get(a).containsKey(b)) {
-
-                sim = cache.pairwise_results.get(pairwiseConf).get(a).get(b);
-            } else {
-
-                Sim_Pairwise pMeasure;
+            Sim_Pairwise pMeasure = getPairwiseMeasure(pairwiseConf);
 
-                synchronized (pairwiseMeasures) {
-
-                    if (pairwiseMeasures.containsKey(pairwiseConf)) {
-                        pMeasure = pairwiseMeasures.get(pairwiseConf);
-                    } else {
+            long ids = cachePairwiseResults ? pairwiseCacheIds(pairwiseConf, pMeasure, a, b) : -1;
+            PairwiseResultCache pairwiseResults = cache.pairwiseResults;
+            Double cached = ids == -1 ? null : pairwiseResults.get(pairwiseConf, (int) (ids >>> 32), (int) ids);
 
-                        Class<?> cl;
-                        cl = Class.forName(pairwiseConf.getClassName());
-                        Constructor<?> co = cl.getConstructor();
+            if (cached != null) {
+                sim = cached;
+            } else {
 
-                        pMeasure = (Sim_Pairwise) co.newInstance();
-                        pairwiseMeasures.put(pairwiseConf, pMeasure);
-                    }
-                }
                 sim = pMeasure.compare(a, b, this, pairwiseConf);
 
                 if (Double.isNaN(sim) || Double.isInfinite(sim)) {
@@ -799,28 +1419,436 @@ public class SM_Engine {
                 }
 
                 // Caching 
-                if (cachePairwiseResults) {
-
-                    if (cache.pairwise_results.get(pairwiseConf) == null) {
-
-                        ConcurrentHashMap<URI, Map<URI, Double>> pairwise_result = new ConcurrentHashMap();
-
-                        cache.pairwise_results.put(pairwiseConf, pairwise_result);
-                    }
-
-                    if (cache.pairwise_results.get(pairwiseConf).get(a) == null) {
-                        cache.pairwise_results.get(pairwiseConf).put(a, new HashMap<URI, Double>());
+                if (ids != -1) {
+                    pairwiseResults.put(pairwiseConf, (int) (ids >>> 32), (int) ids, sim);
+                }
+            }
+        } catch (SLIB_Exception e) {
+            throw new SLIB_Ex_Critic(e);
+        }
+        return sim;
+    }
+
+    /**
+     * Compute the scores of several pairwise semantic measures for the same
+     * pair of classes. The intermediate results shared by the measures
+     * implementing {@link Measure_Pairwise_Fused} (e.g. the IC of the MICA of
+     * the classes) are only computed once, the other measures are evaluated as
+     * in {@link #compare(SMconf, URI, URI)}. The results are cached if the
+     * engine is configured to do so.
+     *
+     * @param pairwiseConfs the pairwise semantic measure configurations
+     * @param a the first vertex/class/concept
+     * @param b the second vertex/class/concept
+     * @return the scores of the pair, in the order of the configurations
+     * @throws SLIB_Ex_Critic
+     */
+    public double[] compare(List<SMconf> pairwiseConfs, URI a, URI b) throws SLIB_Ex_Critic {
+
+        throwErrorIfNotClass(a);
+        throwErrorIfNotClass(b);
+
+        double[] scores = new double[pairwiseConfs.size()];
+        PairwiseIntermediates pair = new PairwiseIntermediates(this, a, b);
+        PairwiseResultCache pairwiseResults = cache.pairwiseResults;
+
+        try {
+            int i = 0;
+            for (SMconf pairwiseConf : pairwiseConfs) {
+
+                Sim_Pairwise pMeasure = getPairwiseMeasure(pairwiseConf);
+
+                long ids = cachePairwiseResults ? pairwiseCacheIds(pairwiseConf, pMeasure, a, b) : -1;
+                Double cached = ids == -1 ? null : pairwiseResults.get(pairwiseConf, (int) (ids >>> 32), (int) ids);
+
+                double sim;
+                if (cached != null) {
+                    sim = cached;
+                } else {
+                    if (pMeasure instanceof Measure_Pairwise_Fused) {
+                        sim = ((Measure_Pairwise_Fused) pMeasure).compare(pair, pairwiseConf);
+                    } else {
+                        sim = pMeasure.compare(a, b, this, pairwiseConf);
                     }
 
-                    cache.pairwise_results.get(pairwiseConf).get(a).put(b, sim);
+                    if (Double.isNaN(sim) || Double.isInfinite(sim)) {
+                        SMutils.throwArithmeticCriticalException(pairwiseConf, a, b, sim);
+                    }
+                    if (ids != -1) {
+                        pairwiseResults.put(pairwiseConf, (int) (ids >>> 32), (int) ids, sim);
+                    }
                 }
+                scores[i++] = sim;
             }
-        } catch (ClassNotFoundException | IllegalAccessException | IllegalArgumentException | InstantiationException | NoSuchMethodException | SecurityException | InvocationTargetException | SLIB_Exception e) {
+        } catch (SLIB_Exception e) {
+            throw new SLIB_Ex_Critic(e);
+        }
+        return scores;
+    }
+
+    /**
+     * Compute the scores of several pairwise semantic measures for a batch of
+     * pairs of classes, the i-th pair being {@code (as[i], bs[i])}. The pairs
+     * are processed grouped by their first class in order to reuse the
+     * information loaded for this class, and are split among the threads
+     * allowed by the {@link ThreadManager}. The measures are evaluated as in
+     * {@link #compare(List, URI, URI)}.
+     *
+     * @param pairwiseConfs the pairwise semantic measure configurations
+     * @param as the first classes of the pairs
+     * @param bs the second classes of the pairs
+     * @return the scores, the score of the i-th pair for the m-th
+     * configuration is stored at index {@code i * pairwiseConfs.size() + m}
+     * @throws SLIB_Ex_Critic
+     */
+    public double[] compare(List<SMconf> pairwiseConfs, URI[] as, URI[] bs) throws SLIB_Ex_Critic {
+
+        if (as.length != bs.length) {
+            throw new IllegalArgumentException("The number of first classes (" + as.length + ") differs from the number of second classes (" + bs.length + ")");
+        }
+        double[] scores = new double[as.length * pairwiseConfs.size()];
+
+        // pairs sorted by the id of their first class, the position of the
+        // pair in the batch is stored in the lower bits
+        long[] order = new long[as.length];
+        for (int i = 0; i < as.length; i++) {
+            throwErrorIfNotClass(bs[i]);
+            order[i] = ((long) getClassId(as[i]) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        PairwiseBatchTask task = new PairwiseBatchTask(pairwiseConfs, as, bs, order, scores, 0, order.length);
+        ForkJoinPool pool = getForkJoinPool();
+        if (pool == null || order.length <= PairwiseBatchTask.TASK_SIZE) {
+            task.compare();
+            return scores;
+        }
+        invokeParallel(pool, task);
+        return scores;
+    }
+
+    /**
+     * Run a task in a pool, the critical exceptions wrapped by the task into
+     * {@link IllegalStateException}s are rethrown. The exceptions thrown by
+     * the workers may be wrapped again by the pool, the whole chain of causes
+     * is therefore inspected.
+     */
+    private static void invokeParallel(ForkJoinPool pool, RecursiveAction task) throws SLIB_Ex_Critic {
+
+        try {
+            pool.invoke(task);
+        } catch (IllegalStateException e) {
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof SLIB_Ex_Critic) {
+                    throw (SLIB_Ex_Critic) cause;
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Evaluation of a range of the sorted pairs of a batch, see
+     * {@link SM_Engine#compare(List, URI[], URI[])}.
+     */
+    private class PairwiseBatchTask extends RecursiveAction {
+
+        private static final int TASK_SIZE = 256;
+
+        private final List<SMconf> pairwiseConfs;
+        private final URI[] as;
+        private final URI[] bs;
+        private final long[] order;
+        private final double[] scores;
+        private final int from;
+        private final int to;
+
+        PairwiseBatchTask(List<SMconf> pairwiseConfs, URI[] as, URI[] bs, long[] order, double[] scores, int from, int to) {
+            this.pairwiseConfs = pairwiseConfs;
+            this.as = as;
+            this.bs = bs;
+            this.order = order;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_SIZE) {
+                try {
+                    compare();
+                } catch (SLIB_Ex_Critic e) {
+                    throw new IllegalStateException(e);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PairwiseBatchTask(pairwiseConfs, as, bs, order, scores, from, middle),
+                        new PairwiseBatchTask(pairwiseConfs, as, bs, order, scores, middle, to));
+            }
+        }
+
+        void compare() throws SLIB_Ex_Critic {
+            int nbConfs = pairwiseConfs.size();
+            for (int k = from; k < to; k++) {
+                int i = (int) order[k];
+                double[] pairScores = SM_Engine.this.compare(pairwiseConfs, as[i], bs[i]);
+                System.arraycopy(pairScores, 0, scores, i * nbConfs, nbConfs);
+            }
+        }
+    }
+
+    /**
+     * Check if the pairwise semantic measure score of two classes is greater
+     * or equal to a threshold. An upper bound of the score is computed first,
+     * the score is only computed (see {@link #compare(SMconf, URI, URI)}) if
+     * the bound reaches the threshold. The bound is given by:
+     * <ul>
+     * <li>the IC of the classes for the measures implementing
+     * {@link Measure_Pairwise_MICA_Bounded}, the IC of the MICA being lower or
+     * equal to the minimal IC of the two classes,</li>
+     * <li>the measure for the measures implementing
+     * {@link Measure_Pairwise_Bounded}.</li>
+     * </ul>
+     * See {@link #compareAbove(SMconf, Set, Set, double)} for the groupwise
+     * measures.
+     *
+     * @param pairwiseConf the pairwise semantic measure configuration
+     * @param a the first vertex/class/concept
+     * @param b the second vertex/class/concept
+     * @param threshold the threshold
+     * @return true if the score of the pair is greater or equal to the
+     * threshold
+     * @throws SLIB_Ex_Critic
+     */
+    public boolean compareAbove(SMconf pairwiseConf, URI a, URI b, double threshold) throws SLIB_Ex_Critic {
+
+        throwErrorIfNotClass(a);
+        throwErrorIfNotClass(b);
+
+        Sim_Pairwise pMeasure = getPairwiseMeasure(pairwiseConf);
+        double bound;
+        try {
+            if (pMeasure instanceof Measure_Pairwise_MICA_Bounded && pairwiseConf.getICconf() != null) {
+                double ic_a = getIC(pairwiseConf.getICconf(), a);
+                double ic_b = getIC(pairwiseConf.getICconf(), b);
+                bound = ((Measure_Pairwise_MICA_Bounded) pMeasure).getUpperBound(ic_a, Math.min(ic_a, ic_b));
+            } else if (pMeasure instanceof Measure_Pairwise_Bounded) {
+                bound = ((Measure_Pairwise_Bounded) pMeasure).getUpperBound(a, b, this, pairwiseConf);
+            } else {
+                bound = Double.POSITIVE_INFINITY;
+            }
+        } catch (SLIB_Exception e) {
+            throw new SLIB_Ex_Critic(e);
+        }
+        if (bound < threshold) {
+            return false;
+        }
+        return compare(pairwiseConf, a, b) >= threshold;
+    }
+
+    /**
+     * Check, for a batch of pairs of classes, if the pairwise semantic measure
+     * scores are greater or equal to a threshold, the i-th pair being
+     * {@code (as[i], bs[i])}. See
+     * {@link #compareAbove(SMconf, URI, URI, double)}. The pairs are split
+     * among the threads allowed by the {@link ThreadManager}, as in
+     * {@link #compare(List, URI[], URI[])}.
+     *
+     * @param pairwiseConf the pairwise semantic measure configuration
+     * @param as the first classes of the pairs
+     * @param bs the second classes of the pairs
+     * @param threshold the threshold
+     * @return the positions of the pairs whose score is greater or equal to
+     * the threshold
+     * @throws SLIB_Ex_Critic
+     */
+    public BitSet compareAbove(SMconf pairwiseConf, URI[] as, URI[] bs, double threshold) throws SLIB_Ex_Critic {
+
+        if (as.length != bs.length) {
+            throw new IllegalArgumentException("The number of first classes (" + as.length + ") differs from the number of second classes (" + bs.length + ")");
+        }
+        boolean[] results = new boolean[as.length];
+        CompareAboveTask task = new CompareAboveTask(pairwiseConf, as, bs, threshold, results, 0, as.length);
+        ForkJoinPool pool = getForkJoinPool();
+        if (pool == null || as.length <= CompareAboveTask.TASK_SIZE) {
+            task.compareAbove();
+        } else {
+            invokeParallel(pool, task);
+        }
+        BitSet above = new BitSet(as.length);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i]) {
+                above.set(i);
+            }
+        }
+        return above;
+    }
+
+    /**
+     * Evaluation of a range of the pairs of a batch, see
+     * {@link SM_Engine#compareAbove(SMconf, URI[], URI[], double)}.
+     */
+    private class CompareAboveTask extends RecursiveAction {
+
+        private static final int TASK_SIZE = 256;
+
+        private final SMconf pairwiseConf;
+        private final URI[] as;
+        private final URI[] bs;
+        private final double threshold;
+        private final boolean[] results;
+        private final int from;
+        private final int to;
+
+        CompareAboveTask(SMconf pairwiseConf, URI[] as, URI[] bs, double threshold, boolean[] results, int from, int to) {
+            this.pairwiseConf = pairwiseConf;
+            this.as = as;
+            this.bs = bs;
+            this.threshold = threshold;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_SIZE) {
+                try {
+                    compareAbove();
+                } catch (SLIB_Ex_Critic e) {
+                    throw new IllegalStateException(e);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CompareAboveTask(pairwiseConf, as, bs, threshold, results, from, middle),
+                        new CompareAboveTask(pairwiseConf, as, bs, threshold, results, middle, to));
+            }
+        }
+
+        void compareAbove() throws SLIB_Ex_Critic {
+            for (int i = from; i < to; i++) {
+                results[i] = SM_Engine.this.compareAbove(pairwiseConf, as[i], bs[i], threshold);
+            }
+        }
+    }
+
+    /**
+     * Resolve a pairwise measure configuration in order to compare classes
+     * identified by their ids, see {@link #compare(PairwiseMeasureHandle, int, int)}.
+     *
+     * @param pairwiseConf the pairwise semantic measure configuration
+     * @return the handle of the measure
+     * @throws SLIB_Ex_Critic if the measure cannot be loaded
+     */
+    public PairwiseMeasureHandle getPairwiseHandle(SMconf pairwiseConf) throws SLIB_Ex_Critic {
+        return new PairwiseMeasureHandle(this, pairwiseConf, getPairwiseMeasure(pairwiseConf));
+    }
+
+    /**
+     * Compute the pairwise semantic measures score of two classes identified
+     * by their ids, see {@link #getClassId(URI)}. Measures implementing
+     * {@link Measure_Pairwise_Primitive} are evaluated from the ids, the other
+     * measures from the URIs of the classes. The results are cached if the
+     * engine is configured to do so, as for {@link #compare(SMconf, URI, URI)}.
+     *
+     * @param handle the handle of the measure, created by this engine
+     * @param a the id of the first class
+     * @param b the id of the second class
+     * @return the pairwise semantic measure score
+     * @throws SLIB_Ex_Critic
+     */
+    public double compare(PairwiseMeasureHandle handle, int a, int b) throws SLIB_Ex_Critic {
+
+        if (handle.engine != this) {
+            throw new IllegalArgumentException("The given handle of " + handle.conf.getId() + " has not been created by this engine");
+        }
+        throwErrorIfNotClass(a);
+        throwErrorIfNotClass(b);
+
+        boolean caching = cachePairwiseResults;
+        PairwiseResultCache pairwiseResults = cache.pairwiseResults;
+        boolean swap = handle.symmetric && a > b;
+        if (caching) {
+            Double cached = swap ? pairwiseResults.get(handle.conf, b, a) : pairwiseResults.get(handle.conf, a, b);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        double sim;
+        try {
+            if (handle.primitive != null) {
+                sim = handle.primitive.compare(a, b, this, handle.conf);
+            } else {
+                sim = handle.measure.compare(getClassURI(a), getClassURI(b), this, handle.conf);
+            }
+            if (Double.isNaN(sim) || Double.isInfinite(sim)) {
+                SMutils.throwArithmeticCriticalException(handle.conf, getClassURI(a), getClassURI(b), sim);
+            }
+        } catch (SLIB_Exception e) {
             throw new SLIB_Ex_Critic(e);
         }
+        if (caching) {
+            if (swap) {
+                pairwiseResults.put(handle.conf, b, a, sim);
+            } else {
+                pairwiseResults.put(handle.conf, a, b, sim);
+            }
+        }
         return sim;
     }
 
+    /**
+     * Access to the instance of the measure associated to a configuration,
+     * the instance is created at first call.
+     */
+    private Sim_Pairwise getPairwiseMeasure(SMconf pairwiseConf) throws SLIB_Ex_Critic {
+
+        Sim_Pairwise pMeasure = pairwiseMeasures.get(pairwiseConf);
+        if (pMeasure != null) {
+            return pMeasure;
+        }
+        synchronized (pairwiseMeasures) {
+
+            if (pairwiseMeasures.containsKey(pairwiseConf)) {
+                pMeasure = pairwiseMeasures.get(pairwiseConf);
+            } else {
+                try {
+                    Class<?> cl;
+                    cl = Class.forName(pairwiseConf.getClassName());
+                    Constructor<?> co = cl.getConstructor();
+
+                    pMeasure = (Sim_Pairwise) co.newInstance();
+                } catch (ClassNotFoundException | IllegalAccessException | IllegalArgumentException | InstantiationException | NoSuchMethodException | SecurityException | InvocationTargetException e) {
+                    throw new SLIB_Ex_Critic(e);
+                }
+                pairwiseMeasures.put(pairwiseConf, pMeasure);
+            }
+        }
+        return pMeasure;
+    }
+
+    /**
+     * Ids of a pair of classes used to cache its score, the ids of (a,b) and
+     * (b,a) are the same if the measure is symmetric considering the
+     * parameters of the configuration.
+     *
+     * @return the ids of the classes packed in a long, the first one in the
+     * upper bits
+     */
+    private long pairwiseCacheIds(SMconf pairwiseConf, Sim_Pairwise pMeasure, URI a, URI b) throws SLIB_Ex_Critic {
+
+        int ia = getClassId(a);
+        int ib = getClassId(b);
+        if (ia > ib && Boolean.TRUE.equals(pMeasure.isSymmetric(pairwiseConf))) {
+            int tmp = ia;
+            ia = ib;
+            ib = tmp;
+        }
+        return ((long) ia << 32) | ib;
+    }
+
     /**
      * Compute the direct group wise semantic measure score considering the two
      * set of vertices and the semantic measure configuration.
@@ -846,29 +1874,81 @@ public class SM_Engine {
         double sim = -Double.MAX_VALUE;
 
         try {
+            Sim_Groupwise_Direct gMeasure = getGroupwiseMeasure(confGroupwise);
+            sim = gMeasure.compare(setA, setB, this, confGroupwise);
 
-            Sim_Groupwise_Direct gMeasure;
+        } catch (SLIB_Exception e) {
+            throw new SLIB_Ex_Critic(e.getMessage());
+        }
+        return sim;
+    }
 
-            synchronized (groupwiseStandaloneMeasures) {
+    /**
+     * Check if the direct groupwise semantic measure score of two sets of
+     * classes is greater or equal to a threshold. For the measures
+     * implementing {@link Measure_Groupwise_Bounded} an upper bound of the
+     * score is computed first, the score is only computed (see
+     * {@link #compare(SMconf, Set, Set)}) if the bound reaches the threshold.
+     *
+     * @param confGroupwise the direct groupwise semantic measure configuration
+     * @param setA the first set of vertices/classes/concepts
+     * @param setB the second set of vertices/classes/concepts
+     * @param threshold the threshold
+     * @return true if the score of the pair of sets is greater or equal to
+     * the threshold
+     * @throws SLIB_Ex_Critic
+     */
+    public boolean compareAbove(SMconf confGroupwise, Set<URI> setA, Set<URI> setB, double threshold) throws SLIB_Ex_Critic {
 
-                if (groupwiseStandaloneMeasures.containsKey(confGroupwise)) {
-                    gMeasure = groupwiseStandaloneMeasures.get(confGroupwise);
-                } else {
+        throwErrorIfNullOrEmpty(setA);
+        throwErrorIfNullOrEmpty(setB);
+
+        throwErrorIfNotClass(setA);
+        throwErrorIfNotClass(setB);
+
+        Sim_Groupwise_Direct gMeasure = getGroupwiseMeasure(confGroupwise);
+        if (gMeasure instanceof Measure_Groupwise_Bounded) {
+            double bound;
+            try {
+                bound = ((Measure_Groupwise_Bounded) gMeasure).getUpperBound(setA, setB, this, confGroupwise);
+            } catch (SLIB_Exception e) {
+                throw new SLIB_Ex_Critic(e);
+            }
+            if (bound < threshold) {
+                return false;
+            }
+        }
+        return compare(confGroupwise, setA, setB) >= threshold;
+    }
+
+    /**
+     * Load the direct groupwise measure associated to a configuration, the
+     * instance is shared by the computations relying on the configuration.
+     *
+     * @param confGroupwise the direct groupwise semantic measure configuration
+     * @return the measure
+     * @throws SLIB_Ex_Critic if the measure cannot be loaded
+     */
+    private Sim_Groupwise_Direct getGroupwiseMeasure(SMconf confGroupwise) throws SLIB_Ex_Critic {
+
+        synchronized (groupwiseStandaloneMeasures) {
+
+            Sim_Groupwise_Direct gMeasure = groupwiseStandaloneMeasures.get(confGroupwise);
+            if (gMeasure == null) {
+                try {
                     Class<?> cl;
                     String groupwiseClassName = confGroupwise.getClassName();
                     cl = Class.forName(groupwiseClassName);
                     Constructor<?> co = cl.getConstructor();
 
                     gMeasure = (Sim_Groupwise_Direct) co.newInstance();
-                    groupwiseStandaloneMeasures.put(confGroupwise, gMeasure);
+                } catch (ClassNotFoundException | IllegalAccessException | IllegalArgumentException | InstantiationException | NoSuchMethodException | SecurityException | InvocationTargetException e) {
+                    throw new SLIB_Ex_Critic(e.getMessage());
                 }
+                groupwiseStandaloneMeasures.put(confGroupwise, gMeasure);
             }
-            sim = gMeasure.compare(setA, setB, this, confGroupwise);
-
-        } catch (ClassNotFoundException | IllegalAccessException | IllegalArgumentException | InstantiationException | NoSuchMethodException | SecurityException | InvocationTargetException | SLIB_Exception e) {
-            throw new SLIB_Ex_Critic(e.getMessage());
+            return gMeasure;
         }
-        return sim;
     }
 
     /**
@@ -932,7 +2012,7 @@ public class SM_Engine {
     public Map<URI, Integer> getnbPathLeadingToAllVertex() throws SLIB_Ex_Critic {
 
         if (cache.nbPathLeadingToAllVertices == null) {
-            cache.nbPathLeadingToAllVertices = bottomNodeAccessor.computeNbPathLeadingToAllVertices();
+            cache.nbPathLeadingToAllVertices = bottomNodeAccessor.computeNbPathLeadingToAllVertices(getForkJoinPool());
         }
 
         return Collections.unmodifiableMap(cache.nbPathLeadingToAllVertices);
@@ -953,6 +2033,10 @@ public class SM_Engine {
      * required to ensure that the number of instances associated to a class is
      * never equal to 0.
      *
+     * When the instance accessor of the engine is an {@link AnnotationStore},
+     * the annotations are read from the store, see
+     * {@link #getNbInstancesInferredPropFromStore(AnnotationStore, boolean)}.
+     *
      * @return A Map which contains an entry for each class with the number of
      * instances of the class (with inference)
      */
@@ -960,7 +2044,11 @@ public class SM_Engine {
 
         checkInstanceAccessorIsDefined();
 
-        Map<URI, Set<URI>> instancesOfClasses = new HashMap();
+        if (instanceAccessor instanceof AnnotationStore) {
+            return getNbInstancesInferredPropFromStore((AnnotationStore) instanceAccessor, addAnInstanceToEachTerminalClass);
+        }
+
+        final Map<URI, Set<URI>> instancesOfClasses = new HashMap();
 
         Iterator<URI> it = instanceAccessor.getInstancesIt();
         URI i;
@@ -1000,25 +2088,108 @@ public class SM_Engine {
             }
         }
 
+        class Propagation implements VertexVisitor {
+
+            Set<URI> instanceOfc;
+
+            @Override
+            public boolean visit(URI target) {
+                instancesOfClasses.get(target).addAll(instanceOfc);
+                return true;
+            }
+        }
+        Propagation propagation = new Propagation();
+
         for (URI c : topoOrdering) {
             Set<URI> instanceOfc = instancesOfClasses.get(c);
             rStack.put(c, instanceOfc.size());
 
             // propagate instances in a bottom up fashion according the topological order
             // to the instances
-            for (E e : graph.getE(c, topNodeAccessor.getWalkConstraint())) {
+            // we perform the union if the c contains instances
+            if (!instanceOfc.isEmpty()) {
+                propagation.instanceOfc = instanceOfc;
+                graph.forEachNeighbour(c, topNodeAccessor.getWalkConstraint(), propagation);
+            }
+        }
+        cache.nbOccurrencePropagatted = rStack;
+
+        return Collections.unmodifiableMap(cache.nbOccurrencePropagatted);
+    }
+
+    /**
+     * Computes the number of instances of each class (with inferences) from
+     * the annotations of a store, see
+     * {@link #getNbInstancesInferredPropFromCorpus(boolean)}. The classes of
+     * an instance are read as ids from the store and the inclusive ancestors
+     * of these classes are marked in an array indexed by class id, each
+     * marked class counting the instance once. No set of instances is built.
+     *
+     * @param store the store containing the annotations
+     * @param addAnInstanceToEachTerminalClass see
+     * {@link #getNbInstancesInferredPropFromCorpus(boolean)}
+     * @return A Map which contains an entry for each class with the number of
+     * instances of the class (with inference)
+     */
+    private Map<URI, Integer> getNbInstancesInferredPropFromStore(AnnotationStore store, boolean addAnInstanceToEachTerminalClass) {
+
+        ReachabilityIndex index = getAncestorsIndex();
+
+        // ids of the store -> class ids, -1 if the class is not part of the taxonomy
+        int[] classIds = new int[store.getClasses().size()];
+        for (int c = 0; c < classIds.length; c++) {
+            URI uri = store.getClassURI(c);
+            classIds[c] = classes.contains(uri) ? index.getId(uri) : -1;
+        }
 
-                // we perform the union if the c contains instances
-                if (!instanceOfc.isEmpty()) {
-                    instancesOfClasses.get(e.getTarget()).addAll(instanceOfc);
+        int[] counts = new int[index.size()];
+        // marks[c] is the last instance which has been counted for c
+        int[] marks = new int[index.size()];
+        int instance = 0;
+
+        int nbInstances = store.getInstanceNb();
+        for (int i = 0; i < nbInstances; i++) {
+            instance++;
+            for (int c : store.getClassIds(i)) {
+                if (classIds[c] != -1) {
+                    countInstance(index, classIds[c], instance, marks, counts);
                 }
             }
         }
+        if (addAnInstanceToEachTerminalClass) {
+            for (URI leaf : getLeaves()) {
+                instance++;
+                countInstance(index, index.getId(leaf), instance, marks, counts);
+            }
+        }
+
+        Map<URI, Integer> rStack = new HashMap<URI, Integer>();
+        for (int c = 0; c < counts.length; c++) {
+            rStack.put(index.getURI(c), counts[c]);
+        }
         cache.nbOccurrencePropagatted = rStack;
 
         return Collections.unmodifiableMap(cache.nbOccurrencePropagatted);
     }
 
+    /**
+     * Count an instance for a class and its ancestors, the classes which have
+     * already been marked for the instance are skipped.
+     */
+    private static void countInstance(ReachabilityIndex index, int id, int instance, int[] marks, int[] counts) {
+
+        if (marks[id] != instance) {
+            marks[id] = instance;
+            counts[id]++;
+        }
+        for (int anc : index.getReachableIds(id)) {
+            if (marks[anc] != instance) {
+                marks[anc] = instance;
+                counts[anc]++;
+            }
+        }
+    }
+
     /**
      * Compute the matrix of similarity for two sets of vertex/concepts/classes.
      * In other words, the matrix will contain all the semantic scores which can
@@ -1051,6 +2222,251 @@ public class SM_Engine {
         return m;
     }
 
+    /**
+     * Compute the matrix of similarity of two arrays of classes, the cell (i,j)
+     * of the matrix is set to the score of the pair {@code (rows[i],
+     * columns[j])}. The matrix is computed by tiles of a few thousand cells,
+     * which are split among the threads allowed by the {@link ThreadManager}.
+     * If the measure is symmetric and the two arrays are equal only the upper
+     * triangle of the matrix is computed, the lower triangle is then copied.
+     *
+     * The scores are not stored in the cache of the engine. The given matrix
+     * can be stored outside of the heap, e.g. in a memory mapped file (see
+     * {@link MatrixFloat#map(java.io.File, int, int)}), for matrices which do
+     * not fit in memory.
+     *
+     * @param pairwiseConf the pairwise semantic measure configuration which
+     * must be used to compute the score of a pair of classes
+     * @param rows the classes associated to the rows of the matrix
+     * @param columns the classes associated to the columns of the matrix
+     * @param matrix the matrix to fill, of size {@code rows.length x
+     * columns.length}
+     * @return the given matrix filled with the scores.
+     * @throws SLIB_Ex_Critic
+     */
+    public MatrixFloat getMatrixScore(SMconf pairwiseConf, URI[] rows, URI[] columns, MatrixFloat matrix) throws SLIB_Ex_Critic {
+
+        if (matrix.getNbRows() != rows.length || matrix.getNbColumns() != columns.length) {
+            throw new IllegalArgumentException("Matrix of size " + matrix.getNbRows() + "x" + matrix.getNbColumns() + " cannot store " + rows.length + "x" + columns.length + " scores");
+        }
+        PairwiseMeasureHandle handle = getPairwiseHandle(pairwiseConf);
+
+        int[] rowIds = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            rowIds[i] = getClassId(rows[i]);
+        }
+        int[] columnIds = new int[columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            columnIds[j] = getClassId(columns[j]);
+        }
+        boolean triangular = handle.symmetric && Arrays.equals(rowIds, columnIds);
+
+        int nbBands = (rows.length + MatrixTask.TILE_SIZE - 1) / MatrixTask.TILE_SIZE;
+        MatrixTask task = new MatrixTask(handle, rowIds, columnIds, triangular, matrix, 0, nbBands);
+        ForkJoinPool pool = getForkJoinPool();
+        if (pool == null || nbBands <= 1) {
+            task.computeBands();
+        } else {
+            invokeParallel(pool, task);
+        }
+        return matrix;
+    }
+
+    /**
+     * Computation of a range of bands of rows of a matrix of scores, see
+     * {@link SM_Engine#getMatrixScore(SMconf, URI[], URI[], MatrixFloat)}.
+     * Each band is processed tile by tile so that the information related to
+     * the classes of a tile remains in the processor caches.
+     */
+    private class MatrixTask extends RecursiveAction {
+
+        private static final int TILE_SIZE = 64;
+
+        private final PairwiseMeasureHandle handle;
+        private final int[] rowIds;
+        private final int[] columnIds;
+        private final boolean triangular;
+        private final MatrixFloat matrix;
+        private final int fromBand;
+        private final int toBand;
+
+        MatrixTask(PairwiseMeasureHandle handle, int[] rowIds, int[] columnIds, boolean triangular, MatrixFloat matrix, int fromBand, int toBand) {
+            this.handle = handle;
+            this.rowIds = rowIds;
+            this.columnIds = columnIds;
+            this.triangular = triangular;
+            this.matrix = matrix;
+            this.fromBand = fromBand;
+            this.toBand = toBand;
+        }
+
+        @Override
+        protected void compute() {
+            if (toBand - fromBand <= 1) {
+                try {
+                    computeBands();
+                } catch (SLIB_Ex_Critic e) {
+                    throw new IllegalStateException(e);
+                }
+            } else {
+                int middle = (fromBand + toBand) >>> 1;
+                invokeAll(new MatrixTask(handle, rowIds, columnIds, triangular, matrix, fromBand, middle),
+                        new MatrixTask(handle, rowIds, columnIds, triangular, matrix, middle, toBand));
+            }
+        }
+
+        void computeBands() throws SLIB_Ex_Critic {
+
+            // scores of the current tile, mirrored once the tile is complete
+            float[] tile = triangular ? new float[TILE_SIZE * TILE_SIZE] : null;
+
+            for (int band = fromBand; band < toBand; band++) {
+
+                int rowFrom = band * TILE_SIZE;
+                int rowTo = Math.min(rowIds.length, rowFrom + TILE_SIZE);
+
+                for (int colFrom = triangular ? rowFrom : 0; colFrom < columnIds.length; colFrom += TILE_SIZE) {
+
+                    int colTo = Math.min(columnIds.length, colFrom + TILE_SIZE);
+
+                    for (int i = rowFrom; i < rowTo; i++) {
+                        for (int j = triangular ? Math.max(i, colFrom) : colFrom; j < colTo; j++) {
+
+                            float sim = (float) computeScore(handle, rowIds[i], columnIds[j]);
+                            matrix.set(i, j, sim);
+                            if (triangular) {
+                                tile[(j - colFrom) * TILE_SIZE + (i - rowFrom)] = sim;
+                            }
+                        }
+                    }
+                    if (triangular) {
+                        // mirrored block written row by row
+                        for (int j = colFrom; j < colTo; j++) {
+                            int to = Math.min(rowTo, j + 1);
+                            for (int i = rowFrom; i < to; i++) {
+                                matrix.set(j, i, tile[(j - colFrom) * TILE_SIZE + (i - rowFrom)]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Compute the score of two classes identified by their ids, the score is
+     * not cached.
+     */
+    private double computeScore(PairwiseMeasureHandle handle, int a, int b) throws SLIB_Ex_Critic {
+
+        double sim;
+        try {
+            if (handle.primitive != null) {
+                sim = handle.primitive.compare(a, b, this, handle.conf);
+            } else {
+                sim = handle.measure.compare(getClassURI(a), getClassURI(b), this, handle.conf);
+            }
+            if (Double.isNaN(sim) || Double.isInfinite(sim)) {
+                SMutils.throwArithmeticCriticalException(handle.conf, getClassURI(a), getClassURI(b), sim);
+            }
+        } catch (SLIB_Exception e) {
+            throw new SLIB_Ex_Critic(e);
+        }
+        return sim;
+    }
+
+    /**
+     * Search the k classes the most similar to a given class, the class itself
+     * is not considered. For the measures implementing
+     * {@link Measure_Pairwise_MICA_Bounded} the candidates are visited by
+     * decreasing IC of their MICA with the given class: the ancestors of the
+     * class are processed by decreasing IC, each one giving access to its
+     * descendants not already visited. The search stops as soon as the bound
+     * of the scores of the remaining candidates is lower than the k-th best
+     * score found. The other measures are evaluated for all the classes.
+     *
+     * The scores are not stored in the cache of the engine.
+     *
+     * @param pairwiseConf the pairwise semantic measure configuration
+     * @param a the class
+     * @param k the number of classes to retrieve
+     * @return the k (or less) most similar classes associated to their
+     * scores, sorted by decreasing score
+     * @throws SLIB_Ex_Critic
+     */
+    public List<Entry<URI, Double>> getMostSimilar(SMconf pairwiseConf, URI a, int k) throws SLIB_Ex_Critic {
+
+        if (k < 0) {
+            throw new IllegalArgumentException("Invalid number of classes " + k);
+        }
+        PairwiseMeasureHandle handle = getPairwiseHandle(pairwiseConf);
+        int ia = getClassId(a);
+
+        // min-heap of the best candidates, ties are broken by id
+        PriorityQueue<Entry<Integer, Double>> best = new PriorityQueue<Entry<Integer, Double>>(k + 1, new Comparator<Entry<Integer, Double>>() {
+            @Override
+            public int compare(Entry<Integer, Double> x, Entry<Integer, Double> y) {
+                int c = Double.compare(x.getValue(), y.getValue());
+                return c != 0 ? c : y.getKey().compareTo(x.getKey());
+            }
+        });
+
+        if (k > 0 && handle.measure instanceof Measure_Pairwise_MICA_Bounded && pairwiseConf.getICconf() != null) {
+
+            Measure_Pairwise_MICA_Bounded bounded = (Measure_Pairwise_MICA_Bounded) handle.measure;
+            MICAIndex index = getMICAIndex(pairwiseConf.getICconf());
+            double ic_a = index.getIC(ia);
+
+            BitSet visited = new BitSet(classes.size());
+            visited.set(ia);
+
+            for (int anc : index.getAncestorsByIC(ia)) {
+
+                double ic_anc = index.getIC(anc);
+                if (best.size() == k && bounded.getUpperBound(ic_a, ic_anc) < best.peek().getValue()) {
+                    break;
+                }
+                // the MICA of the class and of the candidates not yet visited is anc
+                addCandidate(handle, ia, anc, visited, best, k);
+                for (int d : getDescendantIds(anc)) {
+                    addCandidate(handle, ia, d, visited, best, k);
+                }
+            }
+        } else if (k > 0) {
+            for (URI c : classes) {
+                int id = getClassId(c);
+                if (id != ia) {
+                    addCandidate(handle, ia, id, null, best, k);
+                }
+            }
+        }
+
+        List<Entry<URI, Double>> results = new ArrayList<Entry<URI, Double>>(best.size());
+        while (!best.isEmpty()) {
+            Entry<Integer, Double> e = best.poll();
+            results.add(new AbstractMap.SimpleEntry<URI, Double>(getClassURI(e.getKey()), e.getValue()));
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    private void addCandidate(PairwiseMeasureHandle handle, int a, int b, BitSet visited, PriorityQueue<Entry<Integer, Double>> best, int k) throws SLIB_Ex_Critic {
+
+        if (visited != null) {
+            if (visited.get(b)) {
+                return;
+            }
+            visited.set(b);
+        }
+        Entry<Integer, Double> e = new AbstractMap.SimpleEntry<Integer, Double>(b, computeScore(handle, a, b));
+        if (best.size() < k) {
+            best.add(e);
+        } else if (best.comparator().compare(e, best.peek()) > 0) {
+            best.poll();
+            best.add(e);
+        }
+    }
+
     /**
      * Check if the engine is configured to store the results of the pairwise
      * semantic measure computation.
@@ -1079,6 +2495,53 @@ public class SM_Engine {
         this.cachePairwiseResults = cachePairwiseResults;
     }
 
+    /**
+     * Set the maximal number of pairwise scores stored by the engine when
+     * caching is enabled, see {@link #setCachePairwiseResults(boolean)}. The
+     * scores already stored are discarded.
+     *
+     * @param capacity the maximal number of scores
+     */
+    public void setPairwiseCacheCapacity(int capacity) {
+        logger.info("Pairwise results cache capacity set to " + capacity);
+        cache.pairwiseResults = new PairwiseResultCache(capacity);
+    }
+
+    /**
+     * Set the maximal number of annotation profiles stored by the engine, see
+     * {@link #getAnnotationProfile(Set)}. The profiles already stored are
+     * discarded.
+     *
+     * @param capacity the maximal number of profiles
+     */
+    public void setAnnotationProfileCacheCapacity(int capacity) {
+        logger.info("Annotation profile cache capacity set to " + capacity);
+        cache.annotationProfiles = new AnnotationProfileCache(capacity);
+    }
+
+    /**
+     * Access to the cache of the pairwise scores, e.g. to check its
+     * statistics in order to size it.
+     *
+     * @return the cache of the pairwise scores
+     */
+    public PairwiseResultCache getPairwiseCache() {
+        return cache.pairwiseResults;
+    }
+
+    /**
+     * Write a snapshot of the results precomputed by the engine: ancestors,
+     * descendants, leaves and the information contents computed so far. An
+     * engine built for the same graph can load the snapshot instead of
+     * computing these results, see {@link SM_EngineConf#setSnapshot(String)}.
+     *
+     * @param file the path of the snapshot to create
+     * @throws SLIB_Ex_Critic
+     */
+    public void saveSnapshot(String file) throws SLIB_Ex_Critic {
+        SM_EngineSnapshot.write(this, file);
+    }
+
     /**
      *
      * @param set
@@ -1143,10 +2606,11 @@ public class SM_Engine {
      *
      * @param param the key corresponding to the id of the weighting scheme to
      * retrieve
-     * @return the weighting scheme associated to the string.
+     * @return the weighting scheme associated to the string, an unmodifiable
+     * scheme associating a weight of 1 to all edges.
      */
     public GWS getWeightingScheme(String param) {
-        return new GWS_impl(1);
+        return defaultWeightingScheme;
     }
 
     public RVF_DAG getAncestorEngine() {
@@ -1157,15 +2621,17 @@ public class SM_Engine {
         return bottomNodeAccessor;
     }
 
-    private void computeLeaves() {
-        classesLeaves = new HashSet();
+    private synchronized void computeLeaves() {
+        Set<URI> leaves = new HashSet();
 
         WalkConstraint wc = bottomNodeAccessor.getWalkConstraint();
         for (URI v : classes) {
             if (graph.getV(v, wc).isEmpty()) {
-                classesLeaves.add(v);
+                leaves.add(v);
             }
         }
+        classesLeaves = leaves;
+        precomputations.add(Precomputation.LEAVES);
     }
 
     /**
@@ -1194,6 +2660,23 @@ public class SM_Engine {
         }
     }
 
+    private void throwErrorIfNotClass(int id) {
+        BitSet ids = classIds;
+        if (ids == null) {
+            ids = new BitSet(classes.size());
+            for (URI c : classes) {
+                int i = classId(c);
+                if (i != -1) {
+                    ids.set(i);
+                }
+            }
+            classIds = ids;
+        }
+        if (id < 0 || !ids.get(id)) {
+            throw new IllegalArgumentException("The given id " + id + " cannot be associated to a class");
+        }
+    }
+
     private void throwErrorIfNotClass(Set<URI> c) {
         if (!classes.containsAll(c)) {
             // Search a example of URI which cannnot be associated to a class
@@ -1234,11 +2717,7 @@ public class SM_Engine {
                 cache.shortestPath.put(a, new ConcurrentHashMap<URI, Double>());
             }
 
-            WalkConstraint wc = WalkConstraintUtils.copy(topNodeAccessor.getWalkConstraint());
-            wc.addWalkconstraints(bottomNodeAccessor.getWalkConstraint());
-
-            Dijkstra dijkstra = new Dijkstra(graph, wc, weightingScheme);
-            double sp = dijkstra.shortestPath(a, b);
+            double sp = getShortestPathEngine(weightingScheme).shortestPath(a, b);
             cache.shortestPath.get(a).put(b, sp);
         }
         return cache.shortestPath.get(a).get(b);
@@ -1255,11 +2734,162 @@ public class SM_Engine {
      */
     public URI getMSA(URI a, URI b, GWS weightingScheme) throws SLIB_Ex_Critic {
 
-        Dijkstra dijkstra = new Dijkstra(graph, topNodeAccessor.getWalkConstraint(), weightingScheme);
+        URI msa_pk;
+        if (isUnitWeightingScheme(weightingScheme)) {
+            AncestorDistanceIndex distances = getAncestorDistanceIndex();
+            msa_pk = SimDagEdgeUtils.getMSA_pekar_staab(getRoot(), getAncestorDistances(a, weightingScheme), getAncestorDistances(b, weightingScheme), getAncestorsInc(a), getAncestorsInc(b),
+                    new DistanceMap(distances, distances.getReachabilityIndex().getId(getRoot()), false));
+        } else {
+            msa_pk = SimDagEdgeUtils.getMSA_pekar_staab(getRoot(), getAllShortestPath(a, weightingScheme), getAllShortestPath(b, weightingScheme), getAncestorsInc(a), getAncestorsInc(b),
+                    getDistancesToRoot(weightingScheme));
+        }
+        return msa_pk;
+    }
 
-        URI msa_pk = SimDagEdgeUtils.getMSA_pekar_staab(getRoot(), getAllShortestPath(a, weightingScheme), getAllShortestPath(b, weightingScheme), getAncestorsInc(a), getAncestorsInc(b), dijkstra);
+    /**
+     * Access to the minimal distances between the classes and the root
+     * considering the taxonomic relationships, i.e. the weights of the
+     * shortest walks from the classes to their ancestor the root. The
+     * distances are computed at first call for a given weighting scheme and
+     * stored.
+     *
+     * @param weightingScheme the weighting scheme, null to consider edge
+     * weights set to 1
+     * @return an unmodifiable map containing the distances between the classes
+     * and the root
+     * @throws SLIB_Ex_Critic
+     */
+    public Map<URI, Double> getDistancesToRoot(GWS weightingScheme) throws SLIB_Ex_Critic {
+
+        GWS key = weightingScheme == null ? defaultWeightingScheme : weightingScheme;
+        Map<URI, Double> distances = cache.distancesToRoot.get(key);
+        if (distances == null) {
+            synchronized (cache.distancesToRoot) {
+                distances = cache.distancesToRoot.get(key);
+                if (distances == null) {
+                    // walking down from the root gives the distances of the
+                    // walks going up to it
+                    ShortestPathEngine spEngine = new ShortestPathEngine(graph, bottomNodeAccessor.getWalkConstraint(), key);
+                    distances = Collections.unmodifiableMap(spEngine.shortestPath(getRoot()));
+                    cache.distancesToRoot.put(key, distances);
+                }
+            }
+        }
+        return distances;
+    }
 
-        return msa_pk;
+    /**
+     * Access to the minimal distances between a class and its inclusive
+     * ancestors. Considering a weighting scheme in which each edge counts for
+     * 1 (see {@link #isUnitWeightingScheme(GWS)}), e.g. the default weighting
+     * scheme of the engine, the distances correspond to the number of edges of
+     * the shortest walks to the ancestors and are read from the index of the
+     * distances to the ancestors. Otherwise the
+     * distances are provided by {@link #getAllShortestPath(URI, GWS)}.
+     *
+     * @param a the class
+     * @param weightingScheme the weighting scheme
+     * @return a map containing the minimal distances between the class and
+     * its ancestors, the class included.
+     * @throws SLIB_Ex_Critic
+     */
+    public Map<URI, Double> getAncestorDistances(URI a, GWS weightingScheme) throws SLIB_Ex_Critic {
+
+        throwErrorIfNotClass(a);
+        if (!isUnitWeightingScheme(weightingScheme)) {
+            return getAllShortestPath(a, weightingScheme);
+        }
+        AncestorDistanceIndex distances = getAncestorDistanceIndex();
+        return new DistanceMap(distances, distances.getReachabilityIndex().getId(a), true);
+    }
+
+    /**
+     * Access to the index of the distances between the classes and their
+     * ancestors. The index is computed at first call and stored by the
+     * engine.
+     *
+     * @return the index of the distances to the ancestors
+     */
+    public AncestorDistanceIndex getAncestorDistanceIndex() {
+        AncestorDistanceIndex distances = cache.ancestorDistances;
+        if (distances == null) {
+            synchronized (this) {
+                distances = cache.ancestorDistances;
+                if (distances == null) {
+                    distances = new AncestorDistanceIndex(graph, topNodeAccessor.getWalkConstraint(), getAncestorsIndex());
+                    cache.ancestorDistances = distances;
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * @param weightingScheme a weighting scheme, null to consider edge weights
+     * set to 1
+     * @return true if each edge counts for 1 considering the given weighting
+     * scheme, e.g. the default weighting scheme of the engine.
+     */
+    public boolean isUnitWeightingScheme(GWS weightingScheme) {
+        return weightingScheme == null || (weightingScheme.getDefaultWeight() == 1 && weightingScheme.isUniform());
+    }
+
+    /**
+     * Unmodifiable view of the distances between a vertex and the vertices
+     * reachable from it (fromFixed), or between the vertices from which a
+     * vertex is reachable and this vertex.
+     */
+    private static class DistanceMap extends AbstractMap<URI, Double> {
+
+        private final AncestorDistanceIndex distances;
+        private final ReachabilityIndex index;
+        private final int fixed;
+        private final boolean fromFixed;
+
+        DistanceMap(AncestorDistanceIndex distances, int fixed, boolean fromFixed) {
+            this.distances = distances;
+            this.index = distances.getReachabilityIndex();
+            this.fixed = fixed;
+            this.fromFixed = fromFixed;
+        }
+
+        private int distance(int id) {
+            return fromFixed ? distances.getMinDistance(fixed, id) : distances.getMinDistance(id, fixed);
+        }
+
+        @Override
+        public Double get(Object key) {
+            int id = key instanceof URI ? index.getId((URI) key) : -1;
+            if (id == -1) {
+                return null;
+            }
+            int d = distance(id);
+            return d == -1 ? null : (double) d;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<URI, Double>> entrySet() {
+            Set<Entry<URI, Double>> entries = new HashSet<Entry<URI, Double>>();
+            if (fromFixed) {
+                entries.add(new SimpleImmutableEntry<URI, Double>(index.getURI(fixed), 0.));
+                for (int id : index.getReachableIds(fixed)) {
+                    entries.add(new SimpleImmutableEntry<URI, Double>(index.getURI(id), (double) distance(id)));
+                }
+            } else {
+                for (int id = fixed; id < index.size(); id++) {
+                    int d = distance(id);
+                    if (d != -1) {
+                        entries.add(new SimpleImmutableEntry<URI, Double>(index.getURI(id), (double) d));
+                    }
+                }
+            }
+            return Collections.unmodifiableSet(entries);
+        }
     }
 
     /**
@@ -1272,19 +2902,47 @@ public class SM_Engine {
      *
      * @throws SLIB_Ex_Critic
      */
-    public synchronized Map<URI, Double> getAllShortestPath(URI a, GWS weightingScheme) throws SLIB_Ex_Critic {
-
-        if (cache.shortestPath.get(a) == null) {
+    public Map<URI, Double> getAllShortestPath(URI a, GWS weightingScheme) throws SLIB_Ex_Critic {
 
-            WalkConstraint wc = WalkConstraintUtils.copy(topNodeAccessor.getWalkConstraint());
-            wc.addWalkconstraints(bottomNodeAccessor.getWalkConstraint());
+        ConcurrentHashMap<URI, Double> minDists_cA = cache.shortestPath.get(a);
+        if (minDists_cA == null) {
 
-            Dijkstra dijkstra = new Dijkstra(graph, wc, weightingScheme);
-            ConcurrentHashMap<URI, Double> minDists_cA = dijkstra.shortestPath(a);
-            cache.shortestPath.put(a, minDists_cA);
+            minDists_cA = getShortestPathEngine(weightingScheme).shortestPath(a);
+            ConcurrentHashMap<URI, Double> previous = cache.shortestPath.putIfAbsent(a, minDists_cA);
+            if (previous != null) {
+                minDists_cA = previous;
+            }
         }
+        return minDists_cA;
+    }
 
-        return cache.shortestPath.get(a);
+    /**
+     * Access to the engine used to compute the shortest paths between the
+     * classes considering the taxonomic relationships in both directions. The
+     * engine is built at first call for a given weighting scheme and stored.
+     *
+     * @param weightingScheme the weighting scheme, null to consider edge
+     * weights set to 1
+     * @return the shortest path engine
+     * @throws SLIB_Ex_Critic
+     */
+    public ShortestPathEngine getShortestPathEngine(GWS weightingScheme) throws SLIB_Ex_Critic {
+
+        GWS key = weightingScheme == null ? defaultWeightingScheme : weightingScheme;
+        ShortestPathEngine spEngine = cache.shortestPathEngines.get(key);
+        if (spEngine == null) {
+            synchronized (cache.shortestPathEngines) {
+                spEngine = cache.shortestPathEngines.get(key);
+                if (spEngine == null) {
+                    WalkConstraint wc = WalkConstraintUtils.copy(topNodeAccessor.getWalkConstraint());
+                    wc.addWalkconstraints(bottomNodeAccessor.getWalkConstraint());
+
+                    spEngine = new ShortestPathEngine(graph, wc, key);
+                    cache.shortestPathEngines.put(key, spEngine);
+                }
+            }
+        }
+        return spEngine;
     }
 
     /**
@@ -0,0 +1,130 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.engine;
+
+/**
+ * Options defining the way a {@link SM_Engine} is initialized.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class SM_EngineConf {
+
+    private String snapshot = null;
+    private boolean lazy = false;
+    private int annotationProfileCacheCapacity = AnnotationProfileCache.DEFAULT_CAPACITY;
+
+    /**
+     * Getter of the snapshot location.
+     *
+     * @return the path of the snapshot used to initialize the engine, null if
+     * no snapshot is used.
+     */
+    public String getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Set the path of a snapshot written by
+     * {@link SM_Engine#saveSnapshot(String)}. If the file exists and has been
+     * written for the same graph and the same walk constraints, the engine
+     * loads the precomputed results it contains instead of computing them,
+     * see {@link SM_EngineSnapshot}.
+     *
+     * @param snapshot the path of the snapshot, null to compute all results
+     * @return the configuration (auto complete feature)
+     */
+    public SM_EngineConf setSnapshot(String snapshot) {
+        this.snapshot = snapshot;
+        return this;
+    }
+
+    /**
+     * Check if the engine computes its results on demand.
+     *
+     * @return true if the lazy mode is enabled
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Enable or disable the lazy mode. By default the engine computes the
+     * ancestors, the descendants and the leaves of all classes at creation.
+     * In lazy mode nothing is computed at creation: the inclusive ancestors
+     * and descendants of a class are computed and stored the first time they
+     * are accessed, and the indexes over all classes are only built when a
+     * method which requires them is called, e.g. an IC depending on the
+     * descendants of the classes. The computations which have been
+     * performed can be checked using {@link SM_Engine#getPrecomputations()}.
+     *
+     * Since the lazy computations are triggered by methods which do not
+     * declare exceptions, an error detected during these computations (e.g.
+     * a cycle in the taxonomic graph) is reported by an
+     * {@link IllegalStateException}.
+     *
+     * @param lazy true to enable the lazy mode
+     * @return the configuration (auto complete feature)
+     */
+    public SM_EngineConf setLazy(boolean lazy) {
+        this.lazy = lazy;
+        return this;
+    }
+
+    /**
+     * Getter of the maximal number of annotation profiles stored by the
+     * engine.
+     *
+     * @return the capacity of the cache of the annotation profiles
+     */
+    public int getAnnotationProfileCacheCapacity() {
+        return annotationProfileCacheCapacity;
+    }
+
+    /**
+     * Set the maximal number of annotation profiles stored by the engine, see
+     * {@link SM_Engine#getAnnotationProfile(java.util.Set)}. The capacity can
+     * also be modified once the engine is created, see
+     * {@link SM_Engine#setAnnotationProfileCacheCapacity(int)}.
+     *
+     * @param capacity the maximal number of profiles, must be positive
+     * @return the configuration (auto complete feature)
+     */
+    public SM_EngineConf setAnnotationProfileCacheCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of the cache must be positive, given " + capacity);
+        }
+        this.annotationProfileCacheCapacity = capacity;
+        return this;
+    }
+}
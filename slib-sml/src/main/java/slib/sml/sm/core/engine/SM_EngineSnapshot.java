@@ -0,0 +1,472 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import org.openrdf.model.URI;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import slib.graph.algo.accessor.InstanceAccessor;
+import slib.graph.algo.extraction.rvf.ReachabilityIndex;
+import slib.graph.model.graph.G;
+import slib.graph.model.graph.elements.E;
+import slib.graph.model.graph.utils.WalkConstraint;
+import slib.graph.model.impl.repo.URIFactoryMemory;
+import slib.graph.model.repo.URIFactory;
+import slib.sml.sm.core.metrics.ic.utils.ICconf;
+import slib.sml.sm.core.utils.SMConstants;
+import slib.utils.ex.SLIB_Ex_Critic;
+
+/**
+ * Writer and loader of the snapshots of the results precomputed by a
+ * {@link SM_Engine}: the inclusive ancestors and descendants of the classes,
+ * the leaves and the information contents computed so far. Loading a snapshot
+ * replaces these computations at engine startup by a sequential read of the
+ * file: the file is memory-mapped, its checksum is verified and its content
+ * is decoded into the heap structures used by the engine. No topological
+ * sort, closure, leaf or information content computation is performed.
+ *
+ * A snapshot is identified by a fingerprint of the graph (vertices and
+ * edges), of the classes and of the walk constraints used to reach the
+ * ancestors and descendants. A snapshot whose fingerprint differs from the
+ * one of the engine is ignored. The fingerprint relies on the numbers of
+ * elements and on the hash codes of the URIs, which are cached by the URIs,
+ * no string is therefore built to compute it. It is computed once per
+ * engine. Corpus-based information contents are also
+ * associated to a fingerprint of the annotations provided by the instance
+ * accessor and are only loaded if it matches.
+ *
+ * Layout of a file (big-endian):
+ * <ul>
+ * <li>header: magic number, version, fingerprint, length of the content and
+ * CRC32 checksum of the content</li>
+ * <li>dictionary: the URIs referred to in the rest of the file</li>
+ * <li>the ancestors and the descendants, see
+ * {@link ReachabilityIndex#write(java.io.DataOutput, Map)}</li>
+ * <li>the leaves</li>
+ * <li>the fingerprint of the annotations and the information contents, each
+ * one identified by the flag and the parameters of its configuration</li>
+ * </ul>
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class SM_EngineSnapshot {
+
+    /**
+     * Magic number identifying the format.
+     */
+    public static final long MAGIC = 0x534C49422D534E50L; // SLIB-SNP
+    /**
+     * Version of the format.
+     */
+    public static final int VERSION = 2;
+    private static final int HEADER_SIZE = 36;
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    static Logger logger = LoggerFactory.getLogger(SM_EngineSnapshot.class);
+
+    /**
+     * Write a snapshot of the results precomputed by the engine. Only the
+     * information contents already computed by the engine are stored.
+     *
+     * @param engine the engine
+     * @param outfile the path of the file to create
+     * @throws SLIB_Ex_Critic
+     */
+    public static void write(SM_Engine engine, String outfile) throws SLIB_Ex_Critic {
+
+        logger.info("Writing engine snapshot to " + outfile);
+
+        ReachabilityIndex ancestors = engine.getAncestorsIndex();
+        ReachabilityIndex descendants = engine.getDescendantsIndex();
+        Set<URI> leaves = engine.getLeaves();
+
+        Map<String, Map<URI, Double>> ics = new LinkedHashMap<String, Map<URI, Double>>(engine.cache.snapshotICs);
+        for (Entry<ICconf, Map<URI, Double>> e : engine.cache.metrics_results.entrySet()) {
+            ics.put(icKey(e.getKey()), e.getValue());
+        }
+
+        Map<URI, Integer> dictionary = new LinkedHashMap<URI, Integer>();
+        for (int id = 0; id < ancestors.size(); id++) {
+            addToDictionary(dictionary, ancestors.getURI(id));
+        }
+        for (int id = 0; id < descendants.size(); id++) {
+            addToDictionary(dictionary, descendants.getURI(id));
+        }
+        for (URI c : engine.getClasses()) {
+            addToDictionary(dictionary, c);
+        }
+        for (Map<URI, Double> values : ics.values()) {
+            for (URI v : values.keySet()) {
+                addToDictionary(dictionary, v);
+            }
+        }
+
+        File file = new File(outfile);
+        if (file.exists() && !file.delete()) {
+            throw new SLIB_Ex_Critic("Cannot overwrite " + outfile);
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+
+            FileChannel channel = raf.getChannel();
+            channel.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            OutputStream os = new CheckedOutputStream(Channels.newOutputStream(channel), crc);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, CHUNK_SIZE));
+
+            out.writeInt(dictionary.size());
+            for (URI v : dictionary.keySet()) {
+                byte[] b = v.stringValue().getBytes(UTF8);
+                out.writeInt(b.length);
+                out.write(b);
+            }
+
+            ancestors.write(out, dictionary);
+            descendants.write(out, dictionary);
+
+            out.writeInt(leaves.size());
+            for (URI v : leaves) {
+                out.writeInt(dictionary.get(v));
+            }
+
+            boolean corpusBased = false;
+            for (String key : ics.keySet()) {
+                corpusBased |= isCorpusBased(key);
+            }
+            out.writeLong(corpusBased ? annotationFingerprint(engine.instanceAccessor) : 0);
+            out.writeInt(ics.size());
+            for (Entry<String, Map<URI, Double>> e : ics.entrySet()) {
+                byte[] b = e.getKey().getBytes(UTF8);
+                out.writeInt(b.length);
+                out.write(b);
+                out.writeInt(e.getValue().size());
+                for (Entry<URI, Double> ic : e.getValue().entrySet()) {
+                    out.writeInt(dictionary.get(ic.getKey()));
+                    out.writeDouble(ic.getValue());
+                }
+            }
+            out.flush();
+
+            long length = channel.position() - HEADER_SIZE;
+            if (length > Integer.MAX_VALUE) {
+                throw new SLIB_Ex_Critic("Snapshot too large (" + length + " bytes)");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putLong(MAGIC).putInt(VERSION).putLong(fingerprint(engine)).putLong(length).putLong(crc.getValue());
+            header.flip();
+            channel.write(header, 0);
+
+        } catch (IOException e) {
+            throw new SLIB_Ex_Critic("Error writing engine snapshot " + outfile + ": " + e.getMessage(), e);
+        }
+        logger.info("Snapshot written, " + ics.size() + " IC(s) stored");
+    }
+
+    /**
+     * Load the results stored in a snapshot into an engine.
+     *
+     * @param engine the engine
+     * @param infile the path of the snapshot
+     * @return true if the snapshot has been loaded, false if it does not
+     * exist or has not been written for the graph and the configuration of
+     * the engine.
+     * @throws SLIB_Ex_Critic if the file is not a valid snapshot
+     */
+    public static boolean load(SM_Engine engine, String infile) throws SLIB_Ex_Critic {
+
+        File file = new File(infile);
+        if (!file.exists()) {
+            logger.info("No engine snapshot found at " + infile);
+            return false;
+        }
+        logger.info("Loading engine snapshot " + infile);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < HEADER_SIZE) {
+                throw new SLIB_Ex_Critic(infile + " is not an engine snapshot");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getLong() != MAGIC) {
+                throw new SLIB_Ex_Critic(infile + " is not an engine snapshot");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                logger.warn("Ignoring snapshot " + infile + ", version " + version + " found, expected " + VERSION);
+                return false;
+            }
+            if (header.getLong() != fingerprint(engine)) {
+                logger.warn("Ignoring snapshot " + infile + ", it has been computed for another graph or configuration");
+                return false;
+            }
+            long length = header.getLong();
+            long checksum = header.getLong();
+            if (length < 0 || length > Integer.MAX_VALUE || HEADER_SIZE + length > channel.size()) {
+                throw new SLIB_Ex_Critic("Corrupted snapshot " + infile + ", invalid length " + length);
+            }
+            MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, length);
+
+            CRC32 crc = new CRC32();
+            byte[] chunk = new byte[CHUNK_SIZE];
+            while (content.hasRemaining()) {
+                int n = Math.min(chunk.length, content.remaining());
+                content.get(chunk, 0, n);
+                crc.update(chunk, 0, n);
+            }
+            if (crc.getValue() != checksum) {
+                throw new SLIB_Ex_Critic("Corrupted snapshot " + infile + ", invalid checksum");
+            }
+            content.rewind();
+
+            URIFactory factory = URIFactoryMemory.getSingleton();
+            URI[] dictionary = new URI[content.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = factory.getURI(readString(content));
+            }
+
+            ReachabilityIndex ancestors = ReachabilityIndex.read(content, dictionary);
+            ReachabilityIndex descendants = ReachabilityIndex.read(content, dictionary);
+
+            int nbLeaves = content.getInt();
+            List<URI> leaves = new ArrayList<URI>(nbLeaves);
+            for (int i = 0; i < nbLeaves; i++) {
+                leaves.add(dictionary[content.getInt()]);
+            }
+
+            long annotations = content.getLong();
+            Boolean annotationsMatch = null;
+            Map<String, Map<URI, Double>> ics = new HashMap<String, Map<URI, Double>>();
+            int nbICs = content.getInt();
+            for (int i = 0; i < nbICs; i++) {
+                String key = readString(content);
+                int n = content.getInt();
+                Map<URI, Double> values = new HashMap<URI, Double>(n * 2);
+                for (int k = 0; k < n; k++) {
+                    URI v = dictionary[content.getInt()];
+                    values.put(v, content.getDouble());
+                }
+                if (isCorpusBased(key)) {
+                    if (annotationsMatch == null) {
+                        annotationsMatch = engine.instanceAccessor != null && annotationFingerprint(engine.instanceAccessor) == annotations;
+                    }
+                    if (!annotationsMatch) {
+                        logger.info("Ignoring stored IC " + key.substring(0, key.indexOf('\n')) + ", the annotations differ");
+                        continue;
+                    }
+                }
+                ics.put(key, values);
+            }
+
+            engine.cache.ancestorsInc = ancestors;
+            engine.cache.descendantsInc = descendants;
+            engine.classesLeaves = new HashSet<URI>(leaves);
+            engine.cache.snapshotICs.putAll(ics);
+
+            logger.info("Snapshot loaded, " + ics.size() + " IC(s) available");
+            return true;
+
+        } catch (IOException | RuntimeException e) {
+            throw new SLIB_Ex_Critic("Error loading engine snapshot " + infile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Build the key used to identify an information content in a snapshot.
+     *
+     * @param icConf the configuration of the information content
+     * @return the flag and the sorted parameters of the configuration
+     */
+    static String icKey(ICconf icConf) {
+        StringBuilder key = new StringBuilder(icConf.getFlag()).append('\n');
+        if (icConf.getParams() != null) {
+            for (Entry<String, Object> e : new TreeMap<String, Object>(icConf.getParams()).entrySet()) {
+                key.append(e.getKey()).append('=').append(e.getValue()).append('\n');
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean isCorpusBased(String key) {
+        return SMConstants.SIM_PAIRWISE_DAG_NODE_IC_ANNOT.containsKey(key.substring(0, key.indexOf('\n')));
+    }
+
+    /**
+     * Access to the fingerprint identifying the results of an engine, it is
+     * computed at first call and stored by the engine. The fingerprint does
+     * not depend on the order in which the vertices, the edges and the
+     * classes are stored.
+     *
+     * @param engine the engine
+     * @return the fingerprint
+     */
+    static long fingerprint(SM_Engine engine) {
+
+        long h = engine.snapshotFingerprint;
+        if (h == 0) {
+            h = computeFingerprint(engine);
+            engine.snapshotFingerprint = h;
+        }
+        return h;
+    }
+
+    private static long computeFingerprint(SM_Engine engine) {
+
+        G g = engine.getGraph();
+        long h = mix(g.getNumberVertices()) + 31 * mix(g.getNumberEdges());
+
+        long vertices = 0;
+        for (URI v : g.getV()) {
+            vertices += mix(hash(v));
+        }
+        long edges = 0;
+        for (E e : g.getE()) {
+            edges += mix(hash(e.getSource()) * 0x9E3779B97F4A7C15L ^ hash(e.getURI()) * 0xC2B2AE3D27D4EB4FL ^ hash(e.getTarget()));
+        }
+        long classes = 0;
+        for (URI c : engine.getClasses()) {
+            classes += mix(hash(c));
+        }
+        h = mix(h ^ vertices);
+        h = mix(h ^ edges);
+        h = mix(h ^ mix(engine.getClasses().size()) ^ classes);
+        h = mix(h ^ hash(engine.getAncestorEngine().getWalkConstraint()));
+        h = mix(h ^ hash(engine.getDescendantEngine().getWalkConstraint()));
+        // 0 denotes a fingerprint which has not been computed
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Compute the fingerprint of the annotations provided by an instance
+     * accessor.
+     *
+     * @param accessor the instance accessor, may be null
+     * @return the fingerprint
+     */
+    static long annotationFingerprint(InstanceAccessor accessor) {
+        if (accessor == null) {
+            return 0;
+        }
+        long h = 0;
+        Iterator<URI> it = accessor.getInstancesIt();
+        while (it.hasNext()) {
+            URI i = it.next();
+            long hi = hash(i);
+            Set<URI> classes = accessor.getClassesOfInstance(i);
+            h += mix(hi);
+            if (classes != null) {
+                for (URI c : classes) {
+                    h += mix(hi * 0x9E3779B97F4A7C15L ^ hash(c));
+                }
+            }
+        }
+        return mix(h) | 1;
+    }
+
+    private static long hash(WalkConstraint wc) {
+        List<String> in = new ArrayList<String>();
+        for (URI p : wc.getAcceptedWalks_DIR_IN()) {
+            in.add(p.stringValue());
+        }
+        List<String> out = new ArrayList<String>();
+        for (URI p : wc.getAcceptedWalks_DIR_OUT()) {
+            out.add(p.stringValue());
+        }
+        Collections.sort(in);
+        Collections.sort(out);
+        return hash("IN" + in + "OUT" + out);
+    }
+
+    /**
+     * Hash of a URI based on its hash code, i.e. the hash code of its string
+     * representation as specified by Sesame.
+     */
+    private static long hash(URI v) {
+        return mix(v.hashCode() & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the characters of a string.
+     */
+    private static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static void addToDictionary(Map<URI, Integer> dictionary, URI v) {
+        if (!dictionary.containsKey(v)) {
+            dictionary.put(v, dictionary.size());
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] b = new byte[buffer.getInt()];
+        buffer.get(b);
+        return new String(b, UTF8);
+    }
+}
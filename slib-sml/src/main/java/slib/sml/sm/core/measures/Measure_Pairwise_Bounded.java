@@ -0,0 +1,61 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.measures;
+
+import org.openrdf.model.URI;
+import slib.sml.sm.core.engine.SM_Engine;
+import slib.sml.sm.core.utils.SMconf;
+import slib.utils.ex.SLIB_Exception;
+
+/**
+ * Pairwise measure able to compute, at low cost, an upper bound of the score
+ * of a pair of classes. The bound is used to reject the pairs whose score
+ * cannot reach a threshold without computing the score, see
+ * {@link SM_Engine#compareAbove(SMconf, URI, URI, double)}.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public interface Measure_Pairwise_Bounded extends Measure_Pairwise {
+
+    /**
+     * @param a the first class
+     * @param b the second class
+     * @param c the engine used to access information required by the measures
+     * @param conf the configuration to consider
+     * @return an upper bound of the score of the pair of classes,
+     * {@link Double#POSITIVE_INFINITY} if no bound can be computed
+     * @throws SLIB_Exception
+     */
+    public double getUpperBound(URI a, URI b, SM_Engine c, SMconf conf) throws SLIB_Exception;
+}
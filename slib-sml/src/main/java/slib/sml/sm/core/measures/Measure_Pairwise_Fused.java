@@ -0,0 +1,60 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.measures;
+
+import slib.sml.sm.core.engine.PairwiseIntermediates;
+import slib.sml.sm.core.utils.SMconf;
+import slib.utils.ex.SLIB_Exception;
+
+/**
+ * Pairwise measure which can be computed from the intermediate results
+ * shared by the measures evaluated on the same pair of classes. Such measures
+ * are evaluated by
+ * {@link slib.sml.sm.core.engine.SM_Engine#compare(java.util.List, org.openrdf.model.URI, org.openrdf.model.URI)}
+ * without recomputing the intermediate results already required by the other
+ * measures, e.g. the IC of the MICA of the pair.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public interface Measure_Pairwise_Fused extends Measure_Pairwise {
+
+    /**
+     * @param pair the intermediate results of the compared pair of classes
+     * @param conf the configuration to consider
+     * @return the score of the pair of classes, equal to the score given by
+     * {@link #compare(org.openrdf.model.URI, org.openrdf.model.URI, slib.sml.sm.core.engine.SM_Engine, SMconf)}
+     * @throws SLIB_Exception
+     */
+    public double compare(PairwiseIntermediates pair, SMconf conf) throws SLIB_Exception;
+}
@@ -0,0 +1,58 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.measures;
+
+/**
+ * Pairwise measure whose scores are bounded by a function of the information
+ * content (IC) of the Most Informative Common Ancestor (MICA) of the compared
+ * classes. Such measures can be used to search the classes the most similar
+ * to a given class without comparing it to all the classes, see
+ * {@link slib.sml.sm.core.engine.SM_Engine#getMostSimilar(slib.sml.sm.core.utils.SMconf, org.openrdf.model.URI, int)}.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public interface Measure_Pairwise_MICA_Bounded extends Measure_Pairwise {
+
+    /**
+     * Compute an upper bound of the score of a class a and of any class b
+     * whose MICA with a has the given IC, considering that the IC of b is
+     * greater or equal to the IC of the MICA. The bound must increase with
+     * the IC of the MICA.
+     *
+     * @param ic_a the IC of the class a
+     * @param ic_mica the IC of the MICA of the classes
+     * @return the upper bound
+     */
+    public double getUpperBound(double ic_a, double ic_mica);
+}
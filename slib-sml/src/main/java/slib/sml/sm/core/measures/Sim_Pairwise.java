@@ -33,6 +33,9 @@
  */
 package slib.sml.sm.core.measures;
 
+import slib.sml.sm.core.utils.SMconf;
+import slib.utils.ex.SLIB_Ex_Critic;
+
 /**
  * Interface used to represent a pairwise measure which can be used to compute
  * the semantic similarity of a pair of concepts/classes.
@@ -51,6 +54,21 @@ public abstract class Sim_Pairwise implements ISim_Pairwise {
         return null;
     }
 
+    /**
+     * Check if the measure is symmetric considering the parameters defined by
+     * a configuration. The parameters of a configuration are only loaded into
+     * the measure when classes are compared, the measures whose symmetry
+     * depends on their parameters must therefore override this method. By
+     * default the result of {@link #isSymmetric()} is returned.
+     *
+     * @param conf the configuration of the measure
+     * @return true if the measure is symmetric, null if unknown
+     * @throws SLIB_Ex_Critic if a parameter of the configuration cannot be read
+     */
+    public Boolean isSymmetric(SMconf conf) throws SLIB_Ex_Critic {
+        return isSymmetric();
+    }
+
     @Override
     public Boolean isNormalized() {
         return null;
@@ -75,27 +75,36 @@ public class Sim_Framework_DAG_Set_Batet_2010 extends Sim_Framework_DAG_Set_abst
     }
 
     @Override
-    public double compare(Set<URI> ancA, Set<URI> ancB, SMconf conf) {
-
-
-        Set<URI> interSecAncestors = SetUtils.intersection(ancA, ancB);
-        Set<URI> unionAncestors = SetUtils.union(ancA, ancB);
-
-        double num = unionAncestors.size() - interSecAncestors.size();
-
+    public double sim(int nbAncest_a, int nbAncest_b, int nbInter, SMconf conf) {
 
+        int union = nbAncest_a + nbAncest_b - nbInter;
+        double num = union - nbInter;
 
         double batet;
 
         if (num == 0) {
             batet = 1;
         } else {
-            batet = -Math.log((double) num / unionAncestors.size());
-            batet = batet / Math.log(unionAncestors.size());
+            batet = -Math.log((double) num / union);
+            batet = batet / Math.log(union);
         }
         return batet;
     }
 
+    @Override
+    public double getUpperBound(int nbAncest_a, int nbAncest_b, SMconf conf) {
+
+        // the smallest set is included in the other one, any other element of
+        // the smallest set increases the union and decreases the score
+        int union = Math.max(nbAncest_a, nbAncest_b);
+        double num = union - Math.min(nbAncest_a, nbAncest_b);
+
+        if (num == 0) {
+            return 1;
+        }
+        return -Math.log(num / union) / Math.log(union);
+    }
+
     /**
      * Normalized version
      *
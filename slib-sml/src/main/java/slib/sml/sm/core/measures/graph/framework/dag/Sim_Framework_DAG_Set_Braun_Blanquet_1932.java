@@ -33,11 +33,7 @@
  */
 package slib.sml.sm.core.measures.graph.framework.dag;
 
-import java.util.Set;
-import org.openrdf.model.URI;
-
 import slib.sml.sm.core.utils.SMconf;
-import slib.utils.impl.SetUtils;
 
 /**
  * Braun-Blanquet J: Plant sociology: the study of plant communities.
@@ -48,20 +44,18 @@ import slib.utils.impl.SetUtils;
 public class Sim_Framework_DAG_Set_Braun_Blanquet_1932 extends Sim_Framework_DAG_Set_abstract {
 
     @Override
-    public double compare(Set<URI> ancA, Set<URI> ancB, SMconf conf) {
-
-
-        Set<URI> interSecAncestors = SetUtils.intersection(ancA, ancB);
-
-        int nbAncest_a = ancA.size();
-        int nbAncest_b = ancB.size();
+    public double sim(int nbAncest_a, int nbAncest_b, int nbInter, SMconf conf) {
 
-
-        double braun_blanquet = (double) interSecAncestors.size() / Math.max(nbAncest_a, nbAncest_b);
+        double braun_blanquet = (double) nbInter / Math.max(nbAncest_a, nbAncest_b);
 
         return braun_blanquet;
     }
 
+    @Override
+    public double getUpperBound(int nbAncest_a, int nbAncest_b, SMconf conf) {
+        return (double) Math.min(nbAncest_a, nbAncest_b) / Math.max(nbAncest_a, nbAncest_b);
+    }
+
     @Override
     public Boolean isSymmetric() {
         return true;
@@ -33,11 +33,7 @@
  */
 package slib.sml.sm.core.measures.graph.framework.dag;
 
-import java.util.Set;
-
-import org.openrdf.model.URI;
 import slib.sml.sm.core.utils.SMconf;
-import slib.utils.impl.SetUtils;
 
 /**
  * Dice LR: Measures of the Amount of Ecologic Association Between Species.
@@ -49,18 +45,18 @@ import slib.utils.impl.SetUtils;
 public class Sim_Framework_DAG_Set_Dice_1945 extends Sim_Framework_DAG_Set_abstract {
 
     @Override
-    public double compare(Set<URI> ancA, Set<URI> ancB, SMconf conf) {
-
-        Set<URI> interSecAncestors = SetUtils.intersection(ancA, ancB);
-
-        int nbAncest_a = ancA.size();
-        int nbAncest_b = ancB.size();
+    public double sim(int nbAncest_a, int nbAncest_b, int nbInter, SMconf conf) {
 
-        double dice = (double) 2 * interSecAncestors.size() / (nbAncest_a + nbAncest_b);
+        double dice = (double) 2 * nbInter / (nbAncest_a + nbAncest_b);
 
         return dice;
     }
 
+    @Override
+    public double getUpperBound(int nbAncest_a, int nbAncest_b, SMconf conf) {
+        return (double) 2 * Math.min(nbAncest_a, nbAncest_b) / (nbAncest_a + nbAncest_b);
+    }
+
     @Override
     public Boolean isSymmetric() {
         return true;
@@ -33,11 +33,7 @@
  */
 package slib.sml.sm.core.measures.graph.framework.dag;
 
-import java.util.Set;
-import org.openrdf.model.URI;
-
 import slib.sml.sm.core.utils.SMconf;
-import slib.utils.impl.SetUtils;
 
 /**
  * Knappe R, Bulskov H, Andreasen T: Perspectives on ontology-based
@@ -61,14 +57,9 @@ public class Sim_Framework_DAG_Set_Knappe_2004 extends Sim_Framework_DAG_Set_abs
     }
 
     @Override
-    public double compare(Set<URI> ancA, Set<URI> ancB, SMconf conf) {
-
-        Set<URI> interSecAncestors = SetUtils.intersection(ancA, ancB);
-
-        double nbAncest_a = ancA.size();
-        double nbAncest_b = ancB.size();
+    public double sim(int nbAncest_a, int nbAncest_b, int nbInter, SMconf conf) {
 
-        double knappe = (double) k * (interSecAncestors.size() / nbAncest_a) + (1 - k) * (interSecAncestors.size() / nbAncest_b);
+        double knappe = (double) k * ((double) nbInter / nbAncest_a) + (1 - k) * ((double) nbInter / nbAncest_b);
 
         return knappe;
     }
@@ -33,11 +33,7 @@
  */
 package slib.sml.sm.core.measures.graph.framework.dag;
 
-import java.util.Set;
-import org.openrdf.model.URI;
-
 import slib.sml.sm.core.utils.SMconf;
-import slib.utils.impl.SetUtils;
 
 /**
  * Korbel JO, Snel B, Huynen M a, Bork P: SHOT: a web server for the
@@ -52,19 +48,22 @@ import slib.utils.impl.SetUtils;
 public class Sim_Framework_DAG_Set_Korbel_2002 extends Sim_Framework_DAG_Set_abstract {
 
     @Override
-    public double compare(Set<URI> ancA, Set<URI> ancB, SMconf conf) {
+    public double sim(int nbAncest_a, int nbAncest_b, int nbInter, SMconf conf) {
 
-        Set<URI> interSecAncestors = SetUtils.intersection(ancA, ancB);
+        double pow_a = Math.pow(nbAncest_a, 2);
+        double pow_b = Math.pow(nbAncest_b, 2);
 
-        double nbAncest_a = ancA.size();
-        double nbAncest_b = ancB.size();
+        double mb = ((Math.sqrt(pow_a + pow_b) / (Math.sqrt(2) * nbAncest_a * nbAncest_b)) * nbInter);
 
-        double pow_a = Math.pow(ancA.size(), 2);
-        double pow_b = Math.pow(ancB.size(), 2);
+        return mb;
+    }
 
-        double mb = ((Math.sqrt(pow_a + pow_b) / (Math.sqrt(2) * nbAncest_a * nbAncest_b)) * interSecAncestors.size());
+    @Override
+    public double getUpperBound(int nbAncest_a, int nbAncest_b, SMconf conf) {
+        double pow_a = Math.pow(nbAncest_a, 2);
+        double pow_b = Math.pow(nbAncest_b, 2);
 
-        return mb;
+        return (Math.sqrt(pow_a + pow_b) / (Math.sqrt(2) * nbAncest_a * nbAncest_b)) * Math.min(nbAncest_a, nbAncest_b);
     }
 
     @Override
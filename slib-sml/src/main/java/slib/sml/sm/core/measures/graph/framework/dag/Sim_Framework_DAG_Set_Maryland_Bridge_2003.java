@@ -33,11 +33,7 @@
  */
 package slib.sml.sm.core.measures.graph.framework.dag;
 
-import java.util.Set;
-import org.openrdf.model.URI;
-
 import slib.sml.sm.core.utils.SMconf;
-import slib.utils.impl.SetUtils;
 
 /**
  * Mirkin B, Koonin E: A top-down method for building genome classification
@@ -51,19 +47,18 @@ import slib.utils.impl.SetUtils;
 public class Sim_Framework_DAG_Set_Maryland_Bridge_2003 extends Sim_Framework_DAG_Set_abstract {
 
     @Override
-    public double compare(Set<URI> ancA, Set<URI> ancB, SMconf conf) {
-
-        Set<URI> interSecAncestors = SetUtils.intersection(ancA, ancB);
-
-        int nbAncest_a = ancA.size();
-        int nbAncest_b = ancB.size();
-
+    public double sim(int nbAncest_a, int nbAncest_b, int nbInter, SMconf conf) {
 
-
-        double mb = (double) interSecAncestors.size() / (2. * nbAncest_a) + (double) interSecAncestors.size() / (2. * nbAncest_b);
+        double mb = (double) nbInter / (2. * nbAncest_a) + (double) nbInter / (2. * nbAncest_b);
         return mb;
     }
 
+    @Override
+    public double getUpperBound(int nbAncest_a, int nbAncest_b, SMconf conf) {
+        int inter = Math.min(nbAncest_a, nbAncest_b);
+        return (double) inter / (2. * nbAncest_a) + (double) inter / (2. * nbAncest_b);
+    }
+
     @Override
     public Boolean isSymmetric() {
         return true;
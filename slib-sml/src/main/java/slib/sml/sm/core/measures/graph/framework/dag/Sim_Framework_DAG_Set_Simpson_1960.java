@@ -33,11 +33,7 @@
  */
 package slib.sml.sm.core.measures.graph.framework.dag;
 
-import java.util.Set;
-import org.openrdf.model.URI;
-
 import slib.sml.sm.core.utils.SMconf;
-import slib.utils.impl.SetUtils;
 
 /**
  * Simpson GG: Notes on the measurement of faunal resemblance. American
@@ -48,15 +44,9 @@ import slib.utils.impl.SetUtils;
 public class Sim_Framework_DAG_Set_Simpson_1960 extends Sim_Framework_DAG_Set_abstract {
 
     @Override
-    public double compare(Set<URI> ancA, Set<URI> ancB, SMconf conf) {
-
-        Set<URI> interSecAncestors = SetUtils.intersection(ancA, ancB);
-
-        int nbAncest_a = ancA.size();
-        int nbAncest_b = ancB.size();
-
+    public double sim(int nbAncest_a, int nbAncest_b, int nbInter, SMconf conf) {
 
-        double simpson = (double) interSecAncestors.size() / Math.min(nbAncest_a, nbAncest_b);
+        double simpson = (double) nbInter / Math.min(nbAncest_a, nbAncest_b);
 
         return simpson;
     }
@@ -33,11 +33,7 @@
  */
 package slib.sml.sm.core.measures.graph.framework.dag;
 
-import java.util.Set;
-import org.openrdf.model.URI;
-
 import slib.sml.sm.core.utils.SMconf;
-import slib.utils.impl.SetUtils;
 
 /**
  * Sokal RR, Sneath PHA: Principles of numerical taxonomy. San Francisco:
@@ -48,19 +44,19 @@ import slib.utils.impl.SetUtils;
 public class Sim_Framework_DAG_Set_Sokal_Sneath_1963 extends Sim_Framework_DAG_Set_abstract {
 
     @Override
-    public double compare(Set<URI> ancA, Set<URI> ancB, SMconf conf) {
-
-        Set<URI> interSecAncestors = SetUtils.intersection(ancA, ancB);
-
-        int nbAncest_a = ancA.size();
-        int nbAncest_b = ancB.size();
-
+    public double sim(int nbAncest_a, int nbAncest_b, int nbInter, SMconf conf) {
 
-        double sokal_sneath = (double) interSecAncestors.size() / (2. * (nbAncest_a + nbAncest_b) - 3. * interSecAncestors.size());
+        double sokal_sneath = (double) nbInter / (2. * (nbAncest_a + nbAncest_b) - 3. * nbInter);
 
         return sokal_sneath;
     }
 
+    @Override
+    public double getUpperBound(int nbAncest_a, int nbAncest_b, SMconf conf) {
+        int inter = Math.min(nbAncest_a, nbAncest_b);
+        return (double) inter / (2. * (nbAncest_a + nbAncest_b) - 3. * inter);
+    }
+
     @Override
     public Boolean isSymmetric() {
         return true;
@@ -33,13 +33,8 @@
  */
 package slib.sml.sm.core.measures.graph.framework.dag;
 
-import java.util.HashSet;
-import java.util.Set;
-import org.openrdf.model.URI;
-
 import slib.sml.sm.core.utils.SMconf;
 import slib.utils.ex.SLIB_Exception;
-import slib.utils.impl.SetUtils;
 
 /**
  * Tversky A: Features of similarity. Psychological Review 1977, 84:327-352.
@@ -72,27 +67,18 @@ public class Sim_Framework_DAG_Set_Tversky_1977 extends Sim_Framework_DAG_Set_ab
     }
 
     @Override
-    public double compare(Set<URI> ancA, Set<URI> ancB, SMconf conf) throws SLIB_Exception {
+    public double sim(int nbAncest_a, int nbAncest_b, int nbInter, SMconf conf) throws SLIB_Exception {
 
         if (conf != null && conf.containsParam(k_param_name)) {
             k = conf.getParamAsDouble(k_param_name);
         }
 
-        Set<URI> interSecAncestors = SetUtils.intersection(ancA, ancB);
-
-        HashSet<URI> diff_a_b = new HashSet<URI>(ancA);
-        diff_a_b.removeAll(ancB);
-
-        HashSet<URI> diff_b_a = new HashSet<URI>(ancB);
-        diff_b_a.removeAll(ancA);
-
-        int c1_c2_diff_size = diff_a_b.size();
-        int c2_c1_diff_size = diff_b_a.size();
-
-        double den = (double) interSecAncestors.size() + k * c1_c2_diff_size + (1 - k) * c2_c1_diff_size;
+        int c1_c2_diff_size = nbAncest_a - nbInter;
+        int c2_c1_diff_size = nbAncest_b - nbInter;
 
-        double tversky = (double) interSecAncestors.size() / den;
+        double den = (double) nbInter + k * c1_c2_diff_size + (1 - k) * c2_c1_diff_size;
 
+        double tversky = (double) nbInter / den;
 
         return tversky;
     }
@@ -37,17 +37,20 @@ import java.util.Set;
 import org.openrdf.model.URI;
 
 import slib.sml.sm.core.measures.Sim_Groupwise_Direct;
+import slib.sml.sm.core.engine.AnnotationProfile;
 import slib.sml.sm.core.engine.SM_Engine;
+import slib.sml.sm.core.measures.Measure_Groupwise_Bounded;
 import slib.sml.sm.core.measures.graph.pairwise.dag.ISim_Pairwise_DAG;
 import slib.sml.sm.core.utils.SMconf;
 import slib.utils.ex.SLIB_Exception;
+import slib.utils.impl.SetUtils;
 
 /**
  * Abstract class used to facilitate implementation of set based measures.
  *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
-public abstract class Sim_Framework_DAG_Set_abstract extends Sim_Groupwise_Direct implements ISim_Pairwise_DAG{
+public abstract class Sim_Framework_DAG_Set_abstract extends Sim_Groupwise_Direct implements ISim_Pairwise_DAG, Measure_Groupwise_Bounded {
 
     @Override
     public double compare(URI a, URI b, SM_Engine c, SMconf conf) throws SLIB_Exception {
@@ -60,10 +63,31 @@ public abstract class Sim_Framework_DAG_Set_abstract extends Sim_Groupwise_Direc
 
     @Override
     public double compare(Set<URI> setA, Set<URI> setB, SM_Engine c, SMconf conf) throws SLIB_Exception {
-        Set<URI> ancA = c.getAncestorsInc(setA);
-        Set<URI> ancB = c.getAncestorsInc(setB);
+        AnnotationProfile profileA = c.getAnnotationProfile(setA);
+        AnnotationProfile profileB = c.getAnnotationProfile(setB);
 
-        return compare(ancA, ancB, conf);
+        return sim(profileA.getCardinality(), profileB.getCardinality(), profileA.getIntersectionCardinality(profileB), conf);
+    }
+
+    @Override
+    public double getUpperBound(Set<URI> setA, Set<URI> setB, SM_Engine c, SMconf conf) throws SLIB_Exception {
+        return getUpperBound(c.getAnnotationProfile(setA).getCardinality(), c.getAnnotationProfile(setB).getCardinality(), conf);
+    }
+
+    /**
+     * Compute an upper bound of the similarity of two sets of concepts only
+     * considering their sizes, i.e. considering that the smallest set is
+     * included in the other one.
+     *
+     * @param nbAncest_a the size of the first set
+     * @param nbAncest_b the size of the second set
+     * @param conf the configuration to apply to compute the semantic similarity
+     * @return the bound, {@link Double#POSITIVE_INFINITY} if the measure does
+     * not define any bound
+     * @throws SLIB_Exception
+     */
+    public double getUpperBound(int nbAncest_a, int nbAncest_b, SMconf conf) throws SLIB_Exception {
+        return Double.POSITIVE_INFINITY;
     }
 
     /**
@@ -78,6 +102,22 @@ public abstract class Sim_Framework_DAG_Set_abstract extends Sim_Groupwise_Direc
      * @return the similarity of the two sets.
      * @throws SLIB_Exception
      */
-    public abstract double compare(Set<URI> ancA, Set<URI> ancB, SMconf conf) throws SLIB_Exception;
+    public double compare(Set<URI> ancA, Set<URI> ancB, SMconf conf) throws SLIB_Exception {
+        return sim(ancA.size(), ancB.size(), SetUtils.intersection(ancA, ancB).size(), conf);
+    }
+
+    /**
+     * Compute the similarity of two sets of concepts which have been extended
+     * considering inference based on the taxonomic hierarchy, from the sizes
+     * of the sets and of their intersection.
+     *
+     * @param nbAncest_a the size of the first set
+     * @param nbAncest_b the size of the second set
+     * @param nbInter the size of the intersection of the sets
+     * @param conf the configuration to apply to compute the semantic similarity
+     * @return the similarity of the two sets.
+     * @throws SLIB_Exception
+     */
+    public abstract double sim(int nbAncest_a, int nbAncest_b, int nbInter, SMconf conf) throws SLIB_Exception;
 
 }
@@ -36,10 +36,10 @@ package slib.sml.sm.core.measures.graph.groupwise.dag;
 import java.util.Set;
 import org.openrdf.model.URI;
 
+import slib.sml.sm.core.engine.AnnotationProfile;
 import slib.sml.sm.core.engine.SM_Engine;
 import slib.sml.sm.core.utils.SMconf;
 import slib.utils.ex.SLIB_Exception;
-import slib.utils.impl.SetUtils;
 
 /**
  * Pesquita C, Faria D, Bastos H: Evaluating gobased semantic similarity
@@ -53,23 +53,11 @@ public class Sim_groupwise_DAG_GIC extends Sim_groupwise_DAG_abstract {
     @Override
     public double compare(Set<URI> setA, Set<URI> setB, SM_Engine rc, SMconf conf) throws SLIB_Exception {
 
-        Set<URI> anc_setA = rc.getAncestorsInc(setA);
-        Set<URI> anc_setB = rc.getAncestorsInc(setB);
+        AnnotationProfile profileA = rc.getAnnotationProfile(setA);
+        AnnotationProfile profileB = rc.getAnnotationProfile(setB);
 
-        Set<URI> intersection = SetUtils.intersection(anc_setA, anc_setB);
-        Set<URI> union = SetUtils.union(anc_setA, anc_setB);
-
-        double ic_inter = 0.;
-
-        for (URI r : intersection) {
-            ic_inter += rc.getIC(conf.getICconf(), r);
-        }
-
-        double ic_union = 0.;
-
-        for (URI r : union) {
-            ic_union += rc.getIC(conf.getICconf(), r);
-        }
+        double ic_inter = profileA.getICSumIntersection(profileB, conf.getICconf());
+        double ic_union = profileA.getICSum(conf.getICconf()) + profileB.getICSum(conf.getICconf()) - ic_inter;
 
         if (ic_union == 0) {
             return 0;
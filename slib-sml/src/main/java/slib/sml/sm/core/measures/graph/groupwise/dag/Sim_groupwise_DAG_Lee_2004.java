@@ -35,9 +35,9 @@ package slib.sml.sm.core.measures.graph.groupwise.dag;
 
 import java.util.Set;
 import org.openrdf.model.URI;
+import slib.sml.sm.core.engine.AnnotationProfile;
 import slib.sml.sm.core.engine.SM_Engine;
 import slib.sml.sm.core.utils.SMconf;
-import slib.utils.impl.SetUtils;
 
 /**
  * Lee HK, Hsu AK, Sajdak J, Qin J, Pavlidis P: Coexpression analysis of human
@@ -51,11 +51,9 @@ public class Sim_groupwise_DAG_Lee_2004 extends Sim_groupwise_DAG_abstract {
     @Override
     public double compare(Set<URI> setA, Set<URI> setB, SM_Engine c, SMconf conf) {
 
-        Set<URI> ancA = c.getAncestorsInc(setA);
-        Set<URI> ancB = c.getAncestorsInc(setB);
+        AnnotationProfile profileA = c.getAnnotationProfile(setA);
+        AnnotationProfile profileB = c.getAnnotationProfile(setB);
 
-        Set<URI> union = SetUtils.union(ancA, ancB);
-
-        return union.size();
+        return profileA.getUnionCardinality(profileB);
     }
 }
@@ -36,9 +36,9 @@ package slib.sml.sm.core.measures.graph.groupwise.dag;
 import java.util.Set;
 import org.openrdf.model.URI;
 
+import slib.sml.sm.core.engine.AnnotationProfile;
 import slib.sml.sm.core.engine.SM_Engine;
 import slib.sml.sm.core.utils.SMconf;
-import slib.utils.impl.SetUtils;
 
 /**
  * ﻿Mistry M, Pavlidis P: Gene Ontology term overlap as a measure of gene
@@ -52,17 +52,15 @@ public class Sim_groupwise_DAG_NTO extends Sim_groupwise_DAG_abstract {
     @Override
     public double compare(Set<URI> setA, Set<URI> setB, SM_Engine rc, SMconf conf) {
 
-        Set<URI> ancA = rc.getAncestorsInc(setA);
-        Set<URI> ancB = rc.getAncestorsInc(setB);
+        AnnotationProfile profileA = rc.getAnnotationProfile(setA);
+        AnnotationProfile profileB = rc.getAnnotationProfile(setB);
 
-        Set<URI> intersection = SetUtils.intersection(ancA, ancB);
-
-        double min = Math.min(ancA.size(), ancB.size());
+        double min = Math.min(profileA.getCardinality(), profileB.getCardinality());
 
         if (min == 0) {
             return 0.;
         }
 
-        return (double) intersection.size() / min;
+        return (double) profileA.getIntersectionCardinality(profileB) / min;
     }
 }
@@ -35,9 +35,9 @@ package slib.sml.sm.core.measures.graph.groupwise.dag;
 
 import java.util.Set;
 import org.openrdf.model.URI;
+import slib.sml.sm.core.engine.AnnotationProfile;
 import slib.sml.sm.core.engine.SM_Engine;
 import slib.sml.sm.core.utils.SMconf;
-import slib.utils.impl.SetUtils;
 
 /**
  * Mistry M, Pavlidis P: Gene Ontology term overlap as a measure of gene
@@ -54,11 +54,9 @@ public class Sim_groupwise_DAG_TO extends Sim_groupwise_DAG_abstract {
     @Override
     public double compare(Set<URI> setA, Set<URI> setB, SM_Engine c, SMconf conf) {
 
-        Set<URI> ancA = c.getAncestorsInc(setA);
-        Set<URI> ancB = c.getAncestorsInc(setB);
+        AnnotationProfile profileA = c.getAnnotationProfile(setA);
+        AnnotationProfile profileB = c.getAnnotationProfile(setB);
 
-        Set<URI> intersection = SetUtils.intersection(ancA, ancB);
-
-        return intersection.size();
+        return profileA.getIntersectionCardinality(profileB);
     }
 }
@@ -36,9 +36,9 @@ package slib.sml.sm.core.measures.graph.groupwise.dag;
 import java.util.Set;
 import org.openrdf.model.URI;
 
+import slib.sml.sm.core.engine.AnnotationProfile;
 import slib.sml.sm.core.engine.SM_Engine;
 import slib.sml.sm.core.utils.SMconf;
-import slib.utils.impl.SetUtils;
 
 /**
  * Gentleman R: Visualizing and distances using GO. Retrieved Jan. 10th 2007.
@@ -53,12 +53,9 @@ public class Sim_groupwise_DAG_UI extends Sim_groupwise_DAG_abstract {
     @Override
     public double compare(Set<URI> setA, Set<URI> setB, SM_Engine rc, SMconf conf) {
 
-        Set<URI> anc_setA = rc.getAncestorsInc(setA);
-        Set<URI> anc_setB = rc.getAncestorsInc(setB);
+        AnnotationProfile profileA = rc.getAnnotationProfile(setA);
+        AnnotationProfile profileB = rc.getAnnotationProfile(setB);
 
-        Set<URI> intersection = SetUtils.intersection(anc_setA, anc_setB);
-        Set<URI> union = SetUtils.union(anc_setA, anc_setB);
-
-        return (double) intersection.size() / union.size();
+        return (double) profileA.getIntersectionCardinality(profileB) / profileA.getUnionCardinality(profileB);
     }
 }
\ No newline at end of file
@@ -65,8 +65,8 @@ public class Sim_pairwise_DAG_edge_Leacock_Chodorow_1998 extends Sim_DAG_edge_ab
 
         Set<URI> ancestors_A = c.getAncestorsInc(a);
         Set<URI> ancestors_B = c.getAncestorsInc(b);
-        Map<URI, Double> distMin_a = c.getAllShortestPath(a, weightingScheme);
-        Map<URI, Double> distMin_b = c.getAllShortestPath(b, weightingScheme);
+        Map<URI, Double> distMin_a = c.getAncestorDistances(a, weightingScheme);
+        Map<URI, Double> distMin_b = c.getAncestorDistances(b, weightingScheme);
         
         Set<URI> interSecAncestors = SetUtils.intersection(ancestors_A, ancestors_B);
         Map<URI, Integer> maxDepths = c.getMaxDepths();
@@ -33,7 +33,6 @@
  */
 package slib.sml.sm.core.measures.graph.pairwise.dag.edge_based;
 
-import java.util.Map;
 import org.openrdf.model.URI;
 
 import slib.graph.model.graph.weight.GWS;
@@ -59,11 +58,9 @@ public class Sim_pairwise_DAG_edge_Pekar_Staab_2002 extends Sim_DAG_edge_abstrac
         URI msa = c.getMSA(a, b, weightingScheme);
         URI root = c.getRoot();
 
-        Map<URI, Double> allSpMsa = c.getAllShortestPath(msa, weightingScheme);
-
-        double sp_mrca_root = allSpMsa.get(root);
-        double sp_a_mrca = allSpMsa.get(a);
-        double sp_b_mrca = allSpMsa.get(b);
+        double sp_mrca_root = c.getAncestorDistances(msa, weightingScheme).get(root);
+        double sp_a_mrca = c.getAncestorDistances(a, weightingScheme).get(msa);
+        double sp_b_mrca = c.getAncestorDistances(b, weightingScheme).get(msa);
 
         return sim(sp_mrca_root, sp_a_mrca, sp_b_mrca);
     }
@@ -60,8 +60,8 @@ public class Sim_pairwise_DAG_edge_Rada_LCA_1989 extends Sim_DAG_edge_abstract {
 
         GWS weightingScheme = c.getWeightingScheme(conf.getParamAsString("WEIGHTING_SCHEME"));
 
-        Map<URI, Double> minDists_cA = c.getAllShortestPath(a, weightingScheme);
-        Map<URI, Double> minDists_cB = c.getAllShortestPath(b, weightingScheme);
+        Map<URI, Double> minDists_cA = c.getAncestorDistances(a, weightingScheme);
+        Map<URI, Double> minDists_cB = c.getAncestorDistances(b, weightingScheme);
         Set<URI> ancestors_A = c.getAncestorsInc(a);
         Set<URI> ancestors_B = c.getAncestorsInc(b);
         Map<URI, Integer> maxDepths = c.getMaxDepths();
@@ -40,6 +40,7 @@ import org.openrdf.model.URI;
 import slib.graph.model.graph.weight.GWS;
 import slib.sml.sm.core.measures.graph.pairwise.dag.edge_based.utils.SimDagEdgeUtils;
 import slib.sml.sm.core.engine.SM_Engine;
+import slib.sml.sm.core.measures.Measure_Pairwise_Bounded;
 import slib.sml.sm.core.utils.SMconf;
 import slib.utils.ex.SLIB_Ex_Critic;
 import slib.utils.ex.SLIB_Exception;
@@ -53,7 +54,7 @@ import slib.utils.impl.SetUtils;
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  *
  */
-public class Sim_pairwise_DAG_edge_Wu_Palmer_1994 extends Sim_DAG_edge_abstract {
+public class Sim_pairwise_DAG_edge_Wu_Palmer_1994 extends Sim_DAG_edge_abstract implements Measure_Pairwise_Bounded {
 
     @Override
     public double compare(URI a, URI b, SM_Engine c, SMconf conf) throws SLIB_Exception {
@@ -62,14 +63,49 @@ public class Sim_pairwise_DAG_edge_Wu_Palmer_1994 extends Sim_DAG_edge_abstract
 
         Set<URI> ancestors_A = c.getAncestorsInc(a);
         Set<URI> ancestors_B = c.getAncestorsInc(b);
-        Map<URI, Double> distMin_a = c.getAllShortestPath(a, weightingScheme);
-        Map<URI, Double> distMin_b = c.getAllShortestPath(b, weightingScheme);
+        Map<URI, Double> distMin_a = c.getAncestorDistances(a, weightingScheme);
+        Map<URI, Double> distMin_b = c.getAncestorDistances(b, weightingScheme);
 
         Map<URI, Integer> maxDepths = c.getMaxDepths();
 
         return sim(a, b, ancestors_A, ancestors_B, distMin_a, distMin_b, maxDepths);
     }
 
+    /**
+     * Compute an upper bound of the similarity from the depths of the
+     * compared concepts. The bound is only refined for a unit weighting
+     * scheme, i.e. considering that each edge counts for 1.
+     *
+     * @param a concept A
+     * @param b concept B
+     * @param c the engine
+     * @param conf the configuration
+     * @return the upper bound
+     * @throws SLIB_Exception
+     */
+    @Override
+    public double getUpperBound(URI a, URI b, SM_Engine c, SMconf conf) throws SLIB_Exception {
+
+        GWS weightingScheme = c.getWeightingScheme(conf.getParamAsString("WEIGHTING_SCHEME"));
+
+        if (a.equals(b) || !c.isUnitWeightingScheme(weightingScheme)) {
+            return 1;
+        }
+        Map<URI, Integer> maxDepths = c.getMaxDepths();
+
+        // the most specific common ancestor is not deeper than the compared
+        // concepts and at least one of them differs from it
+        int d_mrca = Math.min(maxDepths.get(a), maxDepths.get(b)) + 1;
+        double sp = 1;
+
+        if (!c.getAncestorsInc(a).contains(b) && !c.getAncestorsInc(b).contains(a)) {
+            // the common ancestor is a strict ancestor of both concepts
+            d_mrca--;
+            sp = 2;
+        }
+        return (double) (2 * d_mrca) / (sp + 2 * d_mrca);
+    }
+
     /**
      * compute the semantic similarity considering the given parameters.
      *
@@ -76,9 +76,35 @@ public class SimDagEdgeUtils {
             Set<URI> ancestors_B,
             Dijkstra dijkstra) {
 
-        Set<URI> interSecAncestors = SetUtils.intersection(ancestors_A, ancestors_B);
+        Map<URI, Double> spToRoot = new HashMap<URI, Double>();
+        for (URI r : SetUtils.intersection(ancestors_A, ancestors_B)) {
+            spToRoot.put(r, dijkstra.shortestPath(r, root));
+        }
+        return getMSA_pekar_staab(root, allSpA, allSpB, ancestors_A, ancestors_B, spToRoot);
+    }
 
-//		System.out.println("intersec "+interSecAncestors);
+    /**
+     * Compute the most specific ancestor considering Pekar and Staab 2002
+     * formula, see
+     * {@link #getMSA_pekar_staab(URI, Map, Map, Set, Set, Dijkstra)}.
+     *
+     * @param root the root of the graph
+     * @param allSpA shortest path from A to all concepts
+     * @param allSpB	shortest path from B to all concepts
+     * @param ancestors_A	inclusive ancestors of A
+     * @param ancestors_B	inclusive ancestors of B
+     * @param spToRoot shortest path from the common ancestors to the root
+     * @return the vertex corresponding to the Most Specific Ancestors
+     */
+    public static URI getMSA_pekar_staab(
+            URI root,
+            Map<URI, Double> allSpA,
+            Map<URI, Double> allSpB,
+            Set<URI> ancestors_A,
+            Set<URI> ancestors_B,
+            Map<URI, Double> spToRoot) {
+
+        Set<URI> interSecAncestors = SetUtils.intersection(ancestors_A, ancestors_B);
 
         Map<URI, Double> msaSet = new HashMap(); // eligible MSA + dist to root
 
@@ -90,7 +116,7 @@ public class SimDagEdgeUtils {
 
             for (URI r : interSecAncestors) {
 
-                double sp_root = dijkstra.shortestPath(r, root);
+                double sp_root = spToRoot.get(r);
 
                 double score = allSpA.get(r) + allSpB.get(r) + sp_root;
 
@@ -151,4 +151,11 @@ public class Sim_pairwise_DAG_node_IC_Prop_Tversky_Contrast_Model extends Sim_DA
     public Boolean isSymmetric() {
         return alpha == beta;
     }
+
+    @Override
+    public Boolean isSymmetric(SMconf conf) throws SLIB_Ex_Critic {
+        double a = conf != null && conf.containsParam(alpha_param_name) ? conf.getParamAsDouble(alpha_param_name) : alpha;
+        double b = conf != null && conf.containsParam(beta_param_name) ? conf.getParamAsDouble(beta_param_name) : beta;
+        return a == b;
+    }
 }
@@ -108,4 +108,11 @@ public class Sim_pairwise_DAG_node_IC_Tversky_Ratio_Model extends Sim_DAG_node_a
     public Boolean isSymmetric() {
         return alpha == beta;
     }
+
+    @Override
+    public Boolean isSymmetric(SMconf conf) throws SLIB_Ex_Critic {
+        double a = conf != null && conf.containsParam(alpha_param_name) ? conf.getParamAsDouble(alpha_param_name) : alpha;
+        double b = conf != null && conf.containsParam(beta_param_name) ? conf.getParamAsDouble(beta_param_name) : beta;
+        return a == b;
+    }
 }
@@ -34,7 +34,11 @@
 package slib.sml.sm.core.measures.graph.pairwise.dag.node_based;
 
 import org.openrdf.model.URI;
+import slib.sml.sm.core.engine.PairwiseIntermediates;
 import slib.sml.sm.core.engine.SM_Engine;
+import slib.sml.sm.core.measures.Measure_Pairwise_Fused;
+import slib.sml.sm.core.measures.Measure_Pairwise_Primitive;
+import slib.sml.sm.core.metrics.ic.utils.ICconf;
 import slib.sml.sm.core.utils.SMconf;
 import slib.utils.ex.SLIB_Exception;
 
@@ -46,16 +50,25 @@ import slib.utils.ex.SLIB_Exception;
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  *
  */
-public class Sim_pairwise_DAG_node_Jiang_Conrath_1997 extends Sim_DAG_node_abstract {
+public class Sim_pairwise_DAG_node_Jiang_Conrath_1997 extends Sim_DAG_node_abstract implements Measure_Pairwise_Primitive, Measure_Pairwise_Fused {
 
 
     @Override
     public double compare(URI a, URI b, SM_Engine c, SMconf conf) throws SLIB_Exception {
+        ICconf icConf = conf.getICconf();
+        return sim(c.getIC(icConf, a), c.getIC(icConf, b), c.getIC_MICA(icConf, a, b));
+    }
 
-        double ic_a = c.getIC(conf.getICconf(), a);
-        double ic_b = c.getIC(conf.getICconf(), b);
-        double ic_MICA = c.getIC_MICA(conf.getICconf(), a, b);
-        return sim(ic_a, ic_b, ic_MICA);
+    @Override
+    public double compare(int a, int b, SM_Engine c, SMconf conf) throws SLIB_Exception {
+        ICconf icConf = conf.getICconf();
+        return sim(c.getIC(icConf, a), c.getIC(icConf, b), c.getIC_MICA(icConf, a, b));
+    }
+
+    @Override
+    public double compare(PairwiseIntermediates pair, SMconf conf) throws SLIB_Exception {
+        ICconf icConf = conf.getICconf();
+        return sim(pair.getIC_A(icConf), pair.getIC_B(icConf), pair.getIC_MICA(icConf));
     }
 
     /**
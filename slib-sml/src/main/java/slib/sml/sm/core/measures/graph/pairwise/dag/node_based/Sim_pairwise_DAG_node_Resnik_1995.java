@@ -34,7 +34,11 @@
 package slib.sml.sm.core.measures.graph.pairwise.dag.node_based;
 
 import org.openrdf.model.URI;
+import slib.sml.sm.core.engine.PairwiseIntermediates;
 import slib.sml.sm.core.engine.SM_Engine;
+import slib.sml.sm.core.measures.Measure_Pairwise_Fused;
+import slib.sml.sm.core.measures.Measure_Pairwise_MICA_Bounded;
+import slib.sml.sm.core.measures.Measure_Pairwise_Primitive;
 import slib.sml.sm.core.utils.SMconf;
 import slib.utils.ex.SLIB_Exception;
 
@@ -47,7 +51,7 @@ import slib.utils.ex.SLIB_Exception;
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  *
  */
-public class Sim_pairwise_DAG_node_Resnik_1995 extends Sim_DAG_node_abstract {
+public class Sim_pairwise_DAG_node_Resnik_1995 extends Sim_DAG_node_abstract implements Measure_Pairwise_Primitive, Measure_Pairwise_Fused, Measure_Pairwise_MICA_Bounded {
 
 
     @Override
@@ -55,6 +59,21 @@ public class Sim_pairwise_DAG_node_Resnik_1995 extends Sim_DAG_node_abstract {
         return c.getIC_MICA(conf.getICconf(), a, b);
     }
 
+    @Override
+    public double compare(int a, int b, SM_Engine c, SMconf conf) throws SLIB_Exception {
+        return c.getIC_MICA(conf.getICconf(), a, b);
+    }
+
+    @Override
+    public double compare(PairwiseIntermediates pair, SMconf conf) throws SLIB_Exception {
+        return pair.getIC_MICA(conf.getICconf());
+    }
+
+    @Override
+    public double getUpperBound(double ic_a, double ic_mica) {
+        return ic_mica;
+    }
+
     @Override
     public Boolean isSymmetric() {
         return true;
@@ -35,7 +35,9 @@ package slib.sml.sm.core.measures.graph.pairwise.dag.node_based;
 
 import org.openrdf.model.URI;
 import slib.sml.sm.core.metrics.ic.utils.ICconf;
+import slib.sml.sm.core.engine.PairwiseIntermediates;
 import slib.sml.sm.core.engine.SM_Engine;
+import slib.sml.sm.core.measures.Measure_Pairwise_Fused;
 import slib.sml.sm.core.utils.SMconf;
 import slib.utils.ex.SLIB_Ex_Critic;
 import slib.utils.ex.SLIB_Exception;
@@ -46,7 +48,7 @@ import slib.utils.ex.SLIB_Exception;
  *
  * @author Sébastien Harispe (sebastien.harispe@gmail.com)
  */
-public class Sim_pairwise_DAG_node_Schlicker_2006_SimRel extends Sim_DAG_node_abstract {
+public class Sim_pairwise_DAG_node_Schlicker_2006_SimRel extends Sim_DAG_node_abstract implements Measure_Pairwise_Fused {
 
     @Override
     public double compare(URI a, URI b, SM_Engine c, SMconf conf) throws SLIB_Exception {
@@ -66,6 +68,24 @@ public class Sim_pairwise_DAG_node_Schlicker_2006_SimRel extends Sim_DAG_node_ab
         return sim(ic_a, ic_b, ic_MICA, p_MICA);
     }
 
+    @Override
+    public double compare(PairwiseIntermediates pair, SMconf conf) throws SLIB_Exception {
+
+        double ic_a = pair.getIC_A(conf.getICconf());
+        double ic_b = pair.getIC_B(conf.getICconf());
+        double ic_MICA = pair.getIC_MICA(conf.getICconf());
+
+        ICconf confic = (ICconf) conf.getParam(Sim_pairwise_DAG_node_Constants.IC_PROB);
+
+        if (confic == null) {
+            throw new SLIB_Ex_Critic("Measure " + this.getClass().getSimpleName() + " requires a parameter: " + Sim_pairwise_DAG_node_Constants.IC_PROB);
+        }
+
+        double p_MICA = pair.getP_MICA(confic);
+
+        return sim(ic_a, ic_b, ic_MICA, p_MICA);
+    }
+
     /**
      * Compute the semantic similarity considering the given parameters
      *
@@ -0,0 +1,259 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.metrics.ic.utils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import org.openrdf.model.URI;
+import slib.graph.algo.extraction.rvf.ReachabilityIndex;
+import slib.utils.ex.SLIB_Ex_Critic;
+
+/**
+ * Index used to search the Most Informative Common Ancestor (MICA) of two
+ * classes regarding an information content. The inclusive ancestors of each
+ * class are stored as an array sorted by decreasing IC (ties are broken by
+ * id). The MICA of two classes a and b is therefore the first ancestor of a
+ * which is also an ancestor of b, the search stops as soon as it is found.
+ *
+ * The classes are identified by the ids of the index of the ancestors the
+ * MICA index is built on, see {@link ReachabilityIndex}. The index only
+ * reflects the IC scores given at construction, the classes without IC are
+ * ordered after the others. Queries are thread-safe.
+ *
+ * @see IcUtils#searchMICA(URI, URI, Set, Set, Map) which does not require
+ * any index
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class MICAIndex {
+
+    private final ReachabilityIndex ancestors;
+    private final double[] ics;
+    // inclusive ancestors of each id sorted by decreasing IC (CSR)
+    private final int[] offsets;
+    private final int[] sorted;
+
+    /**
+     * Build the index.
+     *
+     * @param ancestors the index of the ancestors of the classes
+     * @param classes the classes for which the ancestors must be indexed
+     * @param icScores the IC of the classes
+     * @throws SLIB_Ex_Critic if a class is not indexed by the index of the
+     * ancestors
+     */
+    public MICAIndex(ReachabilityIndex ancestors, Set<URI> classes, Map<URI, Double> icScores) throws SLIB_Ex_Critic {
+
+        this.ancestors = ancestors;
+        int n = ancestors.size();
+
+        ics = new double[n];
+        Arrays.fill(ics, Double.NaN);
+        for (Map.Entry<URI, Double> e : icScores.entrySet()) {
+            int id = ancestors.getId(e.getKey());
+            if (id != -1 && e.getValue() != null) {
+                ics[id] = e.getValue();
+            }
+        }
+
+        // global order of the ids by decreasing IC
+        Integer[] order = new Integer[n];
+        for (int id = 0; id < n; id++) {
+            order[id] = id;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                // classes without IC are ordered last
+                boolean nanA = Double.isNaN(ics[a]);
+                boolean nanB = Double.isNaN(ics[b]);
+                if (nanA != nanB) {
+                    return nanA ? 1 : -1;
+                }
+                int c = Double.compare(ics[b], ics[a]);
+                return c != 0 ? c : a.compareTo(b);
+            }
+        });
+        int[] ranks = new int[n];
+        int[] byRank = new int[n];
+        for (int r = 0; r < n; r++) {
+            byRank[r] = order[r];
+            ranks[order[r]] = r;
+        }
+
+        boolean[] indexed = new boolean[n];
+        for (URI c : classes) {
+            int id = ancestors.getId(c);
+            if (id == -1) {
+                throw new SLIB_Ex_Critic("The ancestors of " + c + " are not indexed, cannot build the MICA index");
+            }
+            indexed[id] = true;
+        }
+        offsets = new int[n + 1];
+        for (int id = 0; id < n; id++) {
+            offsets[id + 1] = offsets[id] + (indexed[id] ? ancestors.getNumberReachable(id) + 1 : 0);
+        }
+        sorted = new int[offsets[n]];
+
+        for (int id = 0; id < n; id++) {
+            if (!indexed[id]) {
+                continue;
+            }
+            int from = offsets[id];
+            int c = from;
+            sorted[c++] = ranks[id];
+            for (int anc : ancestors.getReachableIds(id)) {
+                sorted[c++] = ranks[anc];
+            }
+            Arrays.sort(sorted, from, c);
+            for (int k = from; k < c; k++) {
+                sorted[k] = byRank[sorted[k]];
+            }
+        }
+    }
+
+    /**
+     * @param a the id of the first class
+     * @param b the id of the second class
+     * @return the id of the MICA of the two classes, -1 if the classes do not
+     * share any ancestor
+     */
+    public int getMICA(int a, int b) {
+
+        if (a == b) {
+            return a;
+        }
+        // the ancestors of the class with fewer ancestors are scanned
+        if (offsets[a + 1] - offsets[a] > offsets[b + 1] - offsets[b]) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        for (int k = offsets[a]; k < offsets[a + 1]; k++) {
+            int c = sorted[k];
+            if (c == b || ancestors.isReachable(b, c)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param a the first class
+     * @param b the second class
+     * @return the MICA of the two classes
+     * @throws SLIB_Ex_Critic if the classes are not indexed or do not share
+     * any ancestor with an IC
+     */
+    public URI getMICA(URI a, URI b) throws SLIB_Ex_Critic {
+        return ancestors.getURI(getMICAId(a, b));
+    }
+
+    /**
+     * @param a the first class
+     * @param b the second class
+     * @return the IC of the MICA of the two classes
+     * @throws SLIB_Ex_Critic if the classes are not indexed or do not share
+     * any ancestor with an IC
+     */
+    public double getIC_MICA(URI a, URI b) throws SLIB_Ex_Critic {
+        return ics[getMICAId(a, b)];
+    }
+
+    /**
+     * @param a the id of the first class
+     * @param b the id of the second class
+     * @return the IC of the MICA of the two classes
+     * @throws SLIB_Ex_Critic if the classes are not indexed or do not share
+     * any ancestor with an IC
+     */
+    public double getIC_MICA(int a, int b) throws SLIB_Ex_Critic {
+        if (a < 0 || b < 0 || a >= ics.length || b >= ics.length) {
+            throw new SLIB_Ex_Critic("Invalid class id " + (a < 0 || a >= ics.length ? a : b));
+        }
+        return ics[getMICAId(a, b)];
+    }
+
+    /**
+     * @param id the id of a class
+     * @return the ids of the inclusive ancestors of the class sorted by
+     * decreasing IC, the order used to search the MICAs
+     */
+    public int[] getAncestorsByIC(int id) {
+        return Arrays.copyOfRange(sorted, offsets[id], offsets[id + 1]);
+    }
+
+    /**
+     * @param id the id of a class
+     * @return the IC of the class, NaN if the class has no IC
+     */
+    public double getIC(int id) {
+        return ics[id];
+    }
+
+    /**
+     * @return a copy of the IC of the classes indexed by id, NaN for the ids
+     * without IC
+     */
+    public double[] getICs() {
+        return ics.clone();
+    }
+
+    private int getMICAId(URI a, URI b) throws SLIB_Ex_Critic {
+
+        int ia = ancestors.getId(a);
+        int ib = ancestors.getId(b);
+        if (ia == -1 || ib == -1) {
+            throw new SLIB_Ex_Critic("The ancestors of " + (ia == -1 ? a : b) + " are not indexed, cannot search the MICA");
+        }
+        return getMICAId(ia, ib);
+    }
+
+    private int getMICAId(int ia, int ib) throws SLIB_Ex_Critic {
+
+        if (offsets[ia] == offsets[ia + 1] || offsets[ib] == offsets[ib + 1]) {
+            throw new SLIB_Ex_Critic("The ancestors of " + ancestors.getURI(offsets[ia] == offsets[ia + 1] ? ia : ib) + " are not indexed, cannot search the MICA");
+        }
+        int mica = getMICA(ia, ib);
+        if (mica == -1) {
+            throw new SLIB_Ex_Critic("Error detecting the common ancestors with the maximal IC, no common ancestor found for " + ancestors.getURI(ia) + " and " + ancestors.getURI(ib) + ", "
+                    + "be sure the compared concepts are locate under the specified root...");
+        }
+        if (Double.isNaN(ics[mica])) {
+            throw new SLIB_Ex_Critic("No IC score associated to the common ancestors of " + ancestors.getURI(ia) + " and " + ancestors.getURI(ib));
+        }
+        return mica;
+    }
+}
@@ -0,0 +1,120 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.sml.sm.core.utils;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import org.openrdf.model.URI;
+import slib.graph.algo.extraction.rvf.ReachabilityIndex;
+import slib.sml.sm.core.engine.SM_Engine;
+import slib.utils.ex.SLIB_Ex_Critic;
+import slib.utils.ex.SLIB_Exception;
+
+/**
+ * Implementation of the LCAFinder interface relying on the index of the
+ * ancestors computed by the engine, see {@link SM_Engine#getAncestorsIndex()}.
+ *
+ * The classes are identified by their topological rank in the index, the
+ * ancestors of a class always have a lower rank. The common ancestors of the
+ * compared classes are computed in a bitmap (intersection of the ancestor
+ * rows), they are then processed in decreasing rank: a common ancestor which
+ * has not been discarded is a lowest common ancestor and its own ancestors are
+ * discarded (AND NOT of its row). No traversal of the graph is performed.
+ *
+ * The implementation is thread-safe.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class LCAFinderIndexed implements LCAFinder {
+
+    private final SM_Engine engine;
+    private final ThreadLocal<BitSet> scratch = new ThreadLocal<BitSet>() {
+        @Override
+        protected BitSet initialValue() {
+            return new BitSet();
+        }
+    };
+
+    /**
+     * @param engine the engine providing the index of the ancestors
+     */
+    public LCAFinderIndexed(SM_Engine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public Set<URI> getLCAs(URI a, URI b) throws SLIB_Exception {
+
+        ReachabilityIndex index = engine.getAncestorsIndex();
+        int ia = getId(index, a);
+        int ib = getId(index, b);
+
+        Set<URI> lcas = new HashSet<URI>();
+
+        // Test if a (resp. b) subsumes b (resp. a)
+        if (ia == ib || index.isReachable(ia, ib)) {
+            lcas.add(b);
+            return lcas;
+        }
+        if (index.isReachable(ib, ia)) {
+            lcas.add(a);
+            return lcas;
+        }
+
+        BitSet common = scratch.get();
+        common.clear();
+        if (index.getNumberReachable(ia) <= index.getNumberReachable(ib)) {
+            index.or(ia, common);
+            index.and(ib, common);
+        } else {
+            index.or(ib, common);
+            index.and(ia, common);
+        }
+
+        for (int c = common.length() - 1; c >= 0; c = common.previousSetBit(c - 1)) {
+            lcas.add(index.getURI(c));
+            index.andNot(c, common);
+        }
+        return lcas;
+    }
+
+    private static int getId(ReachabilityIndex index, URI v) throws SLIB_Ex_Critic {
+        int id = index.getId(v);
+        if (id == -1) {
+            throw new SLIB_Ex_Critic("The ancestors of " + v + " are not indexed, cannot compute the lowest common ancestors");
+        }
+        return id;
+    }
+}
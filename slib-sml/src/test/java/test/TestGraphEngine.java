@@ -33,31 +33,65 @@ package test;
  */
 import java.io.BufferedReader;
 import java.io.DataInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import org.openrdf.model.URI;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.RDFS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import slib.graph.algo.accessor.AnnotationStore;
+import slib.graph.algo.extraction.rvf.ReachabilityIndex;
 import slib.graph.io.conf.GDataConf;
 import slib.graph.io.loader.slibformat.GraphLoader_SLIB;
 import slib.graph.io.util.GFormat;
 import slib.graph.model.graph.G;
+import slib.graph.model.graph.weight.GWS;
 import slib.graph.model.impl.graph.memory.GraphMemory;
+import slib.graph.model.impl.graph.weight.GWS_impl;
 import slib.graph.model.impl.repo.URIFactoryMemory;
 import slib.graph.model.repo.URIFactory;
+import slib.sml.sm.core.measures.Measure_Groupwise_Bounded;
+import slib.sml.sm.core.measures.graph.framework.dag.Sim_Framework_DAG_Set_Jaccard_1901;
+import slib.sml.sm.core.measures.graph.groupwise.dag.Sim_groupwise_DAG_GIC;
+import slib.sml.sm.core.measures.graph.groupwise.dag.Sim_groupwise_DAG_UI;
+import slib.sml.sm.core.measures.graph.pairwise.dag.node_based.Sim_pairwise_DAG_node_IC_Tversky_Ratio_Model;
 import slib.sml.sm.core.metrics.ic.utils.IC_Conf_Topo;
+import slib.sml.sm.core.metrics.ic.utils.ICconf;
+import slib.sml.sm.core.metrics.ic.utils.IcUtils;
+import slib.sml.sm.core.utils.LCAFinder;
+import slib.sml.sm.core.utils.LCAFinderImpl;
+import slib.sml.sm.core.utils.LCAFinderIndexed;
 import slib.sml.sm.core.utils.SMConstants;
+import slib.sml.sm.core.utils.SMconf;
+import slib.sml.sm.core.engine.AnnotationProfile;
+import slib.sml.sm.core.engine.PairwiseMeasureHandle;
+import slib.sml.sm.core.engine.PairwiseResultCache;
 import slib.sml.sm.core.engine.SM_Engine;
+import slib.sml.sm.core.engine.SM_EngineConf;
+import slib.sml.sm.core.engine.SM_EngineSnapshot;
 import slib.utils.ex.SLIB_Ex_Critic;
+import slib.utils.ex.SLIB_Exception;
+import slib.utils.impl.MatrixFloat;
+import slib.utils.impl.SetUtils;
+import slib.utils.threads.ThreadManager;
 
 /**
  *
@@ -305,4 +339,607 @@ public class TestGraphEngine {
 
         }
     }
+
+    @Test
+    public void test_lcas() throws SLIB_Exception {
+
+        LCAFinder expected = new LCAFinderImpl(engine);
+        LCAFinder indexed = new LCAFinderIndexed(engine);
+
+        for (URI a : engine.getClasses()) {
+            for (URI b : engine.getClasses()) {
+                assertEquals(expected.getLCAs(a, b), indexed.getLCAs(a, b));
+            }
+        }
+    }
+
+    @Test
+    public void test_mica() throws SLIB_Exception {
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        Map<URI, Double> ics = engine.getIC_results(icConf);
+
+        for (URI a : engine.getClasses()) {
+            for (URI b : engine.getClasses()) {
+                double expected = IcUtils.searchMax_IC_MICA(a, b, engine.getAncestorsInc(a), engine.getAncestorsInc(b), ics);
+                assertEquals(expected, engine.getIC_MICA(icConf, a, b), 0.0000001);
+                assertEquals(expected, ics.get(engine.getMICA(icConf, a, b)), 0.0000001);
+            }
+        }
+    }
+
+    @Test
+    public void test_unit_weighting_scheme() throws SLIB_Exception {
+
+        GWS ws = engine.getWeightingScheme(null);
+        GWS unit = new GWS_impl(1);
+        assertTrue(engine.isUnitWeightingScheme(ws));
+        assertTrue(engine.isUnitWeightingScheme(unit));
+        assertFalse(engine.isUnitWeightingScheme(new GWS_impl(2)));
+        try {
+            ws.setDefaultWeight(2);
+            assertTrue(false);
+        } catch (UnsupportedOperationException e) {
+            assertEquals(1, ws.getDefaultWeight(), 0);
+        }
+
+        // an equivalent scheme leads to the same distances, scaling the
+        // weights does not change the MSAs
+        GWS doubled = new GWS_impl(2);
+        for (URI a : engine.getClasses()) {
+            assertEquals(engine.getAncestorDistances(a, ws), engine.getAncestorDistances(a, unit));
+            for (URI b : engine.getClasses()) {
+                assertEquals(engine.getMSA(a, b, ws), engine.getMSA(a, b, unit));
+                assertEquals(engine.getMSA(a, b, unit), engine.getMSA(a, b, doubled));
+            }
+        }
+
+        URI c3 = factory.getURI(uriGraphTest + "C_3");
+        URI c12 = factory.getURI(uriGraphTest + "C_12");
+        URI c14 = factory.getURI(uriGraphTest + "C_14");
+        Object[][] expected = {
+            {SMConstants.FLAG_SIM_PAIRWISE_DAG_EDGE_RADA_LCA_1989, 1. / 3, 1. / 4},
+            {SMConstants.FLAG_SIM_PAIRWISE_DAG_EDGE_WU_PALMER_1994, 4. / 5, 4. / 7},
+            {SMConstants.FLAG_SIM_PAIRWISE_DAG_EDGE_LEACOCK_CHODOROW_1998, 1.2039728043259361, 0.916290731874155},
+            {SMConstants.FLAG_SIM_PAIRWISE_DAG_EDGE_PEKAR_STAAB_2002, 3. / 5, 1. / 4}
+        };
+        for (Object[] e : expected) {
+            SMconf conf = new SMconf((String) e[0]);
+            assertEquals((Double) e[1], engine.compare(conf, c12, c14), 0.0000001);
+            assertEquals((Double) e[2], engine.compare(conf, c12, c3), 0.0000001);
+        }
+    }
+
+    @Test
+    public void test_pairwise_cache() throws SLIB_Exception {
+
+        SMconf conf = new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_EDGE_WU_PALMER_1994);
+        Map<URI, Map<URI, Double>> expected = new HashMap<URI, Map<URI, Double>>();
+        for (URI a : engine.getClasses()) {
+            expected.put(a, new HashMap<URI, Double>());
+            for (URI b : engine.getClasses()) {
+                expected.get(a).put(b, engine.compare(conf, a, b));
+            }
+        }
+
+        engine.setCachePairwiseResults(true);
+        try {
+            PairwiseResultCache cache = engine.getPairwiseCache();
+            for (int i = 0; i < 2; i++) {
+                for (URI a : engine.getClasses()) {
+                    for (URI b : engine.getClasses()) {
+                        assertEquals(expected.get(a).get(b), engine.compare(conf, a, b), 0.0000001);
+                    }
+                }
+            }
+            int n = engine.getClasses().size();
+            // the measure is symmetric, (b,a) is found once (a,b) is computed
+            assertEquals((long) n * (n + 1) / 2, cache.getMissCount());
+            assertEquals((long) 2 * n * n - n * (n + 1) / 2, cache.getHitCount());
+        } finally {
+            engine.setCachePairwiseResults(false);
+        }
+
+        PairwiseResultCache cache = new PairwiseResultCache(32);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(conf, i, i, i);
+        }
+        assertTrue(cache.size() <= 32);
+        assertEquals((long) 1000 - cache.size(), cache.getEvictionCount());
+        assertEquals(999, cache.get(conf, 999, 999), 0);
+
+        // the configurations keep being cached once the maximal number of
+        // registered configurations is reached
+        cache = new PairwiseResultCache(4 * PairwiseResultCache.MAX_CONFS);
+        Object[] confs = new Object[2 * PairwiseResultCache.MAX_CONFS];
+        for (int c = 0; c < confs.length; c++) {
+            confs[c] = new Object();
+            cache.put(confs[c], 1, 2, c);
+            assertEquals(c, cache.get(confs[c], 1, 2), 0);
+        }
+        assertTrue(cache.size() <= PairwiseResultCache.MAX_CONFS);
+        assertTrue(cache.get(confs[0], 1, 2) == null);
+    }
+
+    @Test
+    public void test_pairwise_cache_asymmetric() throws SLIB_Exception {
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        SMconf conf = new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_TVERSKY_IC_RATIO_MODEL, icConf);
+        conf.addParam(Sim_pairwise_DAG_node_IC_Tversky_Ratio_Model.alpha_param_name, 1);
+        conf.addParam(Sim_pairwise_DAG_node_IC_Tversky_Ratio_Model.beta_param_name, 0);
+        URI a = factory.getURI(uriGraphTest + "C_12");
+        URI b = factory.getURI(uriGraphTest + "C_2");
+
+        double ab = new SM_Engine(graph).compare(conf, a, b);
+        double ba = new SM_Engine(graph).compare(conf, b, a);
+        assertTrue(ab != ba);
+
+        // the configuration is asymmetric, the default parameters of the
+        // measure are symmetric
+        engine.setCachePairwiseResults(true);
+        try {
+            assertEquals(ab, engine.compare(conf, a, b), 0.0000001);
+            assertEquals(ba, engine.compare(conf, b, a), 0.0000001);
+            assertEquals(ab, engine.compare(conf, a, b), 0.0000001);
+        } finally {
+            engine.setCachePairwiseResults(false);
+        }
+
+        // handle created before the measure has been used with the
+        // configuration
+        SM_Engine fresh = new SM_Engine(graph);
+        fresh.setCachePairwiseResults(true);
+        PairwiseMeasureHandle handle = fresh.getPairwiseHandle(conf);
+        int ia = fresh.getClassId(a);
+        int ib = fresh.getClassId(b);
+        assertEquals(ab, fresh.compare(handle, ia, ib), 0.0000001);
+        assertEquals(ba, fresh.compare(handle, ib, ia), 0.0000001);
+    }
+
+    @Test
+    public void test_snapshot() throws Exception {
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        Map<URI, Double> ics = engine.getIC_results(icConf);
+
+        File snapshot = File.createTempFile("engine", ".snapshot");
+        try {
+            engine.saveSnapshot(snapshot.getPath());
+
+            SM_Engine loaded = new SM_Engine(graph, new SM_EngineConf().setSnapshot(snapshot.getPath()));
+            for (URI v : engine.getClasses()) {
+                assertEquals(engine.getAncestorsInc(v), loaded.getAncestorsInc(v));
+                assertEquals(engine.getDescendantsInc(v), loaded.getDescendantsInc(v));
+            }
+            assertEquals(engine.getLeaves(), loaded.getLeaves());
+            assertEquals(ics, loaded.getIC_results(icConf));
+
+            // the snapshot is ignored for another graph
+            G other = new GraphMemory(factory.getURI(uriGraphTest + "other"));
+            new GraphLoader_SLIB().populate(new GDataConf(GFormat.SLIB, graphFile), other);
+            other.removeV(other.getV().iterator().next());
+            assertFalse(SM_EngineSnapshot.load(new SM_Engine(other), snapshot.getPath()));
+        } finally {
+            snapshot.delete();
+        }
+    }
+
+    @Test
+    public void test_lazy() throws SLIB_Exception {
+
+        SM_Engine lazy = new SM_Engine(graph, new SM_EngineConf().setLazy(true));
+        assertTrue(lazy.getPrecomputations().isEmpty());
+
+        for (URI v : engine.getClasses()) {
+            assertEquals(engine.getAncestorsInc(v), lazy.getAncestorsInc(v));
+            assertEquals(engine.getDescendantsInc(v), lazy.getDescendantsInc(v));
+        }
+        assertTrue(lazy.getPrecomputations().isEmpty());
+
+        // class ids do not require the ancestors of all classes
+        Map<URI, Integer> ids = new HashMap<URI, Integer>();
+        for (URI v : lazy.getClasses()) {
+            int id = lazy.getClassId(v);
+            assertEquals(v, lazy.getClassURI(id));
+            ids.put(v, id);
+        }
+        assertTrue(lazy.getPrecomputations().isEmpty());
+
+        assertEquals(engine.getLeaves(), lazy.getLeaves());
+        assertEquals(EnumSet.of(SM_Engine.Precomputation.LEAVES), lazy.getPrecomputations());
+
+        assertEquals(engine.getAllNbDescendantsInc(), lazy.getAllNbDescendantsInc());
+        assertTrue(lazy.getPrecomputations().contains(SM_Engine.Precomputation.DESCENDANTS));
+        assertFalse(lazy.getPrecomputations().contains(SM_Engine.Precomputation.ANCESTORS));
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        for (URI a : engine.getClasses()) {
+            for (URI b : engine.getClasses()) {
+                assertEquals(engine.getIC_MICA(icConf, a, b), lazy.getIC_MICA(icConf, a, b), 0.0000001);
+            }
+        }
+
+        ReachabilityIndex ancestors = lazy.getAncestorsIndex();
+        for (URI v : lazy.getClasses()) {
+            assertEquals((int) ids.get(v), ancestors.getId(v));
+            assertEquals((int) ids.get(v), lazy.getClassId(v));
+        }
+    }
+
+    @Test
+    public void test_primitive_compare() throws SLIB_Exception {
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        SMconf[] confs = {
+            new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_RESNIK_1995, icConf),
+            new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_LIN_1998, icConf),
+            new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_EDGE_WU_PALMER_1994)
+        };
+        for (SMconf conf : confs) {
+            PairwiseMeasureHandle handle = engine.getPairwiseHandle(conf);
+            for (URI a : engine.getClasses()) {
+                int ia = engine.getClassId(a);
+                assertEquals(a, engine.getClassURI(ia));
+                for (URI b : engine.getClasses()) {
+                    assertEquals(engine.compare(conf, a, b), engine.compare(handle, ia, engine.getClassId(b)), 0.0000001);
+                }
+            }
+        }
+        assertTrue(engine.getPairwiseHandle(confs[0]).isPrimitive());
+        assertFalse(engine.getPairwiseHandle(confs[2]).isPrimitive());
+
+        for (URI a : engine.getClasses()) {
+            int ia = engine.getClassId(a);
+            Set<URI> anc = new HashSet<URI>();
+            for (int id : engine.getAncestorIds(ia)) {
+                anc.add(engine.getClassURI(id));
+            }
+            anc.add(a);
+            assertEquals(engine.getAncestorsInc(a), anc);
+            Set<URI> desc = new HashSet<URI>();
+            for (int id : engine.getDescendantIds(ia)) {
+                desc.add(engine.getClassURI(id));
+            }
+            desc.add(a);
+            assertEquals(engine.getDescendantsInc(a), desc);
+        }
+    }
+
+    @Test
+    public void test_fused_compare() throws SLIB_Exception {
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        List<SMconf> confs = Arrays.asList(
+                new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_RESNIK_1995, icConf),
+                new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_LIN_1998, icConf),
+                new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_JIANG_CONRATH_1997_NORM, icConf),
+                new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_EDGE_WU_PALMER_1994));
+
+        for (URI a : engine.getClasses()) {
+            for (URI b : engine.getClasses()) {
+                double[] scores = engine.compare(confs, a, b);
+                assertEquals(confs.size(), scores.length);
+                for (int i = 0; i < scores.length; i++) {
+                    assertEquals(engine.compare(confs.get(i), a, b), scores[i], 0.0000001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_batch_compare() throws SLIB_Exception {
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        List<SMconf> confs = Arrays.asList(
+                new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_LIN_1998, icConf),
+                new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_EDGE_WU_PALMER_1994));
+
+        // pairs given in reverse order of the classes, repeated to use the parallel evaluation
+        URI[] classes = engine.getClasses().toArray(new URI[0]);
+        int nbPairs = classes.length * classes.length * 3;
+        URI[] as = new URI[nbPairs];
+        URI[] bs = new URI[nbPairs];
+        for (int i = 0; i < nbPairs; i++) {
+            as[i] = classes[classes.length - 1 - (i / classes.length) % classes.length];
+            bs[i] = classes[i % classes.length];
+        }
+
+        ThreadManager threadManager = ThreadManager.getSingleton();
+        int maxThread = threadManager.getMaxThread();
+        threadManager.setMaxThread(4);
+        try {
+            double[] scores = engine.compare(confs, as, bs);
+            assertEquals(nbPairs * confs.size(), scores.length);
+            for (int i = 0; i < nbPairs; i++) {
+                for (int m = 0; m < confs.size(); m++) {
+                    assertEquals(engine.compare(confs.get(m), as[i], bs[i]), scores[i * confs.size() + m], 0.0000001);
+                }
+            }
+        } finally {
+            threadManager.setMaxThread(maxThread);
+        }
+    }
+
+    @Test
+    public void test_batch_compare_missing_ic() throws SLIB_Exception {
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        List<SMconf> confs = Arrays.asList(new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_LIN_1998, icConf));
+
+        // no IC for the last class compared
+        URI[] classes = engine.getClasses().toArray(new URI[0]);
+        Map<URI, Double> ics = new HashMap<URI, Double>(engine.getIC_results(icConf));
+        ics.remove(classes[classes.length - 1]);
+        SM_Engine partial = new SM_Engine(graph);
+        partial.setICSvalues(icConf, ics);
+
+        int nbPairs = classes.length * classes.length * 3;
+        URI[] as = new URI[nbPairs];
+        URI[] bs = new URI[nbPairs];
+        for (int i = 0; i < nbPairs; i++) {
+            as[i] = classes[(i / classes.length) % classes.length];
+            bs[i] = classes[i % classes.length];
+        }
+
+        ThreadManager threadManager = ThreadManager.getSingleton();
+        int maxThread = threadManager.getMaxThread();
+        threadManager.setMaxThread(4);
+        try {
+            try {
+                partial.compare(confs, as, bs);
+                fail("The missing IC should have been detected");
+            } catch (SLIB_Ex_Critic e) {
+                assertTrue(e.getMessage().contains("No IC"));
+            }
+            try {
+                // several bands of tiles
+                URI[] rows = Arrays.copyOf(bs, classes.length * 5);
+                partial.getMatrixScore(confs.get(0), rows, rows, MatrixFloat.allocate(rows.length, rows.length));
+                fail("The missing IC should have been detected");
+            } catch (SLIB_Ex_Critic e) {
+                assertTrue(e.getMessage().contains("No IC"));
+            }
+        } finally {
+            threadManager.setMaxThread(maxThread);
+        }
+    }
+
+    @Test
+    public void test_matrix_score() throws Exception {
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        SMconf conf = new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_LIN_1998, icConf);
+
+        // classes repeated in order to obtain several bands of tiles
+        URI[] classes = engine.getClasses().toArray(new URI[0]);
+        URI[] rows = new URI[classes.length * 5];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = classes[i % classes.length];
+        }
+        URI[] columns = Arrays.copyOf(classes, classes.length / 2);
+
+        File file = File.createTempFile("slib_matrix", ".bin");
+        file.deleteOnExit();
+
+        ThreadManager threadManager = ThreadManager.getSingleton();
+        int maxThread = threadManager.getMaxThread();
+        threadManager.setMaxThread(4);
+        try {
+            MatrixFloat[] matrices = {
+                engine.getMatrixScore(conf, rows, rows, MatrixFloat.allocate(rows.length, rows.length)),
+                engine.getMatrixScore(conf, rows, rows, MatrixFloat.allocateDirect(rows.length, rows.length)),
+                engine.getMatrixScore(conf, rows, columns, MatrixFloat.map(file, rows.length, columns.length))
+            };
+            for (MatrixFloat m : matrices) {
+                URI[] cols = m.isSquare() ? rows : columns;
+                for (int i = 0; i < rows.length; i++) {
+                    for (int j = 0; j < cols.length; j++) {
+                        assertEquals(engine.compare(conf, rows[i], cols[j]), m.get(i, j), 0.00001);
+                    }
+                }
+            }
+            matrices[2].flush();
+            assertEquals(4L * rows.length * columns.length, file.length());
+        } finally {
+            threadManager.setMaxThread(maxThread);
+        }
+    }
+
+    @Test
+    public void test_most_similar() throws SLIB_Exception {
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        SMconf[] confs = {
+            new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_RESNIK_1995, icConf),
+            new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_LIN_1998, icConf),
+            new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_JIANG_CONRATH_1997_NORM, icConf),
+            new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_EDGE_WU_PALMER_1994)
+        };
+        int k = 5;
+        for (final SMconf conf : confs) {
+            for (final URI a : engine.getClasses()) {
+
+                List<Entry<URI, Double>> mostSimilar = engine.getMostSimilar(conf, a, k);
+
+                // scores of all the other classes by decreasing score
+                List<Double> expected = new ArrayList<Double>();
+                for (URI b : engine.getClasses()) {
+                    if (!b.equals(a)) {
+                        expected.add(engine.compare(conf, a, b));
+                    }
+                }
+                Collections.sort(expected, Collections.reverseOrder());
+
+                assertEquals(Math.min(k, expected.size()), mostSimilar.size());
+                for (int i = 0; i < mostSimilar.size(); i++) {
+                    Entry<URI, Double> e = mostSimilar.get(i);
+                    assertFalse(e.getKey().equals(a));
+                    assertEquals(expected.get(i), e.getValue(), 0.0000001);
+                    assertEquals(engine.compare(conf, a, e.getKey()), e.getValue(), 0.0000001);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_compare_above() throws Exception {
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        SMconf[] confs = {
+            new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_RESNIK_1995, icConf),
+            new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_NODE_LIN_1998, icConf),
+            new SMconf(SMConstants.FLAG_SIM_PAIRWISE_DAG_EDGE_WU_PALMER_1994)
+        };
+        URI[] classes = engine.getClasses().toArray(new URI[0]);
+        URI[] as = new URI[classes.length * classes.length];
+        URI[] bs = new URI[as.length];
+        for (int i = 0; i < as.length; i++) {
+            as[i] = classes[i / classes.length];
+            bs[i] = classes[i % classes.length];
+        }
+        ThreadManager threadManager = ThreadManager.getSingleton();
+        int maxThread = threadManager.getMaxThread();
+        threadManager.setMaxThread(4);
+        try {
+            for (SMconf conf : confs) {
+                for (double threshold : new double[]{0, 0.3, 0.5, 0.8, 1}) {
+                    BitSet above = engine.compareAbove(conf, as, bs, threshold);
+                    for (int i = 0; i < as.length; i++) {
+                        assertEquals(engine.compare(conf, as[i], bs[i]) >= threshold, above.get(i));
+                    }
+                }
+            }
+        } finally {
+            threadManager.setMaxThread(maxThread);
+        }
+
+        // groupwise set based measures
+        String[] setMeasures = {
+            "SIM_FRAMEWORK_DAG_SET_BATET_2010",
+            "SIM_FRAMEWORK_DAG_SET_BRAUN_BLANQUET_1932",
+            "SIM_FRAMEWORK_DAG_SET_DICE_1945",
+            "SIM_FRAMEWORK_DAG_SET_JACCARD_1901",
+            "SIM_FRAMEWORK_DAG_SET_KORBEL_2002",
+            "SIM_FRAMEWORK_DAG_SET_MARYLAND_BRIDGE_2003",
+            "SIM_FRAMEWORK_DAG_SET_OCHIAI_1957",
+            "SIM_FRAMEWORK_DAG_SET_SOKAL_SNEATH_1963"
+        };
+        for (String flag : setMeasures) {
+            SMconf conf = new SMconf(flag);
+            Measure_Groupwise_Bounded bounded = (Measure_Groupwise_Bounded) Class.forName(conf.getClassName()).newInstance();
+            for (int i = 0; i < as.length; i++) {
+                Set<URI> setA = new HashSet<URI>(Arrays.asList(as[i]));
+                Set<URI> setB = new HashSet<URI>(Arrays.asList(bs[i], classes[(i + 1) % classes.length]));
+                double sim = engine.compare(conf, setA, setB);
+                assertTrue(bounded.getUpperBound(setA, setB, engine, conf) >= sim - 0.0000001);
+                for (double threshold : new double[]{0.3, 0.5, 0.8}) {
+                    assertEquals(sim >= threshold, engine.compareAbove(conf, setA, setB, threshold));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test_annotation_profiles() throws SLIB_Exception {
+
+        ICconf icConf = new IC_Conf_Topo(SMConstants.FLAG_ICI_SANCHEZ_2011);
+        Map<URI, Double> ics = engine.getIC_results(icConf);
+        SMconf conf = new SMconf(SMConstants.FLAG_SIM_GROUPWISE_DAG_GIC, icConf);
+        Sim_groupwise_DAG_GIC gic = new Sim_groupwise_DAG_GIC();
+        Sim_groupwise_DAG_UI ui = new Sim_groupwise_DAG_UI();
+        Sim_Framework_DAG_Set_Jaccard_1901 jaccard = new Sim_Framework_DAG_Set_Jaccard_1901();
+
+        List<URI> classes = new ArrayList<URI>(engine.getClasses());
+        List<Set<URI>> sets = new ArrayList<Set<URI>>();
+        for (int i = 0; i < classes.size(); i++) {
+            sets.add(new HashSet<URI>(classes.subList(i, Math.min(classes.size(), i + 1 + i % 3))));
+        }
+
+        for (Set<URI> setA : sets) {
+            Set<URI> ancA = engine.getAncestorsInc(setA);
+            assertEquals(ancA.size(), engine.getAnnotationProfile(setA).getCardinality());
+
+            for (Set<URI> setB : sets) {
+                Set<URI> ancB = engine.getAncestorsInc(setB);
+                Set<URI> inter = SetUtils.intersection(ancA, ancB);
+                Set<URI> union = SetUtils.union(ancA, ancB);
+
+                AnnotationProfile profileA = engine.getAnnotationProfile(setA);
+                AnnotationProfile profileB = engine.getAnnotationProfile(setB);
+                assertEquals(inter.size(), profileA.getIntersectionCardinality(profileB));
+                assertEquals(union.size(), profileA.getUnionCardinality(profileB));
+
+                double ic_inter = 0, ic_union = 0;
+                for (URI c : inter) {
+                    ic_inter += ics.get(c);
+                }
+                for (URI c : union) {
+                    ic_union += ics.get(c);
+                }
+                assertEquals(ic_inter, profileA.getICSumIntersection(profileB, icConf), 0.0000001);
+                assertEquals(ic_union, profileA.getICSumUnion(profileB, icConf), 0.0000001);
+
+                double expected = ic_union == 0 ? 0 : ic_inter / ic_union;
+                assertEquals(expected, gic.compare(setA, setB, engine, conf), 0.0000001);
+                assertEquals((double) inter.size() / Math.max(union.size(), 1), ui.compare(setA, setB, engine, conf), 0.0000001);
+                assertEquals(jaccard.compare(ancA, ancB, conf), jaccard.compare(setA, setB, engine, conf), 0.0000001);
+            }
+        }
+
+        // the least recently used profiles are evicted
+        SM_Engine bounded = new SM_Engine(graph, new SM_EngineConf().setAnnotationProfileCacheCapacity(2));
+        Set<URI> set0 = Collections.singleton(classes.get(0));
+        Set<URI> set1 = Collections.singleton(classes.get(1));
+        Set<URI> set2 = Collections.singleton(classes.get(2));
+        AnnotationProfile profile0 = bounded.getAnnotationProfile(set0);
+        AnnotationProfile profile1 = bounded.getAnnotationProfile(set1);
+        assertTrue(profile0 == bounded.getAnnotationProfile(set0));
+        bounded.getAnnotationProfile(set2);
+        assertTrue(profile0 == bounded.getAnnotationProfile(set0));
+        assertFalse(profile1 == bounded.getAnnotationProfile(set1));
+        assertEquals(profile1.getCardinality(), bounded.getAnnotationProfile(set1).getCardinality());
+
+        // a large cache is striped, all the profiles fit in it
+        bounded.setAnnotationProfileCacheCapacity(10000);
+        List<AnnotationProfile> profiles = new ArrayList<AnnotationProfile>();
+        for (URI c : classes) {
+            profiles.add(bounded.getAnnotationProfile(Collections.singleton(c)));
+        }
+        for (int i = 0; i < classes.size(); i++) {
+            assertTrue(profiles.get(i) == bounded.getAnnotationProfile(Collections.singleton(classes.get(i))));
+        }
+
+        // the profile of an entity requires an instance accessor
+        SM_Engine noAccessor = new SM_Engine(graph, Collections.singleton(RDFS.SUBCLASSOF), null, null);
+        try {
+            noAccessor.getEntityProfile(classes.get(0));
+            assertTrue(false);
+        } catch (SLIB_Ex_Critic e) {
+            assertTrue(e.getMessage().contains("Instance Accessor"));
+        }
+    }
+
+    @Test
+    public void test_corpus_annotation_store() throws SLIB_Exception {
+
+        G annotated = new GraphMemory(factory.getURI(uriGraphTest + "annotated/"));
+        annotated.addE(graph.getE());
+        AnnotationStore store = new AnnotationStore();
+
+        List<URI> classes = new ArrayList<URI>(engine.getClasses());
+        for (int i = 0; i < 20; i++) {
+            URI instance = factory.getURI(uriGraphTest + "instance_" + i);
+            for (int k = 0; k <= i % 3; k++) {
+                URI c = classes.get((i * 7 + k * 5) % classes.size());
+                annotated.addE(instance, RDF.TYPE, c);
+                store.addAnnotation(instance, c);
+            }
+        }
+        SM_Engine engineGraph = new SM_Engine(annotated);
+        SM_Engine engineStore = new SM_Engine(graph, Collections.singleton(RDFS.SUBCLASSOF), null, engine.getClasses(), store);
+
+        assertEquals(engineGraph.getNbInstancesInferredPropFromCorpus(true), engineStore.getNbInstancesInferredPropFromCorpus(true));
+        assertEquals(engineGraph.getNbInstancesInferredPropFromCorpus(false), engineStore.getNbInstancesInferredPropFromCorpus(false));
+    }
 }
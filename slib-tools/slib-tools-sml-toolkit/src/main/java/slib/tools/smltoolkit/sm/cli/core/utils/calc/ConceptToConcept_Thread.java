@@ -33,7 +33,9 @@
  */
 package slib.tools.smltoolkit.sm.cli.core.utils.calc;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Callable;
 import org.openrdf.model.URI;
 import org.slf4j.Logger;
@@ -96,8 +98,10 @@ public class ConceptToConcept_Thread implements Callable<ThreadResultsQueryLoade
             StringBuilder tmp_buffer = new StringBuilder();
 
             URI e1, e2;
-            double sim;
-            int nbMeasures = sspM.conf.gConfPairwise.size();
+            double[] scores;
+            // the measures are evaluated together in order to share the intermediate results
+            List<SMconf> pairwiseConfs = new ArrayList<SMconf>(sspM.conf.gConfPairwise);
+            int nbMeasures = pairwiseConfs.size();
             boolean printBaseName = queryParam.isOutputBaseName();
             boolean useLoadedPrefixes = queryParam.isUseLoadedURIprefixes();
             boolean useLoadedPrefixesOutput = queryParam.isUseLoadedURIprefixesOutput();
@@ -163,17 +167,15 @@ public class ConceptToConcept_Thread implements Callable<ThreadResultsQueryLoade
                 }
 
                 tmp_buffer.append(ids_pairs);
-                for (SMconf p : sspM.conf.gConfPairwise) {
+                scores = sspM.simManager.compare(pairwiseConfs, e1, e2);
 
-                    sim = sspM.simManager.compare(p, e1, e2);
+                for (int i = 0; i < nbMeasures; i++) {
 
-                    tmp_buffer.append("\t").append(sim);
+                    tmp_buffer.append("\t").append(scores[i]);
 
-                    if (Double.isNaN(sim) || Double.isInfinite(sim)) {
-                        SMutils.throwArithmeticCriticalException(p, e1, e2, sim);
+                    if (Double.isNaN(scores[i]) || Double.isInfinite(scores[i])) {
+                        SMutils.throwArithmeticCriticalException(pairwiseConfs.get(i), e1, e2, scores[i]);
                     }
-
-
                 }
                 tmp_buffer.append("\n");
             }
@@ -0,0 +1,218 @@
+/* 
+ *  Copyright or © or Copr. Ecole des Mines d'Alès (2012-2014) 
+ *  
+ *  This software is a computer program whose purpose is to provide 
+ *  several functionalities for the processing of semantic data 
+ *  sources such as ontologies or text corpora.
+ *  
+ *  This software is governed by the CeCILL  license under French law and
+ *  abiding by the rules of distribution of free software.  You can  use, 
+ *  modify and/ or redistribute the software under the terms of the CeCILL
+ *  license as circulated by CEA, CNRS and INRIA at the following URL
+ *  "http://www.cecill.info". 
+ * 
+ *  As a counterpart to the access to the source code and  rights to copy,
+ *  modify and redistribute granted by the license, users are provided only
+ *  with a limited warranty  and the software's author,  the holder of the
+ *  economic rights,  and the successive licensors  have only  limited
+ *  liability. 
+
+ *  In this respect, the user's attention is drawn to the risks associated
+ *  with loading,  using,  modifying and/or developing or reproducing the
+ *  software by the user in light of its specific status of free software,
+ *  that may mean  that it is complicated to manipulate,  and  that  also
+ *  therefore means  that it is reserved for developers  and  experienced
+ *  professionals having in-depth computer knowledge. Users are therefore
+ *  encouraged to load and test the software's suitability as regards their
+ *  requirements in conditions enabling the security of their systems and/or 
+ *  data to be ensured and,  more generally, to use and operate it in the 
+ *  same conditions as regards security. 
+ * 
+ *  The fact that you are presently reading this means that you have had
+ *  knowledge of the CeCILL license and that you accept its terms.
+ */
+package slib.utils.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import slib.utils.ex.SLIB_Ex_Critic;
+
+/**
+ * Dense matrix of primitive floats indexed by integers. The values are stored
+ * row by row, either in the heap, in direct (off-heap) memory or in a memory
+ * mapped file. The two last storages are not limited by the size of the heap,
+ * a mapped file can be larger than the available memory.
+ *
+ * The values are stored in several buffers of at most 2GB, each buffer
+ * containing a block of rows. Values of distinct cells can be set
+ * concurrently.
+ *
+ * @author Sébastien Harispe (sebastien.harispe@gmail.com)
+ */
+public class MatrixFloat {
+
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE / 4;
+
+    private final int rows_number;
+    private final int columns_number;
+    private final int rowsPerBuffer;
+    private final FloatBuffer[] buffers;
+    // the mappings of the file, null if the matrix is not stored in a file
+    private MappedByteBuffer[] mapped;
+
+    private MatrixFloat(int rows_number, int columns_number) {
+
+        if (rows_number < 0 || columns_number < 0) {
+            throw new IllegalArgumentException("Invalid matrix size " + rows_number + "x" + columns_number);
+        }
+        this.rows_number = rows_number;
+        this.columns_number = columns_number;
+        this.rowsPerBuffer = columns_number == 0 ? Math.max(1, rows_number) : Math.max(1, MAX_BUFFER_SIZE / columns_number);
+        this.buffers = new FloatBuffer[(rows_number + rowsPerBuffer - 1) / rowsPerBuffer];
+    }
+
+    /**
+     * Create a matrix stored in the heap, the values are set to 0.
+     *
+     * @param rows_number the number of rows
+     * @param columns_number the number of columns
+     * @return the matrix
+     */
+    public static MatrixFloat allocate(int rows_number, int columns_number) {
+
+        MatrixFloat m = new MatrixFloat(rows_number, columns_number);
+        for (int i = 0; i < m.buffers.length; i++) {
+            m.buffers[i] = FloatBuffer.allocate(m.getBufferRows(i) * columns_number);
+        }
+        return m;
+    }
+
+    /**
+     * Create a matrix stored outside of the heap, the values are set to 0.
+     *
+     * @param rows_number the number of rows
+     * @param columns_number the number of columns
+     * @return the matrix
+     */
+    public static MatrixFloat allocateDirect(int rows_number, int columns_number) {
+
+        MatrixFloat m = new MatrixFloat(rows_number, columns_number);
+        for (int i = 0; i < m.buffers.length; i++) {
+            m.buffers[i] = ByteBuffer.allocateDirect(m.getBufferRows(i) * columns_number * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+        return m;
+    }
+
+    /**
+     * Create a matrix stored in a memory mapped file. The file is created or
+     * extended if required, its existing content is used as the values of the
+     * matrix. The floats are stored row by row using the native byte order of
+     * the platform.
+     *
+     * @param file the file storing the matrix
+     * @param rows_number the number of rows
+     * @param columns_number the number of columns
+     * @return the matrix
+     * @throws SLIB_Ex_Critic if the file cannot be mapped
+     */
+    public static MatrixFloat map(File file, int rows_number, int columns_number) throws SLIB_Ex_Critic {
+
+        MatrixFloat m = new MatrixFloat(rows_number, columns_number);
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            FileChannel channel = raf.getChannel();
+            m.mapped = new MappedByteBuffer[m.buffers.length];
+            long position = 0;
+            for (int i = 0; i < m.buffers.length; i++) {
+                long size = (long) m.getBufferRows(i) * columns_number * 4;
+                m.mapped[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+                m.buffers[i] = m.mapped[i].order(ByteOrder.nativeOrder()).asFloatBuffer();
+                position += size;
+            }
+        } catch (IOException e) {
+            throw new SLIB_Ex_Critic("Cannot map matrix file " + file + ": " + e.getMessage());
+        } finally {
+            if (raf != null) {
+                try {
+                    raf.close();
+                } catch (IOException e) {
+                    // the mappings remain valid once the file is closed
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Write the values of a matrix stored in a file to the storage device, no
+     * effect for the other matrices.
+     */
+    public void flush() {
+        if (mapped != null) {
+            for (MappedByteBuffer b : mapped) {
+                b.force();
+            }
+        }
+    }
+
+    private int getBufferRows(int buffer) {
+        return Math.min(rowsPerBuffer, rows_number - buffer * rowsPerBuffer);
+    }
+
+    /**
+     * @param row the index of the row
+     * @param column the index of the column
+     * @return the value of the cell
+     */
+    public float get(int row, int column) {
+        checkIndex(row, column);
+        return buffers[row / rowsPerBuffer].get((row % rowsPerBuffer) * columns_number + column);
+    }
+
+    /**
+     * @param row the index of the row
+     * @param column the index of the column
+     * @param value the value of the cell
+     */
+    public void set(int row, int column, float value) {
+        checkIndex(row, column);
+        buffers[row / rowsPerBuffer].put((row % rowsPerBuffer) * columns_number + column, value);
+    }
+
+    private void checkIndex(int row, int column) {
+        if (row < 0 || row >= rows_number || column < 0 || column >= columns_number) {
+            throw new IndexOutOfBoundsException("Cell (" + row + "," + column + ") outside of matrix " + rows_number + "x" + columns_number);
+        }
+    }
+
+    /**
+     *
+     * @return the number of column.
+     */
+    public int getNbColumns() {
+        return columns_number;
+    }
+
+    /**
+     *
+     * @return the number of row.
+     */
+    public int getNbRows() {
+        return rows_number;
+    }
+
+    /**
+     *
+     * @return true if the matrix is square
+     */
+    public boolean isSquare() {
+        return rows_number == columns_number;
+    }
+}